@@ -0,0 +1,44 @@
+// JMH benchmarks for the hot paths of the chat, pubsub and eventsub modules
+// Usage: ./gradlew :benchmarks:jmh (optionally with -PjmhIncludes=<regex>)
+plugins {
+	java
+	id("me.champeau.jmh") version "0.6.5"
+}
+
+java {
+	sourceCompatibility = JavaVersion.VERSION_1_8
+	targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+	// Twitch4J Modules
+	jmh(project(":chat"))
+	jmh(project(":pubsub"))
+	jmh(project(":eventsub-common"))
+
+	// Logging (avoid measuring log output)
+	jmh(group = "org.slf4j", name = "slf4j-nop", version = "1.7.30")
+}
+
+tasks.withType<JavaCompile> {
+	options.encoding = "UTF-8"
+}
+
+jmh {
+	jmhVersion.set("1.32")
+	fork.set(1)
+	warmupIterations.set(3)
+	iterations.set(5)
+	timeUnit.set("us")
+	benchmarkMode.addAll("thrpt", "avgt")
+
+	// allocation rates (gc.alloc.rate.norm) are the primary gate for hot path changes
+	profilers.addAll("gc")
+
+	resultFormat.set("JSON")
+	resultsFile.set(project.file("${project.buildDir}/results/jmh/results.json"))
+	humanOutputFile.set(project.file("${project.buildDir}/results/jmh/human.txt"))
+
+	(findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+	(findProperty("jmhProfilers") as String?)?.let { profilers.addAll(it.split(',')) }
+}
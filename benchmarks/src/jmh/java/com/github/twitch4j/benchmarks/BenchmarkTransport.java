@@ -0,0 +1,54 @@
+package com.github.twitch4j.benchmarks;
+
+import com.github.twitch4j.common.config.ProxyConfig;
+import com.github.twitch4j.common.socket.WebSocketConnection;
+import com.github.twitch4j.common.socket.WebSocketListener;
+import com.github.twitch4j.common.socket.WebSocketTransport;
+
+/**
+ * In-memory {@link WebSocketTransport} that connects instantly and lets the benchmark deliver frames
+ * directly to the listener of the most recently created connection, bypassing any network code.
+ */
+public final class BenchmarkTransport implements WebSocketTransport {
+
+    private volatile WebSocketListener listener;
+
+    @Override
+    public WebSocketConnection create(String url, ProxyConfig proxyConfig, WebSocketListener listener) {
+        this.listener = listener;
+        return new WebSocketConnection() {
+            private volatile boolean open;
+
+            @Override
+            public void connect() {
+                open = true;
+                listener.onConnected();
+            }
+
+            @Override
+            public boolean sendText(String text) {
+                return open;
+            }
+
+            @Override
+            public void disconnect() {
+                open = false;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+        };
+    }
+
+    /**
+     * Delivers a text frame on the calling thread, as the websocket callback thread would.
+     *
+     * @param text the frame.
+     */
+    public void deliver(String text) {
+        listener.onTextMessage(text);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.github.twitch4j.benchmarks;
+
+import com.github.twitch4j.chat.TwitchChat;
+import com.github.twitch4j.chat.TwitchChatBuilder;
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.chat.util.InboundLineFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * End-to-end handling of inbound TMI frames by {@link TwitchChat}: line splitting, parsing, {@code IRCEventHandler} routing,
+ * and publishing through the event manager to a trivial consumer.
+ */
+@State(Scope.Thread)
+public class ChatDispatchBenchmark {
+
+    private static final int LINES = Corpus.TMI_LINES.size();
+
+    /**
+     * Whether the chat client only accepts PRIVMSG and USERNOTICE lines via its inbound filter.
+     */
+    @Param({ "false", "true" })
+    public boolean filtered;
+
+    private final String frame = Corpus.toFrame(Corpus.TMI_LINES);
+
+    private BenchmarkTransport transport;
+
+    private TwitchChat chat;
+
+    private long received;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        transport = new BenchmarkTransport();
+        chat = TwitchChatBuilder.builder()
+            .withWebSocketTransport(transport)
+            .withInboundFilter(filtered ? InboundLineFilter.commands("PRIVMSG", "USERNOTICE") : null)
+            .build();
+        chat.joinChannel("twitch");
+        chat.getEventManager().onEvent(IRCMessageEvent.class, e -> received++);
+        chat.getEventManager().onEvent(ChannelMessageEvent.class, e -> received++);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        chat.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long frame() {
+        transport.deliver(frame);
+        return received;
+    }
+
+}
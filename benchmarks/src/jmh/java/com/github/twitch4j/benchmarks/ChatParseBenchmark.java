@@ -0,0 +1,74 @@
+package com.github.twitch4j.benchmarks;
+
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.chat.util.IRCMessageParser;
+import com.github.twitch4j.chat.util.ReusableChatLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsing of raw TMI lines, from the full {@link IRCMessageEvent} down to the allocation-free tokenizer.
+ */
+@State(Scope.Thread)
+public class ChatParseBenchmark {
+
+    private static final int LINES = Corpus.TMI_LINES.size();
+
+    private final List<String> lines = Corpus.TMI_LINES;
+
+    private final Map<String, String> idToName = Collections.singletonMap("12826", "twitch");
+
+    private final Map<String, String> nameToId = Collections.singletonMap("twitch", "12826");
+
+    private final IRCMessageParser parser = new IRCMessageParser();
+
+    private final ReusableChatLine view = new ReusableChatLine(new IRCMessageParser());
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void event(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(new IRCMessageEvent(line, idToName, nameToId, null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void eventWithTagAccess(Blackhole bh) {
+        for (String line : lines) {
+            IRCMessageEvent event = new IRCMessageEvent(line, idToName, nameToId, null);
+            bh.consume(event.getUserId());
+            bh.consume(event.getMessage());
+            bh.consume(event.getTags().get("msg-id"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void tokenize(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(parser.parse(line));
+            bh.consume(parser.getCommandEnd());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void chatLineView(Blackhole bh) {
+        for (String line : lines) {
+            if (view.parse(line, 0, line.length())) {
+                bh.consume(view.isCommand("PRIVMSG"));
+                bh.consume(view.getChannel());
+                bh.consume(view.getTag("user-id"));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.github.twitch4j.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recorded payloads that the benchmarks replay.
+ * <p>
+ * The lines are representative of production traffic (tags, badges, escaping and message lengths),
+ * with identifying information replaced.
+ */
+public final class Corpus {
+
+    /**
+     * Raw TMI lines (without line breaks), covering messages, user notices, whispers, state, moderation and membership lines.
+     */
+    public static final List<String> TMI_LINES = read("/corpus/tmi.txt");
+
+    /**
+     * Raw PubSub websocket messages, covering bits, subscriptions, channel points, whispers and control responses.
+     */
+    public static final List<String> PUBSUB_MESSAGES = read("/corpus/pubsub.jsonl");
+
+    /**
+     * The body of an EventSub webhook notification.
+     */
+    public static final String EVENTSUB_NOTIFICATION = read("/corpus/eventsub-notification.json").get(0);
+
+    private Corpus() {
+    }
+
+    /**
+     * @param lines the lines of a frame.
+     * @return the lines joined into a single websocket frame, as TMI batches them
+     */
+    public static String toFrame(List<String> lines) {
+        return String.join("\r\n", lines) + "\r\n";
+    }
+
+    private static List<String> read(String resource) {
+        try (InputStream in = Corpus.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing corpus resource: " + resource);
+
+            List<String> lines = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+            return Collections.unmodifiableList(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.github.twitch4j.benchmarks;
+
+import com.github.twitch4j.eventsub.util.EventSubVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * HMAC signature verification of EventSub webhook notifications, as performed for every delivery.
+ */
+@State(Scope.Thread)
+public class EventSubVerifierBenchmark {
+
+    private static final String SECRET = "s3cre7-benchmark-secret";
+
+    private final String messageId = "e76c6bd4-55c9-4987-8304-da1588d8988b";
+
+    private final String messageTimestamp = Instant.parse("2021-06-03T18:06:27.634234626Z").toString();
+
+    private final byte[] body = Corpus.EVENTSUB_NOTIFICATION.getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKeySpec secretKey = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), EventSubVerifier.JAVA_HMAC_ALGORITHM);
+
+    private String signature;
+
+    @Setup
+    public void setup() throws Exception {
+        Mac mac = Mac.getInstance(EventSubVerifier.JAVA_HMAC_ALGORITHM);
+        mac.init(secretKey);
+        mac.update(messageId.getBytes(StandardCharsets.UTF_8));
+        mac.update(messageTimestamp.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = mac.doFinal(body);
+
+        StringBuilder sb = new StringBuilder("sha256=");
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        signature = sb.toString();
+
+        if (!EventSubVerifier.verifySignature(secretKey, messageId, messageTimestamp, body, signature))
+            throw new IllegalStateException("Benchmark signature does not verify");
+    }
+
+    @Benchmark
+    public boolean verifyWithKey() {
+        return EventSubVerifier.verifySignature(secretKey, messageId, messageTimestamp, body, signature);
+    }
+
+    @Benchmark
+    public boolean verifyWithStringSecret() {
+        return EventSubVerifier.verifySignature(SECRET, messageId, messageTimestamp, body, signature);
+    }
+
+}
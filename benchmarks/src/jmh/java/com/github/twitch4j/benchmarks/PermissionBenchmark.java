@@ -0,0 +1,70 @@
+package com.github.twitch4j.benchmarks;
+
+import com.github.twitch4j.common.enums.CommandPermission;
+import com.github.twitch4j.common.util.CommandPermissionSet;
+import com.github.twitch4j.common.util.TwitchUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computation of {@link CommandPermission}s from the badges of a message, as done for every chat message and whisper.
+ */
+@State(Scope.Thread)
+public class PermissionBenchmark {
+
+    private static final List<String> BADGES = Arrays.asList(
+        "",
+        "subscriber/12,premium/1",
+        "moderator/1,partner/1",
+        "vip/1,subscriber/3,bits/1000",
+        "broadcaster/1",
+        "subscriber/0,predictions/blue-1",
+        "subscriber/24,sub-gifter/50,hype-train/1",
+        "staff/1,turbo/1"
+    );
+
+    private static final int COUNT = BADGES.size();
+
+    private final List<Map<String, Object>> tags = tags();
+
+    private final List<String> botOwners = Arrays.asList("12826", "40185466");
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void permissionSet(Blackhole bh) {
+        for (Map<String, Object> tag : tags) {
+            Set<CommandPermission> permissions = TwitchUtils.getPermissionsFromTags(tag, new HashMap<>(), "12826", botOwners);
+            bh.consume(permissions.contains(CommandPermission.MODERATOR));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void permissionBits(Blackhole bh) {
+        for (Map<String, Object> tag : tags) {
+            long bits = TwitchUtils.getPermissionBits(tag, null, "12826", botOwners);
+            bh.consume((bits & CommandPermissionSet.bit(CommandPermission.MODERATOR)) != 0);
+        }
+    }
+
+    private static List<Map<String, Object>> tags() {
+        List<Map<String, Object>> maps = new ArrayList<>(COUNT);
+        for (String badges : BADGES) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("badges", badges);
+            maps.add(map);
+        }
+        return maps;
+    }
+
+}
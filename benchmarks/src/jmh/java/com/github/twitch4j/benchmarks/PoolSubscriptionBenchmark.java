@@ -0,0 +1,55 @@
+package com.github.twitch4j.benchmarks;
+
+import com.github.twitch4j.chat.TwitchChatConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Subscribing and unsubscribing channels on a {@link TwitchChatConnectionPool}, including the creation and
+ * disposal of the underlying connections as the pool grows and shrinks.
+ */
+@State(Scope.Thread)
+public class PoolSubscriptionBenchmark {
+
+    private static final int CHANNELS = 500;
+
+    private final String[] channels = new String[CHANNELS];
+
+    private TwitchChatConnectionPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < CHANNELS; i++) {
+            channels[i] = "channel" + i;
+        }
+
+        pool = TwitchChatConnectionPool.builder()
+            .webSocketTransport(new BenchmarkTransport())
+            .useSharedScheduler(true)
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * CHANNELS)
+    public int subscribeAndUnsubscribe() {
+        for (String channel : channels) {
+            pool.subscribe(channel);
+        }
+        int connections = pool.numConnections();
+        for (String channel : channels) {
+            pool.unsubscribe(channel);
+        }
+        return connections;
+    }
+
+}
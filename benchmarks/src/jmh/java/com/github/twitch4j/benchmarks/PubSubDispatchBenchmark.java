@@ -0,0 +1,62 @@
+package com.github.twitch4j.benchmarks;
+
+import com.github.twitch4j.common.events.user.PrivateMessageEvent;
+import com.github.twitch4j.pubsub.TwitchPubSub;
+import com.github.twitch4j.pubsub.TwitchPubSubBuilder;
+import com.github.twitch4j.pubsub.events.ChannelBitsEvent;
+import com.github.twitch4j.pubsub.events.ChannelSubscribeEvent;
+import com.github.twitch4j.pubsub.events.RewardRedeemedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+
+/**
+ * End-to-end handling of inbound PubSub messages by {@link TwitchPubSub}: json deserialization, topic routing,
+ * payload conversion, and publishing through the event manager to a trivial consumer.
+ */
+@State(Scope.Thread)
+public class PubSubDispatchBenchmark {
+
+    private static final int MESSAGES = Corpus.PUBSUB_MESSAGES.size();
+
+    private final List<String> messages = Corpus.PUBSUB_MESSAGES;
+
+    private BenchmarkTransport transport;
+
+    private TwitchPubSub pubSub;
+
+    private long received;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        transport = new BenchmarkTransport();
+        pubSub = TwitchPubSubBuilder.builder()
+            .withWebSocketTransport(transport)
+            .build();
+        pubSub.getEventManager().onEvent(ChannelBitsEvent.class, e -> received++);
+        pubSub.getEventManager().onEvent(ChannelSubscribeEvent.class, e -> received++);
+        pubSub.getEventManager().onEvent(RewardRedeemedEvent.class, e -> received++);
+        pubSub.getEventManager().onEvent(PrivateMessageEvent.class, e -> received++);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        pubSub.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long messages() {
+        for (String message : messages) {
+            transport.deliver(message);
+        }
+        return received;
+    }
+
+}
@@ -26,8 +26,11 @@ allprojects {
 	}
 }
 
+// Published modules (the benchmarks are neither published nor part of the javadoc)
+val libraryProjects = subprojects.filter { it.name != "benchmarks" }
+
 // Subprojects
-subprojects {
+configure(libraryProjects) {
 	apply(plugin = "signing")
 	apply(plugin = "java-library")
 	apply(plugin = "maven-publish")
@@ -87,6 +90,9 @@ subprojects {
 
 			// Hystrix
 			api(group = "com.netflix.hystrix", name = "hystrix-core", version = "1.5.18")
+
+			// Metrics
+			api(group = "io.micrometer", name = "micrometer-core", version = "1.7.0")
 		}
 
 		// Apache Commons
@@ -193,8 +199,8 @@ tasks.register<Javadoc>("aggregateJavadoc") {
 		encoding = "UTF-8"
 	}
 
-	source(subprojects.map { it.tasks.delombok.get() })
-	classpath = files(subprojects.map { it.sourceSets["main"].compileClasspath })
+	source(libraryProjects.map { it.tasks.delombok.get() })
+	classpath = files(libraryProjects.map { it.sourceSets["main"].compileClasspath })
 
 	setDestinationDir(file("${rootDir}/docs/static/javadoc"))
 }
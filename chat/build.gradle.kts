@@ -1,3 +1,7 @@
+plugins {
+	`java-test-fixtures`
+}
+
 // In this section you declare the dependencies for your production and test code
 dependencies {
 	// WebSocket
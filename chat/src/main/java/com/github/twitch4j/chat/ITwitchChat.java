@@ -1,12 +1,14 @@
 package com.github.twitch4j.chat;
 
 import com.github.philippheuer.events4j.core.EventManager;
+import com.github.twitch4j.chat.enums.CommandPriority;
 import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
 import com.github.twitch4j.common.annotation.Unofficial;
 import com.github.twitch4j.common.util.ChatReply;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -31,6 +33,29 @@ public interface ITwitchChat extends AutoCloseable {
      */
     boolean leaveChannel(String channelName);
 
+    /**
+     * Joins multiple channels
+     *
+     * @param channelNames The target channel names.
+     */
+    default void joinChannels(Collection<String> channelNames) {
+        channelNames.forEach(this::joinChannel);
+    }
+
+    /**
+     * Parts from multiple channels
+     *
+     * @param channelNames The target channel names.
+     * @return the number of channels that were previously joined
+     */
+    default int leaveChannels(Collection<String> channelNames) {
+        int n = 0;
+        for (String channelName : channelNames) {
+            if (leaveChannel(channelName)) n++;
+        }
+        return n;
+    }
+
     /**
      * Sends a message in a joined channel.
      *
@@ -70,6 +95,25 @@ public interface ITwitchChat extends AutoCloseable {
     @Unofficial
     boolean sendMessage(String channel, String message, @Unofficial @Nullable Map<String, Object> tags);
 
+    /**
+     * Sends a message to the channel with an explicit priority, rather than the one implied by the message.
+     * <p>
+     * By default, moderation commands (i.e. /timeout) are sent with {@link CommandPriority#MODERATION}
+     * and all other messages with {@link CommandPriority#NORMAL}.
+     * <p>
+     * Note: {@link TwitchChat} and {@link TwitchChatConnectionPool} honor the priority, but the default implementation ignores it
+     * and sends the message as {@link #sendMessage(String, String, Map)} would; other implementations must override this method to support priorities.
+     *
+     * @param channel  the name of the channel to send the message to.
+     * @param message  the message to be sent.
+     * @param tags     the message tags (unofficial).
+     * @param priority the priority of the message, relative to other queued commands.
+     * @return whether the message was added to the queue
+     */
+    default boolean sendMessage(String channel, String message, @Unofficial @Nullable Map<String, Object> tags, CommandPriority priority) {
+        return this.sendMessage(channel, message, tags);
+    }
+
     /**
      * Returns a set of all currently joined channels (without # prefix)
      *
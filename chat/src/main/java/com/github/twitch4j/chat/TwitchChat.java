@@ -4,22 +4,34 @@ import com.github.philippheuer.credentialmanager.CredentialManager;
 import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
 import com.github.philippheuer.events4j.core.EventManager;
 import com.github.twitch4j.auth.providers.TwitchIdentityProvider;
+import com.github.twitch4j.chat.enums.CommandPriority;
 import com.github.twitch4j.chat.enums.CommandSource;
 import com.github.twitch4j.chat.enums.TMIConnectionState;
 import com.github.twitch4j.chat.events.CommandEvent;
 import com.github.twitch4j.chat.events.IRCEventHandler;
 import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
 import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.chat.util.ChannelIdIndex;
+import com.github.twitch4j.chat.util.ChannelRateLimiter;
+import com.github.twitch4j.chat.util.ChatLineSink;
+import com.github.twitch4j.chat.util.IRCMessageParser;
+import com.github.twitch4j.chat.util.IRCTagMap;
+import com.github.twitch4j.chat.util.InboundLineFilter;
+import com.github.twitch4j.chat.util.OutboundCommandScheduler;
+import com.github.twitch4j.chat.util.ReusableChatLine;
 import com.github.twitch4j.common.annotation.Unofficial;
 import com.github.twitch4j.common.config.ProxyConfig;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
+import com.github.twitch4j.common.pool.ReconnectCoordinator;
+import com.github.twitch4j.common.socket.NvWebSocketTransport;
+import com.github.twitch4j.common.socket.WebSocketConnection;
+import com.github.twitch4j.common.socket.WebSocketListener;
+import com.github.twitch4j.common.socket.WebSocketTransport;
 import com.github.twitch4j.common.util.ChatReply;
 import com.github.twitch4j.common.util.CryptoUtils;
 import com.github.twitch4j.common.util.EscapeUtils;
 import com.github.twitch4j.common.util.ExponentialBackoffStrategy;
-import com.neovisionaries.ws.client.WebSocket;
-import com.neovisionaries.ws.client.WebSocketAdapter;
-import com.neovisionaries.ws.client.WebSocketFactory;
-import com.neovisionaries.ws.client.WebSocketFrame;
+import com.github.twitch4j.common.util.SharedScheduler;
 import io.github.bucket4j.Bucket;
 import lombok.Getter;
 import lombok.Synchronized;
@@ -27,7 +39,6 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -79,6 +90,26 @@ public class TwitchChat implements ITwitchChat {
      */
     public static final String FDGT_TEST_SOCKET_SERVER = "wss://irc.fdgt.dev";
 
+    /**
+     * The maximum length of a websocket frame when coalescing multiple queued irc lines
+     */
+    private static final int MAX_FRAME_LENGTH = 4096;
+
+    /**
+     * The maximum length of a single irc line, excluding the trailing CR-LF
+     */
+    private static final int MAX_LINE_LENGTH = 510;
+
+    /**
+     * Prefixes and messages of control lines that are handled directly by the client
+     */
+    private static final String PING_PREFIX = "PING ";
+    private static final String CAP_ACK_PREFIX = ":tmi.twitch.tv CAP * ACK :";
+    private static final String CAP_INVALID_SUFFIX = ":req Invalid CAP command";
+    private static final String LOGIN_FAILED_NOTICE = ":tmi.twitch.tv NOTICE * :Login authentication failed";
+    private static final String WELCOME_PREFIX = ":tmi.twitch.tv 001 ";
+    private static final String GLOBAL_USER_STATE_SUFFIX = ":tmi.twitch.tv GLOBALUSERSTATE";
+
     /**
      * The websocket url for the chat client to connect to.
      */
@@ -93,7 +124,7 @@ public class TwitchChat implements ITwitchChat {
     /**
      * WebSocket Client
      */
-    private volatile WebSocket webSocket;
+    private volatile WebSocketConnection webSocket;
 
     /**
      * The connection state
@@ -122,6 +153,11 @@ public class TwitchChat implements ITwitchChat {
      */
     protected final Map<String, String> channelNameToChannelId = new ConcurrentHashMap<>();
 
+    /**
+     * Index shared with other connections (i.e. of a {@link TwitchChatConnectionPool}) that mirrors new channel mappings, or null
+     */
+    private volatile ChannelIdIndex sharedChannelIndex;
+
     /**
      * IRC Message Bucket
      */
@@ -137,6 +173,18 @@ public class TwitchChat implements ITwitchChat {
      */
     protected final Bucket ircJoinBucket;
 
+    /**
+     * Releases outbound commands from the message, whisper, and join buckets in FIFO order
+     */
+    @Getter
+    private final OutboundCommandScheduler outboundScheduler;
+
+    /**
+     * Paces messages per channel based on our own status and the slow mode in each channel, or null if a single message bucket applies
+     */
+    @Getter
+    private final ChannelRateLimiter channelRateLimiter;
+
     /**
      * IRC Command Queue
      */
@@ -167,6 +215,27 @@ public class TwitchChat implements ITwitchChat {
      */
     protected volatile boolean stopQueueThread = false;
 
+    /**
+     * Filter that is applied to inbound lines before they are parsed into events, or null
+     */
+    private final InboundLineFilter inboundFilter;
+
+    /**
+     * Low-level consumer of inbound lines, invoked alongside the regular event pipeline, or null
+     */
+    private volatile ChatLineSink chatLineSink;
+
+    /**
+     * Reusable view for the {@link #chatLineSink} and {@link #inboundFilter}, confined to the websocket callback thread
+     */
+    private final ReusableChatLine inboundLine = new ReusableChatLine(new IRCMessageParser());
+
+    /**
+     * Receives throughput, queue, rate limit and parsing measurements for this connection
+     */
+    @Getter
+    private final ConnectionMetrics metrics;
+
     /**
      * Bot Owner IDs
      */
@@ -189,9 +258,14 @@ public class TwitchChat implements ITwitchChat {
     protected final long chatQueueTimeout;
 
     /**
-     * WebSocket Factory
+     * WebSocket Transport
      */
-    protected final WebSocketFactory webSocketFactory;
+    protected final WebSocketTransport webSocketTransport;
+
+    /**
+     * Proxy Configuration
+     */
+    private final ProxyConfig proxyConfig;
 
     /**
      * Whether one's own channel should automatically be joined
@@ -221,6 +295,16 @@ public class TwitchChat implements ITwitchChat {
      */
     private volatile Future<?> backoffClearer;
 
+    /**
+     * Paces reconnect attempts across connections, or null if this connection reconnects on its own schedule
+     */
+    private final ReconnectCoordinator reconnectCoordinator;
+
+    /**
+     * The handshake granted by the {@link #reconnectCoordinator} for the current connection attempt
+     */
+    private volatile ReconnectCoordinator.Handshake pendingHandshake;
+
     /**
      * Constructor
      *
@@ -237,11 +321,18 @@ public class TwitchChat implements ITwitchChat {
      * @param taskExecutor                   ScheduledThreadPoolExecutor
      * @param chatQueueTimeout               Timeout to wait for events in Chat Queue
      * @param proxyConfig                    Proxy Configuration
+     * @param webSocketTransport             WebSocket Transport
      * @param autoJoinOwnChannel             Whether one's own channel should automatically be joined
      * @param enableMembershipEvents         Whether JOIN/PART events should be enabled
+     * @param inboundFilter                  Filter for inbound lines before they are parsed into events
+     * @param chatLineSink                   Low-level consumer of inbound lines
+     * @param metrics                        Receiver of connection metrics
+     * @param reconnectCoordinator           Coordinator that paces reconnects across connections, or null
+     * @param ircUserMessageBucket           Bucket for messages to channels without elevated status, or null to apply ircMessageBucket to all messages
      * @param botOwnerIds                    Bot Owner IDs
+     * @param ircJoinCapacity                Number of tokens that the bucket for joins can hold
      */
-    public TwitchChat(EventManager eventManager, CredentialManager credentialManager, OAuth2Credential chatCredential, String baseUrl, boolean sendCredentialToThirdPartyHost, List<String> commandPrefixes, Integer chatQueueSize, Bucket ircMessageBucket, Bucket ircWhisperBucket, Bucket ircJoinBucket, ScheduledThreadPoolExecutor taskExecutor, long chatQueueTimeout, ProxyConfig proxyConfig, boolean autoJoinOwnChannel, boolean enableMembershipEvents, Collection<String> botOwnerIds) {
+    public TwitchChat(EventManager eventManager, CredentialManager credentialManager, OAuth2Credential chatCredential, String baseUrl, boolean sendCredentialToThirdPartyHost, List<String> commandPrefixes, Integer chatQueueSize, Bucket ircMessageBucket, Bucket ircWhisperBucket, Bucket ircJoinBucket, ScheduledThreadPoolExecutor taskExecutor, long chatQueueTimeout, ProxyConfig proxyConfig, WebSocketTransport webSocketTransport, boolean autoJoinOwnChannel, boolean enableMembershipEvents, InboundLineFilter inboundFilter, ChatLineSink chatLineSink, ConnectionMetrics metrics, ReconnectCoordinator reconnectCoordinator, Bucket ircUserMessageBucket, Collection<String> botOwnerIds, long ircJoinCapacity) {
         this.eventManager = eventManager;
         this.credentialManager = credentialManager;
         this.chatCredential = chatCredential;
@@ -254,14 +345,24 @@ public class TwitchChat implements ITwitchChat {
         this.ircWhisperBucket = ircWhisperBucket;
         this.ircJoinBucket = ircJoinBucket;
         this.taskExecutor = taskExecutor;
+        this.metrics = metrics != null ? metrics : ConnectionMetrics.NOOP;
+        this.reconnectCoordinator = reconnectCoordinator;
+        this.outboundScheduler = new OutboundCommandScheduler(ircMessageBucket, ircUserMessageBucket, ircWhisperBucket, ircJoinBucket, ircJoinCapacity, taskExecutor, this::queueCommand, this.metrics);
+        if (ircUserMessageBucket != null) {
+            this.channelRateLimiter = new ChannelRateLimiter(taskExecutor, outboundScheduler.getMessages()::submit, outboundScheduler.getUserMessages()::submit, currentChannels::contains);
+            this.metrics.bindQueue(() -> ircCommandQueue.size() + outboundScheduler.getQueueSize() + channelRateLimiter.getQueueSize());
+        } else {
+            this.channelRateLimiter = null;
+            this.metrics.bindQueue(() -> ircCommandQueue.size() + outboundScheduler.getQueueSize());
+        }
         this.chatQueueTimeout = chatQueueTimeout;
         this.autoJoinOwnChannel = autoJoinOwnChannel;
         this.enableMembershipEvents = enableMembershipEvents;
+        this.inboundFilter = inboundFilter;
+        this.chatLineSink = chatLineSink;
 
-        // Create WebSocketFactory and apply proxy settings
-        this.webSocketFactory = new WebSocketFactory();
-        if (proxyConfig != null)
-            proxyConfig.applyWs(webSocketFactory.getProxySettings());
+        this.proxyConfig = proxyConfig;
+        this.webSocketTransport = webSocketTransport != null ? webSocketTransport : NvWebSocketTransport.INSTANCE;
 
         // credential validation
         if (this.chatCredential == null) {
@@ -286,33 +387,48 @@ public class TwitchChat implements ITwitchChat {
         // register event listeners
         IRCEventHandler ircEventHandler = new IRCEventHandler(this);
 
-        // connect to irc
-        this.connect();
+        // connect to irc (unless the first attempt is paced by the coordinator, see below)
+        if (reconnectCoordinator == null)
+            this.connect();
 
-        // queue command worker
+        // queue command worker (drains without waiting, such that it never parks a worker of a shared scheduler)
         this.flushCommand = () -> {
             if (flushing.getAndSet(true)) return;
 
+            final List<String> batch = new ArrayList<>();
             while (!stopQueueThread && connectionState == TMIConnectionState.CONNECTED) {
-                String command = null;
+                batch.clear();
                 try {
-                    // Send the command
-                    command = ircCommandQueue.poll(this.chatQueueTimeout, TimeUnit.MILLISECONDS);
+                    String command = ircCommandQueue.poll();
                     if (command == null) break;
-                    sendTextToWebSocket(command, false);
+                    batch.add(command);
+
+                    // Coalesce any other ready commands into the same frame (tokens were already consumed upon queueing)
+                    int frameLength = command.length();
+                    String next;
+                    while ((next = ircCommandQueue.peek()) != null && frameLength + 2 + next.length() <= MAX_FRAME_LENGTH) {
+                        batch.add(ircCommandQueue.poll());
+                        frameLength += 2 + next.length();
+                    }
+
+                    // Send the command(s)
+                    if (sendTextToWebSocket(batch.size() == 1 ? command : String.join("\r\n", batch), false)) {
+                        for (String c : batch)
+                            metrics.onMessageSent(c.length());
+                    }
 
                     // Logging
-                    log.debug("Processed command from queue: [{}].", command.startsWith("PASS") ? "***OAUTH TOKEN HIDDEN***" : command);
+                    if (log.isDebugEnabled()) {
+                        for (String c : batch)
+                            log.debug("Processed command from queue: [{}].", c.startsWith("PASS") ? "***OAUTH TOKEN HIDDEN***" : c);
+                    }
                 } catch (Exception ex) {
                     log.error("Chat: Unexpected error in worker thread", ex);
 
-                    // Reschedule command for processing
-                    if (command != null) {
-                        try {
-                            ircCommandQueue.offer(command, this.chatQueueTimeout, TimeUnit.MILLISECONDS);
-                        } catch (Exception e) {
-                            log.error("Failed to reschedule command", e);
-                        }
+                    // Reschedule command(s) for processing
+                    for (String c : batch) {
+                        if (!ircCommandQueue.offer(c))
+                            log.error("Failed to reschedule command: queue is full");
                     }
 
                     break;
@@ -321,10 +437,14 @@ public class TwitchChat implements ITwitchChat {
 
             flushRequested.set(false);
             flushing.set(false);
+
+            // A command may have been queued after the last poll, while its expedition was suppressed by the flag above
+            if (!stopQueueThread && connectionState == TMIConnectionState.CONNECTED && !ircCommandQueue.isEmpty() && !flushRequested.getAndSet(true))
+                taskExecutor.schedule(this.flushCommand, this.chatQueueTimeout / 20, TimeUnit.MILLISECONDS);
         };
 
-        // Thread will start right now
-        this.queueThread = taskExecutor.scheduleAtFixedRate(flushCommand, 0, this.chatQueueTimeout, TimeUnit.MILLISECONDS);
+        // Thread will start right now; the periodic tick merely catches up on commands that were not expedited
+        this.queueThread = taskExecutor.scheduleWithFixedDelay(flushCommand, 0, this.chatQueueTimeout, TimeUnit.MILLISECONDS);
         log.debug("Started IRC Queue Worker");
 
         // Event Handlers
@@ -337,22 +457,97 @@ public class TwitchChat implements ITwitchChat {
             if ("ROOMSTATE".equalsIgnoreCase(event.getCommandType())) {
                 // check that channel id / name are present and that we didn't leave the channel yet
                 if (event.getChannelId() != null) {
-                    channelCacheLock.lock();
-                    try {
-                        // store mapping info into channelIdToChannelName / channelNameToChannelId
-                        event.getChannelName().map(String::toLowerCase).filter(currentChannels::contains).ifPresent(name -> {
-                            String oldName = channelIdToChannelName.put(event.getChannelId(), name);
-                            if (!name.equals(oldName)) {
-                                if (oldName != null) channelNameToChannelId.remove(oldName, event.getChannelId());
-                                channelNameToChannelId.put(name, event.getChannelId());
-                            }
-                        });
-                    } finally {
-                        channelCacheLock.unlock();
-                    }
+                    event.getChannelName().ifPresent(name -> cacheChannel(name, event.getChannelId()));
+                }
+
+                if (channelRateLimiter != null) {
+                    event.getTagValue("slow").ifPresent(slow -> event.getChannelName().ifPresent(name -> onSlowMode(name.toLowerCase(), slow)));
                 }
+            } else if (channelRateLimiter != null && "USERSTATE".equalsIgnoreCase(event.getCommandType())) {
+                event.getChannelName().ifPresent(name -> channelRateLimiter.onUserState(name.toLowerCase(), ChannelRateLimiter.isPrivileged(event.getRawTags())));
             }
         });
+
+        // connect to irc, once the coordinator admits the handshake alongside those of the other connections
+        if (reconnectCoordinator != null)
+            scheduleCoordinated(this::connect, 0L);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param eventManager                   EventManager
+     * @param credentialManager              CredentialManager
+     * @param chatCredential                 Chat Credential
+     * @param baseUrl                        The websocket url for the chat client to connect to
+     * @param sendCredentialToThirdPartyHost Whether the password should be sent when the baseUrl is not official
+     * @param commandPrefixes                Command Prefixes
+     * @param chatQueueSize                  Chat Queue Size
+     * @param ircMessageBucket               Bucket for chat
+     * @param ircWhisperBucket               Bucket for whispers
+     * @param ircJoinBucket                  Bucket for joins
+     * @param taskExecutor                   ScheduledThreadPoolExecutor
+     * @param chatQueueTimeout               Timeout to wait for events in Chat Queue
+     * @param proxyConfig                    Proxy Configuration
+     * @param autoJoinOwnChannel             Whether one's own channel should automatically be joined
+     * @param enableMembershipEvents         Whether JOIN/PART events should be enabled
+     * @param botOwnerIds                    Bot Owner IDs
+     * @deprecated in favor of {@link TwitchChatBuilder}, which also configures the transport, metrics, reconnect pacing and per-channel rate limits
+     */
+    @Deprecated
+    public TwitchChat(EventManager eventManager, CredentialManager credentialManager, OAuth2Credential chatCredential, String baseUrl, boolean sendCredentialToThirdPartyHost, List<String> commandPrefixes, Integer chatQueueSize, Bucket ircMessageBucket, Bucket ircWhisperBucket, Bucket ircJoinBucket, ScheduledThreadPoolExecutor taskExecutor, long chatQueueTimeout, ProxyConfig proxyConfig, boolean autoJoinOwnChannel, boolean enableMembershipEvents, Collection<String> botOwnerIds) {
+        this(eventManager, credentialManager, chatCredential, baseUrl, sendCredentialToThirdPartyHost, commandPrefixes, chatQueueSize, ircMessageBucket, ircWhisperBucket, ircJoinBucket, taskExecutor, chatQueueTimeout, proxyConfig, null, autoJoinOwnChannel, enableMembershipEvents, null, null, ConnectionMetrics.NOOP, null, null, botOwnerIds, OutboundCommandScheduler.UNKNOWN_CAPACITY);
+    }
+
+    /**
+     * Stores the mapping between a channel name and id, as long as we didn't leave the channel yet
+     *
+     * @param channelName the channel name
+     * @param channelId   the channel id
+     */
+    private void cacheChannel(String channelName, String channelId) {
+        final String name = channelName.toLowerCase();
+        channelCacheLock.lock();
+        try {
+            // store mapping info into channelIdToChannelName / channelNameToChannelId
+            if (currentChannels.contains(name)) {
+                String oldName = channelIdToChannelName.put(channelId, name);
+                if (!name.equals(oldName)) {
+                    if (oldName != null) channelNameToChannelId.remove(oldName, channelId);
+                    channelNameToChannelId.put(name, channelId);
+                }
+
+                final ChannelIdIndex shared = sharedChannelIndex;
+                if (shared != null) shared.put(name, channelId);
+            }
+        } finally {
+            channelCacheLock.unlock();
+        }
+    }
+
+    /**
+     * Records the slow mode of a channel for the {@link #channelRateLimiter}
+     *
+     * @param channelName the lowercase channel name
+     * @param slow        the value of the slow tag, in seconds
+     */
+    private void onSlowMode(String channelName, String slow) {
+        try {
+            channelRateLimiter.onRoomState(channelName, Integer.parseInt(slow));
+        } catch (NumberFormatException e) {
+            log.debug("Chat: ignoring invalid slow mode duration {} in channel {}", slow, channelName);
+        }
+    }
+
+    /**
+     * Mirrors channel id mappings obtained from ROOMSTATE into an index that is shared across connections.
+     * <p>
+     * Removal from the shared index is left to its owner, as other connections may still be in the channel.
+     *
+     * @param index the shared index, or null
+     */
+    void setSharedChannelIndex(ChannelIdIndex index) {
+        this.sharedChannelIndex = index;
     }
 
     /**
@@ -369,9 +564,16 @@ public class TwitchChat implements ITwitchChat {
                 createWebSocket();
 
                 // Connect to IRC WebSocket
-                this.webSocket.connect();
+                SharedScheduler.runBlocking(this.webSocket::connect); // lets a shared pool compensate for the blocked worker
             } catch (Exception ex) {
                 log.error("Connection to Twitch IRC failed: Retrying ...", ex);
+                if (reconnectCoordinator != null) {
+                    // queue behind the other connections rather than blocking this thread
+                    completeHandshake();
+                    scheduleReconnect(backoff.get());
+                    return;
+                }
+
                 // Sleep before trying to reconnect
                 try {
                     backoff.sleep();
@@ -398,9 +600,10 @@ public class TwitchChat implements ITwitchChat {
         connectionState = TMIConnectionState.DISCONNECTED;
 
         // CleanUp
-        this.webSocket.clearListeners();
-        this.webSocket.disconnect();
-        this.webSocket = null;
+        if (this.webSocket != null) {
+            this.webSocket.disconnect();
+            this.webSocket = null;
+        }
     }
 
     /**
@@ -408,11 +611,53 @@ public class TwitchChat implements ITwitchChat {
      */
     @Synchronized
     public void reconnect() {
+        metrics.onReconnect();
         connectionState = TMIConnectionState.RECONNECTING;
         disconnect();
         connect();
     }
 
+    /**
+     * Reconnects after the given delay, via the {@link #reconnectCoordinator} if present
+     *
+     * @param delay the delay in milliseconds
+     */
+    private void scheduleReconnect(long delay) {
+        if (reconnectCoordinator != null) {
+            scheduleCoordinated(this::reconnect, delay);
+        } else {
+            taskExecutor.schedule(() -> reconnect(), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs a connection attempt once the {@link #reconnectCoordinator} admits it
+     *
+     * @param attempt the attempt, i.e. {@link #connect()} or {@link #reconnect()}
+     * @param delay   the delay in milliseconds
+     */
+    private void scheduleCoordinated(Runnable attempt, long delay) {
+        reconnectCoordinator.schedule(taskExecutor, handshake -> {
+            if (stopQueueThread) {
+                handshake.complete(); // closed in the meantime
+                return;
+            }
+            pendingHandshake = handshake;
+            attempt.run();
+        }, delay);
+    }
+
+    /**
+     * Releases the handshake slot of the current connection attempt, if any
+     */
+    private void completeHandshake() {
+        ReconnectCoordinator.Handshake handshake = pendingHandshake;
+        if (handshake != null) {
+            pendingHandshake = null;
+            handshake.complete();
+        }
+    }
+
     /**
      * Recreate the WebSocket and the listeners
      */
@@ -420,14 +665,10 @@ public class TwitchChat implements ITwitchChat {
     private void createWebSocket() {
         try {
             // WebSocket
-            this.webSocket = webSocketFactory.createSocket(this.baseUrl);
-
-            // WebSocket Listeners
-            this.webSocket.clearListeners();
-            this.webSocket.addListener(new WebSocketAdapter() {
+            this.webSocket = webSocketTransport.create(this.baseUrl, proxyConfig, new WebSocketListener() {
 
                 @Override
-                public void onConnected(WebSocket ws, Map<String, List<String>> headers) {
+                public void onConnected() {
                     log.info("Connecting to Twitch IRC {}", baseUrl);
 
                     // acquire capabilities
@@ -446,11 +687,10 @@ public class TwitchChat implements ITwitchChat {
                         userName = "justinfan" + ThreadLocalRandom.current().nextInt(100000);
                     }
                     sendTextToWebSocket(String.format("nick %s", userName), true);
+                    // the handshake completes once the server accepts or rejects the login (see onTextLine)
 
                     // Join defined channels, in case we reconnect or weren't connected yet when we called joinChannel
-                    for (String channel : currentChannels) {
-                        issueJoin(channel);
-                    }
+                    issueBatched("JOIN", currentChannels);
 
                     // then join to own channel - required for sending or receiving whispers
                     if (chatCredential != null && chatCredential.getUserName() != null) {
@@ -469,59 +709,19 @@ public class TwitchChat implements ITwitchChat {
                 }
 
                 @Override
-                public void onTextMessage(WebSocket ws, String text) {
-                    Arrays.asList(text.replace("\n\r", "\n")
-                        .replace("\r", "\n").split("\n"))
-                        .forEach(message -> {
-                            if (!message.equals("")) {
-                                // Handle messages
-                                log.trace("Received WebSocketMessage: " + message);
-                                // - CAP
-                                if (message.contains(":req Invalid CAP command")) {
-                                    log.error("Failed to acquire requested IRC capabilities!");
-                                }
-                                // - CAP ACK
-                                else if (message.contains(":tmi.twitch.tv CAP * ACK :")) {
-                                    List<String> capabilities = Arrays.asList(message.replace(":tmi.twitch.tv CAP * ACK :", "").split(" "));
-                                    capabilities.forEach(cap -> log.debug("Acquired chat capability: " + cap));
-                                }
-                                // - Ping
-                                else if (message.contains("PING :tmi.twitch.tv")) {
-                                    sendTextToWebSocket("PONG :tmi.twitch.tv", true);
-                                    log.debug("Responding to PING request!");
-                                }
-                                // - Login failed.
-                                else if (message.equals(":tmi.twitch.tv NOTICE * :Login authentication failed")) {
-                                    log.error("Invalid IRC Credentials. Login failed!");
-                                }
-                                // - Parse IRC Message
-                                else {
-                                    try {
-                                        IRCMessageEvent event = new IRCMessageEvent(message, channelIdToChannelName, channelNameToChannelId, botOwnerIds);
-
-                                        if (event.isValid()) {
-                                            eventManager.publish(event);
-                                        } else {
-                                            log.trace("Can't parse {}", event.getRawMessage());
-                                        }
-                                    } catch (Exception ex) {
-                                        log.error(ex.getMessage(), ex);
-                                    }
-                                }
-                            }
-                        });
+                public void onTextMessage(String text) {
+                    TwitchChat.this.onTextMessage(text);
                 }
 
                 @Override
-                public void onDisconnected(WebSocket websocket,
-                                           WebSocketFrame serverCloseFrame, WebSocketFrame clientCloseFrame,
-                                           boolean closedByServer) {
+                public void onDisconnected(boolean closedByServer) {
                     if (!connectionState.equals(TMIConnectionState.DISCONNECTING)) {
                         log.info("Connection to Twitch IRC lost (WebSocket)! Retrying soon ...");
 
                         // connection lost - reconnecting
                         if (backoffClearer != null) backoffClearer.cancel(false);
-                        taskExecutor.schedule(() -> reconnect(), backoff.get(), TimeUnit.MILLISECONDS);
+                        completeHandshake();
+                        scheduleReconnect(backoff.get());
                     } else {
                         connectionState = TMIConnectionState.DISCONNECTED;
                         log.info("Disconnected from Twitch IRC (WebSocket)!");
@@ -535,6 +735,153 @@ public class TwitchChat implements ITwitchChat {
         }
     }
 
+    /**
+     * Handles a websocket frame, which can contain multiple irc lines.
+     * <p>
+     * The frame is scanned once for CR/LF line breaks and each non-empty line is handled in-place,
+     * without intermediate copies of the frame.
+     *
+     * @param text the websocket frame
+     */
+    protected void onTextMessage(String text) {
+        final int n = text.length();
+        int lineStart = 0;
+        for (int i = 0; i <= n; i++) {
+            if (i == n || text.charAt(i) == '\n' || text.charAt(i) == '\r') {
+                if (i > lineStart) onTextLine(text, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Handles a single irc line within a websocket frame.
+     *
+     * @param frame the websocket frame
+     * @param start the start of the line (inclusive)
+     * @param end   the end of the line (exclusive)
+     */
+    private void onTextLine(String frame, int start, int end) {
+        if (log.isTraceEnabled())
+            log.trace("Received WebSocketMessage: " + frame.substring(start, end));
+        metrics.onMessageReceived(end - start);
+
+        // - Login accepted or rejected, so the next connection may start its handshake
+        if (pendingHandshake != null && isLoginResult(frame, start, end))
+            completeHandshake();
+
+        // - Ping
+        if (frame.startsWith(PING_PREFIX, start)) {
+            metrics.onHeartbeat();
+            sendTextToWebSocket("PONG :tmi.twitch.tv", true);
+            log.debug("Responding to PING request!");
+        }
+        // - CAP ACK
+        else if (frame.startsWith(CAP_ACK_PREFIX, start)) {
+            if (log.isDebugEnabled()) {
+                for (String cap : frame.substring(start + CAP_ACK_PREFIX.length(), end).split(" "))
+                    log.debug("Acquired chat capability: " + cap);
+            }
+        }
+        // - CAP
+        else if (regionEndsWith(frame, start, end, CAP_INVALID_SUFFIX)) {
+            log.error("Failed to acquire requested IRC capabilities!");
+        }
+        // - Login failed.
+        else if (IRCMessageParser.regionMatches(frame, start, end, LOGIN_FAILED_NOTICE)) {
+            log.error("Invalid IRC Credentials. Login failed!");
+        }
+        // - Hand the line to the low-level sink, and skip it if it is rejected by the inbound filter
+        else if ((chatLineSink != null || inboundFilter != null) && !dispatchLine(frame, start, end)) {
+            log.trace("Dropped line due to inbound filter");
+        }
+        // - Parse IRC Message
+        else {
+            try {
+                final long parseStart = System.nanoTime();
+                IRCMessageEvent event = new IRCMessageEvent(frame.substring(start, end), channelIdToChannelName, channelNameToChannelId, botOwnerIds);
+                metrics.onParse(System.nanoTime() - parseStart);
+
+                if (event.isValid()) {
+                    eventManager.publish(event);
+                } else {
+                    log.trace("Can't parse {}", event.getRawMessage());
+                }
+            } catch (Exception ex) {
+                log.error(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Tokenizes a line once for the low-level sink and the inbound filter, without creating an event.
+     *
+     * @param frame the websocket frame
+     * @param start the start of the line (inclusive)
+     * @param end   the end of the line (exclusive)
+     * @return whether the line should be parsed into an event
+     */
+    private boolean dispatchLine(String frame, int start, int end) {
+        final ReusableChatLine line = inboundLine;
+        if (!line.parse(frame, start, end))
+            return inboundFilter == null; // would not yield a valid event anyway
+
+        final ChatLineSink sink = chatLineSink;
+        if (sink != null) {
+            try {
+                sink.onLine(line);
+            } catch (Exception e) {
+                log.error("Chat: unhandled exception in chat line sink", e);
+            }
+        }
+
+        final IRCMessageParser parser = line.getParser();
+        if (inboundFilter == null || inboundFilter.accept(parser))
+            return true;
+
+        // the channel id cache (and the channel rate limits) are still populated from filtered room and user states
+        if (parser.isCommand("ROOMSTATE") && parser.hasChannel() && parser.hasTags()) {
+            IRCTagMap tags = new IRCTagMap(frame, parser.getTagsStart(), parser.getTagsEnd());
+            String channelId = tags.get("room-id");
+            if (channelId != null) cacheChannel(parser.getChannel(), channelId);
+
+            String slow = tags.get("slow");
+            if (slow != null && channelRateLimiter != null) onSlowMode(parser.getChannel().toLowerCase(), slow);
+        } else if (channelRateLimiter != null && parser.isCommand("USERSTATE") && parser.hasChannel() && parser.hasTags()) {
+            IRCTagMap tags = new IRCTagMap(frame, parser.getTagsStart(), parser.getTagsEnd());
+            channelRateLimiter.onUserState(parser.getChannel().toLowerCase(), ChannelRateLimiter.isPrivileged(tags));
+        }
+
+        return false;
+    }
+
+    /**
+     * @param frame the websocket frame
+     * @param start the start of the line (inclusive)
+     * @param end   the end of the line (exclusive)
+     * @return whether the line is the welcome (001), the GLOBALUSERSTATE of an authenticated user, or the login failure notice
+     */
+    private static boolean isLoginResult(String frame, int start, int end) {
+        return frame.startsWith(WELCOME_PREFIX, start)
+            || regionEndsWith(frame, start, end, GLOBAL_USER_STATE_SUFFIX)
+            || IRCMessageParser.regionMatches(frame, start, end, LOGIN_FAILED_NOTICE);
+    }
+
+    private static boolean regionEndsWith(String s, int start, int end, String suffix) {
+        final int offset = end - suffix.length();
+        return offset >= start && s.startsWith(suffix, offset);
+    }
+
+    /**
+     * Registers a low-level consumer of inbound lines, which is invoked on the websocket callback thread
+     * before (and independently of) the regular event pipeline.
+     *
+     * @param sink the sink, or null to remove the current sink
+     */
+    public void setChatLineSink(ChatLineSink sink) {
+        this.chatLineSink = sink;
+    }
+
     /**
      * Send IRC Command
      *
@@ -551,7 +898,42 @@ public class TwitchChat implements ITwitchChat {
      * @param command raw irc command
      */
     public boolean sendRaw(String command) {
-        return ircMessageBucket.asAsyncScheduler().consume(1, taskExecutor).thenRunAsync(() -> queueCommand(command), taskExecutor) != null;
+        return sendRaw(command, CommandPriority.NORMAL);
+    }
+
+    /**
+     * Send raw irc command with the specified priority
+     *
+     * @param command  raw irc command
+     * @param priority the priority of the command, relative to other commands that are waiting for rate limit tokens
+     * @return whether the command was added to the queue
+     */
+    public boolean sendRaw(String command, CommandPriority priority) {
+        final CommandPriority p = priority != null ? priority : CommandPriority.NORMAL;
+        final String channel = channelRateLimiter != null ? privmsgChannel(command) : null;
+        if (channel != null)
+            channelRateLimiter.submit(channel, command, p);
+        else
+            outboundScheduler.getMessages().submit(command, p);
+        return true;
+    }
+
+    /**
+     * @param command raw irc command
+     * @return the lowercase channel name if the command is a channel message, otherwise null
+     */
+    private static String privmsgChannel(String command) {
+        int start = 0;
+        if (command.startsWith("@")) {
+            start = command.indexOf(' ') + 1;
+            if (start <= 0) return null;
+        }
+
+        if (!command.regionMatches(true, start, "PRIVMSG #", 0, 9))
+            return null;
+
+        int end = command.indexOf(' ', start + 9);
+        return end > start + 9 ? command.substring(start + 9, end).toLowerCase() : null;
     }
 
     /**
@@ -597,6 +979,10 @@ public class TwitchChat implements ITwitchChat {
         // command will be uppercase.
         this.webSocket.sendText(command);
 
+        // queued commands are recorded individually by the flush worker, as they can share a frame
+        if (consumeToken)
+            metrics.onMessageSent(command.length());
+
         return true;
     }
 
@@ -622,11 +1008,50 @@ public class TwitchChat implements ITwitchChat {
         }
     }
 
+    /**
+     * Joins multiple channels, using batched JOIN commands
+     *
+     * @param channelNames channel names
+     */
+    @Override
+    public void joinChannels(Collection<String> channelNames) {
+        List<String> added = new ArrayList<>(channelNames.size());
+
+        channelCacheLock.lock();
+        try {
+            for (String channelName : channelNames) {
+                String lowerChannelName = channelName.toLowerCase();
+                if (currentChannels.add(lowerChannelName)) {
+                    added.add(lowerChannelName);
+                } else {
+                    log.warn("Already joined channel {}", channelName);
+                }
+            }
+
+            if (!added.isEmpty()) {
+                issueBatched("JOIN", added);
+                log.debug("Joining Channels {}.", added);
+            }
+        } finally {
+            channelCacheLock.unlock();
+        }
+    }
+
     private void issueJoin(String channelName) {
-        ircJoinBucket.asAsyncScheduler().consume(1, taskExecutor).thenRunAsync(
-            () -> queueCommand("JOIN #" + channelName.toLowerCase()),
-            taskExecutor
-        );
+        outboundScheduler.getJoins().submit("JOIN #" + channelName.toLowerCase());
+    }
+
+    /**
+     * Queues JOIN or PART commands for multiple channels, where each line names as many channels as fit in
+     * both the irc line length and the capacity of the join bucket.
+     * <p>
+     * Tokens are charged per channel on the join bucket, as the server counts each channel separately.
+     *
+     * @param verb         either JOIN or PART
+     * @param channelNames lowercase channel names
+     */
+    private void issueBatched(String verb, Collection<String> channelNames) {
+        outboundScheduler.getJoins().submitBatched(verb, channelNames, MAX_LINE_LENGTH);
     }
 
     /**
@@ -647,6 +1072,7 @@ public class TwitchChat implements ITwitchChat {
                 // clear cache
                 String cachedId = channelNameToChannelId.remove(lowerChannelName);
                 if (cachedId != null) channelIdToChannelName.remove(cachedId);
+                if (channelRateLimiter != null) channelRateLimiter.remove(lowerChannelName);
 
                 return true;
             } else {
@@ -658,15 +1084,54 @@ public class TwitchChat implements ITwitchChat {
         }
     }
 
+    /**
+     * Leaves multiple channels, using batched PART commands
+     *
+     * @param channelNames channel names
+     * @return the number of channels that were previously joined
+     */
+    @Override
+    public int leaveChannels(Collection<String> channelNames) {
+        List<String> removed = new ArrayList<>(channelNames.size());
+
+        channelCacheLock.lock();
+        try {
+            for (String channelName : channelNames) {
+                String lowerChannelName = channelName.toLowerCase();
+                if (currentChannels.remove(lowerChannelName)) {
+                    removed.add(lowerChannelName);
+
+                    // clear cache
+                    String cachedId = channelNameToChannelId.remove(lowerChannelName);
+                    if (cachedId != null) channelIdToChannelName.remove(cachedId);
+                    if (channelRateLimiter != null) channelRateLimiter.remove(lowerChannelName);
+                } else {
+                    log.warn("Already left channel {}", channelName);
+                }
+            }
+
+            if (!removed.isEmpty()) {
+                issueBatched("PART", removed);
+                log.debug("Leaving Channels {}.", removed);
+            }
+        } finally {
+            channelCacheLock.unlock();
+        }
+
+        return removed.size();
+    }
+
     private void issuePart(String channelName) {
-        ircJoinBucket.asAsyncScheduler().consume(1, taskExecutor).thenRunAsync(
-            () -> queueCommand("PART #" + channelName.toLowerCase()),
-            taskExecutor
-        );
+        outboundScheduler.getJoins().submit("PART #" + channelName.toLowerCase());
     }
 
     @Override
     public boolean sendMessage(String channel, String message, @Unofficial Map<String, Object> tags) {
+        return sendMessage(channel, message, tags, CommandPriority.forMessage(message));
+    }
+
+    @Override
+    public boolean sendMessage(String channel, String message, @Unofficial Map<String, Object> tags, CommandPriority priority) {
         StringBuilder sb = new StringBuilder();
         if (tags != null && !tags.isEmpty()) {
             sb.append('@');
@@ -676,7 +1141,7 @@ public class TwitchChat implements ITwitchChat {
         sb.append("PRIVMSG #").append(channel.toLowerCase()).append(" :").append(message);
 
         log.debug("Adding message for channel [{}] with content [{}] to the queue.", channel.toLowerCase(), message);
-        return sendRaw(sb.toString());
+        return sendRaw(sb.toString(), priority);
     }
 
     /**
@@ -687,10 +1152,7 @@ public class TwitchChat implements ITwitchChat {
      */
     public void sendPrivateMessage(String targetUser, String message) {
         log.debug("Adding private message for user [{}] with content [{}] to the queue.", targetUser, message);
-        ircWhisperBucket.asAsyncScheduler().consume(1, taskExecutor).thenRunAsync(
-            () -> queueCommand(String.format("PRIVMSG #%s :/w %s %s", chatCredential.getUserName().toLowerCase(), targetUser, message)),
-            taskExecutor
-        );
+        outboundScheduler.getWhispers().submit(String.format("PRIVMSG #%s :/w %s %s", chatCredential.getUserName().toLowerCase(), targetUser, message));
     }
 
     /**
@@ -728,6 +1190,8 @@ public class TwitchChat implements ITwitchChat {
         this.stopQueueThread = true;
         queueThread.cancel(false);
         this.disconnect();
+        completeHandshake();
+        metrics.close();
     }
 
     @Override
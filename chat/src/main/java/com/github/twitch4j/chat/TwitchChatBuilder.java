@@ -5,10 +5,16 @@ import com.github.philippheuer.credentialmanager.CredentialManagerBuilder;
 import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
 import com.github.philippheuer.events4j.api.service.IEventHandler;
 import com.github.philippheuer.events4j.core.EventManager;
+import com.github.twitch4j.chat.util.ChatLineSink;
+import com.github.twitch4j.chat.util.InboundLineFilter;
 import com.github.twitch4j.chat.util.TwitchChatLimitHelper;
 import com.github.philippheuer.events4j.simple.SimpleEventHandler;
 import com.github.twitch4j.common.config.ProxyConfig;
 import com.github.twitch4j.common.config.Twitch4JGlobal;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
+import com.github.twitch4j.common.pool.ReconnectCoordinator;
+import com.github.twitch4j.common.socket.NioWebSocketTransport;
+import com.github.twitch4j.common.socket.WebSocketTransport;
 import com.github.twitch4j.common.util.EventManagerUtils;
 import com.github.twitch4j.common.util.ThreadUtils;
 import io.github.bucket4j.Bandwidth;
@@ -117,6 +123,25 @@ public class TwitchChatBuilder {
     @With
     protected Bandwidth chatRateLimit = TwitchChatLimitHelper.USER_MESSAGE_LIMIT;
 
+    /**
+     * Custom RateLimit for ChatMessages to channels in which the user is the broadcaster, a moderator, or a VIP
+     * <p>
+     * Only applies if {@link #perChannelRateLimit} is enabled.
+     */
+    @With
+    protected Bandwidth privilegedChatRateLimit = TwitchChatLimitHelper.MOD_MESSAGE_LIMIT;
+
+    /**
+     * Whether chat messages should be rate limited per channel, based on the status of the user in each channel.
+     * <p>
+     * The status is tracked from USERSTATE, and the slow mode from ROOMSTATE.
+     * All messages are limited by {@link #privilegedChatRateLimit}, while messages to channels in which the user
+     * is not the broadcaster, a moderator, or a VIP are additionally limited by {@link #chatRateLimit},
+     * and are sent at most once per second (or slow mode duration) per channel.
+     */
+    @With
+    protected boolean perChannelRateLimit = false;
+
     /**
      * Custom RateLimit for Whispers
      */
@@ -135,6 +160,12 @@ public class TwitchChatBuilder {
     @With
     protected Bucket ircMessageBucket = null;
 
+    /**
+     * Shared bucket for messages to channels without elevated status, if {@link #perChannelRateLimit} is enabled
+     */
+    @With
+    protected Bucket ircUserMessageBucket = null;
+
     /**
      * Shared bucket for whispers
      */
@@ -143,6 +174,8 @@ public class TwitchChatBuilder {
 
     /**
      * Shared bucket for joins
+     * <p>
+     * Batched joins are sized to the capacity of {@link #joinRateLimit}, so a custom bucket should hold at least as many tokens.
      */
     @With
     protected Bucket ircJoinBucket = null;
@@ -165,6 +198,14 @@ public class TwitchChatBuilder {
     @With
     private ProxyConfig proxyConfig = null;
 
+    /**
+     * WebSocket Transport
+     * <p>
+     * Defaults to nv-websocket-client; a shared {@link NioWebSocketTransport} avoids dedicated threads per connection.
+     */
+    @With
+    private WebSocketTransport webSocketTransport = null;
+
     /**
      * Whether one's own channel should automatically be joined
      */
@@ -177,6 +218,37 @@ public class TwitchChatBuilder {
     @With
     private boolean enableMembershipEvents = true;
 
+    /**
+     * Filter that is evaluated on inbound irc lines before any event is created, or null to accept all lines
+     * <p>
+     * For example, {@code InboundLineFilter.commands("PRIVMSG", "USERNOTICE")} skips building events for membership and state lines.
+     */
+    @With
+    private InboundLineFilter inboundFilter = null;
+
+    /**
+     * Low-level consumer that receives a reusable view of each inbound irc line on the websocket thread, alongside the regular events
+     */
+    @With
+    private ChatLineSink chatLineSink = null;
+
+    /**
+     * Receiver of throughput, queue depth, rate limit wait, parse time, reconnect and heartbeat measurements
+     * <p>
+     * Use {@link com.github.twitch4j.common.metrics.ConnectionStatistics} to read them in-process,
+     * or {@link com.github.twitch4j.common.metrics.MicrometerConnectionMetrics} to publish them to a meter registry.
+     */
+    @With
+    private ConnectionMetrics metrics = ConnectionMetrics.NOOP;
+
+    /**
+     * Paces reconnect attempts across connections, such that a dropped edge does not trip the authentication rate limit
+     * <p>
+     * By default, each connection reconnects on its own backoff schedule.
+     */
+    @With
+    private ReconnectCoordinator reconnectCoordinator = null;
+
     /**
      * Initialize the builder
      *
@@ -201,7 +273,10 @@ public class TwitchChatBuilder {
         eventManager = EventManagerUtils.validateOrInitializeEventManager(eventManager, defaultEventHandler);
 
         if (ircMessageBucket == null)
-            ircMessageBucket = TwitchChatLimitHelper.createBucket(this.chatRateLimit);
+            ircMessageBucket = TwitchChatLimitHelper.createBucket(perChannelRateLimit ? this.privilegedChatRateLimit : this.chatRateLimit);
+
+        if (ircUserMessageBucket == null && perChannelRateLimit)
+            ircUserMessageBucket = TwitchChatLimitHelper.createBucket(this.chatRateLimit);
 
         if (ircWhisperBucket == null)
             ircWhisperBucket = TwitchChatLimitHelper.createBucket(this.whisperRateLimit);
@@ -210,7 +285,7 @@ public class TwitchChatBuilder {
             ircJoinBucket = TwitchChatLimitHelper.createBucket(this.joinRateLimit);
 
         log.debug("TwitchChat: Initializing Module ...");
-        return new TwitchChat(this.eventManager, this.credentialManager, this.chatAccount, this.baseUrl, this.sendCredentialToThirdPartyHost, this.commandPrefixes, this.chatQueueSize, this.ircMessageBucket, this.ircWhisperBucket, this.ircJoinBucket, this.scheduledThreadPoolExecutor, this.chatQueueTimeout, this.proxyConfig, this.autoJoinOwnChannel, this.enableMembershipEvents, this.botOwnerIds);
+        return new TwitchChat(this.eventManager, this.credentialManager, this.chatAccount, this.baseUrl, this.sendCredentialToThirdPartyHost, this.commandPrefixes, this.chatQueueSize, this.ircMessageBucket, this.ircWhisperBucket, this.ircJoinBucket, this.scheduledThreadPoolExecutor, this.chatQueueTimeout, this.proxyConfig, this.webSocketTransport, this.autoJoinOwnChannel, this.enableMembershipEvents, this.inboundFilter, this.chatLineSink, this.metrics, this.reconnectCoordinator, perChannelRateLimit ? this.ircUserMessageBucket : null, this.botOwnerIds, TwitchChatLimitHelper.getCapacity(this.joinRateLimit));
     }
 
     /**
@@ -1,24 +1,40 @@
 package com.github.twitch4j.chat;
 
 import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
+import com.github.twitch4j.chat.enums.CommandPriority;
 import com.github.twitch4j.chat.events.channel.ChannelNoticeEvent;
 import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.chat.util.ChannelIdIndex;
+import com.github.twitch4j.chat.util.ChannelRateLimiter;
+import com.github.twitch4j.chat.util.ChatLineSink;
+import com.github.twitch4j.chat.util.InboundLineFilter;
+import com.github.twitch4j.chat.util.OutboundCommandScheduler;
+import com.github.twitch4j.chat.util.TwitchChatLimitHelper;
 import com.github.twitch4j.common.annotation.Unofficial;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
 import com.github.twitch4j.common.pool.TwitchModuleConnectionPool;
 import com.github.twitch4j.common.util.ChatReply;
+import com.github.twitch4j.common.util.RecentKeyFilter;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.experimental.SuperBuilder;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Consumer;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 /**
@@ -48,6 +64,23 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
 
     private final String threadPrefix = "twitch4j-pool-" + RandomStringUtils.random(4, true, true) + "-chat-";
 
+    /**
+     * Channel id and name mappings across all connections, kept current by the ROOMSTATE handling of each connection.
+     */
+    private final ChannelIdIndex channelIndex = new ChannelIdIndex();
+
+    /**
+     * Separates the channel name from the replica index in the subscriptions of redundant channels.
+     */
+    private static final char REPLICA_SEPARATOR = '/';
+
+    /**
+     * Message ids (and the keys of timestamped lines without an id) that were recently published by any connection,
+     * when channels are joined by several connections (see {@link #redundancyFactor} and {@link #outboundShards})
+     * or while a compacted channel is joined on both its old and new connection.
+     */
+    private final RecentKeyFilter seenMessageIds = new RecentKeyFilter(Duration.ofMinutes(1L), 100_000);
+
     /**
      * Provides a chat account to be used when constructing a new {@link TwitchChat} instance.
      * By default, this yields null, which corresponds to an anonymous connection.
@@ -64,11 +97,75 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
     @Builder.Default
     protected final boolean automaticallyPartOnBan = false;
 
+    /**
+     * Filter that is evaluated on inbound irc lines before any event is created, or null to accept all lines.
+     * <p>
+     * Note: {@link #automaticallyPartOnBan} requires NOTICE lines to be accepted.
+     */
+    @Builder.Default
+    protected final InboundLineFilter inboundFilter = null;
+
+    /**
+     * Low-level consumer of inbound irc lines, shared by all connections of the pool (and thus invoked concurrently).
+     */
+    @Builder.Default
+    protected final ChatLineSink chatLineSink = null;
+
+    /**
+     * The bucket for authentication attempts (PASS/NICK) that is shared by the reconnects of all connections,
+     * when {@link #maxConcurrentHandshakes} is enabled.
+     * <p>
+     * Verified bots can use {@link TwitchChatLimitHelper#VERIFIED_AUTH_LIMIT}.
+     */
+    @NonNull
+    @Builder.Default
+    protected final Bucket authBucket = TwitchChatLimitHelper.createBucket(TwitchChatLimitHelper.USER_AUTH_LIMIT);
+
+    /**
+     * The number of distinct connections that should read each of the {@link #redundantChannels}. Default: 1 (no redundancy).
+     * <p>
+     * With a factor above one, a dropped connection does not lose messages, since the channel is still read by the other connections
+     * (which may use different accounts or proxies). Lines that were already received on another connection are dropped before any event is created,
+     * such that listeners observe each message once: by their id tag, or by their command, channel, tmi-sent-ts and target if they lack an id (i.e. CLEARCHAT, CLEARMSG).
+     * Lines with neither (i.e. ROOMSTATE, USERSTATE, NOTICE, HOSTTARGET, JOIN, PART) are only published by the connection that joined the channel first,
+     * so they are not observed while that connection is down. Note: the {@link #chatLineSink} still receives every line.
+     * <p>
+     * Messages are sent via the first connection that joined the channel, unless {@link #outboundShards} is above one.
+     */
+    @Builder.Default
+    protected final int redundancyFactor = 1;
+
+    /**
+     * The channels that should be read by {@link #redundancyFactor} connections. Default: all channels.
+     */
+    @NonNull
+    @Builder.Default
+    protected final Predicate<String> redundantChannels = channel -> true;
+
+    /**
+     * The number of distinct connections that messages to each channel are spread across. Default: 1 (all messages are sent via the first connection that joined the channel).
+     * <p>
+     * Each channel is joined by this many connections (or by {@link #redundancyFactor} connections, if that is higher), regardless of {@link #redundantChannels};
+     * lines that are read by more than one of them are deduplicated as described for {@link #redundancyFactor}.
+     * Each message is sent via the connection with the most message tokens available, such that send capacity scales with the number of accounts
+     * (i.e. with a {@link #chatAccount} supplier that rotates between accounts, and a bucket per account that is shared via {@link #advancedConfiguration}).
+     * Messages with the same ordering key (by default, replies to the same parent message) are always sent via the same connection, so their order is preserved;
+     * the connection is chosen by rendezvous hashing over the replica index, such that only the keys of a missing connection move to another.
+     * Other messages to the same channel may be delivered out of order.
+     */
+    @Builder.Default
+    protected final int outboundShards = 1;
+
     @Override
     public boolean sendMessage(String channel, String message, @Unofficial @Nullable Map<String, Object> tags) {
         return this.sendMessage(channel, channel, message, tags);
     }
 
+    @Override
+    public boolean sendMessage(String channel, String message, @Unofficial @Nullable Map<String, Object> tags, CommandPriority priority) {
+        return this.sendMessage(channel, channel, message, tags, priority);
+    }
+
     /**
      * Sends a message from the {@link TwitchChat} identified either to a channel or directly on the socket.
      *
@@ -109,17 +206,49 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
      * @return whether a {@link TwitchChat} instance was found and used to send the message
      */
     public boolean sendMessage(String channelToIdentifyChatInstance, String targetChannel, String message, @Unofficial @Nullable Map<String, Object> tags) {
+        return this.sendMessage(channelToIdentifyChatInstance, targetChannel, message, tags, targetChannel != null ? CommandPriority.forMessage(message) : CommandPriority.NORMAL);
+    }
+
+    /**
+     * Sends a message from the identified {@link TwitchChat} instance with the specified tags and priority.
+     *
+     * @param channelToIdentifyChatInstance the channel used to identify which {@link TwitchChat} instance should be used to send the message; the instance must be subscribed to this channel.
+     * @param targetChannel                 the channel to send the message to, if not null (otherwise it is sent directly on the socket).
+     * @param message                       the message to be sent.
+     * @param tags                          the message tags (unofficial).
+     * @param priority                      the priority of the message, relative to other queued commands.
+     * @return whether a {@link TwitchChat} instance was found and used to send the message
+     */
+    public boolean sendMessage(String channelToIdentifyChatInstance, String targetChannel, String message, @Unofficial @Nullable Map<String, Object> tags, CommandPriority priority) {
+        final Object replyParent = tags != null ? tags.get(ChatReply.REPLY_MSG_ID_TAG_NAME) : null;
+        return this.sendMessage(channelToIdentifyChatInstance, targetChannel, message, tags, priority, replyParent != null ? replyParent.toString() : null);
+    }
+
+    /**
+     * Sends a message from the identified {@link TwitchChat} instance with the specified tags and priority,
+     * where messages with the same ordering key are sent via the same connection if {@link #outboundShards} is above one.
+     *
+     * @param channelToIdentifyChatInstance the channel used to identify which {@link TwitchChat} instance should be used to send the message; the instance must be subscribed to this channel.
+     * @param targetChannel                 the channel to send the message to, if not null (otherwise it is sent directly on the socket).
+     * @param message                       the message to be sent.
+     * @param tags                          the message tags (unofficial).
+     * @param priority                      the priority of the message, relative to other queued commands.
+     * @param orderingKey                   the key of messages whose relative order must be preserved (i.e. a reply thread), or null.
+     * @return whether a {@link TwitchChat} instance was found and used to send the message
+     */
+    public boolean sendMessage(String channelToIdentifyChatInstance, String targetChannel, String message, @Unofficial @Nullable Map<String, Object> tags, CommandPriority priority, @Nullable String orderingKey) {
         if (channelToIdentifyChatInstance == null)
             return false;
 
-        final TwitchChat chat = subscriptions.get(channelToIdentifyChatInstance.toLowerCase());
+        final String channel = channelToIdentifyChatInstance.toLowerCase();
+        final TwitchChat chat = outboundShards > 1 ? selectSender(channel, orderingKey) : subscriptions.get(channel);
         if (chat == null)
             return false;
 
         if (targetChannel != null) {
-            chat.sendMessage(targetChannel, message, tags);
+            chat.sendMessage(targetChannel, message, tags, priority);
         } else {
-            chat.sendRaw(message);
+            chat.sendRaw(message, priority);
         }
 
         return true;
@@ -151,7 +280,11 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
      */
     @Override
     public String subscribe(String s) {
-        return s != null ? super.subscribe(s.toLowerCase()) : null;
+        if (s == null) return null;
+        final String channel = s.toLowerCase();
+        final String result = super.subscribe(channel);
+        subscribeReplicas(channel);
+        return result;
     }
 
     @Override
@@ -159,6 +292,23 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
         this.subscribe(channelName);
     }
 
+    /**
+     * Joins many channels at once, spreading them over as few connections as possible.
+     *
+     * @param channelNames the channel names
+     * @see #subscribeAll(Collection)
+     */
+    @Override
+    public void joinChannels(Collection<String> channelNames) {
+        final List<String> channels = new ArrayList<>(channelNames.size());
+        for (String channelName : channelNames) {
+            if (channelName != null) channels.add(channelName.toLowerCase());
+        }
+        this.subscribeAll(channels);
+        if (getReplicationFactor() > 1)
+            channels.forEach(this::subscribeReplicas);
+    }
+
     /**
      * Parts from a channel.
      *
@@ -167,7 +317,18 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
      */
     @Override
     public Boolean unsubscribe(String s) {
-        return super.unsubscribe(s != null ? s.toLowerCase() : null);
+        final String channel = s != null ? s.toLowerCase() : null;
+        final Boolean result = super.unsubscribe(channel);
+        if (channel != null) {
+            for (int i = 1, n = getReplicationFactor(); i < n; i++) {
+                String replica = replicaKey(channel, i);
+                if (subscriptions.containsKey(replica))
+                    super.unsubscribe(replica);
+            }
+            if (!subscriptions.containsKey(channel))
+                channelIndex.removeName(channel);
+        }
+        return result;
     }
 
     @Override
@@ -183,24 +344,46 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
 
     @Override
     public Set<String> getChannels() {
-        return Collections.unmodifiableSet(subscriptions.keySet());
+        if (getReplicationFactor() <= 1)
+            return Collections.unmodifiableSet(subscriptions.keySet());
+
+        final Set<String> channels = new HashSet<>();
+        for (String s : subscriptions.keySet()) {
+            if (s.indexOf(REPLICA_SEPARATOR) < 0) channels.add(s);
+        }
+        return Collections.unmodifiableSet(channels);
     }
 
     @Override
     protected String handleSubscription(TwitchChat twitchChat, String s) {
         if (twitchChat == null) return null;
-        twitchChat.joinChannel(s);
+        twitchChat.joinChannel(channelOf(s));
         return s;
     }
 
+    @Override
+    protected List<String> handleSubscriptions(TwitchChat twitchChat, List<String> channels) {
+        if (twitchChat == null) return Collections.nCopies(channels.size(), null);
+        final List<String> names = new ArrayList<>(channels.size());
+        channels.forEach(s -> names.add(channelOf(s)));
+        twitchChat.joinChannels(names);
+        return channels;
+    }
+
     @Override
     protected String handleDuplicateSubscription(TwitchChat twitchChat, TwitchChat old, String s) {
-        return twitchChat != null && twitchChat != old && twitchChat.leaveChannel(s) ? s : null;
+        return twitchChat != null && twitchChat != old && twitchChat.leaveChannel(channelOf(s)) ? s : null;
     }
 
     @Override
     protected Boolean handleUnsubscription(TwitchChat twitchChat, String s) {
-        return twitchChat != null ? twitchChat.leaveChannel(s) : null;
+        return twitchChat != null ? twitchChat.leaveChannel(channelOf(s)) : null;
+    }
+
+    @Override
+    protected boolean canHold(TwitchChat twitchChat, String s) {
+        // keep the replicas of a channel on distinct connections
+        return getReplicationFactor() <= 1 || !twitchChat.isChannelJoined(channelOf(s));
     }
 
     @Override
@@ -216,14 +399,24 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
     @Override
     protected TwitchChat createConnection() {
         // Instantiate with configuration
+        final AtomicReference<TwitchChat> self = new AtomicReference<>();
         TwitchChat chat = advancedConfiguration.apply(
             TwitchChatBuilder.builder()
                 .withChatAccount(chatAccount.get())
                 .withEventManager(getConnectionEventManager())
                 .withScheduledThreadPoolExecutor(getExecutor(threadPrefix + RandomStringUtils.random(4, true, true), TwitchChat.REQUIRED_THREAD_COUNT))
                 .withProxyConfig(proxyConfig.get())
+                .withWebSocketTransport(webSocketTransport)
+                .withInboundFilter(createInboundFilter(self))
+                .withChatLineSink(chatLineSink)
+                .withMetrics(connectionMetrics.get())
+                .withReconnectCoordinator(getReconnectCoordinator())
                 .withAutoJoinOwnChannel(false) // user will have to manually send a subscribe call to enable whispers. this avoids duplicating whisper events
         ).build();
+        self.set(chat);
+
+        // Mirror channel ids into the pool-wide index
+        chat.setSharedChannelIndex(channelIndex);
 
         // Reclaim channel headroom upon a ban
         chat.getEventManager().onEvent("twitch4j-chat-pool-ban-tracker", ChannelNoticeEvent.class, e -> {
@@ -236,38 +429,183 @@ public class TwitchChatConnectionPool extends TwitchModuleConnectionPool<TwitchC
         return chat;
     }
 
+    /**
+     * Selects the connection that sends a message to a channel, among the first {@link #outboundShards} connections that joined the channel.
+     *
+     * @param channel     the lowercase channel name.
+     * @param orderingKey the key of messages whose relative order must be preserved, or null.
+     * @return the connection with an affinity to the ordering key, or else the connection with the most available message tokens
+     */
+    private TwitchChat selectSender(String channel, String orderingKey) {
+        final TwitchChat[] senders = new TwitchChat[outboundShards];
+        int available = 0;
+        for (int i = 0; i < senders.length; i++) {
+            TwitchChat chat = subscriptions.get(i == 0 ? channel : replicaKey(channel, i));
+            if (chat != null && !contains(senders, i, chat)) {
+                senders[i] = chat;
+                available++;
+            }
+        }
+
+        if (available <= 1) {
+            for (TwitchChat chat : senders) {
+                if (chat != null) return chat;
+            }
+            return null;
+        }
+
+        if (orderingKey != null)
+            return selectByRendezvous(orderingKey, senders);
+
+        TwitchChat best = null;
+        long bestTokens = Long.MIN_VALUE;
+        for (TwitchChat chat : senders) {
+            if (chat == null) continue;
+            long tokens = availableMessageTokens(chat, channel);
+            if (tokens > bestTokens) {
+                best = chat;
+                bestTokens = tokens;
+            }
+        }
+        return best;
+    }
+
+    private static boolean contains(TwitchChat[] senders, int length, TwitchChat chat) {
+        for (int i = 0; i < length; i++) {
+            if (senders[i] == chat) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Selects a candidate by rendezvous (highest random weight) hashing over the candidate indices,
+     * such that a key only moves to another candidate if its own candidate is missing.
+     *
+     * @param key        the ordering key.
+     * @param candidates the candidates by their replica index, where missing candidates are null.
+     * @param <T>        the type of candidates.
+     * @return the available candidate with the highest weight for the key, or null if none are available
+     */
+    static <T> T selectByRendezvous(String key, T[] candidates) {
+        final int keyHash = key.hashCode();
+        T selected = null;
+        long bestWeight = Long.MIN_VALUE;
+        for (int i = 0; i < candidates.length; i++) {
+            final long weight = rendezvousWeight(keyHash, i);
+            if (candidates[i] != null && (selected == null || weight > bestWeight)) {
+                selected = candidates[i];
+                bestWeight = weight;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @param keyHash the hash code of an ordering key.
+     * @param replica the replica index of a connection (zero for the first connection that joined the channel).
+     * @return the weight of the connection for the key
+     */
+    private static long rendezvousWeight(int keyHash, int replica) {
+        // splitmix64 finalizer over the (key, replica) pair
+        long z = ((long) keyHash << 32 | replica & 0xFFFFFFFFL) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param chat    the connection.
+     * @param channel the lowercase channel name.
+     * @return the number of tokens that are available for a message to the channel, less the number of messages already waiting for tokens
+     */
+    private static long availableMessageTokens(TwitchChat chat, String channel) {
+        final OutboundCommandScheduler.Lane messages = chat.getOutboundScheduler().getMessages();
+        long tokens = messages.getBucket().getAvailableTokens() - messages.getQueueSize();
+
+        final ChannelRateLimiter limiter = chat.getChannelRateLimiter();
+        final OutboundCommandScheduler.Lane userMessages = chat.getOutboundScheduler().getUserMessages();
+        if (limiter != null && userMessages != null && !limiter.isPrivileged(channel))
+            tokens = Math.min(tokens, userMessages.getBucket().getAvailableTokens() - userMessages.getQueueSize());
+
+        return tokens;
+    }
+
+    /**
+     * @param self the connection that evaluates the filter, once it has been constructed.
+     * @return the inbound filter of a connection, which drops lines that were already published by another connection
+     */
+    private InboundLineFilter createInboundFilter(AtomicReference<TwitchChat> self) {
+        // lines without a key are published by the connection that holds the primary subscription of their channel
+        final InboundLineFilter primary = line -> {
+            if (!line.hasChannel() || line.getLine().charAt(line.getChannelStart() - 1) != '#')
+                return true; // i.e. whispers
+
+            final TwitchChat owner = subscriptions.get(line.getChannel().toLowerCase());
+            return owner == null || owner == self.get();
+        };
+        final InboundLineFilter distinct = InboundLineFilter.distinctLines(seenMessageIds, primary);
+        final InboundLineFilter dedupe = getReplicationFactor() > 1 ? distinct : line -> !isMigrationOverlapActive() || distinct.accept(line);
+        return inboundFilter != null ? inboundFilter.and(dedupe) : dedupe;
+    }
+
+    private void subscribeReplicas(String channel) {
+        final int replicas = Math.max(redundantChannels.test(channel) ? redundancyFactor : 1, outboundShards);
+        for (int i = 1; i < replicas; i++)
+            super.subscribe(replicaKey(channel, i));
+    }
+
+    /**
+     * @return the highest number of connections that join a channel, for redundant reads or for outbound sharding
+     */
+    private int getReplicationFactor() {
+        return Math.max(redundancyFactor, outboundShards);
+    }
+
+    private static String replicaKey(String channel, int replica) {
+        return channel + REPLICA_SEPARATOR + replica;
+    }
+
+    private static String channelOf(String subscription) {
+        final int i = subscription.indexOf(REPLICA_SEPARATOR);
+        return i < 0 ? subscription : subscription.substring(0, i);
+    }
+
+    @Override
+    protected LongSupplier createHandshakeAdmission() {
+        return () -> {
+            ConsumptionProbe probe = authBucket.tryConsumeAndReturnRemaining(1L);
+            return probe.isConsumed() ? 0L : Math.max(probe.getNanosToWaitForRefill(), 1L);
+        };
+    }
+
+    @Override
+    protected ConnectionMetrics getMetrics(TwitchChat connection) {
+        return connection.getMetrics();
+    }
+
     @Override
     protected void disposeConnection(TwitchChat connection) {
         connection.close();
     }
 
     /**
-     * Note: this map does not dynamically update unlike {@link TwitchChat#getChannelIdToChannelName()}
+     * Note: this is a live view across all connections of the pool
      * <p>
      * {@inheritDoc}
      */
     @Override
     public Map<String, String> getChannelIdToChannelName() {
-        return collectMapsFromConnections(TwitchChat::getChannelIdToChannelName);
+        return channelIndex.getIdToName();
     }
 
     /**
-     * Note: this map does not dynamically update unlike {@link TwitchChat#getChannelNameToChannelId()}
+     * Note: this is a live view across all connections of the pool
      * <p>
      * {@inheritDoc}
      */
     @Override
     public Map<String, String> getChannelNameToChannelId() {
-        return collectMapsFromConnections(TwitchChat::getChannelNameToChannelId);
-    }
-
-    private <K, V> Map<K, V> collectMapsFromConnections(final Function<TwitchChat, Map<K, V>> mapRetriever) {
-        final Map<K, V> aggregated = new HashMap<>(numConnections() * maxSubscriptionsPerConnection);
-        final Consumer<TwitchChat> retrieve = chat -> aggregated.putAll(mapRetriever.apply(chat));
-        // Note: if connections are changing in saturation concurrently, this lock-free approach could skip over those instances
-        saturatedConnections.forEach(retrieve);
-        unsaturatedConnections.keySet().forEach(retrieve);
-        return Collections.unmodifiableMap(aggregated);
+        return channelIndex.getNameToId();
     }
 
 }
@@ -0,0 +1,54 @@
+package com.github.twitch4j.chat.enums;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The priority class of an outbound irc command.
+ * <p>
+ * Commands that wait for rate limit tokens are released strictly in priority order, and in FIFO order within a priority.
+ * Thus, a moderation action takes the next available token even while many regular messages are queued.
+ */
+public enum CommandPriority {
+
+    /**
+     * Connection management (i.e. authentication and capabilities)
+     */
+    SYSTEM,
+
+    /**
+     * Moderation actions (i.e. deletions, timeouts, bans and chat mode changes)
+     */
+    MODERATION,
+
+    /**
+     * Regular chat messages
+     */
+    NORMAL,
+
+    /**
+     * Messages that may wait until all other commands have been sent (i.e. announcements to many channels)
+     */
+    BULK;
+
+    private static final Set<String> MODERATION_COMMANDS = new HashSet<>(Arrays.asList(
+        "ban", "unban", "timeout", "untimeout", "delete", "clear",
+        "slow", "slowoff", "followers", "followersoff", "subscribers", "subscribersoff",
+        "emoteonly", "emoteonlyoff", "uniquechat", "uniquechatoff", "r9kbeta", "r9kbetaoff"
+    ));
+
+    /**
+     * @param message the chat message.
+     * @return {@link #MODERATION} if the message is a moderation command (i.e. /timeout), otherwise {@link #NORMAL}
+     */
+    public static CommandPriority forMessage(String message) {
+        if (message == null || message.length() < 2 || (message.charAt(0) != '/' && message.charAt(0) != '.'))
+            return NORMAL;
+
+        int end = message.indexOf(' ');
+        if (end < 0) end = message.length();
+        return MODERATION_COMMANDS.contains(message.substring(1, end).toLowerCase()) ? MODERATION : NORMAL;
+    }
+
+}
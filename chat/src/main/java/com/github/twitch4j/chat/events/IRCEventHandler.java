@@ -8,12 +8,14 @@ import com.github.twitch4j.common.enums.SubscriptionPlan;
 import com.github.twitch4j.common.events.domain.EventChannel;
 import com.github.twitch4j.common.events.domain.EventUser;
 import com.github.twitch4j.common.events.user.PrivateMessageEvent;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -21,6 +23,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.github.twitch4j.common.util.TwitchUtils.ANONYMOUS_CHEERER;
 import static com.github.twitch4j.common.util.TwitchUtils.ANONYMOUS_GIFTER;
@@ -44,6 +47,18 @@ public class IRCEventHandler {
      */
     private final EventManager eventManager;
 
+    /**
+     * Handlers for each irc command
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, List<Consumer<IRCMessageEvent>>> commandHandlers = new HashMap<>();
+
+    /**
+     * Handlers for each (lower-case) USERNOTICE msg-id
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, List<Consumer<IRCMessageEvent>>> userNoticeHandlers = new HashMap<>();
+
     /**
      * Constructor
      *
@@ -53,32 +68,72 @@ public class IRCEventHandler {
         this.twitchChat = twitchChat;
         this.eventManager = twitchChat.getEventManager();
 
-        // register event handlers
-        eventManager.onEvent("twitch4j-chat-message-trigger", IRCMessageEvent.class, this::onChannelMessage);
-        eventManager.onEvent("twitch4j-chat-whisper-trigger", IRCMessageEvent.class, this::onWhisper);
-        eventManager.onEvent("twitch4j-chat-bits-badge-trigger", IRCMessageEvent.class, this::onBitsBadgeTier);
-        eventManager.onEvent("twitch4j-chat-cheer-trigger", IRCMessageEvent.class, this::onChannelCheer);
-        eventManager.onEvent("twitch4j-chat-sub-trigger", IRCMessageEvent.class, this::onChannelSubscription);
-        eventManager.onEvent("twitch4j-chat-clearchat-trigger", IRCMessageEvent.class, this::onClearChat);
-        eventManager.onEvent("twitch4j-chat-join-trigger", IRCMessageEvent.class, this::onChannnelClientJoinEvent);
-        eventManager.onEvent("twitch4j-chat-leave-trigger", IRCMessageEvent.class, this::onChannnelClientLeaveEvent);
-        eventManager.onEvent("twitch4j-chat-mod-trigger", IRCMessageEvent.class, this::onChannelModChange);
-        eventManager.onEvent("twitch4j-chat-notice-trigger", IRCMessageEvent.class, this::onNoticeEvent);
-        eventManager.onEvent("twitch4j-chat-host-on-trigger", IRCMessageEvent.class, this::onHostOnEvent);
-        eventManager.onEvent("twitch4j-chat-host-off-trigger", IRCMessageEvent.class, this::onHostOffEvent);
-        eventManager.onEvent("twitch4j-chat-inbound-host-trigger", IRCMessageEvent.class, this::onInboundHostEvent);
-        eventManager.onEvent("twitch4j-chat-list-mods-trigger", IRCMessageEvent.class, this::onListModsEvent);
-        eventManager.onEvent("twitch4j-chat-list-vips-trigger", IRCMessageEvent.class, this::onListVipsEvent);
-        eventManager.onEvent("twitch4j-chat-roomstate-trigger", IRCMessageEvent.class, this::onChannelState);
-        eventManager.onEvent("twitch4j-chat-gift-trigger", IRCMessageEvent.class, this::onGiftReceived);
-        eventManager.onEvent("twitch4j-chat-payforward-trigger", IRCMessageEvent.class, this::onPayForward);
-        eventManager.onEvent("twitch4j-chat-raid-trigger", IRCMessageEvent.class, this::onRaid);
-        eventManager.onEvent("twitch4j-chat-unraid-trigger", IRCMessageEvent.class, this::onUnraid);
-        eventManager.onEvent("twitch4j-chat-rewardgift-trigger", IRCMessageEvent.class, this::onRewardGift);
-        eventManager.onEvent("twitch4j-chat-ritual-trigger", IRCMessageEvent.class, this::onRitual);
-        eventManager.onEvent("twitch4j-chat-delete-trigger", IRCMessageEvent.class, this::onMessageDeleteResponse);
-        eventManager.onEvent("twitch4j-chat-userstate-trigger", IRCMessageEvent.class, this::onUserState);
-        eventManager.onEvent("twitch4j-chat-globaluserstate-trigger", IRCMessageEvent.class, this::onGlobalUserState);
+        // build routing table
+        registerCommand("PRIVMSG", this::onChannelMessage);
+        registerCommand("PRIVMSG", this::onChannelCheer);
+        registerCommand("PRIVMSG", this::onInboundHostEvent);
+        registerCommand("WHISPER", this::onWhisper);
+        registerCommand("CLEARCHAT", this::onClearChat);
+        registerCommand("JOIN", this::onChannnelClientJoinEvent);
+        registerCommand("PART", this::onChannnelClientLeaveEvent);
+        registerCommand("MODE", this::onChannelModChange);
+        registerCommand("NOTICE", this::onNoticeEvent);
+        registerCommand("NOTICE", this::onHostOnEvent);
+        registerCommand("NOTICE", this::onHostOffEvent);
+        registerCommand("NOTICE", this::onListModsEvent);
+        registerCommand("NOTICE", this::onListVipsEvent);
+        registerCommand("NOTICE", this::onMessageDeleteResponse);
+        registerCommand("ROOMSTATE", this::onChannelState);
+        registerCommand("USERSTATE", this::onUserState);
+        registerCommand("GLOBALUSERSTATE", this::onGlobalUserState);
+        registerUserNotice(this::onBitsBadgeTier, "bitsbadgetier");
+        registerUserNotice(this::onChannelSubscription, "sub", "resub", "subgift", "anonsubgift", "submysterygift", "anonsubmysterygift", "giftpaidupgrade", "anongiftpaidupgrade", "primepaidupgrade", "extendsub");
+        registerUserNotice(this::onGiftReceived, "primecommunitygiftreceived");
+        registerUserNotice(this::onPayForward, "standardpayforward", "communitypayforward");
+        registerUserNotice(this::onRaid, "raid");
+        registerUserNotice(this::onUnraid, "unraid");
+        registerUserNotice(this::onRewardGift, "rewardgift");
+        registerUserNotice(this::onRitual, "ritual");
+
+        // register a single event handler that routes to the relevant translators
+        eventManager.onEvent("twitch4j-chat-irc-trigger", IRCMessageEvent.class, this::onMessage);
+    }
+
+    /**
+     * Routes an irc message to the handlers that are registered for its command (and msg-id, for USERNOTICE).
+     *
+     * @param event IRCMessageEvent
+     */
+    public void onMessage(IRCMessageEvent event) {
+        final String command = event.getCommandType();
+        if ("USERNOTICE".equals(command)) {
+            final String msgId = event.getTags().get("msg-id");
+            if (msgId != null) dispatch(userNoticeHandlers.get(msgId.toLowerCase(Locale.ROOT)), event);
+        } else {
+            dispatch(commandHandlers.get(command), event);
+        }
+    }
+
+    private void dispatch(List<Consumer<IRCMessageEvent>> handlers, IRCMessageEvent event) {
+        if (handlers == null) return;
+
+        for (Consumer<IRCMessageEvent> handler : handlers) {
+            try {
+                handler.accept(event);
+            } catch (Exception e) {
+                log.error("Failed to handle {} message: {}", event.getCommandType(), event.getRawMessage(), e);
+            }
+        }
+    }
+
+    private void registerCommand(String command, Consumer<IRCMessageEvent> handler) {
+        commandHandlers.computeIfAbsent(command, k -> new ArrayList<>(1)).add(handler);
+    }
+
+    private void registerUserNotice(Consumer<IRCMessageEvent> handler, String... msgIds) {
+        for (String msgId : msgIds) {
+            userNoticeHandlers.computeIfAbsent(msgId, k -> new ArrayList<>(1)).add(handler);
+        }
     }
 
     /**
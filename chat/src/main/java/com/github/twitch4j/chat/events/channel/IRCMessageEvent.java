@@ -3,18 +3,19 @@ package com.github.twitch4j.chat.events.channel;
 import com.github.twitch4j.chat.events.TwitchEvent;
 import com.github.twitch4j.chat.flag.AutoModFlag;
 import com.github.twitch4j.chat.flag.FlagParser;
+import com.github.twitch4j.chat.util.IRCMessageParser;
+import com.github.twitch4j.chat.util.IRCTagMap;
 import com.github.twitch4j.common.annotation.Unofficial;
 import com.github.twitch4j.common.enums.CommandPermission;
 import com.github.twitch4j.common.events.domain.EventChannel;
 import com.github.twitch4j.common.events.domain.EventUser;
+import com.github.twitch4j.common.util.CommandPermissionSet;
 import com.github.twitch4j.common.util.EscapeUtils;
 import com.github.twitch4j.common.util.TwitchUtils;
 import lombok.*;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This event gets called when we receive a raw irc message.
@@ -25,22 +26,20 @@ import java.util.regex.Pattern;
 @EqualsAndHashCode(callSuper = false)
 public class IRCMessageEvent extends TwitchEvent {
 
-    private static final Pattern MESSAGE_PATTERN = Pattern.compile("^(?:@(?<tags>.+?)\\s)?(?<clientName>.+?)\\s(?<command>[A-Z0-9]+)\\s?(?:#(?<channel>.*?)\\s?)?(?<payload>[:\\-+](?<message>.+))?$");
-    private static final Pattern WHISPER_PATTERN = Pattern.compile("^(?:@(?<tags>.+?)\\s)?:(?<clientName>.+?)!.+?\\s(?<command>[A-Z0-9]+)\\s(?:(?<channel>.*?)\\s?)??(?<payload>[:\\-+](?<message>.+))$");
-    private static final Pattern CLIENT_PATTERN = Pattern.compile("^:(.*?)!(.*?)@(.*?).tmi.twitch.tv$");
-
     @Unofficial
     public static final String NONCE_TAG_NAME = "client-nonce";
 
 	/**
 	 * Tags
+	 *
+	 * @see IRCTagMap
 	 */
-	private Map<String, String> tags = new HashMap<>();
+	private Map<String, String> tags = Collections.emptyMap();
 
     /**
-     * Raw Tags
+     * Raw Tags (a view of the same storage as {@link #getTags()})
      */
-    private Map<String, Object> rawTags = new HashMap<>();
+    private Map<String, Object> rawTags = Collections.emptyMap();
 
 	/**
 	 * Badges
@@ -50,7 +49,8 @@ public class IRCMessageEvent extends TwitchEvent {
     /**
      * Metadata related to the chat badges in the badges tag
      */
-    private Map<String, String> badgeInfo = new HashMap<>();
+    @Getter(lazy = true)
+    private final Map<String, String> badgeInfo = getTagValue("badge-info").map(TwitchUtils::parseBadges).orElse(Collections.emptyMap());
 
 	/**
 	 * Client
@@ -84,8 +84,10 @@ public class IRCMessageEvent extends TwitchEvent {
 
 	/**
 	 * Client Permissions
+	 *
+	 * @see CommandPermissionSet
 	 */
-	private final Set<CommandPermission> clientPermissions = EnumSet.noneOf(CommandPermission.class);
+	private final Set<CommandPermission> clientPermissions;
 
     /**
      * AutoMod Message Flag Indicators, relevant for PRIVMSG and USERNOTICE
@@ -125,8 +127,7 @@ public class IRCMessageEvent extends TwitchEvent {
         }
 
         // permissions and badges
-		getClientPermissions().addAll(TwitchUtils.getPermissionsFromTags(getRawTags(), badges, botOwnerIds != null ? getUserId() : null, botOwnerIds));
-		getTagValue("badge-info").map(TwitchUtils::parseBadges).ifPresent(map -> badgeInfo.putAll(map));
+		this.clientPermissions = new CommandPermissionSet(TwitchUtils.getPermissionBits(getRawTags(), badges, botOwnerIds != null ? getUserId() : null, botOwnerIds));
 	}
 
 	/**
@@ -139,34 +140,22 @@ public class IRCMessageEvent extends TwitchEvent {
 
 	/**
 	 * Parse RAW Message
+	 *
+	 * @see IRCMessageParser
 	 */
-	@SuppressWarnings("unchecked")
 	private void parseRawMessage() {
-		// Parse Message
-		Matcher matcher = MESSAGE_PATTERN.matcher(rawMessage);
-		if (matcher.matches()) {
-			// Parse Tags
-			tags = parseTags(matcher.group("tags"));
-            rawTags = parseTags(matcher.group("tags"));
-			clientName = parseClientName(matcher.group("clientName"));
-			commandType = matcher.group("command");
-			channelName = Optional.ofNullable(matcher.group("channel"));
-			message = Optional.ofNullable(matcher.group("message"));
-			payload = Optional.ofNullable(matcher.group("payload"));
-			return;
-		}
-
-		// Parse Message - Whisper
-		Matcher matcherPM = WHISPER_PATTERN.matcher(rawMessage);
-		if (matcherPM.matches()) {
-			// Parse Tags
-			tags = parseTags(matcherPM.group("tags"));
-			rawTags = parseTags(matcherPM.group("tags"));
-			clientName = parseClientName(matcherPM.group("clientName"));
-			commandType = matcherPM.group("command");
-			channelName = Optional.ofNullable(matcherPM.group("channel"));
-			message = Optional.ofNullable(matcherPM.group("message"));
-			payload = Optional.ofNullable(matcherPM.group("payload"));
+		IRCMessageParser parser = new IRCMessageParser();
+		if (parser.parse(rawMessage)) {
+			// Tags are only decoded upon access
+			if (parser.hasTags()) {
+				tags = new IRCTagMap(rawMessage, parser.getTagsStart(), parser.getTagsEnd());
+				rawTags = Collections.unmodifiableMap(tags);
+			}
+			clientName = parseClientName(parser.getClientName());
+			commandType = parser.getCommand();
+			channelName = Optional.ofNullable(parser.getChannel());
+			message = Optional.ofNullable(parser.getMessage());
+			payload = Optional.ofNullable(parser.getPayload());
 		}
 	}
 
@@ -197,16 +186,7 @@ public class IRCMessageEvent extends TwitchEvent {
 	 * @return Client name, or empty.
 	 */
 	public Optional<String> parseClientName(String raw) {
-		if(raw.equals(":tmi.twitch.tv") || raw.equals(":jtv")) {
-			return Optional.empty();
-		}
-
-		Matcher matcher = CLIENT_PATTERN.matcher(raw);
-		if(matcher.matches()) {
-			return Optional.ofNullable(matcher.group(1));
-		}
-
-		return Optional.ofNullable(raw);
+		return Optional.ofNullable(IRCMessageParser.parseClientName(raw));
 	}
 
 	/**
@@ -215,11 +195,7 @@ public class IRCMessageEvent extends TwitchEvent {
      * @return Long userId
 	 */
 	public String getUserId() {
-		if (tags.containsKey("user-id")) {
-			return tags.get("user-id");
-		}
-
-		return null;
+		return tags.get("user-id");
 	}
 
 	/**
@@ -228,11 +204,8 @@ public class IRCMessageEvent extends TwitchEvent {
      * @return String userName
 	 */
 	public String getUserName() {
-		if (tags.containsKey("login")) {
-			return tags.get("login");
-		}
-
-		return getClientName().orElse(null);
+		String login = tags.get("login");
+		return login != null ? login : getClientName().orElse(null);
 	}
 
     /**
@@ -241,11 +214,7 @@ public class IRCMessageEvent extends TwitchEvent {
      * @return Long targetUserId
      */
     public String getTargetUserId() {
-        if (tags.containsKey("target-user-id")) {
-            return tags.get("target-user-id");
-        }
-
-        return null;
+        return tags.get("target-user-id");
     }
 
     /**
@@ -269,7 +238,7 @@ public class IRCMessageEvent extends TwitchEvent {
      * @return the exact number of months the user has been a subscriber, or empty if they are not subscribed
      */
     public OptionalInt getSubscriberMonths() {
-        final String monthsStr = badgeInfo.get("subscriber");
+        final String monthsStr = getBadgeInfo().get("subscriber");
 
         if (monthsStr != null) {
             try {
@@ -0,0 +1,87 @@
+package com.github.twitch4j.chat.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent, bidirectional index between channel ids and (lowercase) channel names.
+ * <p>
+ * Reads are lock-free and the exposed maps are live views, so they never go stale.
+ * Writes are rare (i.e. upon ROOMSTATE after joining a channel) and are serialized to keep both directions consistent.
+ */
+public final class ChannelIdIndex {
+
+    private final Map<String, String> idToName = new ConcurrentHashMap<>();
+
+    private final Map<String, String> nameToId = new ConcurrentHashMap<>();
+
+    private final Map<String, String> idToNameView = Collections.unmodifiableMap(idToName);
+
+    private final Map<String, String> nameToIdView = Collections.unmodifiableMap(nameToId);
+
+    /**
+     * Stores a mapping, replacing any previous mapping of either the id (i.e. after a name change) or the name.
+     *
+     * @param channelName the lowercase channel name.
+     * @param channelId   the channel id.
+     */
+    public void put(String channelName, String channelId) {
+        if (channelName.equals(idToName.get(channelId)) && channelId.equals(nameToId.get(channelName)))
+            return; // already up-to-date
+
+        synchronized (this) {
+            String oldName = idToName.put(channelId, channelName);
+            if (oldName != null && !oldName.equals(channelName))
+                nameToId.remove(oldName, channelId);
+
+            String oldId = nameToId.put(channelName, channelId);
+            if (oldId != null && !oldId.equals(channelId))
+                idToName.remove(oldId, channelName);
+        }
+    }
+
+    /**
+     * Removes the mapping for a channel name, if present.
+     *
+     * @param channelName the lowercase channel name.
+     */
+    public void removeName(String channelName) {
+        synchronized (this) {
+            String channelId = nameToId.remove(channelName);
+            if (channelId != null)
+                idToName.remove(channelId, channelName);
+        }
+    }
+
+    /**
+     * @param channelName the lowercase channel name.
+     * @return the channel id, or null
+     */
+    public String getId(String channelName) {
+        return nameToId.get(channelName);
+    }
+
+    /**
+     * @param channelId the channel id.
+     * @return the lowercase channel name, or null
+     */
+    public String getName(String channelId) {
+        return idToName.get(channelId);
+    }
+
+    /**
+     * @return a live, unmodifiable view of the channel id to name mappings
+     */
+    public Map<String, String> getIdToName() {
+        return idToNameView;
+    }
+
+    /**
+     * @return a live, unmodifiable view of the channel name to id mappings
+     */
+    public Map<String, String> getNameToId() {
+        return nameToIdView;
+    }
+
+}
@@ -0,0 +1,291 @@
+package com.github.twitch4j.chat.util;
+
+import com.github.twitch4j.chat.enums.CommandPriority;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Paces channel messages according to our own status in each channel.
+ * <p>
+ * In channels where we are the broadcaster, a moderator, or a VIP (as reported by USERSTATE), messages are passed on immediately.
+ * Elsewhere, messages are released one at a time per channel, at least {@link #USER_MESSAGE_INTERVAL} apart,
+ * or further apart if the channel is in slow mode (as reported by ROOMSTATE).
+ * Channels are paced independently, so a channel in slow mode does not hold back messages to other channels.
+ * <p>
+ * Channels whose status is not known yet are treated as channels without elevated status.
+ * <p>
+ * Status is only retained for joined channels: the pacing state of other channels (i.e. those that were messaged without joining)
+ * is dropped once their queue is empty and their pacing interval has elapsed.
+ */
+@Slf4j
+public final class ChannelRateLimiter {
+
+    /**
+     * The minimum time between two messages to the same channel, without elevated status in that channel.
+     */
+    public static final Duration USER_MESSAGE_INTERVAL = Duration.ofSeconds(1L);
+
+    private final Map<String, ChannelState> channels = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+
+    private final BiConsumer<String, CommandPriority> privilegedSink;
+
+    private final BiConsumer<String, CommandPriority> userSink;
+
+    private final Predicate<String> joined;
+
+    /**
+     * Creates a limiter that retains the status of every channel until it is {@link #remove(String) removed}.
+     *
+     * @param executor       the executor that releases paced messages.
+     * @param privilegedSink the consumer of messages to channels with elevated status (i.e. the moderator rate limit).
+     * @param userSink       the consumer of paced messages to other channels (i.e. the regular user rate limit).
+     */
+    public ChannelRateLimiter(ScheduledExecutorService executor, BiConsumer<String, CommandPriority> privilegedSink, BiConsumer<String, CommandPriority> userSink) {
+        this(executor, privilegedSink, userSink, channel -> true);
+    }
+
+    /**
+     * Creates a limiter.
+     *
+     * @param executor       the executor that releases paced messages.
+     * @param privilegedSink the consumer of messages to channels with elevated status (i.e. the moderator rate limit).
+     * @param userSink       the consumer of paced messages to other channels (i.e. the regular user rate limit).
+     * @param joined         whether a lowercase channel name is currently joined, such that its status should be retained.
+     */
+    public ChannelRateLimiter(ScheduledExecutorService executor, BiConsumer<String, CommandPriority> privilegedSink, BiConsumer<String, CommandPriority> userSink, Predicate<String> joined) {
+        this.executor = executor;
+        this.privilegedSink = privilegedSink;
+        this.userSink = userSink;
+        this.joined = joined;
+    }
+
+    /**
+     * Records our own status in a channel.
+     *
+     * @param channel    the lowercase channel name.
+     * @param privileged whether we are the broadcaster, a moderator, or a VIP in the channel.
+     */
+    public void onUserState(String channel, boolean privileged) {
+        ChannelState state = getState(channel);
+        if (state != null && state.privileged != privileged) {
+            state.privileged = privileged;
+            log.debug("Chat: elevated status in channel {} is now {}", channel, privileged);
+            if (privileged) state.requestDrain(0L); // queued messages are no longer paced once the pending wait elapses
+        }
+    }
+
+    /**
+     * Records the slow mode of a channel.
+     *
+     * @param channel     the lowercase channel name.
+     * @param slowSeconds the minimum number of seconds between messages of the same user, or zero if slow mode is off.
+     */
+    public void onRoomState(String channel, int slowSeconds) {
+        ChannelState state = getState(channel);
+        if (state != null) state.slowNanos = TimeUnit.SECONDS.toNanos(Math.max(slowSeconds, 0));
+    }
+
+    /**
+     * Queues a message to a channel.
+     *
+     * @param channel  the lowercase channel name.
+     * @param command  the raw irc command.
+     * @param priority the priority of the command.
+     */
+    public void submit(String channel, String command, CommandPriority priority) {
+        ChannelState existing = channels.get(channel);
+        if (existing != null && existing.privileged && existing.queue.isEmpty()) {
+            privilegedSink.accept(command, priority);
+            return;
+        }
+
+        // queue within the map operation, so the state cannot be evicted in between
+        ChannelState state = channels.compute(channel, (name, s) -> {
+            ChannelState target = s != null ? s : new ChannelState(name);
+            target.queue.add(new Pending(command, priority));
+            return target;
+        });
+        state.requestDrain(0L);
+    }
+
+    /**
+     * Forgets the status of a channel (i.e. after leaving it), unless messages to the channel are still queued.
+     *
+     * @param channel the lowercase channel name.
+     */
+    public void remove(String channel) {
+        channels.computeIfPresent(channel, (name, state) -> state.queue.isEmpty() ? null : state);
+    }
+
+    /**
+     * @param channel the lowercase channel name.
+     * @return whether we are known to be the broadcaster, a moderator, or a VIP in the channel
+     */
+    public boolean isPrivileged(String channel) {
+        ChannelState state = channels.get(channel);
+        return state != null && state.privileged;
+    }
+
+    /**
+     * @param channel the lowercase channel name.
+     * @return the minimum time between two messages to the channel
+     */
+    public Duration getMessageInterval(String channel) {
+        ChannelState state = channels.get(channel);
+        return Duration.ofNanos(state != null ? state.intervalNanos() : USER_MESSAGE_INTERVAL.toNanos());
+    }
+
+    /**
+     * @return the number of messages that are waiting for their channel's pacing, across all channels
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (ChannelState state : channels.values()) {
+            size += state.queue.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of channels whose status or pacing is currently tracked
+     */
+    int getChannelCount() {
+        return channels.size();
+    }
+
+    /**
+     * @param channel the lowercase channel name.
+     * @return the state of the channel, which is only created for joined channels, or null
+     */
+    private ChannelState getState(String channel) {
+        return joined.test(channel) ? channels.computeIfAbsent(channel, ChannelState::new) : channels.get(channel);
+    }
+
+    /**
+     * @param tags the tags of a USERSTATE line.
+     * @return whether the tags indicate that we are the broadcaster, a moderator, or a VIP in the channel
+     */
+    public static boolean isPrivileged(Map<String, ?> tags) {
+        if ("1".equals(String.valueOf(tags.get("mod"))) || tags.containsKey("vip"))
+            return true;
+
+        Object badges = tags.get("badges");
+        if (badges == null) return false;
+        for (String badge : badges.toString().split(",")) {
+            if (badge.startsWith("broadcaster/") || badge.startsWith("moderator/") || badge.startsWith("vip/"))
+                return true;
+        }
+        return false;
+    }
+
+    private final class ChannelState {
+
+        private final String name;
+
+        private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final Runnable drainTask = this::drain;
+
+        private volatile boolean privileged;
+
+        private volatile long slowNanos;
+
+        /**
+         * The earliest time at which the next message may be released; only accessed by the drain task.
+         */
+        private long nextReleaseNanos = System.nanoTime();
+
+        private ChannelState(String name) {
+            this.name = name;
+        }
+
+        private long intervalNanos() {
+            return privileged ? 0L : Math.max(USER_MESSAGE_INTERVAL.toNanos(), slowNanos);
+        }
+
+        private void requestDrain(long delayNanos) {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    if (delayNanos > 0L)
+                        executor.schedule(drainTask, delayNanos, TimeUnit.NANOSECONDS);
+                    else
+                        executor.execute(drainTask);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    log.warn("Chat: unable to schedule release of queued messages to channel {}", name, e);
+                }
+            }
+        }
+
+        private void drain() {
+            long waitNanos = 0L;
+
+            Pending head;
+            while ((head = queue.peek()) != null) {
+                final boolean elevated = privileged;
+                final long now = System.nanoTime();
+                if (!elevated && nextReleaseNanos - now > 0L) {
+                    waitNanos = nextReleaseNanos - now;
+                    break;
+                }
+
+                queue.poll();
+                nextReleaseNanos = now + intervalNanos();
+
+                try {
+                    if (elevated)
+                        privilegedSink.accept(head.command, head.priority);
+                    else
+                        userSink.accept(head.command, head.priority);
+                } catch (Exception e) {
+                    log.error("Chat: failed to release queued message to channel {}", name, e);
+                }
+            }
+
+            scheduled.set(false);
+            if (waitNanos > 0L)
+                requestDrain(waitNanos);
+            else if (!queue.isEmpty())
+                requestDrain(0L);
+            else if (!joined.test(name))
+                evict();
+        }
+
+        /**
+         * Drops the state of a channel that is not joined, once the pacing of its last message no longer matters.
+         */
+        private void evict() {
+            final long idleNanos = nextReleaseNanos - System.nanoTime();
+            if (idleNanos > 0L)
+                requestDrain(idleNanos); // drains an empty queue, and then evicts again
+            else
+                channels.computeIfPresent(name, (n, state) -> state == this && state.queue.isEmpty() ? null : state);
+        }
+    }
+
+    private static final class Pending {
+        private final String command;
+        private final CommandPriority priority;
+
+        private Pending(String command, CommandPriority priority) {
+            this.command = command;
+            this.priority = priority;
+        }
+    }
+
+}
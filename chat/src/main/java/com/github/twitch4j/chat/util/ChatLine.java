@@ -0,0 +1,63 @@
+package com.github.twitch4j.chat.util;
+
+/**
+ * Read-only view of a single inbound irc line, for consumers that want to avoid the event pipeline.
+ * <p>
+ * The same instance is reused for consecutive lines of a connection, and all returned sequences are views into the raw line.
+ * Thus, neither the view nor any returned {@link CharSequence} may be retained after {@link ChatLineSink#onLine(ChatLine)} returns;
+ * call {@link Object#toString()} to obtain a copy.
+ *
+ * @see ChatLineSink
+ */
+public interface ChatLine {
+
+    /**
+     * @return the entire raw line
+     */
+    CharSequence getRaw();
+
+    /**
+     * @return the irc command (i.e. PRIVMSG)
+     */
+    String getCommand();
+
+    /**
+     * Checks whether the line has the specified command, without allocating.
+     *
+     * @param command the irc command.
+     * @return whether the commands are identical
+     */
+    boolean isCommand(String command);
+
+    /**
+     * @return the prefix for channel messages (i.e. {@code :user!user@user.tmi.twitch.tv}) or the bare name for whispers, or null
+     */
+    CharSequence getPrefix();
+
+    /**
+     * @return the channel name (without '#') or whisper target, or null
+     */
+    CharSequence getChannel();
+
+    /**
+     * @return the trailing message (excluding its leading ':'), or null
+     */
+    CharSequence getMessage();
+
+    /**
+     * @param key the tag name.
+     * @return whether the tag is present (even if empty)
+     */
+    boolean hasTag(String key);
+
+    /**
+     * Looks up a tag by scanning the tags section in place.
+     * <p>
+     * Like {@link IRCTagMap}, values are kept in their escaped form, and empty values are exposed as null.
+     *
+     * @param key the tag name.
+     * @return the escaped value of the tag, or null
+     */
+    CharSequence getTag(String key);
+
+}
@@ -0,0 +1,17 @@
+package com.github.twitch4j.chat.util;
+
+/**
+ * Low-level callback that receives every parsable inbound irc line of a {@link com.github.twitch4j.chat.TwitchChat} instance.
+ * <p>
+ * The sink is invoked on the websocket callback thread, before (and independently of) the regular event pipeline,
+ * so implementations should return quickly and must not retain the passed {@link ChatLine}.
+ */
+@FunctionalInterface
+public interface ChatLineSink {
+
+    /**
+     * @param line the reusable view of the current line.
+     */
+    void onLine(ChatLine line);
+
+}
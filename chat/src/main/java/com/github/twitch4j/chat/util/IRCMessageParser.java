@@ -0,0 +1,371 @@
+package com.github.twitch4j.chat.util;
+
+/**
+ * Single-pass tokenizer for raw IRC lines received from TMI.
+ * <p>
+ * The line is scanned once from left to right and only the offsets of each component
+ * (tags, prefix, command, channel and trailing payload) are recorded, such that no
+ * intermediate strings are allocated until a component is actually requested.
+ * <p>
+ * The semantics mirror the historical regular expressions used by
+ * {@link com.github.twitch4j.chat.events.channel.IRCMessageEvent}:
+ * <ul>
+ *     <li>A channel message is of the form {@code [@tags ]prefix COMMAND[ ][#channel][ ][payload]}</li>
+ *     <li>Otherwise, a whisper-like message of the form {@code [@tags ]:name!ident COMMAND [target ]payload}</li>
+ * </ul>
+ * where the payload starts with one of {@code :}, {@code -} or {@code +} and must contain at least one further character.
+ * <p>
+ * Instances are mutable and may be reused for consecutive lines, but are not thread-safe.
+ */
+public final class IRCMessageParser {
+
+    /**
+     * The line that was most recently parsed.
+     */
+    private CharSequence line;
+
+    /**
+     * The (exclusive) end index of the line.
+     */
+    private int end;
+
+    private int tagsStart, tagsEnd;
+    private int clientNameStart, clientNameEnd;
+    private int commandStart, commandEnd;
+    private int channelStart, channelEnd;
+    private int payloadStart;
+
+    /**
+     * Parses an entire line.
+     *
+     * @param line the raw irc line, without trailing line breaks.
+     * @return whether the line could be parsed
+     */
+    public boolean parse(CharSequence line) {
+        return parse(line, 0, line.length());
+    }
+
+    /**
+     * Parses a region of a character sequence as a raw irc line.
+     * <p>
+     * All offsets exposed by this class are relative to the passed sequence (not the region).
+     *
+     * @param line  the sequence containing the raw irc line.
+     * @param start the index of the first character of the line (inclusive).
+     * @param end   the index after the last character of the line (exclusive).
+     * @return whether the line could be parsed
+     */
+    public boolean parse(CharSequence line, int start, int end) {
+        this.line = line;
+        this.end = end;
+        this.tagsStart = this.tagsEnd = -1;
+        reset();
+
+        // Tags
+        int i = start;
+        if (i < end && line.charAt(i) == '@') {
+            int space = indexOfWhitespace(line, i + 1, end);
+            if (space <= i + 1) return fail(); // tags must be non-empty and followed by whitespace
+            tagsStart = i + 1;
+            tagsEnd = space;
+            i = space + 1;
+        }
+        final int afterTags = i;
+
+        // Attempt to parse as a channel message: prefix COMMAND[ ][#channel][ ][payload]
+        int prefixEnd = indexOfWhitespace(line, i, end);
+        if (prefixEnd > i && parseChannelMessage(i, prefixEnd)) {
+            return true;
+        }
+
+        // Fallback to parsing as a whisper: :name!ident COMMAND [target ]payload
+        reset(); // keep tags
+        return parseWhisper(afterTags);
+    }
+
+    private boolean parseChannelMessage(int prefixStart, int prefixEnd) {
+        // Command
+        int i = prefixEnd + 1;
+        int cmdEnd = scanCommand(line, i, end);
+        if (cmdEnd == i) return false;
+
+        // Optional whitespace after command
+        int j = cmdEnd;
+        if (j < end && isWhitespace(line.charAt(j))) j++;
+
+        int chanStart = -1, chanEnd = -1, payload = -1;
+        if (j < end && line.charAt(j) == '#') {
+            // Channel name spans until the payload (or end), excluding a single whitespace separator
+            chanStart = j + 1;
+            payload = indexOfPayload(line, chanStart, end);
+            int limit = payload >= 0 ? payload : end;
+            chanEnd = limit > chanStart && isWhitespace(line.charAt(limit - 1)) ? limit - 1 : limit;
+        } else if (j < end) {
+            // Must either be the payload or the end of the line
+            if (!isPayloadStart(line, j, end)) return false;
+            payload = j;
+        }
+
+        clientNameStart = prefixStart;
+        clientNameEnd = prefixEnd;
+        commandStart = prefixEnd + 1;
+        commandEnd = cmdEnd;
+        channelStart = chanStart;
+        channelEnd = chanEnd;
+        payloadStart = payload;
+        return true;
+    }
+
+    private boolean parseWhisper(int i) {
+        // Prefix of the form :name!ident
+        if (i >= end || line.charAt(i) != ':') return fail();
+        int bang = -1;
+        for (int k = i + 1; k < end; k++) {
+            char c = line.charAt(k);
+            if (c == '!') {
+                bang = k;
+                break;
+            } else if (isWhitespace(c)) {
+                break;
+            }
+        }
+        if (bang <= i + 1) return fail();
+        int prefixEnd = indexOfWhitespace(line, bang + 1, end);
+        if (prefixEnd <= bang + 1) return fail();
+
+        // Command must be followed by whitespace
+        int cmdStart = prefixEnd + 1;
+        int cmdEnd = scanCommand(line, cmdStart, end);
+        if (cmdEnd == cmdStart || cmdEnd >= end || !isWhitespace(line.charAt(cmdEnd))) return fail();
+
+        // Payload is mandatory; anything between the command and the payload is the target
+        int paramsStart = cmdEnd + 1;
+        int payload = indexOfPayload(line, paramsStart, end);
+        if (payload < 0) return fail();
+
+        clientNameStart = i + 1;
+        clientNameEnd = bang;
+        commandStart = cmdStart;
+        commandEnd = cmdEnd;
+        if (payload > paramsStart) {
+            channelStart = paramsStart;
+            channelEnd = isWhitespace(line.charAt(payload - 1)) ? payload - 1 : payload;
+        }
+        payloadStart = payload;
+        return true;
+    }
+
+    private void reset() {
+        clientNameStart = clientNameEnd = -1;
+        commandStart = commandEnd = -1;
+        channelStart = channelEnd = -1;
+        payloadStart = -1;
+    }
+
+    private boolean fail() {
+        tagsStart = tagsEnd = -1;
+        reset();
+        return false;
+    }
+
+    /**
+     * @return the raw line that was most recently parsed
+     */
+    public CharSequence getLine() {
+        return line;
+    }
+
+    /**
+     * @return whether the most recent line was parsed successfully
+     */
+    public boolean isValid() {
+        return commandStart >= 0;
+    }
+
+    public boolean hasTags() {
+        return tagsStart >= 0;
+    }
+
+    public int getTagsStart() {
+        return tagsStart;
+    }
+
+    public int getTagsEnd() {
+        return tagsEnd;
+    }
+
+    public int getClientNameStart() {
+        return clientNameStart;
+    }
+
+    public int getClientNameEnd() {
+        return clientNameEnd;
+    }
+
+    public int getCommandStart() {
+        return commandStart;
+    }
+
+    public int getCommandEnd() {
+        return commandEnd;
+    }
+
+    public boolean hasChannel() {
+        return channelStart >= 0;
+    }
+
+    public int getChannelStart() {
+        return channelStart;
+    }
+
+    public int getChannelEnd() {
+        return channelEnd;
+    }
+
+    public boolean hasPayload() {
+        return payloadStart >= 0;
+    }
+
+    public int getPayloadStart() {
+        return payloadStart;
+    }
+
+    /**
+     * @return the (exclusive) end index of the line, which is also the end of the payload
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the raw tags section (without the leading '@'), or null
+     */
+    public String getTags() {
+        return hasTags() ? substring(tagsStart, tagsEnd) : null;
+    }
+
+    /**
+     * @return the prefix for channel messages (i.e. {@code :user!user@user.tmi.twitch.tv}) or the bare name for whispers, or null
+     */
+    public String getClientName() {
+        return clientNameStart >= 0 ? substring(clientNameStart, clientNameEnd) : null;
+    }
+
+    /**
+     * @return the irc command, or null
+     */
+    public String getCommand() {
+        return isValid() ? substring(commandStart, commandEnd) : null;
+    }
+
+    /**
+     * @return the channel name (without '#') or whisper target, or null
+     */
+    public String getChannel() {
+        return hasChannel() ? substring(channelStart, channelEnd) : null;
+    }
+
+    /**
+     * @return the trailing payload, including its leading marker character, or null
+     */
+    public String getPayload() {
+        return hasPayload() ? substring(payloadStart, end) : null;
+    }
+
+    /**
+     * @return the trailing payload, excluding its leading marker character, or null
+     */
+    public String getMessage() {
+        return hasPayload() ? substring(payloadStart + 1, end) : null;
+    }
+
+    /**
+     * Checks whether the parsed command equals the specified command, without allocating.
+     *
+     * @param command the command to compare against.
+     * @return whether the commands are identical
+     */
+    public boolean isCommand(String command) {
+        return isValid() && regionMatches(line, commandStart, commandEnd, command);
+    }
+
+    private String substring(int start, int end) {
+        return line.subSequence(start, end).toString();
+    }
+
+    /**
+     * Extracts the user name from an irc prefix (i.e. {@code :user!user@user.tmi.twitch.tv}).
+     *
+     * @param raw the raw prefix.
+     * @return the user name, null for server prefixes, or the raw prefix if it is not in the expected format
+     */
+    public static String parseClientName(String raw) {
+        if (raw.equals(":tmi.twitch.tv") || raw.equals(":jtv"))
+            return null;
+
+        final String host = "tmi.twitch.tv";
+        if (raw.length() > 0 && raw.charAt(0) == ':' && raw.endsWith(host)) {
+            int bang = raw.indexOf('!', 1);
+            int at = bang >= 0 ? raw.indexOf('@', bang + 1) : -1;
+            if (at >= 0 && at + 1 < raw.length() - host.length())
+                return raw.substring(1, bang);
+        }
+
+        return raw;
+    }
+
+    /**
+     * Checks whether a region of a sequence is equal to the specified string.
+     *
+     * @param seq   the sequence to be checked.
+     * @param start the start of the region (inclusive).
+     * @param end   the end of the region (exclusive).
+     * @param str   the string to be compared.
+     * @return whether the region and the string are equal
+     */
+    public static boolean regionMatches(CharSequence seq, int start, int end, String str) {
+        final int len = str.length();
+        if (end - start != len) return false;
+        for (int i = 0; i < len; i++) {
+            if (seq.charAt(start + i) != str.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int scanCommand(CharSequence s, int i, int end) {
+        while (i < end) {
+            char c = s.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) i++;
+            else break;
+        }
+        return i;
+    }
+
+    private static int indexOfWhitespace(CharSequence s, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (isWhitespace(s.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    private static int indexOfPayload(CharSequence s, int from, int end) {
+        for (int i = from; i < end - 1; i++) {
+            if (isPayloadMarker(s.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isPayloadStart(CharSequence s, int i, int end) {
+        return i < end - 1 && isPayloadMarker(s.charAt(i));
+    }
+
+    private static boolean isPayloadMarker(char c) {
+        return c == ':' || c == '-' || c == '+';
+    }
+
+    private static boolean isWhitespace(char c) {
+        // equivalent to \s in java.util.regex
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.github.twitch4j.chat.util;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of the IRCv3 tags section of a raw irc line.
+ * <p>
+ * Construction only records the offsets of each {@code key=value} pair within the backing sequence;
+ * keys are compared in-place and values are only copied out of the line once they are requested.
+ * <p>
+ * Like the historical parsing logic, tag keys and values are kept in their escaped form,
+ * empty values are exposed as null, and the last occurrence wins for duplicate keys.
+ * Values span until the end of their segment, even if they contain further '=' characters.
+ *
+ * @see <a href="https://ircv3.net/specs/extensions/message-tags.html">Official spec</a>
+ */
+public final class IRCTagMap extends AbstractMap<String, String> {
+
+    private static final int[] EMPTY_OFFSETS = new int[0];
+
+    /**
+     * The sequence that contains the tags section (typically the entire raw irc line).
+     */
+    private final CharSequence source;
+
+    /**
+     * Triplets of: key start (inclusive), key end (exclusive), segment end (exclusive).
+     */
+    private final int[] offsets;
+
+    /**
+     * The number of tag segments (including duplicates).
+     */
+    private final int count;
+
+    /**
+     * Values that have already been copied out of the source, indexed by segment.
+     */
+    private String[] values;
+
+    /**
+     * Fully materialized map, lazily created upon iteration.
+     */
+    private Map<String, String> materialized;
+
+    /**
+     * Creates a tag view over a region of a sequence.
+     *
+     * @param source the sequence containing the tags.
+     * @param start  the start of the tags section, after the '@' (inclusive).
+     * @param end    the end of the tags section, before the whitespace (exclusive).
+     */
+    public IRCTagMap(CharSequence source, int start, int end) {
+        this.source = source;
+
+        int[] offsets = start < end ? new int[48] : EMPTY_OFFSETS;
+        int n = 0;
+        int keyStart = start, keyEnd = -1;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? source.charAt(i) : ';';
+            if (c == '=' && keyEnd < 0) {
+                keyEnd = i;
+            } else if (c == ';') {
+                if (keyEnd < 0) keyEnd = i;
+                if (keyEnd > keyStart) {
+                    int idx = n * 3;
+                    if (idx + 3 > offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    offsets[idx] = keyStart;
+                    offsets[idx + 1] = keyEnd;
+                    offsets[idx + 2] = i;
+                    n++;
+                }
+                keyStart = i + 1;
+                keyEnd = -1;
+            }
+        }
+
+        this.offsets = offsets;
+        this.count = n;
+    }
+
+    /**
+     * Creates a tag view over an entire tags string (without the leading '@').
+     *
+     * @param rawTags the raw tags section.
+     */
+    public IRCTagMap(String rawTags) {
+        this(rawTags, 0, rawTags.length());
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) return null;
+        int i = indexOf((String) key);
+        return i >= 0 ? value(i) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public int size() {
+        return materialize().size();
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return materialize().entrySet();
+    }
+
+    private int indexOf(String key) {
+        final int len = key.length();
+        for (int i = count - 1; i >= 0; i--) { // last one wins
+            int keyStart = offsets[i * 3];
+            int keyEnd = offsets[i * 3 + 1];
+            if (keyEnd - keyStart == len && IRCMessageParser.regionMatches(source, keyStart, keyEnd, key))
+                return i;
+        }
+        return -1;
+    }
+
+    private String value(int i) {
+        int valueStart = offsets[i * 3 + 1] + 1;
+        int valueEnd = offsets[i * 3 + 2];
+        if (valueStart >= valueEnd) return null;
+
+        String[] values = this.values;
+        if (values == null) this.values = values = new String[count];
+
+        String value = values[i];
+        if (value == null) values[i] = value = source.subSequence(valueStart, valueEnd).toString();
+        return value;
+    }
+
+    private Map<String, String> materialize() {
+        Map<String, String> map = this.materialized;
+        if (map == null) {
+            if (count == 0) {
+                map = Collections.emptyMap();
+            } else {
+                Map<String, String> m = new LinkedHashMap<>(count * 4 / 3 + 1);
+                for (int i = 0; i < count; i++) {
+                    m.put(source.subSequence(offsets[i * 3], offsets[i * 3 + 1]).toString(), value(i));
+                }
+                map = Collections.unmodifiableMap(m);
+            }
+            this.materialized = map;
+        }
+        return map;
+    }
+
+}
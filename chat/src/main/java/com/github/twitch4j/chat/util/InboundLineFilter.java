@@ -0,0 +1,188 @@
+package com.github.twitch4j.chat.util;
+
+import com.github.twitch4j.common.util.RecentKeyFilter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decides whether a raw inbound irc line should be turned into an {@link com.github.twitch4j.chat.events.channel.IRCMessageEvent}.
+ * <p>
+ * Filters are evaluated on the tokenized line, before any tags are parsed or objects are created,
+ * so lines that are dropped cost little more than a single scan.
+ * <p>
+ * Note: other features rely on certain events (i.e. NOTICE for the ban tracking of the connection pool),
+ * so those commands should not be filtered out if such features are used.
+ * Channel id caching from ROOMSTATE is preserved regardless of the filter.
+ */
+@FunctionalInterface
+public interface InboundLineFilter {
+
+    /**
+     * @param line the tokenized irc line; offsets are relative to {@link IRCMessageParser#getLine()}.
+     * @return whether an event should be created and published for the line
+     */
+    boolean accept(IRCMessageParser line);
+
+    /**
+     * @param other another filter.
+     * @return a filter that only accepts lines that are accepted by both filters
+     */
+    default InboundLineFilter and(InboundLineFilter other) {
+        return line -> accept(line) && other.accept(line);
+    }
+
+    /**
+     * @param other another filter.
+     * @return a filter that accepts lines that are accepted by either filter
+     */
+    default InboundLineFilter or(InboundLineFilter other) {
+        return line -> accept(line) || other.accept(line);
+    }
+
+    /**
+     * @return a filter that accepts lines that are rejected by this filter
+     */
+    default InboundLineFilter negate() {
+        return line -> !accept(line);
+    }
+
+    /**
+     * @param commands the irc commands to accept (i.e. PRIVMSG, USERNOTICE).
+     * @return a filter that only accepts lines with one of the specified commands
+     */
+    static InboundLineFilter commands(String... commands) {
+        final String[] accepted = commands.clone();
+        return line -> {
+            for (String command : accepted) {
+                if (line.isCommand(command)) return true;
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Lines that do not refer to a channel (i.e. whispers or global notices) are accepted.
+     *
+     * @param channelNames the channel names to accept.
+     * @return a filter that only accepts channel-specific lines for the specified channels
+     */
+    static InboundLineFilter channels(Collection<String> channelNames) {
+        final Set<String> accepted = new HashSet<>(channelNames.size() * 2);
+        channelNames.forEach(name -> accepted.add(name.toLowerCase()));
+        return line -> !line.hasChannel() || line.getLine().charAt(line.getChannelStart() - 1) != '#' || accepted.contains(line.getChannel());
+    }
+
+    /**
+     * Lines without a msg-id tag are accepted.
+     *
+     * @param msgIds the values of the msg-id tag to accept (i.e. sub, resub).
+     * @return a filter that only accepts lines with a msg-id tag if the value is one of those specified
+     */
+    static InboundLineFilter msgIds(String... msgIds) {
+        final Set<String> accepted = new HashSet<>(Arrays.asList(msgIds));
+        final String key = "msg-id=";
+        return line -> {
+            if (!line.hasTags()) return true;
+
+            final CharSequence s = line.getLine();
+            final int end = line.getTagsEnd();
+            int i = line.getTagsStart();
+            while (i < end) {
+                int segmentEnd = i;
+                while (segmentEnd < end && s.charAt(segmentEnd) != ';') segmentEnd++;
+
+                final int valueStart = i + key.length();
+                if (valueStart <= segmentEnd && IRCMessageParser.regionMatches(s, i, valueStart, key)) {
+                    for (String msgId : accepted) {
+                        if (IRCMessageParser.regionMatches(s, valueStart, segmentEnd, msgId)) return true;
+                    }
+                    return false;
+                }
+
+                i = segmentEnd + 1;
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Lines without an id tag are accepted.
+     *
+     * @param seen the recently seen message ids, which can be shared by the filters of several connections.
+     * @return a filter that only accepts the first line with a given id tag, such that a message read over multiple connections yields a single event
+     */
+    static InboundLineFilter distinctMessageIds(RecentKeyFilter seen) {
+        final String key = "id=";
+        return line -> {
+            if (!line.hasTags()) return true;
+
+            final CharSequence s = line.getLine();
+            final int end = line.getTagsEnd();
+            int i = line.getTagsStart();
+            while (i < end) {
+                int segmentEnd = i;
+                while (segmentEnd < end && s.charAt(segmentEnd) != ';') segmentEnd++;
+
+                final int valueStart = i + key.length();
+                if (valueStart < segmentEnd && IRCMessageParser.regionMatches(s, i, valueStart, key))
+                    return seen.add(s.subSequence(valueStart, segmentEnd).toString());
+
+                i = segmentEnd + 1;
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Deduplicates lines that are read over multiple connections, for commands with and without an id tag.
+     * <p>
+     * Lines with an id tag (i.e. PRIVMSG, USERNOTICE) are keyed by the id. Lines with a tmi-sent-ts tag but without an id (i.e. CLEARCHAT, CLEARMSG)
+     * are keyed by their command, channel, timestamp and target (the trailing payload), which are identical on every connection.
+     * All other lines (i.e. ROOMSTATE, USERSTATE, NOTICE, HOSTTARGET, JOIN, PART) carry no such key, and are left to the fallback filter.
+     *
+     * @param seen     the recently seen keys, which can be shared by the filters of several connections.
+     * @param fallback decides on lines without an id or timestamp, i.e. whether this connection is the designated reader of the channel.
+     * @return a filter that only accepts the first line with a given key, such that an event read over multiple connections is published once
+     */
+    static InboundLineFilter distinctLines(RecentKeyFilter seen, InboundLineFilter fallback) {
+        final String idKey = "id=";
+        final String timestampKey = "tmi-sent-ts=";
+        return line -> {
+            if (!line.hasTags()) return fallback.accept(line);
+
+            final CharSequence s = line.getLine();
+            final int end = line.getTagsEnd();
+            int timestampStart = -1, timestampEnd = -1;
+            int i = line.getTagsStart();
+            while (i < end) {
+                int segmentEnd = i;
+                while (segmentEnd < end && s.charAt(segmentEnd) != ';') segmentEnd++;
+
+                final int idStart = i + idKey.length();
+                if (idStart < segmentEnd && IRCMessageParser.regionMatches(s, i, idStart, idKey))
+                    return seen.add(s.subSequence(idStart, segmentEnd).toString());
+
+                final int valueStart = i + timestampKey.length();
+                if (valueStart < segmentEnd && IRCMessageParser.regionMatches(s, i, valueStart, timestampKey)) {
+                    timestampStart = valueStart;
+                    timestampEnd = segmentEnd;
+                }
+
+                i = segmentEnd + 1;
+            }
+
+            if (timestampStart < 0 || !line.isValid())
+                return fallback.accept(line);
+
+            final StringBuilder key = new StringBuilder(64).append(s, line.getCommandStart(), line.getCommandEnd());
+            if (line.hasChannel()) key.append(' ').append(s, line.getChannelStart(), line.getChannelEnd());
+            key.append(' ').append(s, timestampStart, timestampEnd);
+            if (line.hasPayload()) key.append(' ').append(s, line.getPayloadStart(), line.getEnd());
+            return seen.add(key.toString());
+        };
+    }
+
+}
@@ -0,0 +1,381 @@
+package com.github.twitch4j.chat.util;
+
+import com.github.twitch4j.chat.enums.CommandPriority;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Releases outbound irc commands in priority and FIFO order, as tokens become available in their respective {@link Bucket}.
+ * <p>
+ * Each bucket is represented by a {@link Lane} with its own queues, such that a rate-limited kind of command
+ * (i.e. joins) does not hold back other kinds of commands (i.e. messages).
+ * Within a lane, commands are released strictly by {@link CommandPriority}, and in FIFO order within a priority.
+ * A lane has at most one pending drain task, which is delayed by exactly the time needed to refill the tokens for the head of the queue.
+ * <p>
+ * Optionally, a {@link #getUserMessages() user message lane} is chained in front of the message lane,
+ * such that messages to channels without elevated status are subject to both the user and the moderator rate limit.
+ */
+@Slf4j
+public final class OutboundCommandScheduler {
+
+    /**
+     * The {@link Lane#getCapacity() capacity} of lanes whose bucket configuration is not known.
+     */
+    public static final long UNKNOWN_CAPACITY = Long.MAX_VALUE;
+
+    /**
+     * Lane for regular commands, including channel messages.
+     */
+    @Getter
+    private final Lane messages;
+
+    /**
+     * Lane for whispers.
+     */
+    @Getter
+    private final Lane whispers;
+
+    /**
+     * Lane for channel joins and parts.
+     */
+    @Getter
+    private final Lane joins;
+
+    /**
+     * Lane for messages to channels without elevated status, which releases into the {@link #messages} lane, or null.
+     */
+    @Getter
+    private final Lane userMessages;
+
+    private final ScheduledExecutorService executor;
+
+    private final Consumer<String> sink;
+
+    private final ConnectionMetrics metrics;
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param messageBucket the bucket for regular commands.
+     * @param whisperBucket the bucket for whispers.
+     * @param joinBucket    the bucket for joins and parts.
+     * @param joinCapacity  the number of tokens that the join bucket can hold.
+     * @param executor      the executor that drains the lanes.
+     * @param sink          the consumer of released commands.
+     */
+    public OutboundCommandScheduler(Bucket messageBucket, Bucket whisperBucket, Bucket joinBucket, long joinCapacity, ScheduledExecutorService executor, Consumer<String> sink) {
+        this(messageBucket, whisperBucket, joinBucket, joinCapacity, executor, sink, ConnectionMetrics.NOOP);
+    }
+
+    /**
+     * Creates a scheduler that reports the time each command waited for tokens.
+     *
+     * @param messageBucket the bucket for regular commands.
+     * @param whisperBucket the bucket for whispers.
+     * @param joinBucket    the bucket for joins and parts.
+     * @param joinCapacity  the number of tokens that the join bucket can hold.
+     * @param executor      the executor that drains the lanes.
+     * @param sink          the consumer of released commands.
+     * @param metrics       the receiver of bucket wait times.
+     */
+    public OutboundCommandScheduler(Bucket messageBucket, Bucket whisperBucket, Bucket joinBucket, long joinCapacity, ScheduledExecutorService executor, Consumer<String> sink, ConnectionMetrics metrics) {
+        this(messageBucket, null, whisperBucket, joinBucket, joinCapacity, executor, sink, metrics);
+    }
+
+    /**
+     * Creates a scheduler with an additional lane for messages to channels without elevated status.
+     *
+     * @param messageBucket     the bucket for regular commands (i.e. sized to the moderator rate limit).
+     * @param userMessageBucket the bucket for messages to channels without elevated status (i.e. sized to the user rate limit), or null.
+     * @param whisperBucket     the bucket for whispers.
+     * @param joinBucket        the bucket for joins and parts.
+     * @param joinCapacity      the number of tokens that the join bucket can hold (i.e. {@link TwitchChatLimitHelper#getCapacity}).
+     * @param executor          the executor that drains the lanes.
+     * @param sink              the consumer of released commands.
+     * @param metrics           the receiver of bucket wait times.
+     */
+    public OutboundCommandScheduler(Bucket messageBucket, Bucket userMessageBucket, Bucket whisperBucket, Bucket joinBucket, long joinCapacity, ScheduledExecutorService executor, Consumer<String> sink, ConnectionMetrics metrics) {
+        this.executor = executor;
+        this.sink = sink;
+        this.metrics = metrics;
+        this.messages = new Lane("message", messageBucket, UNKNOWN_CAPACITY, null);
+        this.userMessages = userMessageBucket != null ? new Lane("user message", userMessageBucket, UNKNOWN_CAPACITY, messages) : null;
+        this.whispers = new Lane("whisper", whisperBucket, UNKNOWN_CAPACITY, null);
+        this.joins = new Lane("join", joinBucket, joinCapacity > 0L ? joinCapacity : UNKNOWN_CAPACITY, null);
+    }
+
+    /**
+     * @return the number of commands that are waiting for tokens, across all lanes.
+     */
+    public int getQueueSize() {
+        int size = messages.getQueueSize() + whispers.getQueueSize() + joins.getQueueSize();
+        return userMessages != null ? size + userMessages.getQueueSize() : size;
+    }
+
+    /**
+     * @return the longest time that a currently queued command has been waiting for tokens, across all lanes.
+     */
+    public Duration getOldestWaitTime() {
+        long nanos = Math.max(messages.oldestWaitNanos(), Math.max(whispers.oldestWaitNanos(), joins.oldestWaitNanos()));
+        if (userMessages != null) nanos = Math.max(nanos, userMessages.oldestWaitNanos());
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * FIFO queues (one per {@link CommandPriority}) of commands that are released as tokens become available in a single bucket.
+     */
+    public final class Lane {
+
+        private final String name;
+
+        @Getter
+        private final Bucket bucket;
+
+        /**
+         * The lane that receives released commands, or null to release them to the sink.
+         */
+        private final Lane next;
+
+        private final Queue<Pending>[] queues;
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * Whether a drain task is pending (either immediately or once tokens are refilled).
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final Runnable drainTask = this::drain;
+
+        private volatile long lastWaitNanos;
+
+        /**
+         * The number of tokens that the bucket can hold, which is the largest cost of a command that can be released,
+         * or {@link #UNKNOWN_CAPACITY} if the bucket configuration was not supplied.
+         */
+        @Getter
+        private final long capacity;
+
+        @SuppressWarnings("unchecked")
+        private Lane(String name, Bucket bucket, long capacity, Lane next) {
+            this.name = name;
+            this.bucket = bucket;
+            this.capacity = capacity;
+            this.next = next;
+            this.queues = new Queue[CommandPriority.values().length];
+            for (int i = 0; i < queues.length; i++) {
+                queues[i] = new ConcurrentLinkedQueue<>();
+            }
+        }
+
+        /**
+         * Queues a command that costs a single token.
+         *
+         * @param command the raw irc command.
+         */
+        public void submit(String command) {
+            submit(command, 1L);
+        }
+
+        /**
+         * Queues a command.
+         *
+         * @param command the raw irc command.
+         * @param tokens  the number of tokens that the command costs.
+         */
+        public void submit(String command, long tokens) {
+            submit(command, tokens, CommandPriority.NORMAL);
+        }
+
+        /**
+         * Queues a command that costs a single token, with the specified priority.
+         *
+         * @param command  the raw irc command.
+         * @param priority the priority of the command.
+         */
+        public void submit(String command, CommandPriority priority) {
+            submit(command, 1L, priority);
+        }
+
+        /**
+         * Queues a command with the specified priority.
+         *
+         * @param command  the raw irc command.
+         * @param tokens   the number of tokens that the command costs.
+         * @param priority the priority of the command.
+         */
+        public void submit(String command, long tokens, CommandPriority priority) {
+            offer(new Pending(command, tokens, priority, System.nanoTime()));
+        }
+
+        /**
+         * Queues JOIN or PART commands for multiple channels, at a cost of one token per channel.
+         * <p>
+         * Each line names as many channels as fit in both the line length and the {@link #getCapacity() capacity} of the bucket,
+         * such that every line can be paid for in full.
+         *
+         * @param verb          either JOIN or PART.
+         * @param channelNames  the lowercase channel names.
+         * @param maxLineLength the maximum length of a single line.
+         */
+        public void submitBatched(String verb, Collection<String> channelNames, int maxLineLength) {
+            final long maxChannels = capacity;
+            StringBuilder sb = new StringBuilder(maxLineLength);
+            int count = 0;
+            for (String channelName : channelNames) {
+                if (count > 0 && (count >= maxChannels || sb.length() + 2 + channelName.length() > maxLineLength)) {
+                    submit(sb.toString(), count);
+                    sb.setLength(0);
+                    count = 0;
+                }
+
+                sb.append(count == 0 ? verb + " #" : ",#").append(channelName);
+                count++;
+            }
+
+            if (count > 0)
+                submit(sb.toString(), count);
+        }
+
+        private void offer(Pending pending) {
+            queues[pending.priority.ordinal()].add(pending);
+            size.incrementAndGet();
+            requestDrain(0L);
+        }
+
+        /**
+         * @param priority the priority.
+         * @return the number of commands with the given priority that are waiting for tokens.
+         */
+        public int getQueueSize(CommandPriority priority) {
+            return queues[priority.ordinal()].size();
+        }
+
+        /**
+         * @return the number of commands that are waiting for tokens.
+         */
+        public int getQueueSize() {
+            return size.get();
+        }
+
+        /**
+         * @return the time that the head of the queue has been waiting for tokens.
+         */
+        public Duration getHeadWaitTime() {
+            return Duration.ofNanos(oldestWaitNanos());
+        }
+
+        /**
+         * @return the time that the most recently released command spent waiting for tokens.
+         */
+        public Duration getLastWaitTime() {
+            return Duration.ofNanos(lastWaitNanos);
+        }
+
+        private long oldestWaitNanos() {
+            long oldest = 0L;
+            final long now = System.nanoTime();
+            for (Queue<Pending> queue : queues) {
+                Pending head = queue.peek();
+                if (head != null) oldest = Math.max(oldest, now - head.enqueuedNanos);
+            }
+            return oldest;
+        }
+
+        /**
+         * @return the queue with the highest priority that has a pending command, or null
+         */
+        private Queue<Pending> nextQueue() {
+            for (Queue<Pending> queue : queues) {
+                if (!queue.isEmpty()) return queue;
+            }
+            return null;
+        }
+
+        private void requestDrain(long delayNanos) {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    if (delayNanos > 0L)
+                        executor.schedule(drainTask, delayNanos, TimeUnit.NANOSECONDS);
+                    else
+                        executor.execute(drainTask);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    log.warn("Chat: unable to schedule release of queued {} commands", name, e);
+                }
+            }
+        }
+
+        private void drain() {
+            long waitNanos = 0L;
+
+            Queue<Pending> queue;
+            while ((queue = nextQueue()) != null) {
+                final Pending head = queue.peek();
+                ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(head.tokens);
+                if (!probe.isConsumed()) {
+                    if (probe.getNanosToWaitForRefill() == Long.MAX_VALUE && head.tokens > 1L) {
+                        // the cost exceeds the capacity of the bucket, so it could never be satisfied; wait for a full bucket instead
+                        log.warn("Chat: queued {} command costs {} tokens, which is more than the bucket can hold; charging its full capacity instead", name, head.tokens);
+                        head.tokens = Math.min(head.tokens - 1L, capacity);
+                        continue;
+                    }
+                    waitNanos = Math.max(probe.getNanosToWaitForRefill(), 1L);
+                    break;
+                }
+
+                queue.poll();
+                size.decrementAndGet();
+                lastWaitNanos = System.nanoTime() - head.enqueuedNanos;
+
+                if (next != null) {
+                    // the wait is reported once the command leaves the last lane
+                    next.offer(head);
+                    continue;
+                }
+
+                metrics.onBucketWait(lastWaitNanos);
+                try {
+                    sink.accept(head.command);
+                } catch (Exception e) {
+                    log.error("Chat: failed to release queued {} command", name, e);
+                }
+            }
+
+            scheduled.set(false);
+            if (waitNanos > 0L)
+                requestDrain(waitNanos);
+            else if (nextQueue() != null)
+                requestDrain(0L);
+        }
+    }
+
+    private static final class Pending {
+        private final String command;
+        private final CommandPriority priority;
+        private final long enqueuedNanos;
+        private long tokens;
+
+        private Pending(String command, long tokens, CommandPriority priority, long enqueuedNanos) {
+            this.command = command;
+            this.tokens = tokens;
+            this.priority = priority;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.twitch4j.chat.util;
+
+/**
+ * {@link ChatLine} implementation over the offsets of an {@link IRCMessageParser}, which avoids copying any part of the line.
+ * <p>
+ * Not thread-safe: intended to be confined to the websocket callback thread of a single connection.
+ */
+public final class ReusableChatLine implements ChatLine {
+
+    private final IRCMessageParser parser;
+
+    private final Slice raw = new Slice();
+    private final Slice prefix = new Slice();
+    private final Slice channel = new Slice();
+    private final Slice message = new Slice();
+    private final Slice tag = new Slice();
+
+    private int start;
+
+    /**
+     * @param parser the tokenizer whose most recently parsed line is exposed by this view.
+     */
+    public ReusableChatLine(IRCMessageParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Tokenizes a region of a sequence, and exposes it through this view.
+     *
+     * @param line  the sequence containing the raw irc line.
+     * @param start the index of the first character of the line (inclusive).
+     * @param end   the index after the last character of the line (exclusive).
+     * @return whether the line could be parsed
+     */
+    public boolean parse(CharSequence line, int start, int end) {
+        this.start = start;
+        return parser.parse(line, start, end);
+    }
+
+    /**
+     * @return the underlying tokenizer
+     */
+    public IRCMessageParser getParser() {
+        return parser;
+    }
+
+    @Override
+    public CharSequence getRaw() {
+        return raw.set(parser.getLine(), start, parser.getEnd());
+    }
+
+    @Override
+    public String getCommand() {
+        return parser.getCommand();
+    }
+
+    @Override
+    public boolean isCommand(String command) {
+        return parser.isCommand(command);
+    }
+
+    @Override
+    public CharSequence getPrefix() {
+        return parser.getClientNameStart() >= 0 ? prefix.set(parser.getLine(), parser.getClientNameStart(), parser.getClientNameEnd()) : null;
+    }
+
+    @Override
+    public CharSequence getChannel() {
+        return parser.hasChannel() ? channel.set(parser.getLine(), parser.getChannelStart(), parser.getChannelEnd()) : null;
+    }
+
+    @Override
+    public CharSequence getMessage() {
+        return parser.hasPayload() ? message.set(parser.getLine(), parser.getPayloadStart() + 1, parser.getEnd()) : null;
+    }
+
+    @Override
+    public boolean hasTag(String key) {
+        return findTag(key) != -1;
+    }
+
+    @Override
+    public CharSequence getTag(String key) {
+        final int valueStart = findTag(key);
+        if (valueStart < 0) return null;
+
+        final CharSequence s = parser.getLine();
+        final int tagsEnd = parser.getTagsEnd();
+        int valueEnd = valueStart;
+        while (valueEnd < tagsEnd && s.charAt(valueEnd) != ';') valueEnd++;
+        return valueEnd > valueStart ? tag.set(s, valueStart, valueEnd) : null;
+    }
+
+    /**
+     * Finds the last occurrence of a tag, such that duplicate keys behave like {@link IRCTagMap}.
+     *
+     * @param key the tag name.
+     * @return the start index of the value, or -1 if absent
+     */
+    private int findTag(String key) {
+        if (!parser.hasTags()) return -1;
+
+        final CharSequence s = parser.getLine();
+        final int end = parser.getTagsEnd();
+        final int keyLength = key.length();
+
+        int found = -1;
+        int i = parser.getTagsStart();
+        while (i < end) {
+            int segmentEnd = i;
+            int eq = -1;
+            while (segmentEnd < end) {
+                char c = s.charAt(segmentEnd);
+                if (c == ';') break;
+                if (c == '=' && eq < 0) eq = segmentEnd;
+                segmentEnd++;
+            }
+
+            int keyEnd = eq >= 0 ? eq : segmentEnd;
+            if (keyEnd - i == keyLength && IRCMessageParser.regionMatches(s, i, keyEnd, key))
+                found = eq >= 0 ? eq + 1 : segmentEnd;
+
+            i = segmentEnd + 1;
+        }
+        return found;
+    }
+
+    /**
+     * Reusable view of a region of the raw line.
+     */
+    private static final class Slice implements CharSequence {
+        private CharSequence source;
+        private int offset;
+        private int length;
+
+        private Slice set(CharSequence source, int start, int end) {
+            this.source = source;
+            this.offset = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException(String.valueOf(index));
+            return source.charAt(offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException();
+            return source.subSequence(offset + start, offset + end);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(offset, offset + length).toString();
+        }
+    }
+
+}
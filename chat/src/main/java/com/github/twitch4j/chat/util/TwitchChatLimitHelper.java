@@ -89,6 +89,18 @@ public class TwitchChatLimitHelper {
      */
     public final Bandwidth VERIFIED_AUTH_LIMIT = Bandwidth.simple(200, Duration.ofSeconds(10));
 
+    /**
+     * @param limits the limits of a bucket.
+     * @return the number of tokens that a bucket with these limits can hold
+     */
+    public long getCapacity(Bandwidth... limits) {
+        long capacity = Long.MAX_VALUE;
+        for (Bandwidth limit : limits) {
+            capacity = Math.min(capacity, limit.getCapacity());
+        }
+        return capacity;
+    }
+
     public Bucket createBucket(Bandwidth limit) {
         return Bucket4j.builder().addLimit(limit).build();
     }
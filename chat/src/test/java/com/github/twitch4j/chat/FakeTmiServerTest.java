@@ -0,0 +1,213 @@
+package com.github.twitch4j.chat;
+
+import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
+import com.github.twitch4j.chat.enums.CommandPriority;
+import com.github.twitch4j.chat.events.channel.ChannelMessageEvent;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.chat.fixtures.FakeTmiServer;
+import com.github.twitch4j.chat.fixtures.LatencyRecorder;
+import com.github.twitch4j.chat.util.TestUtils;
+import com.github.twitch4j.common.pool.ReconnectCoordinator;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@Tag("unittest")
+public class FakeTmiServerTest {
+
+    private FakeTmiServer server;
+
+    private TwitchChat chat;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = FakeTmiServer.start();
+        chat = TwitchChatBuilder.builder().withBaseUrl(server.getUrl()).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        chat.close();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Joins channels and receives messages from the fake server")
+    public void joinAndReceive() throws InterruptedException {
+        List<ChannelMessageEvent> messages = new CopyOnWriteArrayList<>();
+        chat.getEventManager().onEvent(ChannelMessageEvent.class, messages::add);
+
+        chat.joinChannel("twitch4j");
+        assertNotNull(server.awaitCommand("JOIN #twitch4j", Duration.ofSeconds(5)));
+        TestUtils.sleepFor(250);
+        assertEquals(server.getRoomId("twitch4j"), chat.channelNameToChannelId.get("twitch4j"));
+
+        server.sendMessage("twitch4j", "someone", "Hello World");
+        TestUtils.sleepFor(250);
+        assertEquals(1, messages.size());
+        assertEquals("Hello World", messages.get(0).getMessage());
+    }
+
+    @Test
+    @DisplayName("Holds the coordinated handshake until the server answers the login")
+    public void coordinatedHandshake() throws InterruptedException {
+        assertNotNull(server.awaitCommand("NICK justinfan", Duration.ofSeconds(5))); // the uncoordinated connection of setUp
+
+        CountDownLatch welcome = new CountDownLatch(1);
+        server.setPasswordValidator(password -> {
+            try {
+                return welcome.await(10L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1, null, Duration.ZERO, Duration.ofSeconds(30L));
+        OAuth2Credential credential = new OAuth2Credential("twitch", "abc", null, "1", "twitch4j", null, null);
+        TwitchChat authenticated = TwitchChatBuilder.builder().withBaseUrl(server.getUrl()).withChatAccount(credential).withAutoJoinOwnChannel(false).withReconnectCoordinator(coordinator).build();
+        TwitchChat anonymous = null;
+        try {
+            assertNotNull(server.awaitCommand("NICK twitch4j", Duration.ofSeconds(5)));
+            anonymous = TwitchChatBuilder.builder().withBaseUrl(server.getUrl()).withReconnectCoordinator(coordinator).build();
+
+            // NICK was sent, but the server has yet to welcome the first connection
+            assertNull(server.awaitCommand("NICK justinfan", Duration.ofMillis(500)));
+
+            welcome.countDown();
+            assertNotNull(server.awaitCommand("NICK justinfan", Duration.ofSeconds(5)));
+        } finally {
+            welcome.countDown();
+            authenticated.close();
+            if (anonymous != null) anonymous.close();
+            coordinator.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Publishes the lines of a redundantly read channel once, with or without an id tag")
+    public void redundantPool() throws InterruptedException {
+        TwitchChatConnectionPool pool = TwitchChatConnectionPool.builder()
+            .advancedConfiguration(builder -> builder.withBaseUrl(server.getUrl()))
+            .redundancyFactor(2)
+            .build();
+        try {
+            List<IRCMessageEvent> events = new CopyOnWriteArrayList<>();
+            pool.getEventManager().onEvent(IRCMessageEvent.class, events::add);
+
+            pool.joinChannel("redundant");
+            assertNotNull(server.awaitCommand("JOIN #redundant", Duration.ofSeconds(5)));
+            assertNotNull(server.awaitCommand("JOIN #redundant", Duration.ofSeconds(5)));
+            TestUtils.sleepFor(500);
+            assertEquals(2, pool.numConnections());
+            events.clear();
+
+            String roomId = server.getRoomId("redundant");
+            long now = System.currentTimeMillis();
+            server.sendMessage("redundant", "someone", "Hello World");
+            server.sendToChannel("redundant", "@ban-duration=600;room-id=" + roomId + ";target-user-id=2;tmi-sent-ts=" + now + " :tmi.twitch.tv CLEARCHAT #redundant :someone");
+            server.sendToChannel("redundant", "@login=someone;room-id=;target-msg-id=abc;tmi-sent-ts=" + now + " :tmi.twitch.tv CLEARMSG #redundant :Hello World");
+            server.sendToChannel("redundant", "@emote-only=1;room-id=" + roomId + " :tmi.twitch.tv ROOMSTATE #redundant");
+            server.sendToChannel("redundant", "@msg-id=emote_only_on :tmi.twitch.tv NOTICE #redundant :This room is now in emote-only mode.");
+            server.sendToChannel("redundant", ":tmi.twitch.tv HOSTTARGET #redundant :other 10");
+            server.sendToChannel("redundant", ":viewer!viewer@viewer.tmi.twitch.tv JOIN #redundant");
+            server.sendToChannel("redundant", ":viewer!viewer@viewer.tmi.twitch.tv PART #redundant");
+            TestUtils.sleepFor(500);
+
+            Map<String, Long> counts = events.stream().collect(Collectors.groupingBy(IRCMessageEvent::getCommandType, Collectors.counting()));
+            for (String command : Arrays.asList("PRIVMSG", "CLEARCHAT", "CLEARMSG", "ROOMSTATE", "NOTICE", "HOSTTARGET", "JOIN", "PART")) {
+                assertEquals(1L, counts.get(command), command);
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Spreads outbound messages across shards without redundant reads, keeping ordered messages on one connection")
+    public void outboundShards() throws InterruptedException {
+        TwitchChatConnectionPool pool = TwitchChatConnectionPool.builder()
+            .advancedConfiguration(builder -> builder.withBaseUrl(server.getUrl()))
+            .outboundShards(2)
+            .build();
+        try {
+            pool.joinChannel("sharded");
+            assertNotNull(server.awaitCommand("JOIN #sharded", Duration.ofSeconds(5)));
+            assertNotNull(server.awaitCommand("JOIN #sharded", Duration.ofSeconds(5)));
+            TestUtils.sleepFor(500);
+            assertEquals(2, pool.numConnections());
+            assertEquals(Collections.singleton("sharded"), pool.getChannels());
+
+            for (int i = 0; i < 10; i++) {
+                assertTrue(pool.sendMessage("sharded", "sharded", "reply " + i, null, CommandPriority.NORMAL, "thread"));
+            }
+            // the other connection has more tokens left
+            for (int i = 0; i < 5; i++) {
+                assertTrue(pool.sendMessage("sharded", "unordered " + i));
+            }
+            TestUtils.sleepFor(500);
+
+            Map<String, List<String>> messages = server.getMessagesByNick();
+            assertEquals(2, messages.size());
+            List<String> replies = null, unordered = null;
+            for (List<String> lines : messages.values()) {
+                if (lines.get(0).endsWith(":reply 0")) replies = lines;
+                else unordered = lines;
+            }
+            assertNotNull(replies);
+            assertNotNull(unordered);
+
+            List<String> expectedReplies = new ArrayList<>(), expectedUnordered = new ArrayList<>();
+            for (int i = 0; i < 10; i++) expectedReplies.add("PRIVMSG #sharded :reply " + i);
+            for (int i = 0; i < 5; i++) expectedUnordered.add("PRIVMSG #sharded :unordered " + i);
+            assertEquals(expectedReplies, replies);
+            assertEquals(expectedUnordered, unordered);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Measures delivery latency of replayed lines")
+    public void replayLatency() throws InterruptedException {
+        chat.joinChannel("twitch4j");
+        assertNotNull(server.awaitCommand("JOIN #twitch4j", Duration.ofSeconds(5)));
+        TestUtils.sleepFor(250);
+
+        try (LatencyRecorder recorder = new LatencyRecorder(chat.getEventManager())) {
+            List<String> corpus = Arrays.asList(
+                "@badges=;color=;display-name=Someone;emotes=;id=1;mod=0;room-id=1;subscriber=0;turbo=0;user-id=2;user-type= :someone!someone@someone.tmi.twitch.tv PRIVMSG #corpus :first",
+                "@badges=;color=;display-name=Other;emotes=;id=2;mod=0;room-id=1;subscriber=0;turbo=0;user-id=3;user-type= :other!other@other.tmi.twitch.tv PRIVMSG #corpus :second"
+            );
+            server.replay(corpus, Collections.singleton("twitch4j"), 500);
+            TestUtils.sleepFor(1000);
+            server.stopReplays();
+            TestUtils.sleepFor(250);
+
+            LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+            log.info("Replay latency: {}", snapshot);
+            assertTrue(snapshot.getCount() > 0);
+            assertEquals(server.getReplayedLines(), snapshot.getCount());
+        }
+    }
+
+}
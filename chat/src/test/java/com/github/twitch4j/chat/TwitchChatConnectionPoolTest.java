@@ -0,0 +1,43 @@
+package com.github.twitch4j.chat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class TwitchChatConnectionPoolTest {
+
+    @Test
+    @DisplayName("Spreads ordering keys evenly, and only moves the keys of a missing connection")
+    public void rendezvous() {
+        Integer[] all = { 0, 1, 2, 3 };
+        Integer[] missing = { 0, 1, null, 3 };
+        int[] counts = new int[all.length];
+
+        for (int i = 0; i < 10_000; i++) {
+            String key = "thread-" + i;
+            Integer selected = TwitchChatConnectionPool.selectByRendezvous(key, all);
+            assertNotNull(selected);
+            assertEquals(selected, TwitchChatConnectionPool.selectByRendezvous(key, all));
+            counts[selected]++;
+
+            Integer fallback = TwitchChatConnectionPool.selectByRendezvous(key, missing);
+            if (selected == 2)
+                assertNotEquals(2, fallback);
+            else
+                assertEquals(selected, fallback);
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 2_000 && count < 3_000, "unbalanced: " + count);
+        }
+        assertNull(TwitchChatConnectionPool.selectByRendezvous("thread", new Integer[2]));
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.twitch4j.chat.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class ChannelIdIndexTest {
+
+    @Test
+    @DisplayName("Keeps both directions consistent across renames and removals")
+    public void bidirectional() {
+        ChannelIdIndex index = new ChannelIdIndex();
+        Map<String, String> idToName = index.getIdToName();
+        Map<String, String> nameToId = index.getNameToId();
+
+        index.put("twitch4j", "149223493");
+        assertEquals("twitch4j", idToName.get("149223493"));
+        assertEquals("149223493", nameToId.get("twitch4j"));
+
+        // name change of the same channel
+        index.put("twitch4j_renamed", "149223493");
+        assertEquals("twitch4j_renamed", index.getName("149223493"));
+        assertNull(index.getId("twitch4j"));
+        assertEquals(1, nameToId.size());
+
+        // name reused by another channel
+        index.put("twitch4j_renamed", "1");
+        assertNull(index.getName("149223493"));
+        assertEquals("1", index.getId("twitch4j_renamed"));
+        assertEquals(1, idToName.size());
+
+        index.removeName("twitch4j_renamed");
+        assertTrue(idToName.isEmpty());
+        assertTrue(nameToId.isEmpty());
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.github.twitch4j.chat.util;
+
+import com.github.twitch4j.chat.enums.CommandPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class ChannelRateLimiterTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    private final List<String> privileged = new CopyOnWriteArrayList<>();
+
+    private final List<String> user = new CopyOnWriteArrayList<>();
+
+    private final ChannelRateLimiter limiter = new ChannelRateLimiter(executor, (command, priority) -> privileged.add(command), (command, priority) -> user.add(command));
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Paces messages per channel without elevated status")
+    public void pacing() throws InterruptedException {
+        limiter.submit("a", "PRIVMSG #a :0", CommandPriority.NORMAL);
+        limiter.submit("a", "PRIVMSG #a :1", CommandPriority.NORMAL);
+        limiter.submit("b", "PRIVMSG #b :0", CommandPriority.NORMAL);
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(Arrays.asList("PRIVMSG #a :0", "PRIVMSG #b :0"), user);
+        assertEquals(1, limiter.getQueueSize());
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertEquals(Arrays.asList("PRIVMSG #a :0", "PRIVMSG #b :0", "PRIVMSG #a :1"), user);
+        assertEquals(0, limiter.getQueueSize());
+        assertTrue(privileged.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Passes on messages to channels with elevated status immediately")
+    public void privileged() {
+        limiter.onUserState("a", true);
+        for (int i = 0; i < 5; i++) {
+            limiter.submit("a", "PRIVMSG #a :" + i, CommandPriority.NORMAL);
+        }
+
+        assertEquals(5, privileged.size());
+        assertTrue(user.isEmpty());
+        assertEquals(0, limiter.getQueueSize());
+    }
+
+    @Test
+    @DisplayName("Derives the message interval from status and slow mode")
+    public void interval() {
+        assertEquals(ChannelRateLimiter.USER_MESSAGE_INTERVAL, limiter.getMessageInterval("a"));
+
+        limiter.onRoomState("a", 30);
+        assertEquals(Duration.ofSeconds(30), limiter.getMessageInterval("a"));
+
+        limiter.onUserState("a", true);
+        assertTrue(limiter.isPrivileged("a"));
+        assertEquals(Duration.ZERO, limiter.getMessageInterval("a"));
+
+        limiter.onUserState("a", false);
+        limiter.onRoomState("a", 0);
+        assertEquals(ChannelRateLimiter.USER_MESSAGE_INTERVAL, limiter.getMessageInterval("a"));
+
+        limiter.onUserState("a", true);
+        limiter.remove("a");
+        assertFalse(limiter.isPrivileged("a"));
+    }
+
+    @Test
+    @DisplayName("Only retains the status of joined channels")
+    public void retention() throws InterruptedException {
+        Set<String> joined = ConcurrentHashMap.newKeySet();
+        joined.add("a");
+        ChannelRateLimiter limiter = new ChannelRateLimiter(executor, (command, priority) -> privileged.add(command), (command, priority) -> user.add(command), joined::contains);
+
+        limiter.onUserState("a", true);
+        limiter.onUserState("b", true);
+        limiter.onRoomState("c", 30);
+        assertTrue(limiter.isPrivileged("a"));
+        assertFalse(limiter.isPrivileged("b"));
+        assertEquals(ChannelRateLimiter.USER_MESSAGE_INTERVAL, limiter.getMessageInterval("c"));
+        assertEquals(1, limiter.getChannelCount());
+
+        // messages to channels that are not joined are still paced, until the interval of the last message elapses
+        limiter.submit("b", "PRIVMSG #b :0", CommandPriority.NORMAL);
+        limiter.submit("b", "PRIVMSG #b :1", CommandPriority.NORMAL);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(Collections.singletonList("PRIVMSG #b :0"), user);
+        assertEquals(2, limiter.getChannelCount());
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertEquals(Arrays.asList("PRIVMSG #b :0", "PRIVMSG #b :1"), user);
+        assertEquals(2, limiter.getChannelCount());
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertEquals(1, limiter.getChannelCount());
+        assertTrue(limiter.isPrivileged("a"));
+    }
+
+    @Test
+    @DisplayName("Detects elevated status from USERSTATE tags")
+    public void tags() {
+        assertTrue(ChannelRateLimiter.isPrivileged(new IRCTagMap("badges=broadcaster/1;mod=0")));
+        assertTrue(ChannelRateLimiter.isPrivileged(new IRCTagMap("badges=moderator/1,subscriber/12;mod=1")));
+        assertTrue(ChannelRateLimiter.isPrivileged(new IRCTagMap("badges=vip/1;mod=0")));
+        assertFalse(ChannelRateLimiter.isPrivileged(new IRCTagMap("badges=subscriber/12,premium/1;mod=0")));
+        assertFalse(ChannelRateLimiter.isPrivileged(Collections.emptyMap()));
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.github.twitch4j.chat.util;
+
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class IRCMessageParserTest {
+
+    /**
+     * The regular expressions that were historically used by {@link IRCMessageEvent}, kept as the reference implementation.
+     */
+    private static final Pattern MESSAGE_PATTERN = Pattern.compile("^(?:@(?<tags>.+?)\\s)?(?<clientName>.+?)\\s(?<command>[A-Z0-9]+)\\s?(?:#(?<channel>.*?)\\s?)?(?<payload>[:\\-+](?<message>.+))?$");
+    private static final Pattern WHISPER_PATTERN = Pattern.compile("^(?:@(?<tags>.+?)\\s)?:(?<clientName>.+?)!.+?\\s(?<command>[A-Z0-9]+)\\s(?:(?<channel>.*?)\\s?)??(?<payload>[:\\-+](?<message>.+))$");
+    private static final Pattern CLIENT_PATTERN = Pattern.compile("^:(.*?)!(.*?)@(.*?).tmi.twitch.tv$");
+
+    @Test
+    @DisplayName("Parser yields identical results to the legacy regular expressions across the corpus")
+    public void conformance() throws IOException {
+        List<String> corpus = readCorpus();
+        assertFalse(corpus.isEmpty());
+
+        IRCMessageParser parser = new IRCMessageParser();
+        for (String line : corpus) {
+            List<String> expected = parseLegacy(line);
+            List<String> actual = parser.parse(line) ? components(parser) : null;
+            assertEquals(expected, actual, line);
+        }
+    }
+
+    @Test
+    @DisplayName("IRCMessageEvent fields are populated identically to the legacy regular expressions")
+    public void eventConformance() throws IOException {
+        for (String line : readCorpus()) {
+            List<String> expected = parseLegacy(line);
+            IRCMessageEvent event = new IRCMessageEvent(line, Collections.emptyMap(), Collections.emptyMap(), null);
+
+            if (expected == null) {
+                assertFalse(event.isValid(), line);
+                continue;
+            }
+
+            assertTrue(event.isValid(), line);
+            assertEquals(expected.get(1), event.getClientName().orElse(null), line);
+            assertEquals(expected.get(2), event.getCommandType(), line);
+            assertEquals(expected.get(4), event.getMessage().orElse(null), line);
+            assertEquals(expected.get(5), event.getPayload().orElse(null), line);
+            assertEquals(expected.get(3), event.getChannelName().orElse(null), line);
+            assertEquals(parseLegacyTags(expected.get(0)), event.getTags(), line);
+        }
+    }
+
+    @Test
+    @DisplayName("Parses a region of a larger sequence")
+    public void parseRegion() {
+        String frame = "PING :tmi.twitch.tv\r\n:ronni!ronni@ronni.tmi.twitch.tv PRIVMSG #dallas :hi\r\n";
+        int start = frame.indexOf('\n') + 1;
+        int end = frame.length() - 2;
+
+        IRCMessageParser parser = new IRCMessageParser();
+        assertTrue(parser.parse(frame, start, end));
+        assertTrue(parser.isCommand("PRIVMSG"));
+        assertEquals("ronni", IRCMessageParser.parseClientName(parser.getClientName()));
+        assertEquals("dallas", parser.getChannel());
+        assertEquals("hi", parser.getMessage());
+    }
+
+    @Test
+    @DisplayName("Whispers to targets resembling a command are not misinterpreted")
+    public void whisperToUppercaseTarget() {
+        // the legacy expressions extended the prefix across tokens here, yielding a command of "A1"
+        IRCMessageParser parser = new IRCMessageParser();
+        assertTrue(parser.parse(":u!u@u.tmi.twitch.tv WHISPER A1 :hi"));
+        assertEquals("u", parser.getClientName());
+        assertEquals("WHISPER", parser.getCommand());
+        assertEquals("A1", parser.getChannel());
+        assertEquals("hi", parser.getMessage());
+    }
+
+    private static List<String> components(IRCMessageParser parser) {
+        return Arrays.asList(
+            parser.getTags(),
+            IRCMessageParser.parseClientName(parser.getClientName()),
+            parser.getCommand(),
+            parser.getChannel(),
+            parser.getMessage(),
+            parser.getPayload()
+        );
+    }
+
+    private static List<String> parseLegacy(String line) {
+        Matcher matcher = MESSAGE_PATTERN.matcher(line);
+        if (!matcher.matches()) {
+            matcher = WHISPER_PATTERN.matcher(line);
+            if (!matcher.matches())
+                return null;
+        }
+
+        return Arrays.asList(
+            matcher.group("tags"),
+            parseLegacyClientName(matcher.group("clientName")),
+            matcher.group("command"),
+            matcher.group("channel"),
+            matcher.group("message"),
+            matcher.group("payload")
+        );
+    }
+
+    private static String parseLegacyClientName(String raw) {
+        if (raw.equals(":tmi.twitch.tv") || raw.equals(":jtv"))
+            return null;
+
+        Matcher matcher = CLIENT_PATTERN.matcher(raw);
+        return Optional.of(matcher).filter(Matcher::matches).map(m -> m.group(1)).orElse(raw);
+    }
+
+    private static Map<String, String> parseLegacyTags(String raw) {
+        Map<String, String> map = new HashMap<>();
+        if (raw == null) return map;
+
+        for (String tag : raw.split(";")) {
+            String[] val = tag.split("=");
+            map.put(val[0], val.length > 1 ? val[1] : null);
+        }
+        return map;
+    }
+
+    static List<String> readCorpus() throws IOException {
+        InputStream is = IRCMessageParserTest.class.getClassLoader().getResourceAsStream("irc/tmi-corpus.txt");
+        assertNotNull(is);
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+}
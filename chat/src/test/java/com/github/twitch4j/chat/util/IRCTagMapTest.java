@@ -0,0 +1,55 @@
+package com.github.twitch4j.chat.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class IRCTagMapTest {
+
+    @Test
+    @DisplayName("Looks up tags within a region of the raw line")
+    public void lookup() {
+        String line = "@badge-info=;badges=moderator/1;display-name=Some\\sMod;mod=1 :tmi.twitch.tv USERSTATE #twitch4j";
+        IRCTagMap tags = new IRCTagMap(line, 1, line.indexOf(' '));
+
+        assertEquals("moderator/1", tags.get("badges"));
+        assertEquals("Some\\sMod", tags.get("display-name"));
+        assertEquals("1", tags.get("mod"));
+        assertTrue(tags.containsKey("badge-info"));
+        assertNull(tags.get("badge-info"));
+        assertFalse(tags.containsKey("user-id"));
+        assertEquals(4, tags.size());
+    }
+
+    @Test
+    @DisplayName("Is equal to an eagerly parsed map")
+    public void equality() {
+        Map<String, String> expected = new HashMap<>();
+        expected.put("a", "1");
+        expected.put("b", null);
+        expected.put("c", "3");
+
+        IRCTagMap tags = new IRCTagMap("a=0;b;c=3;a=1;");
+        assertEquals(expected, tags);
+        assertEquals(tags, expected);
+        assertEquals(expected.hashCode(), tags.hashCode());
+    }
+
+    @Test
+    @DisplayName("Handles an empty tags section")
+    public void empty() {
+        IRCTagMap tags = new IRCTagMap("");
+        assertTrue(tags.isEmpty());
+        assertNull(tags.get("id"));
+    }
+
+}
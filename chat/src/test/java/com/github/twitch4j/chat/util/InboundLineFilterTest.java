@@ -0,0 +1,96 @@
+package com.github.twitch4j.chat.util;
+
+import com.github.twitch4j.common.util.RecentKeyFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class InboundLineFilterTest {
+
+    private static final String PRIVMSG = "@badges=;color=;display-name=Test;id=abc;room-id=1 :test!test@test.tmi.twitch.tv PRIVMSG #twitch4j :hello";
+    private static final String JOIN = ":test!test@test.tmi.twitch.tv JOIN #twitch4j";
+    private static final String RESUB = "@badges=;msg-id=resub;room-id=1 :tmi.twitch.tv USERNOTICE #other :hi";
+    private static final String RAID = "@badges=;msg-id=raid;room-id=1 :tmi.twitch.tv USERNOTICE #other";
+    private static final String WHISPER = "@badges=;color= :test!test@test.tmi.twitch.tv WHISPER twitch4j :hey";
+    private static final String CLEARCHAT = "@ban-duration=600;room-id=1;target-user-id=2;tmi-sent-ts=1700000000000 :tmi.twitch.tv CLEARCHAT #twitch4j :test";
+    private static final String ROOMSTATE = "@emote-only=0;room-id=1;slow=0 :tmi.twitch.tv ROOMSTATE #twitch4j";
+
+    @Test
+    @DisplayName("Filters by command")
+    public void commands() {
+        InboundLineFilter filter = InboundLineFilter.commands("PRIVMSG", "USERNOTICE");
+        assertTrue(accepts(filter, PRIVMSG));
+        assertTrue(accepts(filter, RESUB));
+        assertFalse(accepts(filter, JOIN));
+        assertFalse(accepts(filter, WHISPER));
+    }
+
+    @Test
+    @DisplayName("Filters by channel, accepting lines without a channel")
+    public void channels() {
+        InboundLineFilter filter = InboundLineFilter.channels(Collections.singleton("Twitch4J"));
+        assertTrue(accepts(filter, PRIVMSG));
+        assertTrue(accepts(filter, JOIN));
+        assertTrue(accepts(filter, WHISPER));
+        assertFalse(accepts(filter, RESUB));
+    }
+
+    @Test
+    @DisplayName("Filters by msg-id, accepting lines without a msg-id")
+    public void msgIds() {
+        InboundLineFilter filter = InboundLineFilter.commands("USERNOTICE").and(InboundLineFilter.msgIds("sub", "resub"));
+        assertTrue(accepts(filter, RESUB));
+        assertFalse(accepts(filter, RAID));
+        assertFalse(accepts(filter, PRIVMSG));
+        assertTrue(accepts(InboundLineFilter.msgIds("sub"), PRIVMSG));
+    }
+
+    @Test
+    @DisplayName("Filters repeated message ids, accepting lines without an id")
+    public void distinctMessageIds() {
+        RecentKeyFilter seen = new RecentKeyFilter(Duration.ofMinutes(1L), 100);
+        InboundLineFilter first = InboundLineFilter.distinctMessageIds(seen);
+        InboundLineFilter second = InboundLineFilter.distinctMessageIds(seen);
+        assertTrue(accepts(first, PRIVMSG));
+        assertFalse(accepts(second, PRIVMSG));
+        assertFalse(accepts(first, PRIVMSG));
+        assertTrue(accepts(second, PRIVMSG.replace("id=abc", "id=def")));
+        assertTrue(accepts(first, RESUB));
+        assertTrue(accepts(second, RESUB));
+        assertTrue(accepts(first, JOIN));
+        assertTrue(accepts(second, JOIN));
+    }
+
+    @Test
+    @DisplayName("Filters repeated lines by id or by timestamp, and leaves other lines to the fallback")
+    public void distinctLines() {
+        RecentKeyFilter seen = new RecentKeyFilter(Duration.ofMinutes(1L), 100);
+        InboundLineFilter first = InboundLineFilter.distinctLines(seen, line -> true);
+        InboundLineFilter second = InboundLineFilter.distinctLines(seen, line -> false);
+        assertTrue(accepts(first, PRIVMSG));
+        assertFalse(accepts(second, PRIVMSG));
+        assertTrue(accepts(second, CLEARCHAT));
+        assertFalse(accepts(first, CLEARCHAT));
+        assertTrue(accepts(first, CLEARCHAT.replace(":test", ":other")));
+        assertTrue(accepts(first, CLEARCHAT.replace("1700000000000", "1700000000001")));
+        assertTrue(accepts(first, CLEARCHAT.replace("#twitch4j", "#other")));
+        assertTrue(accepts(first, ROOMSTATE));
+        assertFalse(accepts(second, ROOMSTATE));
+        assertTrue(accepts(first, JOIN));
+        assertFalse(accepts(second, JOIN));
+    }
+
+    private static boolean accepts(InboundLineFilter filter, String line) {
+        IRCMessageParser parser = new IRCMessageParser();
+        assertTrue(parser.parse(line));
+        return filter.accept(parser);
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.github.twitch4j.chat.util;
+
+import com.github.twitch4j.chat.enums.CommandPriority;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class OutboundCommandSchedulerTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Releases commands in FIFO order as tokens are refilled")
+    public void fifo() throws InterruptedException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Bucket messages = TwitchChatLimitHelper.createBucket(Bandwidth.simple(2, Duration.ofMillis(200)));
+        OutboundCommandScheduler scheduler = new OutboundCommandScheduler(messages, bucket(), bucket(), CAPACITY, executor, sent::add);
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.getMessages().submit("PRIVMSG #twitch4j :" + i);
+        }
+
+        TimeUnit.MILLISECONDS.sleep(30);
+        assertEquals(2, sent.size());
+        assertEquals(3, scheduler.getQueueSize());
+        assertTrue(scheduler.getOldestWaitTime().toMillis() > 0);
+
+        TimeUnit.MILLISECONDS.sleep(600);
+        assertEquals(Arrays.asList("PRIVMSG #twitch4j :0", "PRIVMSG #twitch4j :1", "PRIVMSG #twitch4j :2", "PRIVMSG #twitch4j :3", "PRIVMSG #twitch4j :4"), sent);
+        assertEquals(0, scheduler.getQueueSize());
+        assertTrue(scheduler.getMessages().getLastWaitTime().toMillis() > 0);
+    }
+
+    @Test
+    @DisplayName("Does not hold back other lanes while one lane waits for tokens")
+    public void independentLanes() throws InterruptedException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Bucket joins = TwitchChatLimitHelper.createBucket(Bandwidth.simple(1, Duration.ofMinutes(1)));
+        OutboundCommandScheduler scheduler = new OutboundCommandScheduler(bucket(), bucket(), joins, 1L, executor, sent::add);
+
+        scheduler.getJoins().submit("JOIN #a");
+        scheduler.getJoins().submit("JOIN #b");
+        scheduler.getMessages().submit("PRIVMSG #a :hi");
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(Arrays.asList("JOIN #a", "PRIVMSG #a :hi"), sent);
+        assertEquals(1, scheduler.getJoins().getQueueSize());
+    }
+
+    @Test
+    @DisplayName("Releases higher priority commands first, regardless of queueing order")
+    public void priorities() throws InterruptedException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Bucket messages = TwitchChatLimitHelper.createBucket(Bandwidth.simple(1, Duration.ofMillis(100)));
+        assertTrue(messages.tryConsume(1L)); // nothing can be released until all commands are queued
+        OutboundCommandScheduler scheduler = new OutboundCommandScheduler(messages, bucket(), bucket(), CAPACITY, executor, sent::add);
+
+        scheduler.getMessages().submit("PRIVMSG #a :0");
+        scheduler.getMessages().submit("PRIVMSG #a :bulk", CommandPriority.BULK);
+        scheduler.getMessages().submit("PRIVMSG #a :1");
+        scheduler.getMessages().submit("PRIVMSG #a :/timeout spammer 60", CommandPriority.MODERATION);
+
+        TimeUnit.MILLISECONDS.sleep(30);
+        assertTrue(sent.isEmpty());
+        assertEquals(4, scheduler.getMessages().getQueueSize());
+        assertEquals(1, scheduler.getMessages().getQueueSize(CommandPriority.BULK));
+
+        TimeUnit.MILLISECONDS.sleep(600);
+        assertEquals(Arrays.asList("PRIVMSG #a :/timeout spammer 60", "PRIVMSG #a :0", "PRIVMSG #a :1", "PRIVMSG #a :bulk"), sent);
+        assertEquals(CommandPriority.MODERATION, CommandPriority.forMessage("/timeout spammer 60"));
+        assertEquals(CommandPriority.NORMAL, CommandPriority.forMessage("/me waves"));
+    }
+
+    @Test
+    @DisplayName("Subjects user messages to both the user and the message bucket")
+    public void chainedUserLane() throws InterruptedException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Bucket messages = TwitchChatLimitHelper.createBucket(Bandwidth.simple(4, Duration.ofMinutes(1)));
+        Bucket users = TwitchChatLimitHelper.createBucket(Bandwidth.simple(1, Duration.ofMinutes(1)));
+        OutboundCommandScheduler scheduler = new OutboundCommandScheduler(messages, users, bucket(), bucket(), CAPACITY, executor, sent::add, ConnectionMetrics.NOOP);
+
+        scheduler.getUserMessages().submit("PRIVMSG #a :0");
+        scheduler.getUserMessages().submit("PRIVMSG #a :1");
+        scheduler.getMessages().submit("PRIVMSG #b :0");
+        scheduler.getMessages().submit("PRIVMSG #b :1");
+        scheduler.getMessages().submit("PRIVMSG #b :2");
+
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(4, sent.size());
+        assertTrue(sent.contains("PRIVMSG #a :0"));
+        assertEquals(1, scheduler.getUserMessages().getQueueSize());
+        assertEquals(0, scheduler.getMessages().getQueueSize());
+        assertEquals(0L, messages.getAvailableTokens());
+    }
+
+    @Test
+    @DisplayName("Reports the supplied capacity without consuming tokens")
+    public void capacity() {
+        Bucket joins = TwitchChatLimitHelper.createBucket(TwitchChatLimitHelper.USER_JOIN_LIMIT);
+        joins.tryConsume(15);
+        OutboundCommandScheduler scheduler = new OutboundCommandScheduler(bucket(), bucket(), joins, TwitchChatLimitHelper.getCapacity(TwitchChatLimitHelper.USER_JOIN_LIMIT), executor, s -> {});
+
+        assertEquals(20L, scheduler.getJoins().getCapacity());
+        assertEquals(5L, joins.getAvailableTokens());
+        assertEquals(OutboundCommandScheduler.UNKNOWN_CAPACITY, scheduler.getMessages().getCapacity());
+        assertEquals(3L, TwitchChatLimitHelper.getCapacity(TwitchChatLimitHelper.USER_WHISPER_LIMIT.toArray(new Bandwidth[0])));
+    }
+
+    @Test
+    @DisplayName("Splits batched joins by bucket capacity and line length, charging one token per channel")
+    public void batchedJoins() throws InterruptedException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Bucket joins = TwitchChatLimitHelper.createBucket(Bandwidth.simple(20, Duration.ofMillis(500)));
+        OutboundCommandScheduler scheduler = new OutboundCommandScheduler(bucket(), bucket(), joins, 20L, executor, sent::add);
+
+        List<String> channels = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            channels.add("c" + i);
+        }
+        scheduler.getJoins().submitBatched("JOIN", channels, 510);
+
+        TimeUnit.MILLISECONDS.sleep(30);
+        assertEquals(1, sent.size());
+        assertEquals(20, sent.get(0).split(",").length);
+        assertTrue(sent.get(0).startsWith("JOIN #c0,#c1,"));
+        assertEquals(2, scheduler.getJoins().getQueueSize());
+
+        TimeUnit.MILLISECONDS.sleep(900);
+        assertEquals(3, sent.size());
+        assertEquals(20, sent.get(1).split(",").length);
+        assertEquals("JOIN #c40,#c41,#c42,#c43,#c44", sent.get(2));
+
+        List<String> parts = new CopyOnWriteArrayList<>();
+        OutboundCommandScheduler partScheduler = new OutboundCommandScheduler(bucket(), bucket(), bucket(), CAPACITY, executor, parts::add);
+        partScheduler.getJoins().submitBatched("PART", Arrays.asList("abcdefghij", "klmnopqrst", "uvwxyz"), 30);
+        TimeUnit.MILLISECONDS.sleep(30);
+        assertEquals(Arrays.asList("PART #abcdefghij,#klmnopqrst", "PART #uvwxyz"), parts);
+    }
+
+    @Test
+    @DisplayName("Charges the full bucket capacity for a command that costs more than the bucket can hold")
+    public void oversizedCommand() throws InterruptedException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Bucket joins = TwitchChatLimitHelper.createBucket(Bandwidth.simple(3, Duration.ofMinutes(1)));
+        OutboundCommandScheduler scheduler = new OutboundCommandScheduler(bucket(), bucket(), joins, 3L, executor, sent::add);
+
+        scheduler.getJoins().submit("JOIN #a,#b,#c,#d,#e", 5);
+        scheduler.getJoins().submit("JOIN #f");
+
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(Collections.singletonList("JOIN #a,#b,#c,#d,#e"), sent);
+        assertEquals(0L, joins.getAvailableTokens());
+        assertEquals(1, scheduler.getJoins().getQueueSize());
+    }
+
+    private static final long CAPACITY = 100L;
+
+    private static Bucket bucket() {
+        return TwitchChatLimitHelper.createBucket(Bandwidth.simple(CAPACITY, Duration.ofSeconds(1)));
+    }
+
+}
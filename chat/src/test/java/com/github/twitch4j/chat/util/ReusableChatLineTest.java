@@ -0,0 +1,57 @@
+package com.github.twitch4j.chat.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class ReusableChatLineTest {
+
+    @Test
+    @DisplayName("Exposes the components of a channel message within a frame")
+    public void channelMessage() {
+        String line = "@badge-info=;badges=moderator/1;color=;display-name=Test;mod=1;room-id=1 :test!test@test.tmi.twitch.tv PRIVMSG #twitch4j :hello world";
+        String frame = "PING :tmi.twitch.tv\r\n" + line + "\r\n";
+        int start = frame.indexOf('@');
+
+        ReusableChatLine view = new ReusableChatLine(new IRCMessageParser());
+        assertTrue(view.parse(frame, start, start + line.length()));
+
+        assertEquals(line, view.getRaw().toString());
+        assertEquals("PRIVMSG", view.getCommand());
+        assertTrue(view.isCommand("PRIVMSG"));
+        assertEquals(":test!test@test.tmi.twitch.tv", view.getPrefix().toString());
+        assertEquals("twitch4j", view.getChannel().toString());
+        assertEquals("hello world", view.getMessage().toString());
+        assertEquals('h', view.getMessage().charAt(0));
+        assertEquals("moderator/1", view.getTag("badges").toString());
+        assertEquals("1", view.getTag("room-id").toString());
+        assertTrue(view.hasTag("color"));
+        assertNull(view.getTag("color"));
+        assertFalse(view.hasTag("user-id"));
+    }
+
+    @Test
+    @DisplayName("Is reused across lines")
+    public void reuse() {
+        ReusableChatLine view = new ReusableChatLine(new IRCMessageParser());
+
+        String notice = "@msg-id=resub;msg-id=sub :tmi.twitch.tv USERNOTICE #a :hi";
+        assertTrue(view.parse(notice, 0, notice.length()));
+        assertEquals("sub", view.getTag("msg-id").toString());
+
+        String whisper = ":test!test@test.tmi.twitch.tv WHISPER twitch4j :hey";
+        assertTrue(view.parse(whisper, 0, whisper.length()));
+        assertEquals("WHISPER", view.getCommand());
+        assertEquals("test", view.getPrefix().toString());
+        assertEquals("twitch4j", view.getChannel().toString());
+        assertEquals("hey", view.getMessage().toString());
+        assertNull(view.getTag("msg-id"));
+    }
+
+}
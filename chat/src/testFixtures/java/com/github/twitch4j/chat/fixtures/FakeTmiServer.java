@@ -0,0 +1,597 @@
+package com.github.twitch4j.chat.fixtures;
+
+import com.github.twitch4j.chat.util.IRCMessageParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A local, scriptable IRC-over-WebSocket server that mimics TMI closely enough to drive
+ * {@link com.github.twitch4j.chat.TwitchChat} and its connection pool without reaching Twitch.
+ * <p>
+ * It speaks CAP, PASS/NICK, JOIN/PART (including comma-separated channel lists), PING/PONG and RECONNECT,
+ * records every command that clients send, and can replay a corpus of raw lines at a fixed rate across many channels.
+ * Replayed lines carry a {@value #REPLAY_TIMESTAMP_TAG} tag, such that {@link LatencyRecorder} can measure
+ * the end-to-end delivery latency into the event manager.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * try (FakeTmiServer server = FakeTmiServer.start()) {
+ *     TwitchChat chat = TwitchChatBuilder.builder().withBaseUrl(server.getUrl()).build();
+ *     ...
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class FakeTmiServer implements AutoCloseable {
+
+    /**
+     * The tag that holds the {@link System#nanoTime()} at which the server wrote a replayed line.
+     */
+    public static final String REPLAY_TIMESTAMP_TAG = "t4j-replay-ts";
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket serverSocket;
+
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+
+    private final BlockingQueue<String> receivedCommands = new LinkedBlockingQueue<>();
+
+    private final Map<String, List<String>> messagesByNick = new ConcurrentHashMap<>();
+
+    private final Map<String, String> roomIds = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextRoomId = new AtomicInteger(100000);
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private final AtomicLong replayedLines = new AtomicLong();
+
+    private final List<ScheduledFuture<?>> replays = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "fake-tmi-replay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Predicate<String> passwordValidator = password -> true;
+
+    private volatile boolean closed;
+
+    private FakeTmiServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+
+        Thread acceptor = new Thread(this::acceptLoop, "fake-tmi-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Starts a server on an ephemeral port of the loopback interface.
+     *
+     * @return the running server
+     * @throws IOException if the socket could not be bound
+     */
+    public static FakeTmiServer start() throws IOException {
+        return start(0);
+    }
+
+    /**
+     * Starts a server on the loopback interface.
+     *
+     * @param port the port to bind to, or 0 for an ephemeral port.
+     * @return the running server
+     * @throws IOException if the socket could not be bound
+     */
+    public static FakeTmiServer start(int port) throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        return new FakeTmiServer(socket);
+    }
+
+    /**
+     * @return the url to pass to {@code TwitchChatBuilder#withBaseUrl}
+     */
+    public String getUrl() {
+        return "ws://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    /**
+     * @param passwordValidator decides whether a PASS value (i.e. {@code oauth:abc}) is accepted; rejected logins receive the TMI failure notice.
+     */
+    public void setPasswordValidator(Predicate<String> passwordValidator) {
+        this.passwordValidator = passwordValidator;
+    }
+
+    /**
+     * @return the number of currently connected clients
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of websocket connections that have been accepted since the server started
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * @return the number of lines written by {@link #replay}
+     */
+    public long getReplayedLines() {
+        return replayedLines.get();
+    }
+
+    /**
+     * @return the channels that are currently joined by at least one client
+     */
+    public Set<String> getJoinedChannels() {
+        Set<String> channels = ConcurrentHashMap.newKeySet();
+        sessions.forEach(session -> channels.addAll(session.channels));
+        return channels;
+    }
+
+    /**
+     * @return the channels joined by each connected client, in no particular order
+     */
+    public List<Set<String>> getChannelsPerSession() {
+        List<Set<String>> result = new ArrayList<>(sessions.size());
+        sessions.forEach(session -> result.add(Collections.unmodifiableSet(session.channels)));
+        return result;
+    }
+
+    /**
+     * @return every irc line that has been received from clients, in order of arrival
+     */
+    public BlockingQueue<String> getReceivedCommands() {
+        return receivedCommands;
+    }
+
+    /**
+     * @return the PRIVMSG lines that have been received from clients, in order of arrival, keyed by the nick of the sending client
+     */
+    public Map<String, List<String>> getMessagesByNick() {
+        return messagesByNick;
+    }
+
+    /**
+     * Waits for a client command that starts with the specified prefix (case-insensitive), discarding other commands.
+     *
+     * @param prefix  the command prefix (i.e. "PRIVMSG #twitch4j").
+     * @param timeout the maximum time to wait.
+     * @return the command, or null if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public String awaitCommand(String prefix, Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            String command = receivedCommands.poll(remaining, TimeUnit.NANOSECONDS);
+            if (command != null && command.regionMatches(true, 0, prefix, 0, prefix.length()))
+                return command;
+        }
+        return null;
+    }
+
+    /**
+     * @param channel the channel name (without '#').
+     * @return the room id that the server reports for the channel
+     */
+    public String getRoomId(String channel) {
+        return roomIds.computeIfAbsent(channel.toLowerCase(Locale.ROOT), c -> String.valueOf(nextRoomId.getAndIncrement()));
+    }
+
+    /**
+     * Sends a raw line to every client.
+     *
+     * @param line the raw irc line.
+     */
+    public void broadcast(String line) {
+        sessions.forEach(session -> session.send(line));
+    }
+
+    /**
+     * Sends a raw line to every client that has joined the channel.
+     *
+     * @param channel the channel name (without '#').
+     * @param line    the raw irc line.
+     */
+    public void sendToChannel(String channel, String line) {
+        final String name = channel.toLowerCase(Locale.ROOT);
+        sessions.forEach(session -> {
+            if (session.channels.contains(name)) session.send(line);
+        });
+    }
+
+    /**
+     * Sends a PRIVMSG from the specified user to every client that has joined the channel.
+     *
+     * @param channel the channel name (without '#').
+     * @param user    the login of the sender.
+     * @param message the message.
+     */
+    public void sendMessage(String channel, String user, String message) {
+        sendToChannel(channel, String.format("@badges=;color=;display-name=%s;emotes=;id=%s;mod=0;room-id=%s;subscriber=0;tmi-sent-ts=%d;turbo=0;user-id=%d;user-type= :%s!%s@%s.tmi.twitch.tv PRIVMSG #%s :%s",
+            user, UUID.randomUUID(), getRoomId(channel), System.currentTimeMillis(), Math.abs(user.hashCode()), user, user, user, channel.toLowerCase(Locale.ROOT), message));
+    }
+
+    /**
+     * Asks every client to reconnect, as TMI does before a server restart.
+     */
+    public void requestReconnect() {
+        broadcast(":tmi.twitch.tv RECONNECT");
+    }
+
+    /**
+     * Sends a PING to every client.
+     */
+    public void pingAll() {
+        broadcast("PING :tmi.twitch.tv");
+    }
+
+    /**
+     * Abruptly closes every client connection, without a websocket close handshake.
+     */
+    public void dropAll() {
+        sessions.forEach(Session::close);
+    }
+
+    /**
+     * Replays a corpus of raw lines across channels at a fixed aggregate rate, until {@link #stopReplays()} or {@link #close()}.
+     * <p>
+     * The channel of each line is rewritten to the next channel (round-robin), its room-id is adjusted,
+     * and a {@value #REPLAY_TIMESTAMP_TAG} tag is added. Lines that are due within the same tick are coalesced
+     * into a single websocket frame per client, as TMI does.
+     *
+     * @param corpus            the raw lines (typically channel messages) to cycle through.
+     * @param channels          the channels to replay into; only clients that joined a channel receive its lines.
+     * @param messagesPerSecond the aggregate rate, across all channels.
+     */
+    public void replay(List<String> corpus, Collection<String> channels, int messagesPerSecond) {
+        if (corpus.isEmpty() || channels.isEmpty() || messagesPerSecond <= 0)
+            throw new IllegalArgumentException("corpus, channels and rate must be non-empty/positive");
+
+        final List<String> targets = new ArrayList<>(channels.size());
+        channels.forEach(c -> targets.add(c.toLowerCase(Locale.ROOT)));
+        final long tickMillis = 10;
+        final double perTick = messagesPerSecond * tickMillis / 1000.0;
+        final IRCMessageParser parser = new IRCMessageParser();
+
+        replays.add(scheduler.scheduleAtFixedRate(new Runnable() {
+            private double credit;
+            private long index;
+
+            @Override
+            public void run() {
+                credit += perTick;
+                int count = (int) credit;
+                credit -= count;
+                if (count == 0) return;
+
+                Map<Session, StringBuilder> frames = new HashMap<>();
+                for (int i = 0; i < count; i++, index++) {
+                    String channel = targets.get((int) (index % targets.size()));
+                    String template = corpus.get((int) (index % corpus.size()));
+                    String line = rewrite(parser, template, channel);
+                    for (Session session : sessions) {
+                        if (session.channels.contains(channel))
+                            frames.computeIfAbsent(session, s -> new StringBuilder()).append(line).append("\r\n");
+                    }
+                }
+                replayedLines.addAndGet(count);
+                frames.forEach((session, frame) -> session.sendFrame(frame.substring(0, frame.length() - 2)));
+            }
+        }, 0, tickMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Stops all ongoing replays.
+     */
+    public void stopReplays() {
+        replays.forEach(f -> f.cancel(false));
+        replays.clear();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        stopReplays();
+        scheduler.shutdownNow();
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        sessions.forEach(Session::close);
+    }
+
+    private String rewrite(IRCMessageParser parser, String template, String channel) {
+        StringBuilder sb = new StringBuilder(template.length() + 48);
+        String ts = REPLAY_TIMESTAMP_TAG + '=';
+
+        if (parser.parse(template) && parser.hasChannel() && template.charAt(parser.getChannelStart() - 1) == '#') {
+            sb.append(template, 0, parser.getChannelStart()).append(channel).append(template, parser.getChannelEnd(), template.length());
+        } else {
+            sb.append(template);
+        }
+
+        // point room-id to the target channel
+        int roomId = sb.indexOf("room-id=");
+        int tagsEnd = sb.indexOf(" ");
+        if (sb.charAt(0) == '@' && roomId > 0 && roomId < tagsEnd) {
+            int valueStart = roomId + "room-id=".length();
+            int valueEnd = valueStart;
+            while (valueEnd < tagsEnd && sb.charAt(valueEnd) != ';') valueEnd++;
+            sb.replace(valueStart, valueEnd, getRoomId(channel));
+        }
+
+        // stamp with the time of writing (nanoTime is only comparable within the same JVM, which is the intended setup)
+        if (sb.charAt(0) == '@') {
+            sb.insert(1, ts + System.nanoTime() + ';');
+        } else {
+            sb.insert(0, '@' + ts + System.nanoTime() + ' ');
+        }
+        return sb.toString();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread reader = new Thread(() -> new Session(socket).run(), "fake-tmi-session-" + connectionCount.incrementAndGet());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!closed) log.warn("FakeTmiServer: failed to accept connection", e);
+            }
+        }
+    }
+
+    private final class Session {
+        private final Socket socket;
+        private final Set<String> channels = ConcurrentHashMap.newKeySet();
+        private OutputStream out;
+        private volatile String nick = "justinfan";
+        private volatile String password;
+
+        private Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = socket.getOutputStream();
+                if (!handshake(in)) {
+                    socket.close();
+                    return;
+                }
+                sessions.add(this);
+
+                ByteArrayOutputStream message = new ByteArrayOutputStream();
+                while (!socket.isClosed()) {
+                    int b0 = in.readUnsignedByte();
+                    int b1 = in.readUnsignedByte();
+                    boolean fin = (b0 & 0x80) != 0;
+                    int opcode = b0 & 0x0F;
+                    long length = b1 & 0x7F;
+                    if (length == 126) length = in.readUnsignedShort();
+                    else if (length == 127) length = in.readLong();
+                    byte[] mask = new byte[4];
+                    if ((b1 & 0x80) != 0) in.readFully(mask);
+                    byte[] payload = new byte[(int) length];
+                    in.readFully(payload);
+                    for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i & 3];
+
+                    if (opcode == 0x8) { // close
+                        writeFrame(0x8, payload);
+                        break;
+                    } else if (opcode == 0x9) { // ping
+                        writeFrame(0xA, payload);
+                    } else if (opcode == 0x1 || opcode == 0x0) {
+                        message.write(payload);
+                        if (fin) {
+                            onText(new String(message.toByteArray(), StandardCharsets.UTF_8));
+                            message.reset();
+                        }
+                    }
+                }
+            } catch (EOFException ignored) {
+                // client went away
+            } catch (IOException e) {
+                if (!closed && !socket.isClosed()) log.debug("FakeTmiServer: session failed", e);
+            } finally {
+                close();
+            }
+        }
+
+        private boolean handshake(InputStream in) throws IOException {
+            Map<String, String> headers = new HashMap<>();
+            String requestLine = readHttpLine(in);
+            String header;
+            while ((header = readHttpLine(in)) != null && !header.isEmpty()) {
+                int colon = header.indexOf(':');
+                if (colon > 0) headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ROOT), header.substring(colon + 1).trim());
+            }
+
+            String key = headers.get("sec-websocket-key");
+            if (requestLine == null || key == null) {
+                out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                return false;
+            }
+
+            String accept;
+            try {
+                accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1").digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return true;
+        }
+
+        private String readHttpLine(InputStream in) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') return sb.toString();
+                if (c != '\r') sb.append((char) c);
+            }
+            return sb.length() > 0 ? sb.toString() : null;
+        }
+
+        private void onText(String text) {
+            int start = 0;
+            final int len = text.length();
+            while (start < len) {
+                int end = start;
+                while (end < len && text.charAt(end) != '\r' && text.charAt(end) != '\n') end++;
+                if (end > start) onLine(text.substring(start, end));
+                start = end + 1;
+            }
+        }
+
+        private void onLine(String line) {
+            receivedCommands.add(line);
+
+            int space = line.indexOf(' ');
+            String command = (space < 0 ? line : line.substring(0, space)).toUpperCase(Locale.ROOT);
+            String args = space < 0 ? "" : line.substring(space + 1);
+            if ("PRIVMSG".equals(command) || (line.startsWith("@") && args.startsWith("PRIVMSG ")))
+                messagesByNick.computeIfAbsent(nick, k -> new CopyOnWriteArrayList<>()).add(line);
+
+            switch (command) {
+                case "CAP":
+                    if (args.startsWith("REQ :"))
+                        send(":tmi.twitch.tv CAP * ACK :" + args.substring("REQ :".length()));
+                    break;
+                case "PASS":
+                    password = args;
+                    break;
+                case "NICK":
+                    nick = args.trim().toLowerCase(Locale.ROOT);
+                    if (password != null && !passwordValidator.test(password)) {
+                        send(":tmi.twitch.tv NOTICE * :Login authentication failed");
+                        close();
+                        return;
+                    }
+                    sendFrame(String.join("\r\n",
+                        ":tmi.twitch.tv 001 " + nick + " :Welcome, GLHF!",
+                        ":tmi.twitch.tv 002 " + nick + " :Your host is tmi.twitch.tv",
+                        ":tmi.twitch.tv 003 " + nick + " :This server is rather new",
+                        ":tmi.twitch.tv 004 " + nick + " :-",
+                        ":tmi.twitch.tv 375 " + nick + " :-",
+                        ":tmi.twitch.tv 372 " + nick + " :You are in a maze of twisty passages, all alike.",
+                        ":tmi.twitch.tv 376 " + nick + " :>"));
+                    break;
+                case "JOIN":
+                    for (String channel : args.split(",")) {
+                        String name = channel.trim().replace("#", "").toLowerCase(Locale.ROOT);
+                        if (name.isEmpty() || !channels.add(name)) continue;
+                        sendFrame(String.join("\r\n",
+                            ":" + nick + "!" + nick + "@" + nick + ".tmi.twitch.tv JOIN #" + name,
+                            ":" + nick + ".tmi.twitch.tv 353 " + nick + " = #" + name + " :" + nick,
+                            ":" + nick + ".tmi.twitch.tv 366 " + nick + " #" + name + " :End of /NAMES list",
+                            "@emote-only=0;followers-only=-1;r9k=0;rituals=0;room-id=" + getRoomId(name) + ";slow=0;subs-only=0 :tmi.twitch.tv ROOMSTATE #" + name));
+                    }
+                    break;
+                case "PART":
+                    for (String channel : args.split(",")) {
+                        String name = channel.trim().replace("#", "").toLowerCase(Locale.ROOT);
+                        if (channels.remove(name))
+                            send(":" + nick + "!" + nick + "@" + nick + ".tmi.twitch.tv PART #" + name);
+                    }
+                    break;
+                case "PING":
+                    send(":tmi.twitch.tv PONG tmi.twitch.tv " + (args.isEmpty() ? ":tmi.twitch.tv" : args));
+                    break;
+                case "QUIT":
+                    close();
+                    break;
+                default:
+                    // PONG, PRIVMSG, etc. are only recorded
+                    break;
+            }
+        }
+
+        private void send(String line) {
+            sendFrame(line);
+        }
+
+        private void sendFrame(String text) {
+            try {
+                writeFrame(0x1, text.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private synchronized void writeFrame(int opcode, byte[] payload) throws IOException {
+            if (out == null || socket.isClosed()) return;
+            byte[] header;
+            if (payload.length < 126) {
+                header = new byte[] { (byte) (0x80 | opcode), (byte) payload.length };
+            } else if (payload.length <= 0xFFFF) {
+                header = new byte[] { (byte) (0x80 | opcode), 126, (byte) (payload.length >>> 8), (byte) payload.length };
+            } else {
+                header = new byte[10];
+                header[0] = (byte) (0x80 | opcode);
+                header[1] = 127;
+                for (int i = 0; i < 8; i++) header[9 - i] = (byte) ((long) payload.length >>> (8 * i));
+            }
+            out.write(header);
+            out.write(payload);
+            out.flush();
+        }
+
+        private void close() {
+            sessions.remove(this);
+            channels.clear();
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+}
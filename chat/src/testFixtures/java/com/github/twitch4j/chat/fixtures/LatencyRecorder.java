@@ -0,0 +1,125 @@
+package com.github.twitch4j.chat.fixtures;
+
+import com.github.philippheuer.events4j.api.domain.IEventSubscription;
+import com.github.philippheuer.events4j.core.EventManager;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency between {@link FakeTmiServer} writing a replayed line and the
+ * corresponding {@link IRCMessageEvent} being dispatched by the {@link EventManager}.
+ * <p>
+ * Only events carrying the {@value FakeTmiServer#REPLAY_TIMESTAMP_TAG} tag are considered.
+ * The server and the client must run in the same JVM, as {@link System#nanoTime()} is used.
+ */
+public final class LatencyRecorder implements AutoCloseable {
+
+    private final IEventSubscription subscription;
+
+    private long[] samples;
+
+    private int size;
+
+    /**
+     * Starts recording.
+     *
+     * @param eventManager the event manager of the chat instance(s) under test.
+     * @param capacity     the initial sample capacity.
+     */
+    public LatencyRecorder(EventManager eventManager, int capacity) {
+        this.samples = new long[Math.max(capacity, 16)];
+        this.subscription = eventManager.onEvent(IRCMessageEvent.class, this::onMessage);
+    }
+
+    public LatencyRecorder(EventManager eventManager) {
+        this(eventManager, 1 << 16);
+    }
+
+    private void onMessage(IRCMessageEvent event) {
+        final long now = System.nanoTime();
+        final String ts = event.getTags().get(FakeTmiServer.REPLAY_TIMESTAMP_TAG);
+        if (ts == null) return;
+        try {
+            record(now - Long.parseLong(ts));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    private synchronized void record(long nanos) {
+        if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+        samples[size++] = nanos;
+    }
+
+    /**
+     * Discards all samples recorded so far (i.e. after a warm-up phase).
+     */
+    public synchronized void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return the number of recorded samples
+     */
+    public synchronized int getCount() {
+        return size;
+    }
+
+    /**
+     * @return the latency distribution of the samples recorded so far
+     */
+    public Snapshot snapshot() {
+        final long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(sorted);
+        return new Snapshot(sorted.length, percentile(sorted, 0.5), percentile(sorted, 0.99), sorted.length > 0 ? sorted[sorted.length - 1] : 0L);
+    }
+
+    @Override
+    public void close() {
+        subscription.dispose();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0L;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    @Value
+    public static class Snapshot {
+        /**
+         * The number of delivered lines.
+         */
+        int count;
+
+        /**
+         * The median latency, in nanoseconds.
+         */
+        long p50;
+
+        /**
+         * The 99th percentile latency, in nanoseconds.
+         */
+        long p99;
+
+        /**
+         * The maximum latency, in nanoseconds.
+         */
+        long max;
+
+        @Override
+        public String toString() {
+            return String.format("count=%d p50=%.3fms p99=%.3fms max=%.3fms", count, millis(p50), millis(p99), millis(max));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+}
@@ -13,6 +13,9 @@ dependencies {
 	// Jackson (JSON)
 	api(group = "com.fasterxml.jackson.datatype", name = "jackson-datatype-jsr310")
 
+	// Metrics (optional binder)
+	compileOnly(group = "io.micrometer", name = "micrometer-core")
+
 	// Websocket (for common proxy settings)
 	compileOnly(group = "com.neovisionaries", name = "nv-websocket-client")
 
@@ -0,0 +1,82 @@
+package com.github.twitch4j.common.metrics;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Receives measurements from a single websocket-based connection (i.e. chat or pubsub).
+ * <p>
+ * All methods default to no-ops, such that implementations only need to override what they are interested in,
+ * and {@link #NOOP} is used when no metrics were configured.
+ * Methods may be invoked concurrently from the websocket and executor threads, and should return quickly.
+ *
+ * @see ConnectionStatistics
+ * @see MicrometerConnectionMetrics
+ */
+public interface ConnectionMetrics extends AutoCloseable {
+
+    /**
+     * Discards all measurements.
+     */
+    ConnectionMetrics NOOP = new ConnectionMetrics() {
+    };
+
+    /**
+     * Called for each inbound message (i.e. irc line or pubsub json payload).
+     *
+     * @param length the number of characters in the message.
+     */
+    default void onMessageReceived(int length) {
+    }
+
+    /**
+     * Called for each outbound message, once it has been written to the socket.
+     *
+     * @param length the number of characters in the message.
+     */
+    default void onMessageSent(int length) {
+    }
+
+    /**
+     * Called once an outbound message was released by a rate limit bucket.
+     *
+     * @param nanos the time the message waited for bucket tokens.
+     */
+    default void onBucketWait(long nanos) {
+    }
+
+    /**
+     * Called after an inbound message was parsed into an event.
+     *
+     * @param nanos the time taken to parse the message.
+     */
+    default void onParse(long nanos) {
+    }
+
+    /**
+     * Called when the connection is re-established.
+     */
+    default void onReconnect() {
+    }
+
+    /**
+     * Called when the server demonstrated liveness (i.e. a PONG for pubsub, or a PING for chat).
+     */
+    default void onHeartbeat() {
+    }
+
+    /**
+     * Called once by the connection upon construction.
+     *
+     * @param depth supplies the current size of the outbound command queue.
+     */
+    default void bindQueue(IntSupplier depth) {
+    }
+
+    /**
+     * Called when the connection is closed, such that any registered meters can be released.
+     */
+    @Override
+    default void close() {
+    }
+
+}
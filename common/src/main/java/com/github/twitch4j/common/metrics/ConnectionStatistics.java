@@ -0,0 +1,192 @@
+package com.github.twitch4j.common.metrics;
+
+import lombok.Value;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps running totals of the measurements of a connection, which can be read at any time via {@link #snapshot()}.
+ * <p>
+ * Counters are striped, so recording does not contend between the websocket and executor threads.
+ */
+public class ConnectionStatistics implements ConnectionMetrics {
+
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder charactersReceived = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder charactersSent = new LongAdder();
+    private final LongAdder bucketWaits = new LongAdder();
+    private final LongAdder bucketWaitNanos = new LongAdder();
+    private final LongAccumulator maxBucketWaitNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private volatile long lastHeartbeat = System.nanoTime();
+    private volatile IntSupplier queueDepth = () -> 0;
+
+    @Override
+    public void onMessageReceived(int length) {
+        messagesReceived.increment();
+        charactersReceived.add(length);
+    }
+
+    @Override
+    public void onMessageSent(int length) {
+        messagesSent.increment();
+        charactersSent.add(length);
+    }
+
+    @Override
+    public void onBucketWait(long nanos) {
+        bucketWaits.increment();
+        bucketWaitNanos.add(nanos);
+        maxBucketWaitNanos.accumulate(nanos);
+    }
+
+    @Override
+    public void onParse(long nanos) {
+        parses.increment();
+        parseNanos.add(nanos);
+    }
+
+    @Override
+    public void onReconnect() {
+        reconnects.increment();
+    }
+
+    @Override
+    public void onHeartbeat() {
+        lastHeartbeat = System.nanoTime();
+    }
+
+    @Override
+    public void bindQueue(IntSupplier depth) {
+        this.queueDepth = depth;
+    }
+
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    public long getCharactersReceived() {
+        return charactersReceived.sum();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getCharactersSent() {
+        return charactersSent.sum();
+    }
+
+    public long getBucketWaits() {
+        return bucketWaits.sum();
+    }
+
+    public long getBucketWaitNanos() {
+        return bucketWaitNanos.sum();
+    }
+
+    public long getMaxBucketWaitNanos() {
+        return maxBucketWaitNanos.get();
+    }
+
+    public long getParses() {
+        return parses.sum();
+    }
+
+    public long getParseNanos() {
+        return parseNanos.sum();
+    }
+
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * @return the current size of the outbound command queue
+     */
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    /**
+     * @return the nanoseconds that have elapsed since the server last demonstrated liveness
+     */
+    public long getNanosSinceHeartbeat() {
+        return System.nanoTime() - lastHeartbeat;
+    }
+
+    /**
+     * @return the current values of all measurements
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+            getMessagesReceived(), getCharactersReceived(), getMessagesSent(), getCharactersSent(),
+            getBucketWaits(), getBucketWaitNanos(), getMaxBucketWaitNanos(), getParses(), getParseNanos(),
+            getReconnects(), getQueueDepth(), getNanosSinceHeartbeat()
+        );
+    }
+
+    /**
+     * Point-in-time values of {@link ConnectionStatistics}, which can be combined across connections.
+     */
+    @Value
+    public static class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+        long messagesReceived;
+        long charactersReceived;
+        long messagesSent;
+        long charactersSent;
+        long bucketWaits;
+        long bucketWaitNanos;
+        long maxBucketWaitNanos;
+        long parses;
+        long parseNanos;
+        long reconnects;
+        long queueDepth;
+        long nanosSinceHeartbeat;
+
+        /**
+         * @return the mean time a message waited for bucket tokens, in nanoseconds
+         */
+        public long getMeanBucketWaitNanos() {
+            return bucketWaits > 0 ? bucketWaitNanos / bucketWaits : 0L;
+        }
+
+        /**
+         * @return the mean time taken to parse an inbound message, in nanoseconds
+         */
+        public long getMeanParseNanos() {
+            return parses > 0 ? parseNanos / parses : 0L;
+        }
+
+        /**
+         * Sums the counters and queue depths, and keeps the worst maximum wait and heartbeat age.
+         *
+         * @param other the snapshot of another connection.
+         * @return the combined snapshot
+         */
+        public Snapshot plus(Snapshot other) {
+            return new Snapshot(
+                messagesReceived + other.messagesReceived,
+                charactersReceived + other.charactersReceived,
+                messagesSent + other.messagesSent,
+                charactersSent + other.charactersSent,
+                bucketWaits + other.bucketWaits,
+                bucketWaitNanos + other.bucketWaitNanos,
+                Math.max(maxBucketWaitNanos, other.maxBucketWaitNanos),
+                parses + other.parses,
+                parseNanos + other.parseNanos,
+                reconnects + other.reconnects,
+                queueDepth + other.queueDepth,
+                Math.max(nanosSinceHeartbeat, other.nanosSinceHeartbeat)
+            );
+        }
+    }
+
+}
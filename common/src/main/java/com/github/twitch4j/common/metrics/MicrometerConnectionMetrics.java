@@ -0,0 +1,101 @@
+package com.github.twitch4j.common.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Exposes the {@link ConnectionStatistics} of a connection as Micrometer meters.
+ * <p>
+ * Meters are read from the striped counters upon each scrape, so recording costs the same as with plain {@link ConnectionStatistics}.
+ * The meters are removed from the registry once the connection is closed.
+ * <p>
+ * Note: this class requires {@code io.micrometer:micrometer-core} on the classpath, which is an optional dependency.
+ */
+public class MicrometerConnectionMetrics extends ConnectionStatistics implements MeterBinder {
+
+    private final Iterable<Tag> tags;
+
+    private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+    private volatile MeterRegistry registry;
+
+    /**
+     * @param tags the tags that identify the connection (i.e. module and connection index).
+     */
+    public MicrometerConnectionMetrics(@NonNull Iterable<Tag> tags) {
+        this.tags = tags;
+    }
+
+    /**
+     * Creates metrics for a connection and binds them to the registry.
+     *
+     * @param registry the meter registry.
+     * @param tags     the tags that identify the connection.
+     * @return the bound metrics
+     */
+    public static MicrometerConnectionMetrics create(MeterRegistry registry, Iterable<Tag> tags) {
+        MicrometerConnectionMetrics metrics = new MicrometerConnectionMetrics(tags);
+        metrics.bindTo(registry);
+        return metrics;
+    }
+
+    /**
+     * Creates a supplier for connection pools, which tags each connection with the module and an incrementing index.
+     *
+     * @param registry the meter registry.
+     * @param module   the module name (i.e. chat or pubsub).
+     * @return the supplier of bound metrics, for each new connection
+     */
+    public static Supplier<ConnectionMetrics> supplier(MeterRegistry registry, String module) {
+        final AtomicInteger index = new AtomicInteger();
+        return () -> create(registry, Tags.of("module", module, "connection", String.valueOf(index.getAndIncrement())));
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+
+        meters.add(FunctionCounter.builder("twitch4j.connection.messages", this, ConnectionStatistics::getMessagesReceived)
+            .tags(tags).tag("direction", "in").description("Messages received over the connection").register(registry));
+        meters.add(FunctionCounter.builder("twitch4j.connection.messages", this, ConnectionStatistics::getMessagesSent)
+            .tags(tags).tag("direction", "out").description("Messages sent over the connection").register(registry));
+        meters.add(FunctionCounter.builder("twitch4j.connection.characters", this, ConnectionStatistics::getCharactersReceived)
+            .tags(tags).tag("direction", "in").description("Characters received over the connection").register(registry));
+        meters.add(FunctionCounter.builder("twitch4j.connection.characters", this, ConnectionStatistics::getCharactersSent)
+            .tags(tags).tag("direction", "out").description("Characters sent over the connection").register(registry));
+        meters.add(FunctionCounter.builder("twitch4j.connection.reconnects", this, ConnectionStatistics::getReconnects)
+            .tags(tags).description("Reconnects of the connection").register(registry));
+        meters.add(FunctionTimer.builder("twitch4j.connection.bucket.wait", this, ConnectionStatistics::getBucketWaits, ConnectionStatistics::getBucketWaitNanos, TimeUnit.NANOSECONDS)
+            .tags(tags).description("Time outbound messages waited for rate limit tokens").register(registry));
+        meters.add(FunctionTimer.builder("twitch4j.connection.parse", this, ConnectionStatistics::getParses, ConnectionStatistics::getParseNanos, TimeUnit.NANOSECONDS)
+            .tags(tags).description("Time taken to parse inbound messages").register(registry));
+        meters.add(Gauge.builder("twitch4j.connection.queue.size", this, ConnectionStatistics::getQueueDepth)
+            .tags(tags).description("Outbound commands waiting to be written").register(registry));
+        meters.add(TimeGauge.builder("twitch4j.connection.heartbeat.age", this, TimeUnit.NANOSECONDS, ConnectionStatistics::getNanosSinceHeartbeat)
+            .tags(tags).description("Time since the server last demonstrated liveness").register(registry));
+    }
+
+    @Override
+    public void close() {
+        MeterRegistry registry = this.registry;
+        if (registry != null) {
+            meters.forEach(registry::remove);
+            meters.clear();
+        }
+    }
+
+}
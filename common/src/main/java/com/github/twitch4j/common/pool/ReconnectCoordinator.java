@@ -0,0 +1,190 @@
+package com.github.twitch4j.common.pool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces the (re)connection attempts of many connections, such that an outage does not result in a storm of handshakes.
+ * <p>
+ * Attempts whose backoff delay has elapsed are started in FIFO order, as long as:
+ * <ul>
+ *     <li>fewer than {@code maxConcurrentHandshakes} handshakes are in flight,</li>
+ *     <li>at least {@code stagger} has passed since the previous attempt was started, and</li>
+ *     <li>the admission function (i.e. a shared authentication rate limit) grants a permit.</li>
+ * </ul>
+ * A handshake is in flight until the connection calls {@link Handshake#complete()}, or until the handshake timeout elapses.
+ */
+@Slf4j
+public final class ReconnectCoordinator implements AutoCloseable {
+
+    private final Semaphore handshakes;
+
+    private final LongSupplier admission;
+
+    private final long staggerNanos;
+
+    private final long handshakeTimeoutNanos;
+
+    private final Queue<Attempt> ready = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "twitch4j-reconnect-coordinator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The earliest time at which the next attempt may be started; only accessed from the scheduler thread.
+     */
+    private long nextStartNanos = System.nanoTime();
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param maxConcurrentHandshakes the maximum number of handshakes that may be in flight at once.
+     * @param admission               yields zero while consuming a permit if a handshake may start now, or the nanoseconds to wait until a permit is available.
+     * @param stagger                 the minimum time between the start of two attempts.
+     * @param handshakeTimeout        the time after which an incomplete handshake no longer counts towards the concurrency limit.
+     */
+    public ReconnectCoordinator(int maxConcurrentHandshakes, LongSupplier admission, Duration stagger, Duration handshakeTimeout) {
+        if (maxConcurrentHandshakes <= 0) throw new IllegalArgumentException("maxConcurrentHandshakes must be positive");
+        this.handshakes = new Semaphore(maxConcurrentHandshakes);
+        this.admission = admission != null ? admission : () -> 0L;
+        this.staggerNanos = stagger.toNanos();
+        this.handshakeTimeoutNanos = handshakeTimeout.toNanos();
+    }
+
+    /**
+     * Creates a coordinator without an admission limit and with a handshake timeout of 15 seconds.
+     *
+     * @param maxConcurrentHandshakes the maximum number of handshakes that may be in flight at once.
+     * @param stagger                 the minimum time between the start of two attempts.
+     */
+    public ReconnectCoordinator(int maxConcurrentHandshakes, Duration stagger) {
+        this(maxConcurrentHandshakes, null, stagger, Duration.ofSeconds(15L));
+    }
+
+    /**
+     * Schedules a connection attempt.
+     *
+     * @param executor the executor that runs the attempt (i.e. the executor of the connection).
+     * @param attempt  the attempt, which must eventually complete the passed {@link Handshake}.
+     * @param delay    the backoff delay before the attempt becomes eligible to start, in milliseconds.
+     */
+    public void schedule(Executor executor, Consumer<Handshake> attempt, long delay) {
+        final Attempt a = new Attempt(executor, attempt);
+        try {
+            if (delay > 0L) {
+                scheduler.schedule(() -> enqueue(a), delay, TimeUnit.MILLISECONDS);
+            } else {
+                scheduler.execute(() -> enqueue(a));
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("ReconnectCoordinator: closed, running connection attempt directly");
+            executor.execute(() -> attempt.accept(new Handshake()));
+        }
+    }
+
+    /**
+     * @return the number of attempts that are eligible to start but are being held back
+     */
+    public int getWaitingAttempts() {
+        return ready.size();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void enqueue(Attempt attempt) {
+        ready.add(attempt);
+        dispatch();
+    }
+
+    private void dispatch() {
+        Attempt head;
+        while ((head = ready.peek()) != null) {
+            if (!handshakes.tryAcquire())
+                return; // re-dispatched once a handshake completes
+
+            final long now = System.nanoTime();
+            long wait = nextStartNanos - now;
+            if (wait <= 0L) wait = admission.getAsLong();
+            if (wait > 0L) {
+                handshakes.release();
+                scheduler.schedule(this::dispatch, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+
+            ready.poll();
+            nextStartNanos = now + staggerNanos;
+
+            final Handshake handshake = new Handshake();
+            scheduler.schedule(handshake::complete, handshakeTimeoutNanos, TimeUnit.NANOSECONDS);
+            final Attempt attempt = head;
+            try {
+                attempt.executor.execute(() -> {
+                    try {
+                        attempt.action.accept(handshake);
+                    } catch (Exception e) {
+                        log.warn("ReconnectCoordinator: connection attempt failed", e);
+                        handshake.complete();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("ReconnectCoordinator: connection executor rejected the attempt");
+                handshake.complete();
+            }
+        }
+    }
+
+    /**
+     * A handshake that counts towards the concurrency limit until completed.
+     */
+    public final class Handshake {
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Handshake() {
+        }
+
+        /**
+         * Signals that the handshake finished (successfully or not), such that further attempts may start.
+         * Subsequent calls have no effect.
+         */
+        public void complete() {
+            if (completed.compareAndSet(false, true)) {
+                handshakes.release();
+                try {
+                    scheduler.execute(ReconnectCoordinator.this::dispatch);
+                } catch (RejectedExecutionException ignored) {
+                    // coordinator was closed
+                }
+            }
+        }
+    }
+
+    private static final class Attempt {
+        private final Executor executor;
+        private final Consumer<Handshake> action;
+
+        private Attempt(Executor executor, Consumer<Handshake> action) {
+            this.executor = executor;
+            this.action = action;
+        }
+    }
+
+}
@@ -1,15 +1,39 @@
 package com.github.twitch4j.common.pool;
 
 import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
 import lombok.experimental.SuperBuilder;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 
+import java.time.Duration;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A pool of connections for making subscriptions (and potentially unsubscribing from later).
@@ -19,6 +43,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @param <T> transactional subscription response and potential unsubscription request
  * @param <U> the unsubscription response
  */
+@Slf4j
 @SuperBuilder
 public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractConnectionPool<C> implements TransactionalSubscriber<S, T, U> {
 
@@ -45,6 +70,92 @@ public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractCon
     @Builder.Default
     protected final int maxSubscriptionsPerConnection = 50; // Defining this default here is not ideal, but it is not easy to redefine it in a subclass due to SuperBuilder
 
+    /**
+     * How often subscriptions should be migrated off sparsely used connections, such that empty connections can be disposed. Default: null (disabled).
+     * <p>
+     * Compaction is useful after heavy churn, when many connections each hold only a few subscriptions.
+     * It can also be triggered manually via {@link #compact()}.
+     */
+    @Builder.Default
+    protected final Duration compactionInterval = null;
+
+    /**
+     * The fraction of {@link #maxSubscriptionsPerConnection} at or below which a connection is considered sparse,
+     * and thus a candidate to have its subscriptions migrated during compaction. Default: 0.5.
+     */
+    @Builder.Default
+    protected final double compactionThreshold = 0.5;
+
+    /**
+     * How long a migrated subscription is held on both connections before it is removed from the old connection. Default: 5 seconds.
+     * <p>
+     * This overlap gives the new connection time to complete its subscription, such that no events are lost.
+     * Events that occur during the overlap may be received by both connections, so implementations deduplicate events
+     * while {@link #isMigrationOverlapActive()}.
+     */
+    @Builder.Default
+    protected final Duration compactionOverlap = Duration.ofSeconds(5L);
+
+    /**
+     * The maximum number of connections that {@link #subscribeAll(Collection)} establishes concurrently. Default: 4.
+     */
+    @Builder.Default
+    protected final int bulkConnectParallelism = 4;
+
+    /**
+     * The number of idle, already-connected spare connections to keep on hand. Default: 0.
+     * <p>
+     * When a subscription overflows the capacity of the existing connections, it takes over a spare connection
+     * rather than waiting for a new connection to complete its handshake inline.
+     * Spares are replenished in the background, by up to {@link #bulkConnectParallelism} daemon threads of their own
+     * (such that their handshakes do not hold up the {@link #getMaintenanceExecutor() maintenance executor}).
+     * Call {@link #replenishStandby()} to warm them up ahead of the first subscription.
+     */
+    @Builder.Default
+    protected final int standbyConnections = 0;
+
+    /**
+     * Idle spare connections, which hold no subscriptions.
+     */
+    private final Queue<C> standby = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of spare connections that are either idle or being created.
+     */
+    private final AtomicInteger standbyCount = new AtomicInteger();
+
+    /**
+     * The executor that creates spare connections, lazily created.
+     * <p>
+     * This is separate from the maintenance executor, as establishing a connection blocks on its handshake.
+     */
+    private volatile ExecutorService standbyExecutor;
+
+    /**
+     * Whether this pool has been closed, such that spares should no longer be kept.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Whether a compaction pass is currently executing.
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * The periodic compaction task, once scheduled.
+     */
+    private volatile ScheduledFuture<?> compactionTask;
+
+    /**
+     * The number of migrated subscriptions that are currently held by both their old and new connection.
+     */
+    private final AtomicInteger overlappingMigrations = new AtomicInteger();
+
+    /**
+     * The time (in nanoseconds) until which events should still be deduplicated after the last overlap ended, as they may still be in flight.
+     */
+    private final AtomicLong overlapDeadline = new AtomicLong(System.nanoTime());
+
     /**
      * Connections that are already at the maximum subscriptions.
      */
@@ -66,7 +177,7 @@ public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractCon
         if (prevConnection != null) return handleDuplicateSubscription(null, prevConnection, s);
         final int size = getSubscriptionSize(s);
         if (size > maxSubscriptionsPerConnection) throw new IllegalArgumentException("Subscription is too large for a single connection");
-        final C connection = getOrCreateConnectionWithHeadroomAndIncrement(size);
+        final C connection = getOrCreateConnectionWithHeadroomAndIncrement(s, size);
         if (connection != null) {
             prevConnection = subscriptions.putIfAbsent(s, connection);
             if (prevConnection != null) {
@@ -78,6 +189,122 @@ public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractCon
         return handleSubscription(connection, s);
     }
 
+    /**
+     * Subscribes to many requests at once.
+     * <p>
+     * Rather than placing each request individually, the number of connections needed is computed up front:
+     * requests are bin-packed by {@link #getSubscriptionSize(Object)} (first-fit decreasing), first into the headroom
+     * of existing connections and then into new connections, which are established in parallel.
+     * Each connection is then handed its whole batch via {@link #handleSubscriptions(Object, List)}.
+     *
+     * @param requests the subscription requests.
+     * @return the response for each distinct request, in iteration order of the requests
+     * @throws IllegalArgumentException if any request is too large for a single connection
+     */
+    public Map<S, T> subscribeAll(Collection<S> requests) {
+        final int max = this.maxSubscriptionsPerConnection;
+        final Map<S, T> responses = new LinkedHashMap<>();
+        final Map<S, Integer> sizes = new LinkedHashMap<>();
+        final List<S> pending = new ArrayList<>(requests.size());
+
+        // Validate before making any subscription
+        for (S s : requests) {
+            if (s == null || sizes.containsKey(s)) continue;
+            final int size = getSubscriptionSize(s);
+            if (size > max) throw new IllegalArgumentException("Subscription is too large for a single connection");
+            sizes.put(s, size);
+        }
+
+        for (S s : sizes.keySet()) {
+            responses.put(s, null); // fixes the iteration order
+            final C prev = subscriptions.get(s);
+            if (prev != null)
+                responses.put(s, handleDuplicateSubscription(null, prev, s));
+            else
+                pending.add(s);
+        }
+        pending.sort(Comparator.comparingInt((S s) -> sizes.get(s)).reversed());
+
+        // Fill the headroom of existing connections, densest first
+        final Map<C, List<S>> batches = new LinkedHashMap<>();
+        final List<Map.Entry<C, Integer>> existing = snapshotUnsaturated();
+        existing.sort(Map.Entry.<C, Integer>comparingByValue().reversed());
+        final List<S> remaining = new ArrayList<>();
+        for (S s : pending) {
+            final int size = sizes.get(s);
+            boolean placed = false;
+            for (Map.Entry<C, Integer> entry : existing) {
+                if (canHold(entry.getKey(), s) && tryIncrement(entry.getKey(), size)) {
+                    batches.computeIfAbsent(entry.getKey(), c -> new ArrayList<>()).add(s);
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) remaining.add(s);
+        }
+
+        // Pack the rest into as few new connections as possible
+        final List<List<S>> bins = new ArrayList<>();
+        final List<Integer> loads = new ArrayList<>();
+        for (S s : remaining) {
+            final int size = sizes.get(s);
+            int bin = 0;
+            while (bin < bins.size() && loads.get(bin) + size > max) bin++;
+            if (bin == bins.size()) {
+                bins.add(new ArrayList<>());
+                loads.add(0);
+            }
+            bins.get(bin).add(s);
+            loads.set(bin, loads.get(bin) + size);
+        }
+
+        final List<C> created;
+        try {
+            created = createConnections(bins.size());
+        } catch (RuntimeException e) {
+            // Release the headroom that was reserved on existing connections, as none of it will be handed out
+            batches.forEach((c, batch) -> batch.forEach(s -> decrementSubscriptions(c, sizes.get(s))));
+            throw e;
+        }
+        for (int i = 0; i < bins.size(); i++) {
+            final C c = created.get(i);
+            if (c == null) {
+                for (S s : bins.get(i))
+                    responses.put(s, handleSubscription(null, s));
+                continue;
+            }
+
+            if (loads.get(i) < max)
+                unsaturatedConnections.putIfAbsent(c, loads.get(i));
+            else
+                saturatedConnections.add(c);
+            batches.put(c, bins.get(i));
+        }
+        if (!created.isEmpty()) scheduleCompaction();
+
+        // Hand each connection its batch
+        batches.forEach((c, batch) -> {
+            final List<S> accepted = new ArrayList<>(batch.size());
+            for (S s : batch) {
+                final C prev = subscriptions.putIfAbsent(s, c);
+                if (prev != null) {
+                    responses.put(s, handleDuplicateSubscription(c, prev, s));
+                    decrementSubscriptions(c, sizes.get(s));
+                } else {
+                    accepted.add(s);
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                final List<T> results = handleSubscriptions(c, accepted);
+                for (int i = 0; i < accepted.size(); i++)
+                    responses.put(accepted.get(i), results.get(i));
+            }
+        });
+
+        return responses;
+    }
+
     @Override
     public U unsubscribe(T t) {
         final S request = getRequestFromSubscription(t);
@@ -101,6 +328,36 @@ public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractCon
         return Collections.unmodifiableCollection(connections);
     }
 
+    /**
+     * @return the number of idle spare connections that are ready to take subscriptions
+     */
+    public int numStandbyConnections() {
+        return standby.size();
+    }
+
+    /**
+     * Starts creating spare connections in the background, until {@link #standbyConnections} are idle or being created.
+     *
+     * @return the number of spare connections that started being created
+     */
+    public int replenishStandby() {
+        int started = 0;
+        while (!closed && started < standbyConnections) { // bounded, as failed attempts free up their slot right away
+            final int n = standbyCount.get();
+            if (n >= standbyConnections) break;
+            if (!standbyCount.compareAndSet(n, n + 1)) continue;
+
+            try {
+                getStandbyExecutor().execute(this::createStandby);
+                started++;
+            } catch (RejectedExecutionException e) {
+                standbyCount.decrementAndGet();
+                break;
+            }
+        }
+        return started;
+    }
+
     /**
      * @return the total number of subscriptions held by all connections
      */
@@ -126,9 +383,289 @@ public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractCon
 
     protected abstract int getSubscriptionSize(S s);
 
-    private C getOrCreateConnectionWithHeadroomAndIncrement(int increment) {
-        final int max = this.maxSubscriptionsPerConnection;
+    /**
+     * Whether a connection may take a subscription, in addition to having enough headroom.
+     * <p>
+     * Implementations can override this to keep related subscriptions on distinct connections.
+     *
+     * @param c the connection.
+     * @param s the subscription request.
+     * @return whether the subscription may be placed on the connection
+     */
+    protected boolean canHold(C c, S s) {
+        return true;
+    }
+
+    /**
+     * Makes several subscriptions on a single connection.
+     * <p>
+     * Implementations can override this to batch the underlying commands.
+     *
+     * @param c     the connection.
+     * @param batch the subscription requests.
+     * @return the responses, in the same order as the requests
+     */
+    protected List<T> handleSubscriptions(C c, List<S> batch) {
+        final List<T> responses = new ArrayList<>(batch.size());
+        for (S s : batch) {
+            responses.add(handleSubscription(c, s));
+        }
+        return responses;
+    }
+
+    /**
+     * @return the executor for background maintenance of the pool, such as compaction
+     */
+    protected abstract ScheduledExecutorService getMaintenanceExecutor();
+
+    @Override
+    public void close() {
+        closed = true;
+        final ScheduledFuture<?> task = this.compactionTask;
+        if (task != null) task.cancel(false);
+        super.close();
+
+        final ExecutorService standbyExec = this.standbyExecutor;
+        if (standbyExec != null) standbyExec.shutdownNow();
+
+        C spare;
+        while ((spare = standby.poll()) != null) {
+            standbyCount.decrementAndGet();
+            disposeConnection(spare);
+        }
+    }
+
+    /**
+     * Migrates subscriptions off sparsely used connections onto denser connections that have headroom.
+     * <p>
+     * Each migration is make-before-break: the subscription is first made on the new connection,
+     * and is only removed from the old connection after {@link #compactionOverlap} has elapsed.
+     * Connections that end up without subscriptions are disposed of (if {@link #disposeUnusedConnections}).
+     *
+     * @return the number of subscriptions that are being migrated
+     */
+    public int compact() {
+        if (!compacting.compareAndSet(false, true))
+            return 0;
+
+        try {
+            final int max = this.maxSubscriptionsPerConnection;
+            final int sparse = (int) (max * compactionThreshold);
+
+            // Group the subscriptions of the candidate connections
+            final Map<C, List<S>> subscriptionsByConnection = new HashMap<>();
+            subscriptions.forEach((s, c) -> {
+                Integer n = unsaturatedConnections.get(c);
+                if (n != null && n <= sparse)
+                    subscriptionsByConnection.computeIfAbsent(c, k -> new ArrayList<>()).add(s);
+            });
+            if (subscriptionsByConnection.isEmpty() || unsaturatedConnections.size() < 2)
+                return 0;
+
+            // Drain the sparsest connections first
+            final List<Map.Entry<C, Integer>> sources = snapshotUnsaturated();
+            sources.sort(Map.Entry.comparingByValue());
+
+            final Set<C> drained = new HashSet<>();
+            final Set<C> targets = new HashSet<>();
+            int migrated = 0;
+            for (Map.Entry<C, Integer> entry : sources) {
+                final C source = entry.getKey();
+                final Integer load = unsaturatedConnections.get(source);
+                if (load == null || load > sparse || targets.contains(source))
+                    continue;
+
+                // Only drain the connection if the remaining connections can absorb all of its subscriptions
+                int headroom = 0;
+                for (Map.Entry<C, Integer> e : unsaturatedConnections.entrySet()) {
+                    if (e.getKey() != source && !drained.contains(e.getKey()))
+                        headroom += max - e.getValue();
+                }
+                if (headroom < load)
+                    continue;
+
+                drained.add(source);
+                for (S s : subscriptionsByConnection.getOrDefault(source, Collections.emptyList())) {
+                    final int size = getSubscriptionSize(s);
+                    final C target = reserveCompactionTarget(s, size, drained);
+                    if (target == null) break;
+                    targets.add(target);
+                    if (migrate(s, size, source, target)) migrated++;
+                }
+            }
+
+            if (migrated > 0)
+                log.debug("Compaction: migrating {} subscriptions off {} sparse connections", migrated, drained.size());
+            return migrated;
+        } catch (Exception e) {
+            log.warn("Compaction: failed to complete pass", e);
+            return 0;
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Whether events may currently be received twice, because a migrated subscription is (or was just) held by both its old and new connection.
+     * <p>
+     * Implementations should deduplicate the events of their connections while this is the case.
+     *
+     * @return whether a migration overlap is active
+     * @see #compactionOverlap
+     */
+    protected boolean isMigrationOverlapActive() {
+        return overlappingMigrations.get() > 0 || System.nanoTime() - overlapDeadline.get() < 0;
+    }
+
+    private List<Map.Entry<C, Integer>> snapshotUnsaturated() {
+        final List<Map.Entry<C, Integer>> entries = new ArrayList<>(unsaturatedConnections.size());
+        unsaturatedConnections.forEach((c, n) -> entries.add(new AbstractMap.SimpleImmutableEntry<>(c, n)));
+        return entries;
+    }
+
+    /**
+     * Finds the densest unsaturated connection that can fit the subscription, and increments its subscription count.
+     */
+    private C reserveCompactionTarget(S s, int size, Set<C> excluded) {
+        final List<Map.Entry<C, Integer>> candidates = snapshotUnsaturated();
+        candidates.sort(Map.Entry.<C, Integer>comparingByValue().reversed());
+        for (Map.Entry<C, Integer> candidate : candidates) {
+            if (!excluded.contains(candidate.getKey()) && canHold(candidate.getKey(), s) && tryIncrement(candidate.getKey(), size))
+                return candidate.getKey();
+        }
+        return null;
+    }
+
+    private boolean migrate(S s, int size, C source, C target) {
+        overlappingMigrations.incrementAndGet(); // events may be received by both connections from now on
+        final T t;
+        try {
+            t = handleSubscription(target, s);
+        } catch (Exception e) {
+            log.warn("Compaction: failed to subscribe on new connection", e);
+            decrementSubscriptions(target, size);
+            endOverlap();
+            return false;
+        }
+
+        if (t == null || !subscriptions.replace(s, source, target)) {
+            // subscription was concurrently removed (or failed), so undo
+            if (t != null) handleUnsubscription(target, t);
+            decrementSubscriptions(target, size);
+            endOverlap();
+            return false;
+        }
+
+        final Runnable release = () -> {
+            try {
+                // the subscription may have been removed and placed on the old connection again during the overlap
+                if (subscriptions.get(s) != source)
+                    handleUnsubscription(source, t);
+                decrementSubscriptions(source, size);
+            } finally {
+                endOverlap();
+            }
+        };
+        try {
+            getMaintenanceExecutor().schedule(release, compactionOverlap.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            release.run();
+        }
+        return true;
+    }
+
+    private void endOverlap() {
+        final long deadline = System.nanoTime() + compactionOverlap.toNanos();
+        overlapDeadline.accumulateAndGet(deadline, (prev, next) -> next - prev > 0 ? next : prev);
+        overlappingMigrations.decrementAndGet();
+    }
+
+    private List<C> createConnections(int n) {
+        if (n == 0)
+            return Collections.emptyList();
+
+        if (n == 1) {
+            try {
+                return Collections.singletonList(acquireConnection());
+            } catch (Exception e) {
+                log.warn("Failed to create connection for bulk subscription", e);
+                return Collections.singletonList(null);
+            }
+        }
+
+        // Take over idle spares first
+        final List<C> spares = new ArrayList<>(Math.min(n, standbyConnections));
+        C spare;
+        while (spares.size() < n && (spare = standby.poll()) != null) {
+            standbyCount.decrementAndGet();
+            spares.add(spare);
+        }
+        replenishStandby();
+        final int missing = n - spares.size();
+        if (missing == 0)
+            return spares;
 
+        final ExecutorService exec = Executors.newFixedThreadPool(Math.max(1, Math.min(missing, bulkConnectParallelism)), createThreadFactory("connect"));
+        try {
+            final List<CompletableFuture<C>> futures = new ArrayList<>(missing);
+            for (int i = 0; i < missing; i++) {
+                futures.add(CompletableFuture.supplyAsync(this::createConnection, exec).exceptionally(e -> {
+                    log.warn("Failed to create connection for bulk subscription", e);
+                    return null;
+                }));
+            }
+
+            final List<C> connections = new ArrayList<>(n);
+            connections.addAll(spares);
+            for (CompletableFuture<C> future : futures) {
+                connections.add(future.join());
+            }
+            return connections;
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    /**
+     * @return the executor for creating spare connections, which runs at most {@link #bulkConnectParallelism} handshakes at once
+     */
+    private ExecutorService getStandbyExecutor() {
+        ExecutorService exec = this.standbyExecutor;
+        if (exec == null) {
+            synchronized (standby) {
+                exec = this.standbyExecutor;
+                if (exec == null) {
+                    final int threads = Math.max(1, Math.min(standbyConnections, bulkConnectParallelism));
+                    final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), createThreadFactory("standby"));
+                    pool.allowCoreThreadTimeOut(true);
+                    this.standbyExecutor = exec = pool;
+                }
+            }
+        }
+        return exec;
+    }
+
+    private ThreadFactory createThreadFactory(String purpose) {
+        return new BasicThreadFactory.Builder()
+            .namingPattern("twitch4j-pool-" + purpose + "-" + getClass().getSimpleName() + "-%d")
+            .daemon(true)
+            .build();
+    }
+
+    private void scheduleCompaction() {
+        final Duration interval = this.compactionInterval;
+        if (interval == null || interval.isZero() || interval.isNegative() || compactionTask != null)
+            return;
+
+        synchronized (compacting) {
+            if (compactionTask == null) {
+                final long millis = interval.toMillis();
+                compactionTask = getMaintenanceExecutor().scheduleWithFixedDelay(this::compact, millis, millis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private C getOrCreateConnectionWithHeadroomAndIncrement(S s, int increment) {
         // Attempt to find an existing unsaturated connection
         // Implementation Notes:
         // With this loop, there is no guarantee regarding entry order over time.
@@ -137,40 +674,96 @@ public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractCon
         // With unsubscriptions, the behavior is not as deterministic as the elements are not constantly reordered by to subscription count.
         // Lastly, if multiple threads attempt to make a subscription at the same time and there are no existing unsaturated connections,
         // this code may create a new connection for each of these threads, due to the lock-free approach. Synchronization would avoid this.
-        AtomicBoolean foundUnsaturated = new AtomicBoolean();
         for (C connection : unsaturatedConnections.keySet()) {
-            // Try to increment this connection atomically
-            final Integer computed = unsaturatedConnections.compute(connection, (c, n) -> {
-                if (n == null || n + 1 > max)
-                    return null; // didn't have headroom to begin with
-
-                final int n2 = n + increment;
-                if (n2 > max) return n; // not enough headroom
-
-                foundUnsaturated.set(true);
-                return n2 < max ? n2 : null; // remove from unsaturated if at max capacity
-            });
-
-            if (foundUnsaturated.get()) {
-                // Check if the connection has further headroom or needs to be marked as saturated
-                if (computed == null)
-                    saturatedConnections.add(connection);
-
+            if (canHold(connection, s) && tryIncrement(connection, increment))
                 return connection; // found a sufficient existing connection!
-            }
         }
 
-        // Fallback to creating a new connection (and incrementing that)
-        final C c = createConnection();
+        // Fallback to a spare or new connection (and incrementing that)
+        final C c = acquireConnection();
         if (c != null) {
-            if (increment < max)
+            if (increment < maxSubscriptionsPerConnection)
                 unsaturatedConnections.putIfAbsent(c, increment);
             else
                 saturatedConnections.add(c);
+            scheduleCompaction();
         }
         return c;
     }
 
+    /**
+     * @return an idle spare connection if available, otherwise a newly created connection
+     */
+    private C acquireConnection() {
+        C c = standby.poll();
+        if (c != null)
+            standbyCount.decrementAndGet();
+        else
+            c = createConnection();
+        replenishStandby();
+        return c;
+    }
+
+    private void createStandby() {
+        C c = null;
+        try {
+            c = createConnection();
+        } catch (Exception e) {
+            log.warn("Failed to create standby connection", e);
+        }
+
+        if (c == null) {
+            standbyCount.decrementAndGet();
+            return;
+        }
+
+        standby.add(c);
+        if (closed && standby.remove(c)) {
+            standbyCount.decrementAndGet();
+            disposeConnection(c);
+        }
+    }
+
+    /**
+     * Keeps a connection that no longer holds any subscriptions as a spare, if fewer than {@link #standbyConnections} are on hand.
+     */
+    private boolean recycleAsStandby(C connection) {
+        while (!closed) {
+            final int n = standbyCount.get();
+            if (n >= standbyConnections) return false;
+            if (standbyCount.compareAndSet(n, n + 1)) {
+                standby.add(connection);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryIncrement(C connection, int increment) {
+        final int max = this.maxSubscriptionsPerConnection;
+
+        // Try to increment this connection atomically
+        final AtomicBoolean foundUnsaturated = new AtomicBoolean();
+        final Integer computed = unsaturatedConnections.compute(connection, (c, n) -> {
+            if (n == null || n + 1 > max)
+                return null; // didn't have headroom to begin with
+
+            final int n2 = n + increment;
+            if (n2 > max) return n; // not enough headroom
+
+            foundUnsaturated.set(true);
+            return n2 < max ? n2 : null; // remove from unsaturated if at max capacity
+        });
+
+        if (!foundUnsaturated.get())
+            return false;
+
+        // Check if the connection has further headroom or needs to be marked as saturated
+        if (computed == null)
+            saturatedConnections.add(connection);
+        return true;
+    }
+
     private void decrementSubscriptions(C connection, int decrement) {
         // Decrement subscriptions atomically
         Integer newSubs = unsaturatedConnections.compute(connection, (c, n) -> {
@@ -188,8 +781,8 @@ public abstract class SubscriptionConnectionPool<C, S, T, U> extends AbstractCon
             return next;
         });
 
-        // Dispose if needed
-        if (newSubs == null)
+        // Dispose if needed (unless it can serve as a spare)
+        if (newSubs == null && !recycleAsStandby(connection))
             disposeConnection(connection);
     }
 
@@ -3,14 +3,24 @@ package com.github.twitch4j.common.pool;
 import com.github.philippheuer.events4j.core.EventManager;
 import com.github.philippheuer.events4j.simple.SimpleEventHandler;
 import com.github.twitch4j.common.config.ProxyConfig;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
+import com.github.twitch4j.common.metrics.ConnectionStatistics;
+import com.github.twitch4j.common.socket.NioWebSocketTransport;
+import com.github.twitch4j.common.socket.WebSocketTransport;
+import com.github.twitch4j.common.util.SharedScheduler;
 import com.github.twitch4j.common.util.ThreadUtils;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.experimental.SuperBuilder;
 
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -46,6 +56,31 @@ public abstract class TwitchModuleConnectionPool<C, X, Y, Z, B> extends Subscrip
     @Builder.Default
     protected final Supplier<ScheduledThreadPoolExecutor> executor = () -> null;
 
+    /**
+     * Whether connections should share a single scheduler that is sized to the number of available processors,
+     * rather than each connection receiving its own {@link ScheduledThreadPoolExecutor}.
+     * <p>
+     * Each connection still runs its tasks one at a time, in order, on its own lane of the shared scheduler.
+     * This option only applies when {@link #executor} does not yield an executor.
+     */
+    @Builder.Default
+    protected final boolean useSharedScheduler = false;
+
+    /**
+     * The shared scheduler, lazily created when {@link #useSharedScheduler} is enabled.
+     */
+    private volatile SharedScheduler sharedScheduler;
+
+    /**
+     * The executor for background maintenance (i.e. compaction), lazily created.
+     */
+    private volatile ScheduledExecutorService maintenanceExecutor;
+
+    /**
+     * Whether {@link #maintenanceExecutor} was created by (and should be shut down with) this pool.
+     */
+    private volatile boolean ownsMaintenanceExecutor;
+
     /**
      * The {@link ProxyConfig} to be used by connections in this pool, if specified.
      */
@@ -53,6 +88,47 @@ public abstract class TwitchModuleConnectionPool<C, X, Y, Z, B> extends Subscrip
     @Builder.Default
     protected final Supplier<ProxyConfig> proxyConfig = () -> null;
 
+    /**
+     * The {@link WebSocketTransport} to be used by connections in this pool, if specified.
+     * <p>
+     * Using a {@link NioWebSocketTransport} allows every connection in the pool to share the same few I/O threads.
+     */
+    @Builder.Default
+    protected final WebSocketTransport webSocketTransport = null;
+
+    /**
+     * The {@link ConnectionMetrics} to be used by each new connection in this pool.
+     * <p>
+     * When the supplier yields {@link ConnectionStatistics} (or {@link com.github.twitch4j.common.metrics.MicrometerConnectionMetrics}),
+     * the measurements can be read per connection via {@link #getConnectionSnapshots()} and overall via {@link #getAggregateSnapshot()}.
+     */
+    @NonNull
+    @Builder.Default
+    protected final Supplier<ConnectionMetrics> connectionMetrics = () -> ConnectionMetrics.NOOP;
+
+    /**
+     * The maximum number of connections in this pool that may be (re)connecting at the same time.
+     * <p>
+     * When positive, reconnects are paced by a pool-wide {@link ReconnectCoordinator},
+     * such that a dropped edge does not cause every connection to authenticate and resubscribe at once.
+     * The first connect of each new connection (i.e. during {@link #subscribeAll(java.util.Collection)}) queues behind the coordinator as well.
+     * By default, each connection reconnects on its own backoff schedule.
+     */
+    @Builder.Default
+    protected final int maxConcurrentHandshakes = 0;
+
+    /**
+     * The minimum time between the start of two reconnect attempts, when {@link #maxConcurrentHandshakes} is enabled.
+     */
+    @NonNull
+    @Builder.Default
+    protected final Duration handshakeStagger = Duration.ofMillis(100L);
+
+    /**
+     * The reconnect coordinator, lazily created when {@link #maxConcurrentHandshakes} is enabled.
+     */
+    private volatile ReconnectCoordinator reconnectCoordinator;
+
     /**
      * Further configuration that should be applied to the builder when creating new connections.
      */
@@ -63,10 +139,126 @@ public abstract class TwitchModuleConnectionPool<C, X, Y, Z, B> extends Subscrip
     @NonNull
     protected ScheduledThreadPoolExecutor getExecutor(String namePrefix, int poolSize) {
         ScheduledThreadPoolExecutor exec = executor.get();
-        if (exec == null) exec = ThreadUtils.getDefaultScheduledThreadPoolExecutor(namePrefix, poolSize);
+        if (exec == null) {
+            if (useSharedScheduler)
+                exec = getSharedScheduler().createLane();
+            else
+                exec = ThreadUtils.getDefaultScheduledThreadPoolExecutor(namePrefix, poolSize);
+        }
+        return exec;
+    }
+
+    /**
+     * @param connection a connection of this pool.
+     * @return the metrics that were configured for the connection
+     */
+    protected abstract ConnectionMetrics getMetrics(C connection);
+
+    /**
+     * @return the current measurements of each connection that keeps {@link ConnectionStatistics}
+     */
+    public Map<C, ConnectionStatistics.Snapshot> getConnectionSnapshots() {
+        Map<C, ConnectionStatistics.Snapshot> snapshots = new IdentityHashMap<>();
+        for (C connection : getConnections()) {
+            ConnectionMetrics metrics = getMetrics(connection);
+            if (metrics instanceof ConnectionStatistics)
+                snapshots.put(connection, ((ConnectionStatistics) metrics).snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * @return the combined measurements across all connections that keep {@link ConnectionStatistics}
+     */
+    public ConnectionStatistics.Snapshot getAggregateSnapshot() {
+        ConnectionStatistics.Snapshot total = ConnectionStatistics.Snapshot.EMPTY;
+        for (C connection : getConnections()) {
+            ConnectionMetrics metrics = getMetrics(connection);
+            if (metrics instanceof ConnectionStatistics)
+                total = total.plus(((ConnectionStatistics) metrics).snapshot());
+        }
+        return total;
+    }
+
+    @Override
+    protected ScheduledExecutorService getMaintenanceExecutor() {
+        ScheduledExecutorService exec = this.maintenanceExecutor;
+        if (exec == null) {
+            synchronized (this) {
+                exec = this.maintenanceExecutor;
+                if (exec == null) {
+                    ScheduledThreadPoolExecutor provided = executor.get();
+                    if (provided != null) {
+                        exec = provided;
+                    } else if (useSharedScheduler) {
+                        exec = getSharedScheduler().createLane();
+                    } else {
+                        exec = ThreadUtils.getDefaultScheduledThreadPoolExecutor("twitch4j-pool-maintenance-" + getClass().getSimpleName(), 1);
+                        ownsMaintenanceExecutor = true;
+                    }
+                    this.maintenanceExecutor = exec;
+                }
+            }
+        }
         return exec;
     }
 
+    /**
+     * @return the coordinator that paces reconnects across the connections of this pool, or null if disabled
+     */
+    protected ReconnectCoordinator getReconnectCoordinator() {
+        if (maxConcurrentHandshakes <= 0)
+            return null;
+
+        ReconnectCoordinator coordinator = this.reconnectCoordinator;
+        if (coordinator == null) {
+            synchronized (this) {
+                coordinator = this.reconnectCoordinator;
+                if (coordinator == null)
+                    this.reconnectCoordinator = coordinator = new ReconnectCoordinator(maxConcurrentHandshakes, createHandshakeAdmission(), handshakeStagger, Duration.ofSeconds(15L));
+            }
+        }
+        return coordinator;
+    }
+
+    /**
+     * Creates the admission function of the {@link ReconnectCoordinator}, which can enforce a rate limit that is shared by the handshakes of all connections.
+     *
+     * @return zero while consuming a permit if a handshake may start now, or the nanoseconds to wait; null for no limit
+     */
+    protected LongSupplier createHandshakeAdmission() {
+        return null;
+    }
+
+    private SharedScheduler getSharedScheduler() {
+        SharedScheduler scheduler = this.sharedScheduler;
+        if (scheduler == null) {
+            synchronized (this) {
+                scheduler = this.sharedScheduler;
+                if (scheduler == null)
+                    this.sharedScheduler = scheduler = new SharedScheduler("twitch4j-pool-" + getClass().getSimpleName());
+            }
+        }
+        return scheduler;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        SharedScheduler scheduler = this.sharedScheduler;
+        if (scheduler != null)
+            scheduler.close();
+
+        ScheduledExecutorService maintenance = this.maintenanceExecutor;
+        if (maintenance != null && ownsMaintenanceExecutor)
+            maintenance.shutdownNow();
+
+        ReconnectCoordinator coordinator = this.reconnectCoordinator;
+        if (coordinator != null)
+            coordinator.close();
+    }
+
     /**
      * @return a {@link EventManager} to be used in the construction of a new connection
      */
@@ -0,0 +1,105 @@
+package com.github.twitch4j.common.socket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single selector thread that performs all I/O for the connections that are registered with it.
+ */
+@Slf4j
+final class NioEventLoop implements Runnable {
+
+    private final Selector selector;
+
+    private final Thread thread;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a wakeup of the selector is already pending, to avoid redundant system calls.
+     */
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    NioEventLoop(ThreadFactory threadFactory) throws IOException {
+        this.selector = Selector.open();
+        this.thread = threadFactory.newThread(this);
+        this.thread.start();
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Runs a task on the event loop thread.
+     *
+     * @param task the task, which must not block.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop() && wakenUp.compareAndSet(false, true))
+            selector.wakeup();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                wakenUp.set(false);
+                if (tasks.isEmpty())
+                    selector.select(1000L);
+                else
+                    selector.selectNow();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    ((NioWebSocketConnection) key.attachment()).handle(key);
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        log.error("Unhandled exception in websocket event loop task", e);
+                    }
+                }
+            } catch (Throwable t) {
+                log.error("Unhandled exception in websocket event loop", t);
+            }
+        }
+
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            ((NioWebSocketConnection) key.attachment()).abort();
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("Failed to close selector", e);
+        }
+    }
+
+}
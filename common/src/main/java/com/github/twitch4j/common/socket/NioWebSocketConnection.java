@@ -0,0 +1,765 @@
+package com.github.twitch4j.common.socket;
+
+import com.github.twitch4j.common.config.ProxyConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A websocket client connection whose I/O is performed by a (shared) {@link NioEventLoop}.
+ * <p>
+ * All fields that are not thread-safe are confined to the event loop thread.
+ */
+@Slf4j
+final class NioWebSocketConnection implements WebSocketConnection {
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int OP_CONTINUATION = 0x0;
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_BINARY = 0x2;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    private static final int CLOSE_NORMAL = 1000;
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_HANDSHAKE_SIZE = 16 * 1024;
+    private static final int MAX_MESSAGE_SIZE = 16 * 1024 * 1024;
+
+    private static final ByteBuffer[] NO_BUFFERS = new ByteBuffer[0];
+
+    private enum State {
+        NEW, CONNECTING, OPEN, CLOSED
+    }
+
+    private enum Phase {
+        PROXY, UPGRADE, OPEN
+    }
+
+    private final NioWebSocketTransport transport;
+    private final NioEventLoop loop;
+    private final ProxyConfig proxyConfig;
+    private final WebSocketListener listener;
+    private final Executor callbackExecutor;
+
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final String hostHeader;
+    private final String resource;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
+    private final CompletableFuture<Void> handshake = new CompletableFuture<>();
+
+    /**
+     * Encoded frames that were queued by other threads, waiting to be flushed by the event loop.
+     */
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Runnable flushTask = this::flushOutbound;
+
+    /**
+     * Whether the listener should no longer be notified about the disconnect.
+     */
+    private volatile boolean silent;
+
+    // Confined to the event loop
+    private SocketChannel channel;
+    private SelectionKey key;
+    private SSLEngine engine;
+    private ByteBuffer wrapBuffer;
+    private ByteBuffer netIn;
+    private ByteBuffer appIn;
+    private final Queue<ByteBuffer> netOut = new ArrayDeque<>();
+    private final Queue<ByteBuffer> appOut = new ArrayDeque<>();
+    private Phase phase;
+    private String secKey;
+    private boolean closeSent;
+    private int requiredCapacity;
+    private int fragmentOpcode = -1;
+    private ByteArrayOutputStream fragments;
+
+    NioWebSocketConnection(NioWebSocketTransport transport, NioEventLoop loop, URI uri, ProxyConfig proxyConfig, WebSocketListener listener, Executor callbackExecutor) {
+        this.transport = transport;
+        this.loop = loop;
+        this.proxyConfig = proxyConfig;
+        this.listener = listener;
+        this.callbackExecutor = callbackExecutor;
+
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        if (!scheme.equals("ws") && !scheme.equals("wss"))
+            throw new IllegalArgumentException("Unsupported websocket scheme: " + uri);
+        if (uri.getHost() == null)
+            throw new IllegalArgumentException("Missing websocket host: " + uri);
+
+        this.secure = scheme.equals("wss");
+        this.host = uri.getHost();
+        this.port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+        this.hostHeader = uri.getPort() > 0 && uri.getPort() != (secure ? 443 : 80) ? host + ':' + port : host;
+
+        String path = uri.getRawPath();
+        String query = uri.getRawQuery();
+        this.resource = (path == null || path.isEmpty() ? "/" : path) + (query != null ? '?' + query : "");
+    }
+
+    @Override
+    public void connect() throws Exception {
+        if (!state.compareAndSet(State.NEW, State.CONNECTING))
+            throw new IllegalStateException("A websocket connection can only be established once");
+
+        InetSocketAddress address = proxyConfig != null ? new InetSocketAddress(proxyConfig.getHostname(), proxyConfig.getPort()) : new InetSocketAddress(host, port);
+        if (address.isUnresolved()) {
+            state.set(State.CLOSED);
+            throw new UnknownHostException(address.getHostString());
+        }
+
+        loop.execute(() -> open(address));
+
+        try {
+            handshake.get(transport.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } catch (TimeoutException | InterruptedException e) {
+            silent = true;
+            loop.execute(() -> close(e, false));
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean sendText(String text) {
+        if (state.get() != State.OPEN)
+            return false;
+
+        outbound.add(encode(OP_TEXT, text.getBytes(StandardCharsets.UTF_8)));
+        if (flushScheduled.compareAndSet(false, true))
+            loop.execute(flushTask);
+        return true;
+    }
+
+    @Override
+    public void disconnect() {
+        silent = true;
+        loop.execute(() -> {
+            if (state.get() == State.OPEN && !closeSent) {
+                try {
+                    sendClose(CLOSE_NORMAL);
+                } catch (IOException e) {
+                    log.debug("Failed to send websocket close frame", e);
+                }
+            }
+            close(null, false);
+        });
+    }
+
+    @Override
+    public boolean isOpen() {
+        return state.get() == State.OPEN;
+    }
+
+    /**
+     * Closes the connection without notifying the listener; used when the transport shuts down.
+     */
+    void abort() {
+        silent = true;
+        close(null, false);
+    }
+
+    /**
+     * Handles the readiness of the underlying channel.
+     *
+     * @param key the selection key of this connection.
+     */
+    void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) return;
+            int ready = key.readyOps();
+
+            if ((ready & SelectionKey.OP_CONNECT) != 0 && channel.finishConnect())
+                onTcpConnected();
+
+            if ((ready & SelectionKey.OP_WRITE) != 0 && key.isValid())
+                writeNet();
+
+            if ((ready & SelectionKey.OP_READ) != 0 && key.isValid())
+                onReadable();
+        } catch (EOFException e) {
+            close(e, false);
+        } catch (Exception e) {
+            log.debug("WebSocket connection to {} failed", host, e);
+            close(e, false);
+        }
+    }
+
+    private void open(InetSocketAddress address) {
+        if (state.get() != State.CONNECTING) return;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            key = channel.register(loop.selector(), 0, this);
+            if (channel.connect(address))
+                onTcpConnected();
+            else
+                key.interestOps(SelectionKey.OP_CONNECT);
+        } catch (Exception e) {
+            close(e, false);
+        }
+    }
+
+    private void onTcpConnected() throws IOException {
+        key.interestOps(SelectionKey.OP_READ);
+        appIn = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        if (proxyConfig != null) {
+            phase = Phase.PROXY;
+            String authority = host + ':' + port;
+            StringBuilder request = new StringBuilder("CONNECT ").append(authority).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(authority).append("\r\n");
+            if (proxyConfig.getUsername() != null) {
+                String credentials = proxyConfig.getUsername() + ':' + (proxyConfig.getPassword() != null ? String.valueOf(proxyConfig.getPassword()) : "");
+                request.append("Proxy-Authorization: Basic ").append(Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8))).append("\r\n");
+            }
+            request.append("\r\n");
+            netOut.add(ByteBuffer.wrap(request.toString().getBytes(StandardCharsets.ISO_8859_1)));
+            writeNet();
+        } else {
+            startSession();
+        }
+    }
+
+    private void startSession() throws IOException {
+        phase = Phase.UPGRADE;
+        if (secure) {
+            engine = transport.getSslContext().createSSLEngine(host, port);
+            engine.setUseClientMode(true);
+            SSLParameters parameters = engine.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            engine.setSSLParameters(parameters);
+
+            int packetSize = engine.getSession().getPacketBufferSize();
+            wrapBuffer = ByteBuffer.allocate(packetSize);
+            netIn = ByteBuffer.allocate(Math.max(packetSize, INITIAL_BUFFER_SIZE));
+
+            engine.beginHandshake();
+            progressTls();
+            writeNet();
+        } else {
+            sendUpgrade();
+        }
+    }
+
+    private void sendUpgrade() throws IOException {
+        byte[] nonce = new byte[16];
+        ThreadLocalRandom.current().nextBytes(nonce);
+        secKey = Base64.getEncoder().encodeToString(nonce);
+
+        String request = "GET " + resource + " HTTP/1.1\r\n" +
+            "Host: " + hostHeader + "\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Sec-WebSocket-Key: " + secKey + "\r\n" +
+            "Sec-WebSocket-Version: 13\r\n" +
+            "\r\n";
+        writeApp(new ByteBuffer[] { ByteBuffer.wrap(request.getBytes(StandardCharsets.ISO_8859_1)) });
+        writeNet();
+    }
+
+    /*
+     * Inbound
+     */
+
+    private void onReadable() throws IOException {
+        ByteBuffer target = engine != null ? netIn : appIn;
+        if (!target.hasRemaining()) {
+            target = grow(target, target.capacity());
+            if (engine != null) netIn = target;
+            else appIn = target;
+        }
+
+        int read = channel.read(target);
+        if (read < 0) {
+            throw new EOFException("WebSocket connection was closed by the peer");
+        }
+
+        if (engine != null) {
+            unwrapNet();
+            if (secKey == null && isTlsEstablished()) sendUpgrade();
+        }
+
+        processInbound();
+    }
+
+    private void unwrapNet() throws IOException {
+        netIn.flip();
+        try {
+            while (netIn.hasRemaining()) {
+                SSLEngineResult result = engine.unwrap(netIn, appIn);
+                SSLEngineResult.Status status = result.getStatus();
+                if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    appIn = grow(appIn, engine.getSession().getApplicationBufferSize());
+                    continue;
+                } else if (status == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                    break;
+                } else if (status == SSLEngineResult.Status.CLOSED) {
+                    throw new EOFException("TLS session was closed by the peer");
+                }
+
+                progressTls();
+                if (result.bytesConsumed() == 0 && result.bytesProduced() == 0)
+                    break;
+            }
+        } finally {
+            netIn.compact();
+        }
+
+        if (!netIn.hasRemaining())
+            netIn = grow(netIn, engine.getSession().getPacketBufferSize());
+
+        wrapPending();
+        writeNet();
+    }
+
+    private void processInbound() throws IOException {
+        appIn.flip();
+        try {
+            while (state.get() != State.CLOSED) {
+                if (phase == Phase.PROXY) {
+                    String head = readHead();
+                    if (head == null) break;
+                    String status = statusLine(head);
+                    if (!statusCode(status).equals("200"))
+                        throw new ProtocolException("Proxy refused to tunnel the connection: " + status);
+                    startSession();
+                    if (engine != null) break; // further data flows through the tls engine
+                } else if (phase == Phase.UPGRADE) {
+                    String head = readHead();
+                    if (head == null) break;
+                    verifyUpgrade(head);
+                    phase = Phase.OPEN;
+                    if (!state.compareAndSet(State.CONNECTING, State.OPEN)) break;
+                    dispatch(listener::onConnected);
+                    handshake.complete(null);
+                } else if (!readFrame()) {
+                    break;
+                }
+            }
+        } finally {
+            appIn.compact();
+        }
+
+        if (requiredCapacity > appIn.capacity())
+            appIn = ensureCapacity(appIn, requiredCapacity);
+    }
+
+    private String readHead() throws IOException {
+        int start = appIn.position();
+        int limit = appIn.limit();
+        for (int i = start; i + 3 < limit; i++) {
+            if (appIn.get(i) == '\r' && appIn.get(i + 1) == '\n' && appIn.get(i + 2) == '\r' && appIn.get(i + 3) == '\n') {
+                String head = new String(appIn.array(), appIn.arrayOffset() + start, i - start, StandardCharsets.ISO_8859_1);
+                appIn.position(i + 4);
+                return head;
+            }
+        }
+
+        if (limit - start > MAX_HANDSHAKE_SIZE)
+            throw new ProtocolException("Handshake response exceeded " + MAX_HANDSHAKE_SIZE + " bytes");
+        return null;
+    }
+
+    private void verifyUpgrade(String head) throws ProtocolException {
+        String status = statusLine(head);
+        if (!statusCode(status).equals("101"))
+            throw new ProtocolException("Unexpected websocket handshake response: " + status);
+
+        String expected;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            expected = Base64.getEncoder().encodeToString(digest.digest((secKey + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (String line : head.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Accept")) {
+                if (line.substring(colon + 1).trim().equals(expected))
+                    return;
+                break;
+            }
+        }
+        throw new ProtocolException("Invalid Sec-WebSocket-Accept header in handshake response");
+    }
+
+    private boolean readFrame() throws IOException {
+        final int pos = appIn.position();
+        final int available = appIn.remaining();
+        if (available < 2) return false;
+
+        int b0 = appIn.get(pos) & 0xFF;
+        int b1 = appIn.get(pos + 1) & 0xFF;
+        if ((b0 & 0x70) != 0)
+            throw new ProtocolException("Unexpected reserved bits in websocket frame");
+
+        boolean fin = (b0 & 0x80) != 0;
+        int opcode = b0 & 0x0F;
+        boolean masked = (b1 & 0x80) != 0;
+        long length = b1 & 0x7F;
+        int header = 2;
+        if (length == 126) {
+            if (available < 4) return false;
+            length = appIn.getShort(pos + 2) & 0xFFFF;
+            header = 4;
+        } else if (length == 127) {
+            if (available < 10) return false;
+            length = appIn.getLong(pos + 2);
+            header = 10;
+        }
+
+        if (length < 0 || length > MAX_MESSAGE_SIZE)
+            throw new ProtocolException("WebSocket frame exceeded " + MAX_MESSAGE_SIZE + " bytes");
+
+        int maskOffset = pos + header;
+        if (masked) header += 4;
+        int total = header + (int) length;
+        if (available < total) {
+            requiredCapacity = total;
+            return false;
+        }
+
+        byte[] array = appIn.array();
+        int offset = appIn.arrayOffset() + pos + header;
+        if (masked) {
+            for (int i = 0; i < length; i++)
+                array[offset + i] ^= appIn.get(maskOffset + (i & 3));
+        }
+
+        appIn.position(pos + total);
+        requiredCapacity = 0;
+        onFrame(fin, opcode, array, offset, (int) length);
+        return true;
+    }
+
+    private void onFrame(boolean fin, int opcode, byte[] array, int offset, int length) throws IOException {
+        switch (opcode) {
+            case OP_TEXT:
+            case OP_BINARY:
+                if (fragmentOpcode >= 0)
+                    throw new ProtocolException("Expected a websocket continuation frame");
+                if (fin) {
+                    if (opcode == OP_TEXT)
+                        onText(new String(array, offset, length, StandardCharsets.UTF_8));
+                } else {
+                    fragmentOpcode = opcode;
+                    fragments = new ByteArrayOutputStream(length * 2);
+                    fragments.write(array, offset, length);
+                }
+                break;
+
+            case OP_CONTINUATION:
+                if (fragmentOpcode < 0)
+                    throw new ProtocolException("Unexpected websocket continuation frame");
+                if (fragments.size() + length > MAX_MESSAGE_SIZE)
+                    throw new ProtocolException("WebSocket message exceeded " + MAX_MESSAGE_SIZE + " bytes");
+                fragments.write(array, offset, length);
+                if (fin) {
+                    if (fragmentOpcode == OP_TEXT)
+                        onText(new String(fragments.toByteArray(), StandardCharsets.UTF_8));
+                    fragmentOpcode = -1;
+                    fragments = null;
+                }
+                break;
+
+            case OP_PING:
+                byte[] payload = new byte[length];
+                System.arraycopy(array, offset, payload, 0, length);
+                writeApp(new ByteBuffer[] { encode(OP_PONG, payload) });
+                writeNet();
+                break;
+
+            case OP_PONG:
+                break;
+
+            case OP_CLOSE:
+                if (!closeSent)
+                    sendClose(length >= 2 ? ((array[offset] & 0xFF) << 8) | (array[offset + 1] & 0xFF) : CLOSE_NORMAL);
+                close(null, true);
+                break;
+
+            default:
+                throw new ProtocolException("Unknown websocket opcode: " + opcode);
+        }
+    }
+
+    private void onText(String text) {
+        dispatch(() -> listener.onTextMessage(text));
+    }
+
+    /*
+     * Outbound
+     */
+
+    private void flushOutbound() {
+        flushScheduled.set(false);
+        if (state.get() != State.OPEN || closeSent) {
+            outbound.clear();
+            return;
+        }
+
+        List<ByteBuffer> frames = new ArrayList<>();
+        ByteBuffer frame;
+        while ((frame = outbound.poll()) != null)
+            frames.add(frame);
+        if (frames.isEmpty()) return;
+
+        try {
+            writeApp(frames.toArray(NO_BUFFERS));
+            writeNet();
+        } catch (Exception e) {
+            close(e, false);
+        }
+    }
+
+    private void sendClose(int code) throws IOException {
+        closeSent = true;
+        writeApp(new ByteBuffer[] { encode(OP_CLOSE, new byte[] { (byte) (code >>> 8), (byte) code }) });
+        writeNet();
+    }
+
+    private void writeApp(ByteBuffer[] buffers) throws IOException {
+        if (engine == null) {
+            for (ByteBuffer buffer : buffers)
+                netOut.add(buffer);
+            return;
+        }
+
+        for (ByteBuffer buffer : buffers)
+            appOut.add(buffer);
+        wrapPending();
+    }
+
+    /**
+     * Wraps the queued application data into tls records, until it has been consumed entirely.
+     * <p>
+     * Several frames are coalesced into the same records. The engine may first emit post-handshake messages
+     * (i.e. a TLS 1.3 key update) without consuming any application data, or wait for handshake data from the peer,
+     * in which case the remaining data is wrapped once that data has been unwrapped.
+     *
+     * @throws IOException if the engine can make no progress at all
+     */
+    private void wrapPending() throws IOException {
+        while (!appOut.isEmpty()) {
+            SSLEngineResult result = wrap(appOut.toArray(NO_BUFFERS));
+            while (!appOut.isEmpty() && !appOut.peek().hasRemaining())
+                appOut.poll();
+
+            if (result.bytesConsumed() > 0 || result.bytesProduced() > 0)
+                continue;
+
+            SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+            if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                runDelegatedTasks();
+            } else if (status == SSLEngineResult.HandshakeStatus.NEED_UNWRAP) {
+                return; // resumed by unwrapNet
+            } else {
+                throw new SSLException("Unable to wrap outbound websocket data (handshake status: " + status + ")");
+            }
+        }
+    }
+
+    private SSLEngineResult wrap(ByteBuffer[] buffers) throws IOException {
+        wrapBuffer.clear();
+        SSLEngineResult result = engine.wrap(buffers, wrapBuffer);
+        if (result.getStatus() == SSLEngineResult.Status.CLOSED)
+            throw new SSLException("TLS session has already been closed");
+        if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+            wrapBuffer = ByteBuffer.allocate(wrapBuffer.capacity() * 2);
+            return wrap(buffers);
+        }
+
+        wrapBuffer.flip();
+        if (wrapBuffer.hasRemaining()) {
+            ByteBuffer record = ByteBuffer.allocate(wrapBuffer.remaining());
+            record.put(wrapBuffer).flip();
+            netOut.add(record);
+        }
+
+        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
+            runDelegatedTasks();
+        return result;
+    }
+
+    private void progressTls() throws IOException {
+        while (true) {
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK:
+                    runDelegatedTasks();
+                    break;
+                case NEED_WRAP:
+                    if (wrap(NO_BUFFERS).bytesProduced() == 0) return;
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private boolean isTlsEstablished() {
+        return engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
+    }
+
+    private void runDelegatedTasks() {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null)
+            task.run();
+    }
+
+    private void writeNet() throws IOException {
+        if (channel == null || !channel.isConnected()) return;
+
+        ByteBuffer buffer;
+        while ((buffer = netOut.peek()) != null) {
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            netOut.poll();
+        }
+
+        if ((key.interestOps() & SelectionKey.OP_WRITE) != 0)
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    /*
+     * Lifecycle
+     */
+
+    void close(Throwable cause, boolean closedByServer) {
+        State previous = state.getAndSet(State.CLOSED);
+        if (previous == State.CLOSED) return;
+
+        if (key != null) key.cancel();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close websocket channel", e);
+            }
+        }
+        outbound.clear();
+        netOut.clear();
+        appOut.clear();
+
+        if (previous != State.OPEN) {
+            handshake.completeExceptionally(cause != null ? cause : new ClosedChannelException());
+        } else if (!silent) {
+            if (cause != null) log.debug("WebSocket connection to {} was lost", host, cause);
+            dispatch(() -> listener.onDisconnected(closedByServer));
+        }
+    }
+
+    private void dispatch(Runnable callback) {
+        if (callbackExecutor != null) {
+            callbackExecutor.execute(callback);
+        } else {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.error("Unhandled exception in websocket listener", e);
+            }
+        }
+    }
+
+    /*
+     * Helpers
+     */
+
+    static ByteBuffer encode(int opcode, byte[] payload) {
+        int length = payload.length;
+        int header = 2 + (length < 126 ? 0 : length <= 0xFFFF ? 2 : 8) + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(header + length);
+
+        buffer.put((byte) (0x80 | opcode));
+        if (length < 126) {
+            buffer.put((byte) (0x80 | length));
+        } else if (length <= 0xFFFF) {
+            buffer.put((byte) (0x80 | 126));
+            buffer.putShort((short) length);
+        } else {
+            buffer.put((byte) (0x80 | 127));
+            buffer.putLong(length);
+        }
+
+        // client frames must be masked (rfc6455 section 5.3)
+        int mask = ThreadLocalRandom.current().nextInt();
+        buffer.putInt(mask);
+        byte[] array = buffer.array();
+        int offset = header;
+        for (int i = 0; i < length; i++)
+            array[offset + i] = (byte) (payload[i] ^ (mask >>> (24 - 8 * (i & 3))));
+
+        buffer.position(header + length);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String statusLine(String head) {
+        int end = head.indexOf('\r');
+        return end >= 0 ? head.substring(0, end) : head;
+    }
+
+    private static String statusCode(String statusLine) {
+        String[] parts = statusLine.split(" ", 3);
+        return parts.length > 1 ? parts[1] : "";
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int extra) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity) {
+        return buffer.capacity() >= capacity ? buffer : grow(buffer, capacity - buffer.position());
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.github.twitch4j.common.socket;
+
+import com.github.twitch4j.common.config.ProxyConfig;
+import com.github.twitch4j.common.util.SerialExecutor;
+import lombok.Builder;
+import lombok.Getter;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link WebSocketTransport} that multiplexes all of its connections onto a small group of selector threads.
+ * <p>
+ * Unlike {@link NvWebSocketTransport}, which uses two threads per connection, the number of threads only depends on
+ * the configured number of event loops (by default, scaled with the number of available processors).
+ * Sharing a single instance across chat and pubsub connections (and their pools) is recommended.
+ * <p>
+ * By default, listener callbacks run on the event loop thread, so slow event handlers delay I/O for
+ * every other connection on the same loop. In that case, specify a {@link #callbackExecutor} to offload the callbacks
+ * (which are still delivered in order for each connection).
+ */
+public final class NioWebSocketTransport implements WebSocketTransport, AutoCloseable {
+
+    private final NioEventLoop[] eventLoops;
+
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    private final Executor callbackExecutor;
+
+    @Getter
+    private final SSLContext sslContext;
+
+    @Getter
+    private final long connectTimeoutMillis;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a transport with the default settings.
+     */
+    public NioWebSocketTransport() {
+        this(null, null, null, null, null);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param eventLoops       the number of selector threads; defaults to half of the available processors (at least one).
+     * @param callbackExecutor the executor to run listener callbacks on; defaults to running them on the event loop.
+     * @param sslContext       the context for secure connections; defaults to {@link SSLContext#getDefault()}.
+     * @param connectTimeout   the maximum duration of the tcp, proxy, tls and websocket handshakes; defaults to 30 seconds.
+     * @param threadNamePrefix the prefix of the event loop thread names.
+     */
+    @Builder
+    private NioWebSocketTransport(Integer eventLoops, Executor callbackExecutor, SSLContext sslContext, Duration connectTimeout, String threadNamePrefix) {
+        this.callbackExecutor = callbackExecutor;
+        this.connectTimeoutMillis = (connectTimeout != null ? connectTimeout : Duration.ofSeconds(30L)).toMillis();
+
+        try {
+            this.sslContext = sslContext != null ? sslContext : SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to obtain the default SSLContext", e);
+        }
+
+        int loops = eventLoops != null && eventLoops > 0 ? eventLoops : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadFactory threadFactory = new BasicThreadFactory.Builder()
+            .namingPattern((threadNamePrefix != null ? threadNamePrefix : "twitch4j-websocket") + "-%d")
+            .daemon(true)
+            .priority(Thread.NORM_PRIORITY)
+            .build();
+
+        this.eventLoops = new NioEventLoop[loops];
+        try {
+            for (int i = 0; i < loops; i++) {
+                this.eventLoops[i] = new NioEventLoop(threadFactory);
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Failed to open websocket event loop selector", e);
+        }
+    }
+
+    @Override
+    public WebSocketConnection create(String url, ProxyConfig proxyConfig, WebSocketListener listener) throws Exception {
+        if (closed)
+            throw new IllegalStateException("WebSocket transport has already been closed");
+
+        NioEventLoop loop = eventLoops[Math.floorMod(nextLoop.getAndIncrement(), eventLoops.length)];
+        Executor callbacks = callbackExecutor != null ? new SerialExecutor(callbackExecutor) : null;
+        return new NioWebSocketConnection(this, loop, new URI(url), proxyConfig, listener, callbacks);
+    }
+
+    /**
+     * @return the number of selector threads.
+     */
+    public int getEventLoopCount() {
+        return eventLoops.length;
+    }
+
+    /**
+     * Stops all event loops, closing any remaining connections (without notifying their listeners).
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (NioEventLoop loop : eventLoops) {
+            if (loop != null) loop.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.twitch4j.common.socket;
+
+import com.github.twitch4j.common.config.ProxyConfig;
+import com.neovisionaries.ws.client.WebSocket;
+import com.neovisionaries.ws.client.WebSocketAdapter;
+import com.neovisionaries.ws.client.WebSocketFactory;
+import com.neovisionaries.ws.client.WebSocketFrame;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The default {@link WebSocketTransport}, backed by nv-websocket-client.
+ * <p>
+ * Each connection uses its own blocking reading and writing threads.
+ */
+public final class NvWebSocketTransport implements WebSocketTransport {
+
+    /**
+     * Shared instance, as this transport does not hold any state.
+     */
+    public static final NvWebSocketTransport INSTANCE = new NvWebSocketTransport();
+
+    @Override
+    public WebSocketConnection create(String url, ProxyConfig proxyConfig, WebSocketListener listener) throws Exception {
+        // Create WebSocketFactory and apply proxy settings
+        WebSocketFactory webSocketFactory = new WebSocketFactory();
+        if (proxyConfig != null)
+            proxyConfig.applyWs(webSocketFactory.getProxySettings());
+
+        WebSocket webSocket = webSocketFactory.createSocket(url);
+        webSocket.addListener(new WebSocketAdapter() {
+            @Override
+            public void onConnected(WebSocket websocket, Map<String, List<String>> headers) {
+                listener.onConnected();
+            }
+
+            @Override
+            public void onTextMessage(WebSocket websocket, String text) {
+                listener.onTextMessage(text);
+            }
+
+            @Override
+            public void onDisconnected(WebSocket websocket, WebSocketFrame serverCloseFrame, WebSocketFrame clientCloseFrame, boolean closedByServer) {
+                listener.onDisconnected(closedByServer);
+            }
+        });
+
+        return new WebSocketConnection() {
+            @Override
+            public void connect() throws Exception {
+                webSocket.connect();
+            }
+
+            @Override
+            public boolean sendText(String text) {
+                webSocket.sendText(text);
+                return true;
+            }
+
+            @Override
+            public void disconnect() {
+                webSocket.clearListeners();
+                webSocket.disconnect();
+            }
+
+            @Override
+            public boolean isOpen() {
+                return webSocket.isOpen();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.github.twitch4j.common.socket;
+
+/**
+ * A single websocket connection that was created by a {@link WebSocketTransport}.
+ */
+public interface WebSocketConnection {
+
+    /**
+     * Establishes the connection, blocking until the opening handshake has completed.
+     * <p>
+     * {@link WebSocketListener#onConnected()} is fired before any text message is delivered.
+     *
+     * @throws Exception if the connection could not be established.
+     */
+    void connect() throws Exception;
+
+    /**
+     * Queues a text message to be sent over the connection.
+     *
+     * @param text the message.
+     * @return whether the message was queued; false if the connection is not open.
+     */
+    boolean sendText(String text);
+
+    /**
+     * Closes the connection.
+     * <p>
+     * As this disconnect was requested locally, {@link WebSocketListener#onDisconnected(boolean)} is not fired.
+     */
+    void disconnect();
+
+    /**
+     * @return whether the opening handshake has completed and the connection has not been closed yet.
+     */
+    boolean isOpen();
+
+}
@@ -0,0 +1,32 @@
+package com.github.twitch4j.common.socket;
+
+/**
+ * Callbacks for events on a {@link WebSocketConnection}.
+ * <p>
+ * Callbacks for a single connection are never invoked concurrently, and are invoked in the order that the events occurred.
+ */
+public interface WebSocketListener {
+
+    /**
+     * Fired once the opening handshake has completed.
+     */
+    default void onConnected() {
+    }
+
+    /**
+     * Fired upon receiving a (complete) text message.
+     *
+     * @param text the message.
+     */
+    default void onTextMessage(String text) {
+    }
+
+    /**
+     * Fired when an open connection was lost, unless the disconnect was requested via {@link WebSocketConnection#disconnect()}.
+     *
+     * @param closedByServer whether the server initiated the closing handshake.
+     */
+    default void onDisconnected(boolean closedByServer) {
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.github.twitch4j.common.socket;
+
+import com.github.twitch4j.common.config.ProxyConfig;
+
+/**
+ * Creates the websocket connections that are used by T4J modules (i.e. chat and pubsub).
+ * <p>
+ * Implementations are expected to be thread-safe, such that a single transport can be shared across many connections.
+ *
+ * @see NvWebSocketTransport
+ * @see NioWebSocketTransport
+ */
+public interface WebSocketTransport {
+
+    /**
+     * Creates a new (not yet connected) websocket connection.
+     *
+     * @param url         the websocket url to connect to (ws or wss).
+     * @param proxyConfig the proxy to tunnel through, if any.
+     * @param listener    the callbacks for events on the connection.
+     * @return the created connection.
+     * @throws Exception if the connection could not be created (i.e. malformed url).
+     */
+    WebSocketConnection create(String url, ProxyConfig proxyConfig, WebSocketListener listener) throws Exception;
+
+}
@@ -0,0 +1,152 @@
+package com.github.twitch4j.common.util;
+
+import com.github.twitch4j.common.enums.CommandPermission;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link java.util.Set} of {@link CommandPermission} that is backed by a single {@code long} bitmask.
+ * <p>
+ * No collection is materialized: membership checks are a single bit test, and iteration walks the set bits in ordinal order.
+ * Like {@link java.util.EnumSet}, this class is not thread-safe.
+ *
+ * @see TwitchUtils#getPermissionBits(java.util.Map, java.util.Map, String, java.util.Collection)
+ */
+public final class CommandPermissionSet extends AbstractSet<CommandPermission> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final CommandPermission[] VALUES = CommandPermission.values();
+
+    /**
+     * The mask with a bit set for every {@link CommandPermission}.
+     */
+    public static final long ALL_BITS;
+
+    static {
+        if (VALUES.length > Long.SIZE)
+            throw new IllegalStateException("CommandPermission has too many constants for a long bitmask");
+        ALL_BITS = VALUES.length == Long.SIZE ? -1L : (1L << VALUES.length) - 1;
+    }
+
+    private long bits;
+
+    /**
+     * Creates an empty set.
+     */
+    public CommandPermissionSet() {
+        this(0L);
+    }
+
+    /**
+     * Creates a set view of the specified bitmask.
+     *
+     * @param bits the bitmask, where bit {@code i} corresponds to the permission with ordinal {@code i}.
+     */
+    public CommandPermissionSet(long bits) {
+        this.bits = bits & ALL_BITS;
+    }
+
+    /**
+     * @param permission the permission.
+     * @return the bit that corresponds to the permission.
+     */
+    public static long bit(CommandPermission permission) {
+        return 1L << permission.ordinal();
+    }
+
+    /**
+     * @return the underlying bitmask.
+     */
+    public long getBits() {
+        return bits;
+    }
+
+    /**
+     * @param mask the bits to check.
+     * @return whether any of the specified bits are present.
+     */
+    public boolean containsAny(long mask) {
+        return (bits & mask) != 0;
+    }
+
+    /**
+     * @param mask the bits to check.
+     * @return whether all of the specified bits are present.
+     */
+    public boolean containsAll(long mask) {
+        return (bits & mask) == mask;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof CommandPermission && (bits & bit((CommandPermission) o)) != 0;
+    }
+
+    @Override
+    public boolean add(CommandPermission permission) {
+        long old = bits;
+        bits |= bit(permission);
+        return bits != old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof CommandPermission)) return false;
+        long old = bits;
+        bits &= ~bit((CommandPermission) o);
+        return bits != old;
+    }
+
+    @Override
+    public void clear() {
+        bits = 0L;
+    }
+
+    @Override
+    public int size() {
+        return Long.bitCount(bits);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits == 0L;
+    }
+
+    @Override
+    public Iterator<CommandPermission> iterator() {
+        return new Iterator<CommandPermission>() {
+            private long remaining = bits;
+            private long expected = bits;
+            private long last;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0L;
+            }
+
+            @Override
+            public CommandPermission next() {
+                if (remaining == 0L) throw new NoSuchElementException();
+                if (bits != expected) throw new ConcurrentModificationException();
+                last = Long.lowestOneBit(remaining);
+                remaining ^= last;
+                return VALUES[Long.numberOfTrailingZeros(last)];
+            }
+
+            @Override
+            public void remove() {
+                if (last == 0L) throw new IllegalStateException();
+                if (bits != expected) throw new ConcurrentModificationException();
+                bits &= ~last;
+                expected = bits;
+                last = 0L;
+            }
+        };
+    }
+
+}
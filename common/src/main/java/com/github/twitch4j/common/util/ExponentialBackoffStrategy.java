@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Value;
 
 import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -88,7 +89,8 @@ public class ExponentialBackoffStrategy {
 
         if (millis > 0)
             try {
-                Thread.sleep(millis);
+                // allows a shared work-stealing pool to compensate for the blocked worker
+                ForkJoinPool.managedBlock(new SleepBlocker(millis));
             } catch (Exception e) {
                 Thread.currentThread().interrupt();
             }
@@ -170,4 +172,25 @@ public class ExponentialBackoffStrategy {
     public ExponentialBackoffStrategy copy() {
         return this.toBuilder().build();
     }
+
+    private static final class SleepBlocker implements ForkJoinPool.ManagedBlocker {
+        private final long deadline;
+
+        private SleepBlocker(long millis) {
+            this.deadline = System.nanoTime() + millis * 1_000_000L;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0)
+                Thread.sleep(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return deadline - System.nanoTime() <= 0;
+        }
+    }
 }
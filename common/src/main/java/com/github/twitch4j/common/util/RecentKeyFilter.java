@@ -0,0 +1,111 @@
+package com.github.twitch4j.common.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, time-windowed set of recently seen keys, for deduplicating messages that arrive over multiple connections.
+ * <p>
+ * A key is remembered until the window has elapsed or until it is among the oldest keys beyond the maximum size,
+ * whichever comes first. Lookups are lock-free; expired keys are evicted in insertion order by whichever thread
+ * gets to it first, so the cost per key is constant.
+ */
+public final class RecentKeyFilter {
+
+    private final Map<String, Long> seen = new ConcurrentHashMap<>();
+
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final long windowNanos;
+
+    private final int maxSize;
+
+    /**
+     * Creates a filter.
+     *
+     * @param window  how long a key is remembered.
+     * @param maxSize the maximum number of keys that are remembered.
+     */
+    public RecentKeyFilter(Duration window, int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        this.windowNanos = window.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Records a key.
+     *
+     * @param key the key (i.e. a message id).
+     * @return true if the key was not seen within the window, false if it is a duplicate
+     */
+    public boolean add(String key) {
+        final long now = System.nanoTime();
+        evict(now);
+
+        if (seen.putIfAbsent(key, now) != null)
+            return false;
+
+        order.add(new Entry(key, now));
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return the number of keys that are currently remembered
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Forgets all keys.
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            Entry entry;
+            while ((entry = order.poll()) != null) {
+                size.decrementAndGet();
+                seen.remove(entry.key, entry.nanos);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void evict(long now) {
+        if (!evictionLock.tryLock())
+            return; // another thread is already evicting
+
+        try {
+            Entry head;
+            while ((head = order.peek()) != null && (now - head.nanos > windowNanos || size.get() >= maxSize)) {
+                order.poll();
+                size.decrementAndGet();
+                seen.remove(head.key, head.nanos);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final Long nanos;
+
+        private Entry(String key, long nanos) {
+            this.key = key;
+            this.nanos = nanos;
+        }
+    }
+
+}
@@ -0,0 +1,321 @@
+package com.github.twitch4j.common.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A scheduler that is shared by many connections, where each connection receives its own serial lane.
+ * <p>
+ * Tasks are executed by a single work-stealing pool that is sized to the number of available processors,
+ * while delays are tracked by one timer thread that merely hands due tasks over to the lanes.
+ * Thus, the number of threads does not grow with the number of connections.
+ * <p>
+ * Each lane runs its tasks one at a time, in the order they became due, which preserves the
+ * single-threaded semantics that connections previously obtained from a dedicated executor.
+ */
+@Slf4j
+public final class SharedScheduler implements AutoCloseable {
+
+    private final ForkJoinPool workers;
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * Creates a shared scheduler with one worker per available processor.
+     *
+     * @param namePrefix the prefix of the thread names.
+     */
+    public SharedScheduler(String namePrefix) {
+        this(namePrefix, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a shared scheduler.
+     *
+     * @param namePrefix  the prefix of the thread names.
+     * @param parallelism the target number of worker threads.
+     */
+    public SharedScheduler(String namePrefix, int parallelism) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory workerFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(namePrefix + "-worker-" + thread.getPoolIndex());
+            return thread;
+        };
+        this.workers = new ForkJoinPool(Math.max(1, parallelism), workerFactory, (t, e) -> log.error("Unhandled exception in shared scheduler", e), true);
+
+        this.timer = new ScheduledThreadPoolExecutor(1, new BasicThreadFactory.Builder()
+            .namingPattern(namePrefix + "-timer-%d")
+            .daemon(true)
+            .priority(Thread.NORM_PRIORITY)
+            .build());
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Creates a new serial lane, to be used by a single connection.
+     * <p>
+     * Shutting down the lane only cancels its own periodic tasks; the shared threads remain available to other lanes.
+     *
+     * @return a {@link ScheduledThreadPoolExecutor} view of the lane.
+     */
+    public ScheduledThreadPoolExecutor createLane() {
+        return new Lane();
+    }
+
+    /**
+     * @return the number of worker threads that currently exist.
+     */
+    public int getWorkerCount() {
+        return workers.getPoolSize();
+    }
+
+    /**
+     * Runs a blocking action, such as a socket connect and TLS handshake, on the calling thread.
+     * <p>
+     * When called from a lane, the shared pool is informed via {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)},
+     * such that it can compensate for the blocked worker instead of starving the other lanes.
+     * Outside a {@link ForkJoinPool}, the action simply runs.
+     *
+     * @param action the blocking action.
+     * @throws Exception if the action failed, or the thread was interrupted before it ran.
+     */
+    public static void runBlocking(BlockingAction action) throws Exception {
+        ActionBlocker blocker = new ActionBlocker(action);
+        ForkJoinPool.managedBlock(blocker);
+        if (blocker.failure != null)
+            throw blocker.failure;
+    }
+
+    /**
+     * Stops the shared threads; tasks of any remaining lanes will no longer run.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * An action that may block the calling thread.
+     */
+    @FunctionalInterface
+    public interface BlockingAction {
+        void run() throws Exception;
+    }
+
+    private static final class ActionBlocker implements ForkJoinPool.ManagedBlocker {
+        private final BlockingAction action;
+        private boolean done;
+        private Exception failure;
+
+        private ActionBlocker(BlockingAction action) {
+            this.action = action;
+        }
+
+        @Override
+        public boolean block() {
+            if (!done) {
+                done = true;
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    failure = e;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    private final class Lane extends ScheduledThreadPoolExecutor {
+
+        private final SerialExecutor serial = new SerialExecutor(workers);
+
+        private final Set<LaneTask<?>> scheduled = ConcurrentHashMap.newKeySet();
+
+        private Lane() {
+            super(0); // no threads of its own
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (isShutdown())
+                throw new RejectedExecutionException("Lane has been shut down");
+            serial.execute(command);
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            FutureTask<Void> future = new FutureTask<>(task, null);
+            execute(future);
+            return future;
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            FutureTask<T> future = new FutureTask<>(task, result);
+            execute(future);
+            return future;
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            FutureTask<T> future = new FutureTask<>(task);
+            execute(future);
+            return future;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            return schedule(Executors.callable(command, null), delay, unit);
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            LaneTask<V> task = new LaneTask<>(callable, 0L);
+            return task.start(timer.schedule(task::fire, delay, unit));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            if (period <= 0) throw new IllegalArgumentException();
+            LaneTask<Void> task = new LaneTask<>(Executors.callable(command, null), unit.toNanos(period));
+            return task.start(timer.scheduleAtFixedRate(task::fire, initialDelay, period, unit));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            if (delay <= 0) throw new IllegalArgumentException();
+            LaneTask<Void> task = new LaneTask<>(Executors.callable(command, null), -unit.toNanos(delay));
+            return task.start(timer.schedule(task::fire, initialDelay, unit));
+        }
+
+        @Override
+        public void shutdown() {
+            super.shutdown();
+            for (LaneTask<?> task : scheduled) {
+                if (task.isPeriodic()) task.cancel(false);
+            }
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            super.shutdownNow();
+            for (LaneTask<?> task : scheduled) {
+                task.cancel(false);
+            }
+            return Collections.emptyList();
+        }
+
+        /**
+         * A task that is triggered by the shared timer, but executed on the lane.
+         */
+        private final class LaneTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+            /**
+             * Zero for one-shot tasks, positive for fixed-rate tasks, negative for fixed-delay tasks (in nanoseconds).
+             */
+            private final long period;
+
+            /**
+             * Whether the task is already waiting in the lane, such that slow periodic tasks do not pile up.
+             */
+            private final AtomicBoolean queued = new AtomicBoolean();
+
+            private volatile ScheduledFuture<?> trigger;
+
+            private LaneTask(Callable<V> callable, long period) {
+                super(callable);
+                this.period = period;
+            }
+
+            private LaneTask<V> start(ScheduledFuture<?> trigger) {
+                if (this.trigger == null) this.trigger = trigger; // a fixed-delay task may already have rescheduled itself
+                scheduled.add(this);
+                if (isDone()) {
+                    scheduled.remove(this);
+                    trigger.cancel(false);
+                }
+                return this;
+            }
+
+            private void fire() {
+                if (isDone() || !queued.compareAndSet(false, true)) return;
+                try {
+                    serial.execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+            }
+
+            @Override
+            public void run() {
+                queued.set(false);
+                if (period == 0L) {
+                    super.run();
+                } else if (runAndReset()) {
+                    if (period < 0L && !isShutdown()) {
+                        trigger = timer.schedule(this::fire, -period, TimeUnit.NANOSECONDS);
+                        if (isDone()) trigger.cancel(false);
+                    }
+                } else {
+                    // the task threw, or was cancelled
+                    ScheduledFuture<?> t = trigger;
+                    if (t != null) t.cancel(false);
+                }
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                ScheduledFuture<?> t = trigger;
+                if (t != null) t.cancel(false);
+                return cancelled;
+            }
+
+            @Override
+            protected void done() {
+                scheduled.remove(this);
+            }
+
+            @Override
+            public boolean isPeriodic() {
+                return period != 0L;
+            }
+
+            @Override
+            public long getDelay(TimeUnit unit) {
+                ScheduledFuture<?> t = trigger;
+                return t != null ? t.getDelay(unit) : 0L;
+            }
+
+            @Override
+            public int compareTo(Delayed other) {
+                return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+            }
+        }
+    }
+
+}
@@ -30,101 +30,148 @@ public class TwitchUtils {
     }
 
     public static Set<CommandPermission> getPermissionsFromTags(@NonNull Map<String, Object> tags, @NonNull Map<String, String> badges, String userId, Collection<String> botOwnerIds) {
-        Set<CommandPermission> permissionSet = EnumSet.of(CommandPermission.EVERYONE);
+        return new CommandPermissionSet(getPermissionBits(tags, badges, userId, botOwnerIds));
+    }
 
-        // Check for Permissions
-        if (tags.containsKey("badges")) {
-            if (tags.get("badges") instanceof String) {
-                // needed for irc
-                badges.putAll(parseBadges((String) tags.get("badges")));
-            } else {
-                List<Map<String, String>> badgeList = (List<Map<String, String>>) tags.get("badges");
-                if (badgeList != null) {
-                    badgeList.forEach(badge -> badges.put(badge.get("id"), "1"));
-                }
+    /**
+     * Computes the permissions of a user from their message tags, as a bitmask.
+     * <p>
+     * The badges tag is scanned a single time, and each known badge is mapped straight to its permission bits.
+     *
+     * @param tags        the message tags, where badges is either the raw irc string or a list of badge objects with an id.
+     * @param badges      an optional map to be populated with the parsed badges (may be null).
+     * @param userId      the id of the user (may be null).
+     * @param botOwnerIds the ids of the bot owners (may be null).
+     * @return the bitmask of permissions, as understood by {@link CommandPermissionSet}
+     */
+    @SuppressWarnings("unchecked")
+    public static long getPermissionBits(@NonNull Map<String, Object> tags, Map<String, String> badges, String userId, Collection<String> botOwnerIds) {
+        long bits = CommandPermissionSet.bit(CommandPermission.EVERYONE);
+
+        Object badgeTag = tags.get("badges");
+        if (badgeTag instanceof String) {
+            // needed for irc
+            bits |= scanBadges((String) badgeTag, badges);
+        } else if (badgeTag != null) {
+            for (Map<String, String> badge : (List<Map<String, String>>) badgeTag) {
+                String name = badge.get("id");
+                if (badges != null) badges.put(name, "1");
+                bits |= getBadgePermissionBits(name, "1");
             }
+        }
 
-            // Broadcaster
-            if (badges.containsKey("broadcaster")) {
-                permissionSet.add(CommandPermission.BROADCASTER);
-                permissionSet.add(CommandPermission.MODERATOR);
-            }
-            // Twitch Prime
-            if (badges.containsKey("premium") || badges.containsKey("turbo")) {
-                permissionSet.add(CommandPermission.PRIME_TURBO);
-            }
-            // Moderator
-            if (badges.containsKey("moderator")) {
-                permissionSet.add(CommandPermission.MODERATOR);
-            }
-            // Partner
-            if (badges.containsKey("partner")) {
-                permissionSet.add(CommandPermission.PARTNER);
-            }
-            // VIP
-            if (badges.containsKey("vip")) {
-                permissionSet.add(CommandPermission.VIP);
-            }
-            // Turbo
-            if (badges.containsKey("turbo")) {
-                permissionSet.add(CommandPermission.PRIME_TURBO);
-            }
-            // Twitch Staff
-            if (badges.containsKey("staff")) {
-                permissionSet.add(CommandPermission.TWITCHSTAFF);
-            }
-            // Subscriber
-            if (badges.containsKey("subscriber")) {
-                permissionSet.add(CommandPermission.SUBSCRIBER);
-            }
-            // SubGifter
-            if (badges.containsKey("sub-gifter")) {
-                permissionSet.add(CommandPermission.SUBGIFTER);
-            }
-            // Cheerer
-            if (badges.containsKey("bits") || badges.containsKey("bits-leader")) {
-                permissionSet.add(CommandPermission.BITS_CHEERER);
-            }
-            // Founder
-            if (badges.containsKey("founder")) {
-                permissionSet.add(CommandPermission.FOUNDER);
-                permissionSet.add(CommandPermission.SUBSCRIBER);
-
-                // also contains info about the tier if needed
-                /*
-                if (badges.get("founder").equals("0")) {
-                    // Tier 1 Founder
-                } else if (badges.get("founder").equals("1")) {
-                    // Tier 2 Founder
-                } else if (badges.get("founder").equals("2")) {
-                    // Tier 3 Founder
-                }
-                */
-            }
-            // Hype Train Conductor
-            String hypeBadge = badges.get("hype-train");
-            if ("1".equals(hypeBadge)) {
-                permissionSet.add(CommandPermission.CURRENT_HYPE_TRAIN_CONDUCTOR);
-            } else if ("2".equals(hypeBadge)) {
-                permissionSet.add(CommandPermission.FORMER_HYPE_TRAIN_CONDUCTOR);
-            }
-            // Predictions Participation
-            String predictionBadge = badges.get("predictions");
-            if (StringUtils.isNotEmpty(predictionBadge)) {
-                char first = predictionBadge.charAt(0);
-                char last = predictionBadge.charAt(predictionBadge.length() - 1);
-                if (first == 'b' || last == '1') {
-                    permissionSet.add(CommandPermission.PREDICTIONS_BLUE);
-                } else if (first == 'p' || last == '2') {
-                    permissionSet.add(CommandPermission.PREDICTIONS_PINK);
-                }
+        if (userId != null && botOwnerIds != null && botOwnerIds.contains(userId))
+            bits |= CommandPermissionSet.bit(CommandPermission.OWNER);
+
+        return bits;
+    }
+
+    /**
+     * Scans a raw badges tag in a single pass, without intermediate arrays.
+     * <p>
+     * The result is identical to splitting the tag by commas and each badge by slashes (as {@link #parseBadges(String)} historically did):
+     * escaped whitespaces are replaced, trailing empty badges are dropped, and a badge without a (non-empty) version maps to null.
+     *
+     * @param raw    the raw badges tag (i.e. "moderator/1,subscriber/12").
+     * @param badges an optional map to be populated with the parsed badges (may be null).
+     * @return the bitmask of permissions implied by the badges
+     */
+    private static long scanBadges(String raw, Map<String, String> badges) {
+        long bits = 0L;
+        if (StringUtils.isBlank(raw)) return bits;
+
+        // Fix Whitespaces
+        if (raw.indexOf('\\') >= 0) raw = raw.replace("\\s", " ");
+
+        int len = raw.length();
+        while (len > 0 && raw.charAt(len - 1) == ',') len--;
+
+        // value-dependent badges, where the last occurrence wins (like in the map)
+        String hypeTrain = null, predictions = null;
+
+        int start = 0;
+        while (start < len) {
+            int end = raw.indexOf(',', start);
+            if (end < 0 || end > len) end = len;
+
+            String name, value;
+            int slash = raw.indexOf('/', start);
+            if (slash >= 0 && slash < end) {
+                name = raw.substring(start, slash);
+                int valueEnd = raw.indexOf('/', slash + 1);
+                if (valueEnd < 0 || valueEnd > end) valueEnd = end;
+                value = raw.substring(slash + 1, valueEnd);
+                if (value.isEmpty() && onlySlashes(raw, valueEnd, end)) value = null;
+            } else {
+                name = raw.substring(start, end);
+                value = null;
             }
+
+            if (badges != null) badges.put(name, value);
+            if ("hype-train".equals(name))
+                hypeTrain = value;
+            else if ("predictions".equals(name))
+                predictions = value;
+            else
+                bits |= getBadgePermissionBits(name, value);
+
+            start = end + 1;
         }
 
-        if (userId != null && botOwnerIds != null && botOwnerIds.contains(userId))
-            permissionSet.add(CommandPermission.OWNER);
+        return bits | getBadgePermissionBits("hype-train", hypeTrain) | getBadgePermissionBits("predictions", predictions);
+    }
+
+    private static boolean onlySlashes(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) != '/') return false;
+        }
+        return true;
+    }
 
-        return permissionSet;
+    private static long getBadgePermissionBits(String name, String value) {
+        if (name == null) return 0L;
+
+        switch (name) {
+            case "broadcaster":
+                return CommandPermissionSet.bit(CommandPermission.BROADCASTER) | CommandPermissionSet.bit(CommandPermission.MODERATOR);
+            case "premium": // Twitch Prime
+            case "turbo":
+                return CommandPermissionSet.bit(CommandPermission.PRIME_TURBO);
+            case "moderator":
+                return CommandPermissionSet.bit(CommandPermission.MODERATOR);
+            case "partner":
+                return CommandPermissionSet.bit(CommandPermission.PARTNER);
+            case "vip":
+                return CommandPermissionSet.bit(CommandPermission.VIP);
+            case "staff":
+                return CommandPermissionSet.bit(CommandPermission.TWITCHSTAFF);
+            case "subscriber":
+                return CommandPermissionSet.bit(CommandPermission.SUBSCRIBER);
+            case "sub-gifter":
+                return CommandPermissionSet.bit(CommandPermission.SUBGIFTER);
+            case "bits":
+            case "bits-leader":
+                return CommandPermissionSet.bit(CommandPermission.BITS_CHEERER);
+            case "founder":
+                // the value also contains info about the tier (0-2), if needed
+                return CommandPermissionSet.bit(CommandPermission.FOUNDER) | CommandPermissionSet.bit(CommandPermission.SUBSCRIBER);
+            case "hype-train":
+                // Hype Train Conductor
+                if ("1".equals(value)) return CommandPermissionSet.bit(CommandPermission.CURRENT_HYPE_TRAIN_CONDUCTOR);
+                if ("2".equals(value)) return CommandPermissionSet.bit(CommandPermission.FORMER_HYPE_TRAIN_CONDUCTOR);
+                return 0L;
+            case "predictions":
+                // Predictions Participation
+                if (StringUtils.isNotEmpty(value)) {
+                    char first = value.charAt(0);
+                    char last = value.charAt(value.length() - 1);
+                    if (first == 'b' || last == '1') return CommandPermissionSet.bit(CommandPermission.PREDICTIONS_BLUE);
+                    if (first == 'p' || last == '2') return CommandPermissionSet.bit(CommandPermission.PREDICTIONS_PINK);
+                }
+                return 0L;
+            default:
+                return 0L;
+        }
     }
 
     /**
@@ -135,18 +182,7 @@ public class TwitchUtils {
      */
     public static Map<String, String> parseBadges(String raw) {
         Map<String, String> map = new HashMap<>();
-        if (StringUtils.isBlank(raw)) return map;
-
-        // Fix Whitespaces
-        raw = raw.replace("\\s", " ");
-
-        for (String tag : raw.split(",")) {
-            String[] val = tag.split("/");
-            final String key = val[0];
-            String value = (val.length > 1) ? val[1] : null;
-            map.put(key, value);
-        }
-
+        scanBadges(raw, map);
         return Collections.unmodifiableMap(map); // formatting to Read-Only Map
     }
 
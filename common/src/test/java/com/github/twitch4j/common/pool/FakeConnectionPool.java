@@ -0,0 +1,134 @@
+package com.github.twitch4j.common.pool;
+
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A pool of in-memory connections, whose subscriptions are plain topic names.
+ * <p>
+ * A topic of the form {@code name#n} takes up {@code n} subscriptions; any other topic takes up one.
+ * Connecting can be held back (like a slow handshake) via {@link #connectGate}, and refused via {@link #connectLimit}.
+ */
+@SuperBuilder
+class FakeConnectionPool extends SubscriptionConnectionPool<FakeConnectionPool.Connection, String, String, Boolean> {
+
+    final ScheduledThreadPoolExecutor maintenance = new ScheduledThreadPoolExecutor(1);
+
+    final AtomicInteger attempts = new AtomicInteger();
+
+    final AtomicInteger created = new AtomicInteger();
+
+    final AtomicInteger connectLimit = new AtomicInteger(Integer.MAX_VALUE);
+
+    final AtomicReference<CountDownLatch> connectGate = new AtomicReference<>();
+
+    final List<Connection> disposed = new CopyOnWriteArrayList<>();
+
+    final Set<Thread> connectThreads = ConcurrentHashMap.newKeySet();
+
+    @Override
+    protected Connection createConnection() {
+        connectThreads.add(Thread.currentThread());
+        attempts.incrementAndGet();
+
+        final CountDownLatch gate = connectGate.get();
+        if (gate != null) {
+            try {
+                gate.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // like a blocking handshake that does not respond to interrupts
+            }
+        }
+
+        if (created.get() >= connectLimit.get())
+            throw new IllegalStateException("Connection refused");
+        return new Connection(created.incrementAndGet());
+    }
+
+    @Override
+    protected void disposeConnection(Connection connection) {
+        connection.open = false;
+        disposed.add(connection);
+    }
+
+    @Override
+    protected String handleSubscription(Connection c, String s) {
+        if (c == null) return null;
+        c.topics.add(s);
+        return s;
+    }
+
+    @Override
+    protected String handleDuplicateSubscription(Connection c, Connection old, String s) {
+        return "duplicate:" + s;
+    }
+
+    @Override
+    protected Boolean handleUnsubscription(Connection c, String t) {
+        return c != null && c.topics.remove(t);
+    }
+
+    @Override
+    protected String getRequestFromSubscription(String t) {
+        return t;
+    }
+
+    @Override
+    protected int getSubscriptionSize(String s) {
+        final int i = s.lastIndexOf('#');
+        return i < 0 ? 1 : Integer.parseInt(s.substring(i + 1));
+    }
+
+    @Override
+    protected ScheduledExecutorService getMaintenanceExecutor() {
+        return maintenance;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        maintenance.shutdownNow();
+    }
+
+    /**
+     * @param topic the subscription.
+     * @return the connection that currently holds the subscription, according to the pool
+     */
+    Connection connectionOf(String topic) {
+        return subscriptions.get(topic);
+    }
+
+    /**
+     * @param connection a connection of this pool.
+     * @return the total size of the subscriptions held by the connection
+     */
+    int loadOf(Connection connection) {
+        return connection.topics.stream().mapToInt(this::getSubscriptionSize).sum();
+    }
+
+    static final class Connection {
+        final int id;
+        final Set<String> topics = ConcurrentHashMap.newKeySet();
+        volatile boolean open = true;
+
+        Connection(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return "Connection" + id + topics;
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.github.twitch4j.common.pool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class ReconnectCoordinatorTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private ReconnectCoordinator coordinator;
+
+    private final BlockingQueue<Started> started = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    public void shutdown() {
+        if (coordinator != null)
+            coordinator.close();
+    }
+
+    @Test
+    @DisplayName("Starts attempts that are held back in FIFO order")
+    public void fifo() throws InterruptedException {
+        coordinator = new ReconnectCoordinator(1, Duration.ZERO);
+        for (int i = 0; i < 5; i++)
+            schedule(i, 0L);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Started s = next();
+            assertNotNull(s, "attempt was not started");
+            order.add(s.id);
+            s.handshake.complete();
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+    }
+
+    @Test
+    @DisplayName("Limits the number of handshakes in flight")
+    public void concurrency() throws InterruptedException {
+        coordinator = new ReconnectCoordinator(2, Duration.ZERO);
+        for (int i = 0; i < 4; i++)
+            schedule(i, 0L);
+
+        Started first = next();
+        assertNotNull(next());
+        assertNull(started.poll(200L, TimeUnit.MILLISECONDS));
+        assertEquals(2, coordinator.getWaitingAttempts());
+
+        first.handshake.complete();
+        first.handshake.complete(); // no effect
+        assertEquals(2, next().id);
+        assertNull(started.poll(200L, TimeUnit.MILLISECONDS));
+        assertEquals(1, coordinator.getWaitingAttempts());
+    }
+
+    @Test
+    @DisplayName("Keeps the stagger between the start of two attempts")
+    public void stagger() throws InterruptedException {
+        coordinator = new ReconnectCoordinator(10, Duration.ofMillis(100L));
+        for (int i = 0; i < 3; i++)
+            schedule(i, 0L);
+
+        long previous = next().nanos;
+        for (int i = 1; i < 3; i++) {
+            long nanos = next().nanos;
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(nanos - previous);
+            assertTrue(elapsed >= 95L, "attempts were only " + elapsed + " ms apart");
+            previous = nanos;
+        }
+    }
+
+    @Test
+    @DisplayName("Waits for the admission function to grant a permit")
+    public void admission() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        long wait = TimeUnit.MILLISECONDS.toNanos(200L);
+        coordinator = new ReconnectCoordinator(10, () -> calls.getAndIncrement() == 0 ? wait : 0L, Duration.ZERO, Duration.ofSeconds(15L));
+
+        long scheduled = System.nanoTime();
+        schedule(0, 0L);
+        Started s = next();
+        assertNotNull(s);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(s.nanos - scheduled);
+        assertTrue(elapsed >= 190L, "attempt started after only " + elapsed + " ms");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Releases the slot of a handshake that does not complete in time")
+    public void handshakeTimeout() throws InterruptedException {
+        coordinator = new ReconnectCoordinator(1, null, Duration.ZERO, Duration.ofMillis(300L));
+        schedule(0, 0L);
+        schedule(1, 0L);
+
+        long first = next().nanos;
+        assertNull(started.poll(150L, TimeUnit.MILLISECONDS));
+        Started second = next();
+        assertNotNull(second);
+        assertEquals(1, second.id);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(second.nanos - first);
+        assertTrue(elapsed >= 290L, "second attempt started after only " + elapsed + " ms");
+    }
+
+    @Test
+    @DisplayName("Only starts an attempt once its backoff delay has elapsed")
+    public void backoffDelay() throws InterruptedException {
+        coordinator = new ReconnectCoordinator(1, Duration.ZERO);
+        schedule(0, 300L);
+        schedule(1, 0L);
+
+        // the later attempt does not wait for the one that is still backing off
+        Started s = next();
+        assertEquals(1, s.id);
+        s.handshake.complete();
+
+        assertNull(started.poll(150L, TimeUnit.MILLISECONDS));
+        assertEquals(0, next().id);
+    }
+
+    @Test
+    @DisplayName("Runs attempts directly once closed")
+    public void closed() throws InterruptedException {
+        coordinator = new ReconnectCoordinator(1, Duration.ofSeconds(10L));
+        coordinator.close();
+
+        List<Integer> ran = new CopyOnWriteArrayList<>();
+        coordinator.schedule(DIRECT, handshake -> ran.add(1), 0L);
+        coordinator.schedule(DIRECT, handshake -> ran.add(2), 60_000L);
+        assertEquals(Arrays.asList(1, 2), ran);
+    }
+
+    private void schedule(int id, long delay) {
+        coordinator.schedule(DIRECT, handshake -> started.add(new Started(id, handshake)), delay);
+    }
+
+    private Started next() throws InterruptedException {
+        return started.poll(2L, TimeUnit.SECONDS);
+    }
+
+    private static final class Started {
+        private final int id;
+        private final ReconnectCoordinator.Handshake handshake;
+        private final long nanos = System.nanoTime();
+
+        private Started(int id, ReconnectCoordinator.Handshake handshake) {
+            this.id = id;
+            this.handshake = handshake;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.github.twitch4j.common.pool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class StandbyConnectionTest {
+
+    private FakeConnectionPool pool;
+
+    @AfterEach
+    public void shutdown() {
+        if (pool != null)
+            pool.close();
+    }
+
+    @Test
+    @DisplayName("Subscriptions take over a spare connection, which is replenished in the background")
+    public void acquisition() throws InterruptedException {
+        pool = FakeConnectionPool.builder().maxSubscriptionsPerConnection(2).standbyConnections(2).build();
+        assertEquals(2, pool.replenishStandby());
+        assertEquals(0, pool.replenishStandby());
+        await(() -> pool.numStandbyConnections() == 2);
+
+        pool.subscribe("a");
+        FakeConnectionPool.Connection connection = pool.connectionOf("a");
+        assertTrue(connection.id <= 2, "did not use a spare: " + connection);
+        assertEquals(1, pool.numConnections());
+
+        await(() -> pool.numStandbyConnections() == 2);
+        assertEquals(3, pool.created.get());
+        for (Thread thread : pool.connectThreads) {
+            assertTrue(thread.isDaemon(), thread.getName());
+            assertTrue(thread.getName().startsWith("twitch4j-pool-standby-FakeConnectionPool-"), thread.getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Creates spares without blocking the maintenance executor")
+    public void blockingHandshake() throws InterruptedException {
+        pool = FakeConnectionPool.builder().standbyConnections(1).build();
+        CountDownLatch gate = new CountDownLatch(1);
+        pool.connectGate.set(gate);
+
+        assertEquals(1, pool.replenishStandby());
+        await(() -> pool.attempts.get() == 1);
+
+        CountDownLatch maintained = new CountDownLatch(1);
+        pool.maintenance.execute(maintained::countDown);
+        assertTrue(maintained.await(1L, TimeUnit.SECONDS), "maintenance was held up by a handshake");
+        assertEquals(0, pool.numStandbyConnections());
+
+        gate.countDown();
+        await(() -> pool.numStandbyConnections() == 1);
+    }
+
+    @Test
+    @DisplayName("Keeps a connection without subscriptions as a spare when short of spares")
+    public void recycling() throws InterruptedException {
+        pool = FakeConnectionPool.builder().standbyConnections(1).build();
+        pool.connectLimit.set(1); // the spare cannot be created
+
+        pool.subscribe("a");
+        FakeConnectionPool.Connection connection = pool.connectionOf("a");
+        await(() -> pool.attempts.get() == 2);
+        TimeUnit.MILLISECONDS.sleep(100L);
+
+        pool.unsubscribe("a");
+        assertEquals(0, pool.numConnections());
+        assertEquals(1, pool.numStandbyConnections());
+        assertTrue(connection.open);
+        assertTrue(pool.disposed.isEmpty());
+
+        pool.subscribe("b");
+        assertSame(connection, pool.connectionOf("b"));
+        assertEquals(1, pool.created.get());
+    }
+
+    @Test
+    @DisplayName("Disposes of spares upon close, including those that finish connecting afterwards")
+    public void disposalOnClose() throws InterruptedException {
+        pool = FakeConnectionPool.builder().standbyConnections(2).build();
+        pool.replenishStandby();
+        await(() -> pool.numStandbyConnections() == 2);
+
+        CountDownLatch gate = new CountDownLatch(1);
+        pool.connectGate.set(gate);
+        pool.subscribe("a"); // takes a spare, and starts replacing it
+        await(() -> pool.attempts.get() == 3);
+
+        pool.close();
+        assertEquals(0, pool.numStandbyConnections());
+
+        // the remaining spare, the connection holding "a", and the spare that was still connecting
+        await(() -> pool.disposed.size() == 3);
+        for (FakeConnectionPool.Connection connection : pool.disposed)
+            assertFalse(connection.open);
+        assertEquals(0, pool.numStandbyConnections());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2L);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, "condition was not met in time");
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.github.twitch4j.common.pool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class SubscriptionConnectionPoolTest {
+
+    private static final Duration OVERLAP = Duration.ofMillis(300L);
+
+    private FakeConnectionPool pool = FakeConnectionPool.builder().maxSubscriptionsPerConnection(4).compactionOverlap(OVERLAP).build();
+
+    @AfterEach
+    public void shutdown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Bulk subscriptions are bin-packed into as few new connections as possible")
+    public void binPacking() {
+        Map<String, String> responses = pool.subscribeAll(Arrays.asList("a#3", "b#2", "c#2", "d", "e", "f#3"));
+
+        assertEquals(Arrays.asList("a#3", "b#2", "c#2", "d", "e", "f#3"), Arrays.asList(responses.keySet().toArray()));
+        assertEquals(3, pool.created.get());
+        assertEquals(3, pool.numConnections());
+        assertEquals(12, pool.numSubscriptions());
+        Set<FakeConnectionPool.Connection> connections = new HashSet<>();
+        for (String topic : responses.keySet()) {
+            assertEquals(topic, responses.get(topic));
+            FakeConnectionPool.Connection connection = pool.connectionOf(topic);
+            assertTrue(connection.topics.contains(topic));
+            assertEquals(4, pool.loadOf(connection));
+            connections.add(connection);
+        }
+        assertEquals(3, connections.size());
+    }
+
+    @Test
+    @DisplayName("Bulk subscriptions fill the headroom of existing connections first")
+    public void bulkHeadroom() {
+        pool.subscribe("x");
+        FakeConnectionPool.Connection existing = pool.connectionOf("x");
+
+        pool.subscribeAll(Arrays.asList("a#3", "b#2", "c"));
+
+        assertSame(existing, pool.connectionOf("a#3"));
+        assertEquals(4, pool.loadOf(existing));
+        assertNotSame(existing, pool.connectionOf("b#2"));
+        assertSame(pool.connectionOf("b#2"), pool.connectionOf("c"));
+        assertEquals(2, pool.created.get());
+        assertEquals(7, pool.numSubscriptions());
+    }
+
+    @Test
+    @DisplayName("Bulk subscriptions answer duplicates without subscribing twice")
+    public void bulkDuplicates() {
+        pool.subscribe("a");
+
+        Map<String, String> responses = pool.subscribeAll(Arrays.asList("a", "b", "b", null, "c"));
+
+        assertEquals(3, responses.size());
+        assertEquals("duplicate:a", responses.get("a"));
+        assertEquals("b", responses.get("b"));
+        assertEquals("c", responses.get("c"));
+        assertEquals(3, pool.numSubscriptions());
+        assertEquals(1, pool.numConnections());
+    }
+
+    @Test
+    @DisplayName("Bulk subscriptions reject oversized requests before subscribing to any")
+    public void bulkOversized() {
+        assertThrows(IllegalArgumentException.class, () -> pool.subscribeAll(Arrays.asList("a", "b#5")));
+        assertEquals(0, pool.numSubscriptions());
+        assertEquals(0, pool.created.get());
+    }
+
+    @Test
+    @DisplayName("Bulk subscriptions keep the subscription counts intact when a new connection cannot be established")
+    public void bulkConnectFailure() {
+        pool.subscribe("x");
+        FakeConnectionPool.Connection existing = pool.connectionOf("x");
+        pool.connectLimit.set(1);
+
+        Map<String, String> responses = pool.subscribeAll(Arrays.asList("a#4", "b"));
+
+        assertNull(responses.get("a#4"));
+        assertNull(pool.connectionOf("a#4"));
+        assertEquals("b", responses.get("b"));
+        assertSame(existing, pool.connectionOf("b"));
+        assertEquals(2, pool.attempts.get());
+        assertEquals(2, pool.loadOf(existing));
+        assertEquals(2, (int) pool.unsaturatedConnections.get(existing));
+
+        responses = pool.subscribeAll(Arrays.asList("c#3", "d#4"));
+
+        assertNull(responses.get("c#3"));
+        assertNull(responses.get("d#4"));
+        assertEquals(2, (int) pool.unsaturatedConnections.get(existing));
+        assertEquals(2, pool.numSubscriptions());
+        assertEquals(1, pool.numConnections());
+    }
+
+    @Test
+    @DisplayName("Bulk subscriptions establish new connections on named daemon threads")
+    public void bulkConnectThreads() {
+        pool.subscribeAll(Arrays.asList("a#4", "b#4", "c#4"));
+
+        assertEquals(3, pool.numConnections());
+        assertFalse(pool.connectThreads.isEmpty());
+        for (Thread thread : pool.connectThreads) {
+            assertTrue(thread.isDaemon(), thread.getName());
+            assertTrue(thread.getName().startsWith("twitch4j-pool-connect-FakeConnectionPool-"), thread.getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction subscribes on the new connection before releasing the old one after the overlap")
+    public void compaction() throws InterruptedException {
+        FakeConnectionPool.Connection source = sparseConnections();
+        FakeConnectionPool.Connection target = pool.connectionOf("e");
+        assertFalse(pool.isMigrationOverlapActive());
+
+        assertEquals(1, pool.compact());
+        assertSame(target, pool.connectionOf("d"));
+        assertTrue(target.topics.contains("d"));
+        assertTrue(source.topics.contains("d"), "old connection was released before the overlap elapsed");
+        assertTrue(pool.isMigrationOverlapActive());
+
+        TimeUnit.MILLISECONDS.sleep(OVERLAP.toMillis() / 3);
+        assertTrue(source.topics.contains("d"));
+        assertTrue(source.open);
+
+        TimeUnit.MILLISECONDS.sleep(OVERLAP.toMillis());
+        assertFalse(source.topics.contains("d"));
+        assertFalse(source.open);
+        assertEquals(1, pool.numConnections());
+        assertEquals(3, pool.numSubscriptions());
+
+        // events that were still in flight on the old connection remain deduplicated for another overlap
+        assertTrue(pool.isMigrationOverlapActive());
+        TimeUnit.MILLISECONDS.sleep(OVERLAP.toMillis() + 50L);
+        assertFalse(pool.isMigrationOverlapActive());
+    }
+
+    @Test
+    @DisplayName("Compaction leaves sparse connections alone when the others cannot absorb their subscriptions")
+    public void compactionHeadroom() {
+        for (String topic : new String[] { "a", "b", "c", "d", "e", "f", "g" })
+            pool.subscribe(topic);
+        pool.unsubscribe("a");
+        pool.unsubscribe("b");
+        // first connection holds 2 (c, d), second connection holds 3 (e, f, g)
+
+        assertEquals(0, pool.compact());
+        assertEquals(2, pool.numConnections());
+        assertFalse(pool.isMigrationOverlapActive());
+    }
+
+    @Test
+    @DisplayName("Compaction releases the old connection even if the subscription was removed during the overlap")
+    public void unsubscribeDuringOverlap() throws InterruptedException {
+        FakeConnectionPool.Connection source = sparseConnections();
+        FakeConnectionPool.Connection target = pool.connectionOf("e");
+        assertEquals(1, pool.compact());
+
+        assertTrue(pool.unsubscribe("d"));
+        assertFalse(target.topics.contains("d"));
+        assertTrue(source.topics.contains("d"));
+
+        TimeUnit.MILLISECONDS.sleep(OVERLAP.toMillis() + 100L);
+        assertFalse(source.topics.contains("d"));
+        assertFalse(source.open);
+        assertEquals(2, pool.numSubscriptions());
+    }
+
+    @Test
+    @DisplayName("Compaction keeps a subscription that was placed on the old connection again during the overlap")
+    public void resubscribeDuringOverlap() throws InterruptedException {
+        for (String topic : new String[] { "a", "b", "c", "d", "e#2" })
+            pool.subscribe(topic);
+        FakeConnectionPool.Connection source = pool.connectionOf("d");
+        FakeConnectionPool.Connection target = pool.connectionOf("e#2");
+        for (String topic : new String[] { "a", "b", "c" })
+            pool.unsubscribe(topic);
+        assertEquals(1, pool.compact());
+        assertSame(target, pool.connectionOf("d"));
+
+        assertTrue(pool.unsubscribe("d"));
+        pool.subscribeAll(Arrays.asList("d", "z#2"));
+        assertSame(target, pool.connectionOf("z#2"));
+        assertSame(source, pool.connectionOf("d"));
+
+        TimeUnit.MILLISECONDS.sleep(OVERLAP.toMillis() + 100L);
+        assertTrue(source.topics.contains("d"));
+        assertTrue(source.open);
+        assertFalse(target.topics.contains("d"));
+        assertEquals(1, (int) pool.unsaturatedConnections.get(source));
+        assertEquals(5, pool.numSubscriptions());
+    }
+
+    @Test
+    @DisplayName("Compaction releases the old connection right away when the maintenance executor is unavailable")
+    public void releaseWithoutExecutor() {
+        FakeConnectionPool.Connection source = sparseConnections();
+        pool.maintenance.shutdownNow();
+
+        assertEquals(1, pool.compact());
+        assertNotSame(source, pool.connectionOf("d"));
+        assertFalse(source.topics.contains("d"));
+        assertFalse(source.open);
+        assertEquals(1, pool.numConnections());
+    }
+
+    /**
+     * Leaves two sparse connections: the first holds "d", and the second holds "e" and "f".
+     *
+     * @return the first connection
+     */
+    private FakeConnectionPool.Connection sparseConnections() {
+        for (String topic : new String[] { "a", "b", "c", "d", "e", "f" })
+            pool.subscribe(topic);
+        for (String topic : new String[] { "a", "b", "c" })
+            pool.unsubscribe(topic);
+
+        FakeConnectionPool.Connection first = pool.connectionOf("d");
+        assertNotSame(first, pool.connectionOf("e"));
+        assertEquals(2, pool.numConnections());
+        return first;
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.github.twitch4j.common.socket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A minimal HTTP CONNECT proxy on the loopback interface, which records the request head of each tunnel.
+ */
+final class LoopbackProxy implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final String requiredAuthorization;
+
+    final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+
+    private volatile boolean closed;
+
+    /**
+     * Starts a proxy.
+     *
+     * @param requiredAuthorization the expected value of the Proxy-Authorization header, or null to accept any request.
+     * @throws IOException if the socket could not be bound
+     */
+    LoopbackProxy(String requiredAuthorization) throws IOException {
+        this.requiredAuthorization = requiredAuthorization;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        Thread acceptor = new Thread(this::acceptLoop, "loopback-proxy-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket client = serverSocket.accept();
+                Thread tunnel = new Thread(() -> tunnel(client), "loopback-proxy-tunnel");
+                tunnel.setDaemon(true);
+                tunnel.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void tunnel(Socket client) {
+        try {
+            InputStream in = client.getInputStream();
+            OutputStream out = client.getOutputStream();
+
+            StringBuilder head = new StringBuilder();
+            int c;
+            while ((c = in.read()) >= 0) {
+                head.append((char) c);
+                if (head.length() >= 4 && head.lastIndexOf("\r\n\r\n") == head.length() - 4) break;
+            }
+            String request = head.toString();
+            requests.add(request);
+
+            if (requiredAuthorization != null && !request.contains("Proxy-Authorization: " + requiredAuthorization + "\r\n")) {
+                out.write("HTTP/1.1 407 Proxy Authentication Required\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                client.close();
+                return;
+            }
+
+            String[] authority = request.split(" ", 3)[1].split(":");
+            Socket target = new Socket(authority[0], Integer.parseInt(authority[1]));
+            out.write("HTTP/1.1 200 Connection established\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            Thread upstream = new Thread(() -> pipe(client, target), "loopback-proxy-upstream");
+            upstream.setDaemon(true);
+            upstream.start();
+            pipe(target, client);
+        } catch (IOException e) {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void pipe(Socket from, Socket to) {
+        byte[] buffer = new byte[8192];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // either side went away
+        } finally {
+            try {
+                from.close();
+                to.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+}
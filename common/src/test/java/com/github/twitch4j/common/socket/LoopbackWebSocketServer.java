@@ -0,0 +1,266 @@
+package com.github.twitch4j.common.socket;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A minimal websocket server on the loopback interface that exposes the raw frames of each connection,
+ * such that tests can script exactly what the client receives (i.e. fragments and control frames).
+ */
+final class LoopbackWebSocketServer implements AutoCloseable {
+
+    private static final String KEYSTORE = "/loopback-tls.p12";
+
+    private static final char[] KEYSTORE_PASSWORD = "twitch4j".toCharArray();
+
+    private final ServerSocket serverSocket;
+
+    private final boolean secure;
+
+    private final BlockingQueue<Peer> peers = new LinkedBlockingQueue<>();
+
+    private volatile boolean closed;
+
+    private LoopbackWebSocketServer(ServerSocket serverSocket, boolean secure) {
+        this.serverSocket = serverSocket;
+        this.secure = secure;
+
+        Thread acceptor = new Thread(this::acceptLoop, "loopback-ws-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return a server for plain ws connections
+     * @throws IOException if the socket could not be bound
+     */
+    static LoopbackWebSocketServer plain() throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return new LoopbackWebSocketServer(socket, false);
+    }
+
+    /**
+     * @return a server for wss connections, using the self-signed certificate of {@link #sslContext()}
+     * @throws Exception if the socket could not be bound
+     */
+    static LoopbackWebSocketServer secure() throws Exception {
+        ServerSocket socket = sslContext().getServerSocketFactory().createServerSocket();
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        ((SSLServerSocket) socket).setUseClientMode(false);
+        return new LoopbackWebSocketServer(socket, true);
+    }
+
+    /**
+     * @return a context that both presents and trusts the self-signed loopback certificate (for 127.0.0.1)
+     * @throws Exception if the test keystore could not be loaded
+     */
+    static SSLContext sslContext() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = LoopbackWebSocketServer.class.getResourceAsStream(KEYSTORE)) {
+            keyStore.load(in, KEYSTORE_PASSWORD);
+        }
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, KEYSTORE_PASSWORD);
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keyStore);
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+        return context;
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    String getUrl() {
+        return (secure ? "wss" : "ws") + "://127.0.0.1:" + getPort() + "/irc?v=1";
+    }
+
+    /**
+     * Waits for the next client that completed the opening handshake.
+     *
+     * @return the peer, or null if none connected within five seconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Peer awaitPeer() throws InterruptedException {
+        return peers.poll(5L, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        Peer peer;
+        while ((peer = peers.poll()) != null)
+            peer.close();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handshake = new Thread(() -> {
+                    try {
+                        peers.add(new Peer(socket));
+                    } catch (Exception e) {
+                        try {
+                            socket.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }, "loopback-ws-handshake");
+                handshake.setDaemon(true);
+                handshake.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    /**
+     * A single frame, as seen on the wire.
+     */
+    static final class Frame {
+        final boolean fin;
+        final int opcode;
+        final boolean masked;
+        final byte[] payload;
+
+        private Frame(boolean fin, int opcode, boolean masked, byte[] payload) {
+            this.fin = fin;
+            this.opcode = opcode;
+            this.masked = masked;
+            this.payload = payload;
+        }
+
+        String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The server side of an upgraded connection.
+     */
+    static final class Peer implements AutoCloseable {
+
+        final Socket socket;
+
+        final String requestHead;
+
+        private final DataInputStream in;
+
+        private final OutputStream out;
+
+        private Peer(Socket socket) throws Exception {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = socket.getOutputStream();
+
+            StringBuilder head = new StringBuilder();
+            String key = null;
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                head.append(line).append("\r\n");
+                if (line.regionMatches(true, 0, "Sec-WebSocket-Key:", 0, 18))
+                    key = line.substring(18).trim();
+            }
+            this.requestHead = head.toString();
+
+            String accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1").digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.ISO_8859_1)));
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        }
+
+        /**
+         * Reads the next frame, unmasking its payload.
+         *
+         * @return the frame
+         * @throws IOException if the connection was closed
+         */
+        Frame readFrame() throws IOException {
+            int b0 = in.readUnsignedByte();
+            int b1 = in.readUnsignedByte();
+            long length = b1 & 0x7F;
+            if (length == 126) length = in.readUnsignedShort();
+            else if (length == 127) length = in.readLong();
+
+            boolean masked = (b1 & 0x80) != 0;
+            byte[] mask = new byte[4];
+            if (masked) in.readFully(mask);
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++)
+                payload[i] ^= mask[i & 3];
+            return new Frame((b0 & 0x80) != 0, b0 & 0x0F, masked, payload);
+        }
+
+        /**
+         * Writes an unmasked frame.
+         *
+         * @param fin     whether this is the final fragment.
+         * @param opcode  the opcode.
+         * @param payload the payload.
+         * @throws IOException if the connection was closed
+         */
+        synchronized void writeFrame(boolean fin, int opcode, byte[] payload) throws IOException {
+            out.write((fin ? 0x80 : 0) | opcode);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                out.write(126);
+                out.write(payload.length >>> 8);
+                out.write(payload.length);
+            } else {
+                out.write(127);
+                for (int i = 7; i >= 0; i--)
+                    out.write((int) ((long) payload.length >>> (8 * i)));
+            }
+            out.write(payload);
+            out.flush();
+        }
+
+        void writeText(String text) throws IOException {
+            writeFrame(true, 0x1, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) throw new IOException("Connection closed during handshake");
+                if (c != '\r') sb.append((char) c);
+            }
+            return sb.toString();
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+package com.github.twitch4j.common.socket;
+
+import com.github.twitch4j.common.config.ProxyConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSocket;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class NioWebSocketTransportTest {
+
+    private static final int OP_CONTINUATION = 0x0;
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    static {
+        // make the client's tls 1.3 engine emit a key update (without consuming application data) while wrapping frames;
+        // this is read once per jvm, before the first tls connection
+        Security.setProperty("jdk.tls.keyLimits", "AES/GCM/NoPadding KeyUpdate 2^14, ChaCha20-Poly1305 KeyUpdate 2^14");
+    }
+
+    private NioWebSocketTransport transport = new NioWebSocketTransport();
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @AfterEach
+    public void shutdown() {
+        transport.close();
+    }
+
+    @Test
+    @DisplayName("Masks client frames and encodes all payload length forms")
+    public void masking() throws Exception {
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.plain()) {
+            WebSocketConnection connection = connect(server.getUrl(), null);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+            assertTrue(peer.requestHead.startsWith("GET /irc?v=1 HTTP/1.1\r\n"));
+
+            for (int length : new int[] { 5, 300, 70_000 }) {
+                String text = repeat('x', length);
+                assertTrue(connection.sendText(text));
+
+                LoopbackWebSocketServer.Frame frame = peer.readFrame();
+                assertTrue(frame.masked);
+                assertTrue(frame.fin);
+                assertEquals(OP_TEXT, frame.opcode);
+                assertEquals(text, frame.text());
+            }
+
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    @DisplayName("Reassembles fragmented messages, with control frames in between")
+    public void fragments() throws Exception {
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.plain()) {
+            connect(server.getUrl(), null);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+
+            peer.writeFrame(false, OP_TEXT, bytes("PRIV"));
+            peer.writeFrame(false, OP_CONTINUATION, bytes("MSG #twitch4j"));
+            peer.writeFrame(true, OP_PING, bytes("keepalive"));
+            peer.writeFrame(true, OP_CONTINUATION, bytes(" :hello"));
+            peer.writeText("second");
+
+            assertEquals("text:PRIVMSG #twitch4j :hello", listener.next());
+            assertEquals("text:second", listener.next());
+
+            LoopbackWebSocketServer.Frame pong = peer.readFrame();
+            assertEquals(OP_PONG, pong.opcode);
+            assertTrue(pong.masked);
+            assertArrayEquals(bytes("keepalive"), pong.payload);
+        }
+    }
+
+    @Test
+    @DisplayName("Closes the connection upon an unexpected continuation frame")
+    public void unexpectedContinuation() throws Exception {
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.plain()) {
+            WebSocketConnection connection = connect(server.getUrl(), null);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+
+            peer.writeFrame(true, OP_CONTINUATION, bytes("orphan"));
+
+            assertEquals("disconnected:false", listener.next());
+            assertFalse(connection.isOpen());
+        }
+    }
+
+    @Test
+    @DisplayName("Answers a close frame from the server with the same status code")
+    public void serverClose() throws Exception {
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.plain()) {
+            WebSocketConnection connection = connect(server.getUrl(), null);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+
+            peer.writeFrame(true, OP_CLOSE, new byte[] { 0x03, (byte) 0xE9 }); // 1001 going away
+
+            LoopbackWebSocketServer.Frame close = peer.readFrame();
+            assertEquals(OP_CLOSE, close.opcode);
+            assertArrayEquals(new byte[] { 0x03, (byte) 0xE9 }, close.payload);
+            assertEquals("disconnected:true", listener.next());
+            assertFalse(connection.isOpen());
+            assertFalse(connection.sendText("too late"));
+        }
+    }
+
+    @Test
+    @DisplayName("Sends a normal close frame upon a local disconnect, without notifying the listener")
+    public void clientClose() throws Exception {
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.plain()) {
+            WebSocketConnection connection = connect(server.getUrl(), null);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+
+            connection.disconnect();
+
+            LoopbackWebSocketServer.Frame close = peer.readFrame();
+            assertEquals(OP_CLOSE, close.opcode);
+            assertArrayEquals(new byte[] { 0x03, (byte) 0xE8 }, close.payload); // 1000 normal closure
+            assertNull(listener.events.poll(200L, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Exchanges messages over TLS, across key updates from either side")
+    public void tls() throws Exception {
+        transport.close();
+        transport = NioWebSocketTransport.builder().sslContext(LoopbackWebSocketServer.sslContext()).connectTimeout(Duration.ofSeconds(10L)).build();
+
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.secure()) {
+            WebSocketConnection connection = connect(server.getUrl(), null);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+
+            peer.writeText("PING :tmi.twitch.tv");
+            assertEquals("text:PING :tmi.twitch.tv", listener.next());
+            assertTrue(connection.sendText("PONG :tmi.twitch.tv"));
+            assertEquals("PONG :tmi.twitch.tv", peer.readFrame().text());
+
+            // on TLS 1.3, this sends a key update that asks the client to update its keys, too
+            ((SSLSocket) peer.socket).startHandshake();
+            peer.writeText("after key update");
+            assertEquals("text:after key update", listener.next());
+
+            // well beyond the key limit, such that the client updates its own keys while wrapping queued frames
+            String padding = repeat('x', 1000);
+            for (int i = 0; i < 100; i++)
+                assertTrue(connection.sendText("PRIVMSG #twitch4j :" + i + padding));
+            for (int i = 0; i < 100; i++)
+                assertEquals("PRIVMSG #twitch4j :" + i + padding, peer.readFrame().text());
+
+            assertTrue(connection.isOpen());
+        }
+    }
+
+    @Test
+    @DisplayName("Rejects a certificate that is not trusted")
+    public void untrustedCertificate() throws Exception {
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.secure()) {
+            WebSocketConnection connection = transport.create(server.getUrl(), null, listener);
+            assertThrows(Exception.class, connection::connect);
+            assertFalse(connection.isOpen());
+        }
+    }
+
+    @Test
+    @DisplayName("Tunnels through an authenticated HTTP CONNECT proxy")
+    public void proxy() throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString(bytes("user:secret"));
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.plain(); LoopbackProxy proxy = new LoopbackProxy(authorization)) {
+            ProxyConfig proxyConfig = ProxyConfig.builder().hostname("127.0.0.1").port(proxy.getPort()).username("user").password("secret".toCharArray()).build();
+            WebSocketConnection connection = connect(server.getUrl(), proxyConfig);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+
+            String request = proxy.requests.poll(1L, TimeUnit.SECONDS);
+            assertNotNull(request);
+            assertTrue(request.startsWith("CONNECT 127.0.0.1:" + server.getPort() + " HTTP/1.1\r\n"));
+
+            assertTrue(connection.sendText("CAP REQ :twitch.tv/tags"));
+            assertEquals("CAP REQ :twitch.tv/tags", peer.readFrame().text());
+            peer.writeText(":tmi.twitch.tv CAP * ACK :twitch.tv/tags");
+            assertEquals("text::tmi.twitch.tv CAP * ACK :twitch.tv/tags", listener.next());
+        }
+    }
+
+    @Test
+    @DisplayName("Establishes TLS through an HTTP CONNECT proxy")
+    public void tlsProxy() throws Exception {
+        transport.close();
+        transport = NioWebSocketTransport.builder().sslContext(LoopbackWebSocketServer.sslContext()).build();
+
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.secure(); LoopbackProxy proxy = new LoopbackProxy(null)) {
+            ProxyConfig proxyConfig = ProxyConfig.builder().hostname("127.0.0.1").port(proxy.getPort()).build();
+            WebSocketConnection connection = connect(server.getUrl(), proxyConfig);
+            LoopbackWebSocketServer.Peer peer = server.awaitPeer();
+
+            assertTrue(connection.sendText("NICK justinfan123"));
+            assertEquals("NICK justinfan123", peer.readFrame().text());
+        }
+    }
+
+    @Test
+    @DisplayName("Fails to connect when the proxy refuses the tunnel")
+    public void proxyRefused() throws Exception {
+        try (LoopbackWebSocketServer server = LoopbackWebSocketServer.plain(); LoopbackProxy proxy = new LoopbackProxy("Basic expected")) {
+            ProxyConfig proxyConfig = ProxyConfig.builder().hostname("127.0.0.1").port(proxy.getPort()).build();
+            WebSocketConnection connection = transport.create(server.getUrl(), proxyConfig, listener);
+
+            ProtocolException e = assertThrows(ProtocolException.class, connection::connect);
+            assertTrue(e.getMessage().contains("407"));
+            assertFalse(connection.isOpen());
+        }
+    }
+
+    private WebSocketConnection connect(String url, ProxyConfig proxyConfig) throws Exception {
+        WebSocketConnection connection = transport.create(url, proxyConfig, listener);
+        connection.connect();
+        assertTrue(connection.isOpen());
+        assertEquals("connected", listener.next());
+        return connection;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(char c, int n) {
+        char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static final class RecordingListener implements WebSocketListener {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onConnected() {
+            events.add("connected");
+        }
+
+        @Override
+        public void onTextMessage(String text) {
+            events.add("text:" + text);
+        }
+
+        @Override
+        public void onDisconnected(boolean closedByServer) {
+            events.add("disconnected:" + closedByServer);
+        }
+
+        private String next() throws InterruptedException {
+            return events.poll(5L, TimeUnit.SECONDS);
+        }
+    }
+
+}
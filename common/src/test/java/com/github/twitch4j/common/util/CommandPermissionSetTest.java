@@ -0,0 +1,89 @@
+package com.github.twitch4j.common.util;
+
+import com.github.twitch4j.common.enums.CommandPermission;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class CommandPermissionSetTest {
+
+    @Test
+    @DisplayName("Behaves like an EnumSet for membership, size, equality and ordering")
+    public void setSemantics() {
+        CommandPermissionSet set = new CommandPermissionSet();
+        EnumSet<CommandPermission> reference = EnumSet.noneOf(CommandPermission.class);
+        assertTrue(set.isEmpty());
+
+        for (CommandPermission permission : Arrays.asList(CommandPermission.MODERATOR, CommandPermission.EVERYONE, CommandPermission.OWNER, CommandPermission.MODERATOR)) {
+            assertEquals(reference.add(permission), set.add(permission));
+        }
+        assertEquals(reference, set);
+        assertEquals(set, reference);
+        assertEquals(reference.hashCode(), set.hashCode());
+        assertEquals(3, set.size());
+        assertEquals(new ArrayList<>(reference), new ArrayList<>(set));
+
+        assertTrue(set.contains(CommandPermission.OWNER));
+        assertFalse(set.contains(CommandPermission.VIP));
+        assertFalse(set.contains("OWNER"));
+
+        assertTrue(set.remove(CommandPermission.OWNER));
+        assertFalse(set.remove(CommandPermission.OWNER));
+        assertFalse(set.remove("MODERATOR"));
+        assertEquals(EnumSet.of(CommandPermission.EVERYONE, CommandPermission.MODERATOR), set);
+
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Exposes the underlying bitmask")
+    public void bits() {
+        long mask = CommandPermissionSet.bit(CommandPermission.VIP) | CommandPermissionSet.bit(CommandPermission.MODERATOR);
+        CommandPermissionSet set = new CommandPermissionSet(mask | CommandPermissionSet.bit(CommandPermission.EVERYONE));
+
+        assertTrue(set.containsAll(mask));
+        assertTrue(set.containsAny(CommandPermissionSet.bit(CommandPermission.VIP) | CommandPermissionSet.bit(CommandPermission.OWNER)));
+        assertFalse(set.containsAll(mask | CommandPermissionSet.bit(CommandPermission.OWNER)));
+        assertEquals(CommandPermissionSet.ALL_BITS, new CommandPermissionSet(-1L).getBits());
+        assertEquals(EnumSet.allOf(CommandPermission.class), new CommandPermissionSet(CommandPermissionSet.ALL_BITS));
+    }
+
+    @Test
+    @DisplayName("Iterator supports removal and detects concurrent modification")
+    public void iterator() {
+        CommandPermissionSet set = new CommandPermissionSet(EnumSet.of(CommandPermission.EVERYONE, CommandPermission.VIP, CommandPermission.BROADCASTER).stream()
+            .mapToLong(CommandPermissionSet::bit).reduce(0L, (a, b) -> a | b));
+
+        Iterator<CommandPermission> it = set.iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        assertEquals(CommandPermission.EVERYONE, it.next());
+        assertEquals(CommandPermission.VIP, it.next());
+        it.remove();
+        assertEquals(CommandPermission.BROADCASTER, it.next());
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+        assertEquals(EnumSet.of(CommandPermission.EVERYONE, CommandPermission.BROADCASTER), set);
+
+        Iterator<CommandPermission> stale = set.iterator();
+        set.add(CommandPermission.OWNER);
+        assertThrows(ConcurrentModificationException.class, stale::next);
+
+        set.removeIf(p -> p != CommandPermission.OWNER);
+        assertEquals(EnumSet.of(CommandPermission.OWNER), set);
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.github.twitch4j.common.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class SharedSchedulerTest {
+
+    private final SharedScheduler scheduler = new SharedScheduler("twitch4j-test", 2);
+
+    @AfterEach
+    public void shutdown() {
+        scheduler.close();
+    }
+
+    @Test
+    @DisplayName("Runs fixed-rate tasks repeatedly")
+    public void fixedRate() throws InterruptedException {
+        ScheduledThreadPoolExecutor lane = scheduler.createLane();
+        CountDownLatch runs = new CountDownLatch(5);
+        ScheduledFuture<?> future = lane.scheduleAtFixedRate(runs::countDown, 0L, 20L, TimeUnit.MILLISECONDS);
+
+        assertTrue(runs.await(2L, TimeUnit.SECONDS));
+        assertFalse(future.isDone());
+        future.cancel(false);
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    @DisplayName("Waits the full delay after each run of a fixed-delay task")
+    public void fixedDelay() throws InterruptedException {
+        ScheduledThreadPoolExecutor lane = scheduler.createLane();
+        long[] starts = new long[3];
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        lane.scheduleWithFixedDelay(() -> {
+            int i = count.getAndIncrement();
+            if (i < starts.length) starts[i] = System.nanoTime();
+            if (i == starts.length - 1) done.countDown();
+            sleep(50L);
+        }, 0L, 50L, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(2L, TimeUnit.SECONDS));
+        for (int i = 1; i < starts.length; i++) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(starts[i] - starts[i - 1]);
+            assertTrue(elapsed >= 95L, "runs were only " + elapsed + " ms apart");
+        }
+        lane.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Does not pile up executions of a fixed-rate task that is slower than its period")
+    public void noPileUp() throws InterruptedException {
+        ScheduledThreadPoolExecutor lane = scheduler.createLane();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> future = lane.scheduleAtFixedRate(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            runs.incrementAndGet();
+            sleep(100L);
+            running.decrementAndGet();
+        }, 0L, 10L, TimeUnit.MILLISECONDS);
+
+        TimeUnit.MILLISECONDS.sleep(450L);
+        future.cancel(false);
+        TimeUnit.MILLISECONDS.sleep(150L);
+
+        assertEquals(1, maxRunning.get());
+        // at most one run can be waiting behind the current one, so missed periods are dropped rather than replayed
+        assertTrue(runs.get() <= 6, "ran " + runs.get() + " times");
+    }
+
+    @Test
+    @DisplayName("Cancels further runs of a periodic task that threw")
+    public void cancelOnException() throws InterruptedException {
+        ScheduledThreadPoolExecutor lane = scheduler.createLane();
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> future = lane.scheduleAtFixedRate(() -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, 0L, 10L, TimeUnit.MILLISECONDS);
+
+        TimeUnit.MILLISECONDS.sleep(200L);
+        assertEquals(1, runs.get());
+        assertTrue(future.isDone());
+        assertFalse(future.isCancelled());
+
+        // the lane itself keeps working
+        CountDownLatch ran = new CountDownLatch(1);
+        lane.execute(ran::countDown);
+        assertTrue(ran.await(1L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Shutting down a lane does not affect other lanes")
+    public void laneIsolation() throws InterruptedException {
+        ScheduledThreadPoolExecutor first = scheduler.createLane();
+        ScheduledThreadPoolExecutor second = scheduler.createLane();
+        AtomicInteger firstRuns = new AtomicInteger();
+        CountDownLatch secondRuns = new CountDownLatch(10);
+        ScheduledFuture<?> firstTask = first.scheduleAtFixedRate(firstRuns::incrementAndGet, 0L, 10L, TimeUnit.MILLISECONDS);
+        second.scheduleAtFixedRate(secondRuns::countDown, 0L, 10L, TimeUnit.MILLISECONDS);
+
+        TimeUnit.MILLISECONDS.sleep(50L);
+        first.shutdown();
+        assertTrue(firstTask.isCancelled());
+        int afterShutdown = firstRuns.get();
+
+        assertTrue(secondRuns.await(2L, TimeUnit.SECONDS));
+        assertEquals(afterShutdown, firstRuns.get());
+        assertThrows(RejectedExecutionException.class, () -> first.execute(() -> {}));
+        second.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Runs the tasks of one lane one at a time and in order")
+    public void serial() throws InterruptedException {
+        ScheduledThreadPoolExecutor lane = scheduler.createLane();
+        StringBuilder order = new StringBuilder();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            final int n = i;
+            lane.execute(() -> order.append(n));
+        }
+        lane.execute(done::countDown);
+
+        assertTrue(done.await(1L, TimeUnit.SECONDS));
+        assertEquals("0123456789", order.toString());
+    }
+
+    @Test
+    @DisplayName("Compensates for lanes that block in a connect")
+    public void runBlocking() throws InterruptedException {
+        SharedScheduler single = new SharedScheduler("twitch4j-test-single", 1);
+        try {
+            ScheduledThreadPoolExecutor blocked = single.createLane();
+            ScheduledThreadPoolExecutor other = single.createLane();
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch otherRan = new CountDownLatch(1);
+
+            blocked.execute(() -> {
+                try {
+                    SharedScheduler.runBlocking(() -> release.await(5L, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            TimeUnit.MILLISECONDS.sleep(50L);
+            other.execute(otherRan::countDown);
+
+            // the only worker is blocked, so this lane can only run on a compensating worker
+            assertTrue(otherRan.await(1L, TimeUnit.SECONDS));
+            release.countDown();
+        } finally {
+            single.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Keeps lanes on time when there are many more draining connections than workers")
+    public void manyLanes() throws InterruptedException {
+        int connections = 50;
+        List<BlockingQueue<String>> queues = new ArrayList<>();
+        List<ScheduledThreadPoolExecutor> lanes = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+            ScheduledThreadPoolExecutor lane = scheduler.createLane();
+            // mirrors the chat flush, which drains its command queue without waiting for more commands
+            lane.scheduleWithFixedDelay(() -> {
+                while (queue.poll() != null) {
+                    // sent
+                }
+            }, 0L, 10L, TimeUnit.MILLISECONDS);
+            queues.add(queue);
+            lanes.add(lane);
+        }
+
+        long start = System.nanoTime();
+        CountDownLatch ran = new CountDownLatch(connections);
+        AtomicLong maxLateness = new AtomicLong();
+        for (int i = 0; i < connections; i++) {
+            queues.get(i).add("PRIVMSG #channel :" + i);
+            lanes.get(i).schedule(() -> {
+                maxLateness.accumulateAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - 100L, Math::max);
+                ran.countDown();
+            }, 100L, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(ran.await(2L, TimeUnit.SECONDS));
+        assertTrue(maxLateness.get() < 250L, "lane tasks ran up to " + maxLateness.get() + " ms late");
+        for (BlockingQueue<String> queue : queues)
+            assertTrue(queue.isEmpty());
+        lanes.forEach(ScheduledThreadPoolExecutor::shutdownNow);
+    }
+
+    @Test
+    @DisplayName("Rethrows the failure of a blocking action")
+    public void runBlockingFailure() {
+        IllegalStateException failure = new IllegalStateException("refused");
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> SharedScheduler.runBlocking(() -> {
+            throw failure;
+        }));
+        assertSame(failure, thrown);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
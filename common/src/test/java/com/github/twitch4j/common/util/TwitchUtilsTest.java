@@ -0,0 +1,202 @@
+package com.github.twitch4j.common.util;
+
+import com.github.twitch4j.common.enums.CommandPermission;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class TwitchUtilsTest {
+
+    /**
+     * Raw badge tags, including malformed ones, that are compared against the legacy implementation.
+     */
+    private static final List<String> BADGES = Arrays.asList(
+        "",
+        " ",
+        "moderator/1",
+        "broadcaster/1,subscriber/3012,partner/1",
+        "vip/1,subscriber/12,premium/1",
+        "staff/1,turbo/1,bits/1000",
+        "bits-leader/1,sub-gifter/50",
+        "founder/0,glhf-pledge/1",
+        "hype-train/1",
+        "hype-train/2,moderator/1",
+        "hype-train/3",
+        "predictions/blue-1",
+        "predictions/pink-2",
+        "predictions/KEKW,\\sNO",
+        "predictions/Prediction\\sA\\s1",
+        "predictions/blue-1,predictions/pink-2",
+        "hype-train/1,hype-train/2",
+        "predictions/",
+        "predictions",
+        "moderator/",
+        "moderator//",
+        "moderator//1",
+        "moderator/1/2",
+        "moderator/1/",
+        "moderator,",
+        "moderator,,",
+        ",moderator",
+        "moderator,,vip/1",
+        "/1",
+        "badge\\sname/1",
+        "subscriber/12,subscriber/24"
+    );
+
+    @Test
+    @DisplayName("parseBadges yields the same maps as the legacy split-based implementation")
+    public void parseBadges() {
+        for (String raw : BADGES) {
+            assertEquals(parseBadgesLegacy(raw), TwitchUtils.parseBadges(raw), raw);
+        }
+        assertTrue(TwitchUtils.parseBadges(null).isEmpty());
+        assertNull(TwitchUtils.parseBadges("moderator/").get("moderator"));
+        assertEquals(" NO", TwitchUtils.parseBadges("predictions/KEKW,\\sNO").keySet().stream().filter(k -> k.startsWith(" ")).findAny().orElse(null));
+    }
+
+    @Test
+    @DisplayName("Permissions from irc badges match the legacy implementation")
+    public void ircPermissions() {
+        for (String raw : BADGES) {
+            Map<String, Object> tags = Collections.singletonMap("badges", raw);
+
+            Map<String, String> expectedBadges = new HashMap<>();
+            Set<CommandPermission> expected = getPermissionsFromTagsLegacy(tags, expectedBadges, "1", Collections.singleton("1"));
+
+            Map<String, String> actualBadges = new HashMap<>();
+            Set<CommandPermission> actual = TwitchUtils.getPermissionsFromTags(tags, actualBadges, "1", Collections.singleton("1"));
+
+            assertEquals(expected, actual, raw);
+            assertEquals(expectedBadges, actualBadges, raw);
+            assertEquals(expected, new CommandPermissionSet(TwitchUtils.getPermissionBits(tags, null, "1", Collections.singleton("1"))), raw);
+        }
+    }
+
+    @Test
+    @DisplayName("Permissions from pubsub badge lists match the legacy implementation")
+    public void listPermissions() {
+        List<Map<String, String>> badgeList = Arrays.asList(
+            Collections.singletonMap("id", "moderator"),
+            Collections.singletonMap("id", "subscriber"),
+            Collections.singletonMap("id", "hype-train"),
+            Collections.singletonMap("id", "unknown")
+        );
+        Map<String, Object> tags = Collections.singletonMap("badges", badgeList);
+
+        Map<String, String> expectedBadges = new HashMap<>();
+        Set<CommandPermission> expected = getPermissionsFromTagsLegacy(tags, expectedBadges, null, null);
+        Map<String, String> actualBadges = new HashMap<>();
+        assertEquals(expected, TwitchUtils.getPermissionsFromTags(tags, actualBadges, null, null));
+        assertEquals(expectedBadges, actualBadges);
+        assertEquals(EnumSet.of(CommandPermission.EVERYONE), TwitchUtils.getPermissionsFromTags(Collections.emptyMap()));
+    }
+
+    /**
+     * The historical implementation of {@link TwitchUtils#parseBadges(String)}, kept as the reference implementation.
+     */
+    private static Map<String, String> parseBadgesLegacy(String raw) {
+        Map<String, String> map = new HashMap<>();
+        if (StringUtils.isBlank(raw)) return map;
+
+        // Fix Whitespaces
+        raw = raw.replace("\\s", " ");
+
+        for (String tag : raw.split(",")) {
+            String[] val = tag.split("/");
+            final String key = val[0];
+            String value = (val.length > 1) ? val[1] : null;
+            map.put(key, value);
+        }
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * The historical implementation of {@link TwitchUtils#getPermissionsFromTags(Map, Map, String, java.util.Collection)}, kept as the reference implementation.
+     */
+    @SuppressWarnings("unchecked")
+    private static Set<CommandPermission> getPermissionsFromTagsLegacy(Map<String, Object> tags, Map<String, String> badges, String userId, Set<String> botOwnerIds) {
+        Set<CommandPermission> permissionSet = EnumSet.of(CommandPermission.EVERYONE);
+
+        if (tags.containsKey("badges")) {
+            if (tags.get("badges") instanceof String) {
+                badges.putAll(parseBadgesLegacy((String) tags.get("badges")));
+            } else {
+                List<Map<String, String>> badgeList = (List<Map<String, String>>) tags.get("badges");
+                if (badgeList != null) {
+                    badgeList.forEach(badge -> badges.put(badge.get("id"), "1"));
+                }
+            }
+
+            if (badges.containsKey("broadcaster")) {
+                permissionSet.add(CommandPermission.BROADCASTER);
+                permissionSet.add(CommandPermission.MODERATOR);
+            }
+            if (badges.containsKey("premium") || badges.containsKey("turbo")) {
+                permissionSet.add(CommandPermission.PRIME_TURBO);
+            }
+            if (badges.containsKey("moderator")) {
+                permissionSet.add(CommandPermission.MODERATOR);
+            }
+            if (badges.containsKey("partner")) {
+                permissionSet.add(CommandPermission.PARTNER);
+            }
+            if (badges.containsKey("vip")) {
+                permissionSet.add(CommandPermission.VIP);
+            }
+            if (badges.containsKey("staff")) {
+                permissionSet.add(CommandPermission.TWITCHSTAFF);
+            }
+            if (badges.containsKey("subscriber")) {
+                permissionSet.add(CommandPermission.SUBSCRIBER);
+            }
+            if (badges.containsKey("sub-gifter")) {
+                permissionSet.add(CommandPermission.SUBGIFTER);
+            }
+            if (badges.containsKey("bits") || badges.containsKey("bits-leader")) {
+                permissionSet.add(CommandPermission.BITS_CHEERER);
+            }
+            if (badges.containsKey("founder")) {
+                permissionSet.add(CommandPermission.FOUNDER);
+                permissionSet.add(CommandPermission.SUBSCRIBER);
+            }
+            String hypeBadge = badges.get("hype-train");
+            if ("1".equals(hypeBadge)) {
+                permissionSet.add(CommandPermission.CURRENT_HYPE_TRAIN_CONDUCTOR);
+            } else if ("2".equals(hypeBadge)) {
+                permissionSet.add(CommandPermission.FORMER_HYPE_TRAIN_CONDUCTOR);
+            }
+            String predictionBadge = badges.get("predictions");
+            if (StringUtils.isNotEmpty(predictionBadge)) {
+                char first = predictionBadge.charAt(0);
+                char last = predictionBadge.charAt(predictionBadge.length() - 1);
+                if (first == 'b' || last == '1') {
+                    permissionSet.add(CommandPermission.PREDICTIONS_BLUE);
+                } else if (first == 'p' || last == '2') {
+                    permissionSet.add(CommandPermission.PREDICTIONS_PINK);
+                }
+            }
+        }
+
+        if (userId != null && botOwnerIds != null && botOwnerIds.contains(userId))
+            permissionSet.add(CommandPermission.OWNER);
+
+        return permissionSet;
+    }
+
+}
@@ -7,8 +7,17 @@ import com.github.twitch4j.common.config.ProxyConfig;
 import com.github.twitch4j.common.enums.CommandPermission;
 import com.github.twitch4j.common.events.domain.EventUser;
 import com.github.twitch4j.common.events.user.PrivateMessageEvent;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
+import com.github.twitch4j.common.pool.ReconnectCoordinator;
+import com.github.twitch4j.common.socket.NvWebSocketTransport;
+import com.github.twitch4j.common.socket.WebSocketConnection;
+import com.github.twitch4j.common.socket.WebSocketListener;
+import com.github.twitch4j.common.socket.WebSocketTransport;
+import com.github.twitch4j.common.util.CommandPermissionSet;
 import com.github.twitch4j.common.util.CryptoUtils;
 import com.github.twitch4j.common.util.ExponentialBackoffStrategy;
+import com.github.twitch4j.common.util.RecentKeyFilter;
+import com.github.twitch4j.common.util.SharedScheduler;
 import com.github.twitch4j.common.util.TimeUtils;
 import com.github.twitch4j.common.util.TwitchUtils;
 import com.github.twitch4j.common.util.TypeConvert;
@@ -16,10 +25,6 @@ import com.github.twitch4j.pubsub.domain.*;
 import com.github.twitch4j.pubsub.enums.PubSubType;
 import com.github.twitch4j.pubsub.enums.TMIConnectionState;
 import com.github.twitch4j.pubsub.events.*;
-import com.neovisionaries.ws.client.WebSocket;
-import com.neovisionaries.ws.client.WebSocketAdapter;
-import com.neovisionaries.ws.client.WebSocketFactory;
-import com.neovisionaries.ws.client.WebSocketFrame;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -29,8 +34,8 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,6 +47,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 /**
  * Twitch PubSub
@@ -66,7 +74,7 @@ public class TwitchPubSub implements ITwitchPubSub {
      * WebSocket Client
      */
     @Setter(AccessLevel.NONE)
-    private volatile WebSocket webSocket;
+    private volatile WebSocketConnection webSocket;
 
     /**
      * The connection state
@@ -135,9 +143,20 @@ public class TwitchPubSub implements ITwitchPubSub {
     private final Collection<String> botOwnerIds;
 
     /**
-     * WebSocket Factory
+     * WebSocket Transport
      */
-    protected final WebSocketFactory webSocketFactory;
+    protected final WebSocketTransport webSocketTransport;
+
+    /**
+     * Proxy Configuration
+     */
+    private final ProxyConfig proxyConfig;
+
+    /**
+     * Receives throughput, queue and parsing measurements for this connection
+     */
+    @Getter
+    private final ConnectionMetrics metrics;
 
     /**
      * Helper class to compute delays between connection retries.
@@ -165,28 +184,69 @@ public class TwitchPubSub implements ITwitchPubSub {
      */
     private volatile Future<?> backoffClearer;
 
+    /**
+     * Paces reconnect attempts across connections, or null if this connection reconnects on its own schedule
+     */
+    private final ReconnectCoordinator reconnectCoordinator;
+
+    /**
+     * The handshake granted by the {@link #reconnectCoordinator} for the current connection attempt
+     */
+    private volatile ReconnectCoordinator.Handshake pendingHandshake;
+
+    /**
+     * The replacement connection that is being established in response to a server RECONNECT, if any
+     */
+    private volatile Migration migration;
+
+    /**
+     * How long (in milliseconds) a migration may wait for the replacement connection and its LISTEN responses
+     */
+    private volatile long migrationTimeout = TimeUnit.SECONDS.toMillis(15L);
+
+    /**
+     * Suppresses messages that are received on both the old and the new connection while migrating
+     */
+    private final RecentKeyFilter overlapFilter = new RecentKeyFilter(Duration.ofSeconds(30L), 1000);
+
+    /**
+     * The time (in nanoseconds) until which messages should still be deduplicated after a migration
+     */
+    private volatile long overlapDeadline = System.nanoTime();
+
+    /**
+     * Identifies messages that were already received by another connection of the pool, while the pool moves topics between connections
+     */
+    private volatile Predicate<String> sharedDuplicateFilter;
+
     /**
      * Constructor
      *
      * @param eventManager EventManager
      * @param taskExecutor ScheduledThreadPoolExecutor
      * @param proxyConfig  ProxyConfig
+     * @param webSocketTransport WebSocketTransport
+     * @param metrics      ConnectionMetrics
+     * @param reconnectCoordinator ReconnectCoordinator, or null
      * @param botOwnerIds  Bot Owner IDs
      */
-    public TwitchPubSub(EventManager eventManager, ScheduledThreadPoolExecutor taskExecutor, ProxyConfig proxyConfig, Collection<String> botOwnerIds) {
+    public TwitchPubSub(EventManager eventManager, ScheduledThreadPoolExecutor taskExecutor, ProxyConfig proxyConfig, WebSocketTransport webSocketTransport, ConnectionMetrics metrics, ReconnectCoordinator reconnectCoordinator, Collection<String> botOwnerIds) {
         this.taskExecutor = taskExecutor;
         this.botOwnerIds = botOwnerIds;
         this.eventManager = eventManager;
+        this.metrics = metrics != null ? metrics : ConnectionMetrics.NOOP;
+        this.reconnectCoordinator = reconnectCoordinator;
+        this.metrics.bindQueue(commandQueue::size);
         // register with serviceMediator
         this.eventManager.getServiceMediator().addService("twitch4j-pubsub", this);
 
-        // WebSocket Factory and proxy settings
-        this.webSocketFactory = new WebSocketFactory();
-        if (proxyConfig != null)
-            proxyConfig.applyWs(webSocketFactory.getProxySettings());
+        // WebSocket Transport and proxy settings
+        this.proxyConfig = proxyConfig;
+        this.webSocketTransport = webSocketTransport != null ? webSocketTransport : NvWebSocketTransport.INSTANCE;
 
-        // connect
-        this.connect();
+        // connect (unless the first attempt is paced by the coordinator, see below)
+        if (reconnectCoordinator == null)
+            this.connect();
 
         // Run heartbeat every 4 minutes
         heartbeatTask = taskExecutor.scheduleAtFixedRate(() -> {
@@ -245,6 +305,24 @@ public class TwitchPubSub implements ITwitchPubSub {
         this.queueTask = taskExecutor.scheduleWithFixedDelay(flushCommand, 0, 2500L, TimeUnit.MILLISECONDS);
 
         log.debug("PubSub: Started Queue Worker Thread");
+
+        // connect, once the coordinator admits the handshake alongside those of the other connections
+        if (reconnectCoordinator != null)
+            scheduleCoordinated(this::connect, 0L);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param eventManager EventManager
+     * @param taskExecutor ScheduledThreadPoolExecutor
+     * @param proxyConfig  ProxyConfig
+     * @param botOwnerIds  Bot Owner IDs
+     * @deprecated in favor of {@link TwitchPubSubBuilder}, which also configures the transport, metrics and reconnect pacing
+     */
+    @Deprecated
+    public TwitchPubSub(EventManager eventManager, ScheduledThreadPoolExecutor taskExecutor, ProxyConfig proxyConfig, Collection<String> botOwnerIds) {
+        this(eventManager, taskExecutor, proxyConfig, null, ConnectionMetrics.NOOP, null, botOwnerIds);
     }
 
     /**
@@ -264,7 +342,7 @@ public class TwitchPubSub implements ITwitchPubSub {
                 this.lastPing = TimeUtils.getCurrentTimeInMillis() - 4 * 60 * 1000;
 
                 // Connect to IRC WebSocket
-                this.webSocket.connect();
+                SharedScheduler.runBlocking(this.webSocket::connect); // lets a shared pool compensate for the blocked worker
             } catch (Exception ex) {
                 log.error("PubSub: Connection to Twitch PubSub failed: {} - Retrying ...", ex.getMessage());
 
@@ -275,6 +353,13 @@ public class TwitchPubSub implements ITwitchPubSub {
                     }
                 }
 
+                if (reconnectCoordinator != null) {
+                    // queue behind the other connections rather than blocking this thread
+                    completeHandshake();
+                    scheduleReconnect(backoff.get());
+                    return;
+                }
+
                 // Sleep before trying to reconnect
                 try {
                     backoff.sleep();
@@ -301,11 +386,17 @@ public class TwitchPubSub implements ITwitchPubSub {
 
         // CleanUp
         if (webSocket != null) {
-            this.webSocket.clearListeners();
             this.webSocket.disconnect();
             this.webSocket = null;
         }
 
+        final Migration m = migration;
+        if (m != null) {
+            migration = null;
+            if (m.timeout != null) m.timeout.cancel(false);
+            m.socket.disconnect();
+        }
+
         if (backoffClearer != null) {
             backoffClearer.cancel(false);
         }
@@ -316,26 +407,80 @@ public class TwitchPubSub implements ITwitchPubSub {
      */
     @Synchronized
     public void reconnect() {
+        metrics.onReconnect();
         connectionState = TMIConnectionState.RECONNECTING;
         disconnect();
         connect();
     }
 
+    /**
+     * Reconnects after the given delay, via the {@link #reconnectCoordinator} if present
+     *
+     * @param delay the delay in milliseconds
+     */
+    private void scheduleReconnect(long delay) {
+        if (reconnectCoordinator != null) {
+            scheduleCoordinated(this::reconnect, delay);
+        } else {
+            taskExecutor.schedule(() -> reconnect(), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs a connection attempt once the {@link #reconnectCoordinator} admits it
+     *
+     * @param attempt the attempt, i.e. {@link #connect()} or {@link #reconnect()}
+     * @param delay   the delay in milliseconds
+     */
+    private void scheduleCoordinated(Runnable attempt, long delay) {
+        reconnectCoordinator.schedule(taskExecutor, handshake -> {
+            if (isClosed) {
+                handshake.complete(); // closed in the meantime
+                return;
+            }
+            pendingHandshake = handshake;
+            attempt.run();
+        }, delay);
+    }
+
+    /**
+     * Releases the handshake slot of the current connection attempt, if any
+     */
+    private void completeHandshake() {
+        ReconnectCoordinator.Handshake handshake = pendingHandshake;
+        if (handshake != null) {
+            pendingHandshake = null;
+            handshake.complete();
+        }
+    }
+
     /**
      * Recreate the WebSocket and the listeners
      */
     @Synchronized
     private void createWebSocket() {
+        this.webSocket = createSocket();
+    }
+
+    /**
+     * Creates a WebSocket whose callbacks are ignored once it is no longer the active socket (or the socket being migrated to)
+     *
+     * @return the socket, which has yet to be connected, or null if it could not be created
+     */
+    private WebSocketConnection createSocket() {
+        final AtomicReference<WebSocketConnection> self = new AtomicReference<>();
         try {
             // WebSocket
-            this.webSocket = webSocketFactory.createSocket(WEB_SOCKET_SERVER);
-
-            // WebSocket Listeners
-            this.webSocket.clearListeners();
-            this.webSocket.addListener(new WebSocketAdapter() {
+            self.set(webSocketTransport.create(WEB_SOCKET_SERVER, proxyConfig, new WebSocketListener() {
 
                 @Override
-                public void onConnected(WebSocket ws, Map<String, List<String>> headers) {
+                public void onConnected() {
+                    final Migration m = migration;
+                    if (m != null && m.socket == self.get()) {
+                        m.onConnected();
+                        return;
+                    }
+
                     log.info("Connecting to Twitch PubSub {}", WEB_SOCKET_SERVER);
 
                     // Connection Success
@@ -357,15 +502,24 @@ public class TwitchPubSub implements ITwitchPubSub {
                     // 4) send unlisten requests for the old elements of subscribedTopics (optional?)
                     // 5) call listenOnTopic for each new PubSubRequest
                     subscribedTopics.forEach(topic -> queueRequest(topic));
+                    completeHandshake();
                 }
 
                 @Override
-                public void onTextMessage(WebSocket ws, String text) {
+                public void onTextMessage(String text) {
                     try {
                         log.trace("Received WebSocketMessage: " + text);
+                        metrics.onMessageReceived(text.length());
 
                         // parse message
+                        final long parseStart = System.nanoTime();
                         PubSubResponse message = TypeConvert.jsonToObject(text, PubSubResponse.class);
+                        metrics.onParse(System.nanoTime() - parseStart);
+                        if (message.getType().equals(PubSubType.MESSAGE) && isDuplicate(text)) {
+                            log.trace("PubSub: Ignoring message that was already received on the other connection");
+                            return;
+                        }
+
                         if (message.getType().equals(PubSubType.MESSAGE)) {
                             String topic = message.getData().getTopic();
                             String[] topicParts = StringUtils.split(topic, '.');
@@ -396,7 +550,7 @@ public class TwitchPubSub implements ITwitchPubSub {
 
                                 String body = msgDataParsed.get("body").asText();
 
-                                Set<CommandPermission> permissions = TwitchUtils.getPermissionsFromTags(tags, new HashMap<>(), fromId, botOwnerIds);
+                                Set<CommandPermission> permissions = new CommandPermissionSet(TwitchUtils.getPermissionBits(tags, null, fromId, botOwnerIds));
 
                                 PrivateMessageEvent privateMessageEvent = new PrivateMessageEvent(eventUser, body, permissions);
                                 eventManager.publish(privateMessageEvent);
@@ -691,6 +845,10 @@ public class TwitchPubSub implements ITwitchPubSub {
                         } else if (message.getType().equals(PubSubType.RESPONSE)) {
                             eventManager.publish(new PubSubListenResponseEvent(message.getNonce(), message.getError()));
 
+                            final Migration m = migration;
+                            if (m != null && m.socket == self.get())
+                                m.onResponse();
+
                             // topic subscription success or failed, response to listen command
                             // System.out.println(message.toString());
                             if (message.getError().length() > 0) {
@@ -704,9 +862,18 @@ public class TwitchPubSub implements ITwitchPubSub {
                         } else if (message.getType().equals(PubSubType.PONG)) {
                             log.debug("PubSub: Received PONG response!");
                             lastPong = TimeUtils.getCurrentTimeInMillis();
+                            metrics.onHeartbeat();
                         } else if (message.getType().equals(PubSubType.RECONNECT)) {
                             log.warn("PubSub: Server instance we're connected to will go down for maintenance soon, reconnecting to obtain a new connection!");
-                            reconnect();
+                            if (reconnectCoordinator != null) {
+                                // the whole edge is going down, so avoid a stampede with the other connections
+                                reconnectCoordinator.schedule(taskExecutor, handshake -> {
+                                    pendingHandshake = handshake;
+                                    migrate();
+                                }, 0L);
+                            } else {
+                                taskExecutor.execute(TwitchPubSub.this::migrate);
+                            }
                         } else {
                             // unknown message
                             log.debug("PubSub: Unknown Message Type: " + message.toString());
@@ -718,27 +885,157 @@ public class TwitchPubSub implements ITwitchPubSub {
                 }
 
                 @Override
-                public void onDisconnected(WebSocket websocket,
-                                           WebSocketFrame serverCloseFrame, WebSocketFrame clientCloseFrame,
-                                           boolean closedByServer) {
+                public void onDisconnected(boolean closedByServer) {
+                    final WebSocketConnection socket = self.get();
+                    final Migration m = migration;
+                    if (m != null && m.socket == socket) {
+                        log.warn("PubSub: Lost the replacement connection while migrating, falling back to a regular reconnect");
+                        abortMigration(m);
+                        return;
+                    }
+
+                    if (socket != webSocket) {
+                        log.debug("PubSub: Retired connection was closed");
+                        return;
+                    }
+
                     if (!connectionState.equals(TMIConnectionState.DISCONNECTING)) {
                         log.info("Connection to Twitch PubSub lost (WebSocket)! Retrying soon ...");
 
                         // connection lost - reconnecting
                         if (backoffClearer != null) backoffClearer.cancel(false);
-                        taskExecutor.schedule(() -> reconnect(), backoff.get(), TimeUnit.MILLISECONDS);
+                        completeHandshake();
+                        scheduleReconnect(backoff.get());
                     } else {
                         connectionState = TMIConnectionState.DISCONNECTED;
                         log.info("Disconnected from Twitch PubSub (WebSocket)!");
                     }
                 }
 
-            });
-
-
+            }));
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
         }
+        return self.get();
+    }
+
+    /**
+     * Replaces the active connection in a make-before-break manner (i.e. upon a server RECONNECT):
+     * a second socket is connected and subscribed to all topics, and the active socket is only closed once the
+     * LISTEN responses have arrived (or the migration timed out). Messages received on both sockets in the meantime
+     * are deduplicated.
+     * <p>
+     * If the replacement cannot be established, this falls back to {@link #reconnect()}.
+     */
+    @Synchronized
+    private void migrate() {
+        if (isClosed || migration != null || !connectionState.equals(TMIConnectionState.CONNECTED)) {
+            completeHandshake();
+            return;
+        }
+
+        Migration m = null;
+        try {
+            m = new Migration(createSocket());
+            migration = m;
+            final Migration timed = m;
+            m.timeout = taskExecutor.schedule(() -> finishMigration(timed), migrationTimeout, TimeUnit.MILLISECONDS);
+            SharedScheduler.runBlocking(m.socket::connect);
+        } catch (Exception e) {
+            log.warn("PubSub: Failed to open replacement connection, falling back to a regular reconnect", e);
+            if (m != null && migration == m) {
+                migration = null;
+                if (m.timeout != null) m.timeout.cancel(false);
+            }
+            reconnect();
+        }
+    }
+
+    /**
+     * Swaps in the replacement socket and closes the old one, or falls back to a regular reconnect if the replacement never connected
+     *
+     * @param m the migration
+     */
+    @Synchronized
+    private void finishMigration(Migration m) {
+        if (migration != m)
+            return;
+
+        migration = null;
+        if (m.timeout != null) m.timeout.cancel(false);
+        if (!m.connected) {
+            log.warn("PubSub: Replacement connection did not connect in time, falling back to a regular reconnect");
+            m.socket.disconnect();
+            reconnect();
+            return;
+        }
+
+        final WebSocketConnection old = this.webSocket;
+        this.webSocket = m.socket;
+        this.connectionState = TMIConnectionState.CONNECTED;
+        this.lastPing = TimeUtils.getCurrentTimeInMillis() - 4 * 60 * 1000;
+        this.overlapDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        if (old != null) old.disconnect();
+        metrics.onReconnect();
+        log.info("PubSub: Migrated to a new connection ({} topics)", m.topics.size());
+
+        // reconcile topics that changed while migrating
+        subscribedTopics.forEach(topic -> {
+            if (!m.topics.contains(topic)) queueRequest(topic);
+        });
+        m.topics.forEach(topic -> {
+            if (!subscribedTopics.contains(topic)) queueRequest(createUnlistenRequest(topic));
+        });
+
+        completeHandshake();
+    }
+
+    @Synchronized
+    private void abortMigration(Migration m) {
+        if (migration != m)
+            return;
+
+        migration = null;
+        if (m.timeout != null) m.timeout.cancel(false);
+        taskExecutor.execute(this::reconnect);
+    }
+
+    /**
+     * @return whether messages could currently be received on more than one socket
+     */
+    private boolean isDeduplicating() {
+        return migration != null || System.nanoTime() - overlapDeadline < 0;
+    }
+
+    /**
+     * @param text the raw message
+     * @return whether the message was already received on another socket of this instance, or on another connection of the pool
+     */
+    private boolean isDuplicate(String text) {
+        if (isDeduplicating() && !overlapFilter.add(text))
+            return true;
+
+        final Predicate<String> shared = sharedDuplicateFilter;
+        return shared != null && shared.test(text);
+    }
+
+    /**
+     * Suppresses messages that other connections of a pool may receive as well, such as while the pool moves topics between connections.
+     *
+     * @param filter yields true for messages that were already received by another connection, or null
+     */
+    void setSharedDuplicateFilter(Predicate<String> filter) {
+        this.sharedDuplicateFilter = filter;
+    }
+
+    /**
+     * Changes how long a migration may take before the replacement is swapped in regardless of missing LISTEN responses
+     * (or, if it never connected, a regular reconnect is made instead).
+     *
+     * @param timeout the timeout
+     */
+    void setMigrationTimeout(Duration timeout) {
+        this.migrationTimeout = timeout.toMillis();
     }
 
     /**
@@ -751,6 +1048,7 @@ public class TwitchPubSub implements ITwitchPubSub {
         if (connectionState.equals(TMIConnectionState.CONNECTED) || connectionState.equals(TMIConnectionState.CONNECTING)) {
             // command will be uppercase.
             this.webSocket.sendText(command);
+            metrics.onMessageSent(command.length());
         } else {
             log.warn("Can't send IRC-WS Command [{}]", command);
         }
@@ -790,12 +1088,16 @@ public class TwitchPubSub implements ITwitchPubSub {
         }
 
         // use data from original request and send UNLISTEN
+        queueRequest(createUnlistenRequest(request));
+        return true;
+    }
+
+    private static PubSubRequest createUnlistenRequest(PubSubRequest request) {
         PubSubRequest unlistenRequest = new PubSubRequest();
         unlistenRequest.setType(PubSubType.UNLISTEN);
         unlistenRequest.setNonce(CryptoUtils.generateNonce(30));
         unlistenRequest.setData(request.getData());
-        queueRequest(unlistenRequest);
-        return true;
+        return unlistenRequest;
     }
 
     /**
@@ -808,6 +1110,45 @@ public class TwitchPubSub implements ITwitchPubSub {
             heartbeatTask.cancel(false);
             queueTask.cancel(false);
             disconnect();
+            completeHandshake();
+            metrics.close();
+        }
+    }
+
+    /**
+     * A replacement socket that is being connected and subscribed before the active socket is closed
+     */
+    private final class Migration {
+        private final WebSocketConnection socket;
+        private final AtomicInteger awaitingResponses = new AtomicInteger();
+        private volatile List<PubSubRequest> topics = new ArrayList<>();
+        private volatile boolean connected;
+        private volatile Future<?> timeout;
+
+        private Migration(WebSocketConnection socket) {
+            this.socket = socket;
+        }
+
+        private void onConnected() {
+            final List<PubSubRequest> snapshot = new ArrayList<>(subscribedTopics);
+            this.topics = snapshot;
+            awaitingResponses.set(snapshot.size());
+            this.connected = true;
+            if (snapshot.isEmpty()) {
+                taskExecutor.execute(() -> finishMigration(this));
+                return;
+            }
+
+            for (PubSubRequest topic : snapshot) {
+                String command = TypeConvert.objectToJson(topic);
+                socket.sendText(command);
+                metrics.onMessageSent(command.length());
+            }
+        }
+
+        private void onResponse() {
+            if (connected && awaitingResponses.decrementAndGet() == 0)
+                taskExecutor.execute(() -> finishMigration(this));
         }
     }
 
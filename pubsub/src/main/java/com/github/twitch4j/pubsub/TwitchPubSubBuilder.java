@@ -4,6 +4,10 @@ import com.github.philippheuer.events4j.api.service.IEventHandler;
 import com.github.philippheuer.events4j.core.EventManager;
 import com.github.philippheuer.events4j.simple.SimpleEventHandler;
 import com.github.twitch4j.common.config.ProxyConfig;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
+import com.github.twitch4j.common.pool.ReconnectCoordinator;
+import com.github.twitch4j.common.socket.NioWebSocketTransport;
+import com.github.twitch4j.common.socket.WebSocketTransport;
 import com.github.twitch4j.common.util.EventManagerUtils;
 import com.github.twitch4j.common.util.ThreadUtils;
 import lombok.*;
@@ -48,6 +52,26 @@ public class TwitchPubSubBuilder {
     @With
     private ProxyConfig proxyConfig = null;
 
+    /**
+     * WebSocket Transport
+     * <p>
+     * Defaults to nv-websocket-client; a shared {@link NioWebSocketTransport} avoids dedicated threads per connection.
+     */
+    @With
+    private WebSocketTransport webSocketTransport = null;
+
+    /**
+     * Receiver of throughput, queue depth, parse time, reconnect and heartbeat measurements
+     */
+    @With
+    private ConnectionMetrics metrics = ConnectionMetrics.NOOP;
+
+    /**
+     * Paces reconnect attempts across connections, such that a dropped edge does not cause a resubscription storm
+     */
+    @With
+    private ReconnectCoordinator reconnectCoordinator = null;
+
     /**
      * User IDs of Bot Owners for applying {@link com.github.twitch4j.common.enums.CommandPermission#OWNER}
      */
@@ -77,7 +101,7 @@ public class TwitchPubSubBuilder {
         // Initialize/Check EventManager
         eventManager = EventManagerUtils.validateOrInitializeEventManager(eventManager, defaultEventHandler);
 
-        return new TwitchPubSub(this.eventManager, scheduledThreadPoolExecutor, this.proxyConfig, this.botOwnerIds);
+        return new TwitchPubSub(this.eventManager, scheduledThreadPoolExecutor, this.proxyConfig, this.webSocketTransport, this.metrics, this.reconnectCoordinator, this.botOwnerIds);
     }
 
     /**
@@ -2,15 +2,21 @@ package com.github.twitch4j.pubsub;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.twitch4j.common.metrics.ConnectionMetrics;
 import com.github.twitch4j.common.pool.TwitchModuleConnectionPool;
 import com.github.twitch4j.common.util.CryptoUtils;
+import com.github.twitch4j.common.util.RecentKeyFilter;
 import com.github.twitch4j.pubsub.domain.PubSubRequest;
 import com.github.twitch4j.pubsub.events.PubSubListenResponseEvent;
 import lombok.experimental.SuperBuilder;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
 
@@ -30,6 +36,11 @@ public class TwitchPubSubConnectionPool extends TwitchModuleConnectionPool<Twitc
         .expireAfterWrite(30, TimeUnit.SECONDS)
         .build();
 
+    /**
+     * Messages that were recently received by any connection, while a compacted topic is subscribed on both its old and new connection.
+     */
+    private final RecentKeyFilter overlapFilter = new RecentKeyFilter(Duration.ofSeconds(30L), 10_000);
+
     @Override
     public PubSubSubscription listenOnTopic(PubSubRequest request) {
         return this.subscribe(request);
@@ -50,6 +61,32 @@ public class TwitchPubSubConnectionPool extends TwitchModuleConnectionPool<Twitc
         return subscription;
     }
 
+    /**
+     * Listens to many requests at once, spreading them over as few connections as possible.
+     * <p>
+     * Requests without topics are skipped.
+     *
+     * @param requests the listen requests
+     * @return the subscription for each distinct request
+     * @see #subscribe(PubSubRequest)
+     */
+    @Override
+    public Map<PubSubRequest, PubSubSubscription> subscribeAll(Collection<PubSubRequest> requests) {
+        final List<PubSubRequest> valid = new ArrayList<>(requests.size());
+        for (PubSubRequest request : requests) {
+            if (request != null && getTopicCount(request) > 0) {
+                injectNonce(request);
+                valid.add(request);
+            }
+        }
+
+        final Map<PubSubRequest, PubSubSubscription> responses = super.subscribeAll(valid);
+        responses.forEach((request, subscription) -> {
+            if (subscription != null) subscriptionsByNonce.put(request.getNonce(), subscription);
+        });
+        return responses;
+    }
+
     @Override
     protected TwitchPubSub createConnection() {
         // Instantiate with configuration
@@ -58,8 +95,14 @@ public class TwitchPubSubConnectionPool extends TwitchModuleConnectionPool<Twitc
                 .withEventManager(getConnectionEventManager())
                 .withScheduledThreadPoolExecutor(getExecutor(threadPrefix + RandomStringUtils.random(4, true, true), TwitchPubSub.REQUIRED_THREAD_COUNT))
                 .withProxyConfig(proxyConfig.get())
+                .withWebSocketTransport(webSocketTransport)
+                .withMetrics(connectionMetrics.get())
+                .withReconnectCoordinator(getReconnectCoordinator())
         ).build();
 
+        // Suppress messages that are received on more than one connection while compaction moves topics
+        client.setSharedDuplicateFilter(text -> isMigrationOverlapActive() && !overlapFilter.add(text));
+
         // Reclaim topic headroom upon a failed subscription
         client.getEventManager().onEvent("twitch4j-pubsub-pool-nonce-tracker", PubSubListenResponseEvent.class, e -> {
             if (StringUtils.isNotEmpty(e.getNonce())) {
@@ -73,6 +116,11 @@ public class TwitchPubSubConnectionPool extends TwitchModuleConnectionPool<Twitc
         return client;
     }
 
+    @Override
+    protected ConnectionMetrics getMetrics(TwitchPubSub connection) {
+        return connection.getMetrics();
+    }
+
     @Override
     protected void disposeConnection(TwitchPubSub connection) {
         connection.close();
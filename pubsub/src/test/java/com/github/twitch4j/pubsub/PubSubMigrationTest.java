@@ -0,0 +1,276 @@
+package com.github.twitch4j.pubsub;
+
+import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
+import com.github.twitch4j.common.config.ProxyConfig;
+import com.github.twitch4j.common.socket.WebSocketConnection;
+import com.github.twitch4j.common.socket.WebSocketListener;
+import com.github.twitch4j.common.socket.WebSocketTransport;
+import com.github.twitch4j.common.util.TypeConvert;
+import com.github.twitch4j.pubsub.domain.PubSubRequest;
+import com.github.twitch4j.pubsub.events.FollowingEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unittest")
+public class PubSubMigrationTest {
+
+    private static final OAuth2Credential CREDENTIAL = new OAuth2Credential("twitch", "token");
+
+    private static final String RECONNECT = "{\"type\":\"RECONNECT\"}";
+
+    private final StubTransport transport = new StubTransport();
+
+    private TwitchPubSub pubSub;
+
+    @BeforeEach
+    public void setUp() {
+        pubSub = TwitchPubSubBuilder.builder().withWebSocketTransport(transport).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pubSub.close();
+    }
+
+    @Test
+    @DisplayName("Swaps in the replacement connection once all of its LISTEN requests were answered")
+    public void swap() throws InterruptedException {
+        StubSocket first = transport.socket(0);
+        pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.1");
+        pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.2");
+        assertNotNull(first.next(PubSubType.LISTEN));
+        assertNotNull(first.next(PubSubType.LISTEN));
+
+        first.deliver(RECONNECT);
+        StubSocket second = transport.await(1);
+        PubSubRequest a = second.next(PubSubType.LISTEN);
+        PubSubRequest b = second.next(PubSubType.LISTEN);
+        assertNotNull(a);
+        assertNotNull(b);
+
+        second.respond(a);
+        TimeUnit.MILLISECONDS.sleep(200L);
+        assertTrue(first.isOpen(), "swapped before all responses arrived");
+
+        second.respond(b);
+        assertTrue(first.awaitClosed());
+        assertTrue(second.isOpen());
+        assertEquals(2, transport.sockets.size());
+
+        pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.3");
+        assertEquals(Arrays.asList("following.3"), topicsOf(second.next(PubSubType.LISTEN)));
+    }
+
+    @Test
+    @DisplayName("Falls back to a regular reconnect when the replacement does not connect in time")
+    public void timeout() throws InterruptedException {
+        pubSub.setMigrationTimeout(Duration.ofMillis(250L));
+        StubSocket first = transport.socket(0);
+        pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.1");
+        assertNotNull(first.next(PubSubType.LISTEN));
+
+        transport.silence(1);
+        first.deliver(RECONNECT);
+        StubSocket second = transport.await(1);
+        assertNull(second.next(PubSubType.LISTEN, 100L));
+        assertTrue(first.isOpen());
+
+        StubSocket third = transport.await(2);
+        assertTrue(first.awaitClosed());
+        assertFalse(second.isOpen());
+        assertEquals(Arrays.asList("following.1"), topicsOf(third.next(PubSubType.LISTEN)));
+    }
+
+    @Test
+    @DisplayName("Reconciles topics that were added or removed while migrating")
+    public void reconcile() throws InterruptedException {
+        StubSocket first = transport.socket(0);
+        pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.1");
+        PubSubSubscription removed = pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.2");
+        assertNotNull(first.next(PubSubType.LISTEN));
+        assertNotNull(first.next(PubSubType.LISTEN));
+
+        first.deliver(RECONNECT);
+        StubSocket second = transport.await(1);
+        PubSubRequest a = second.next(PubSubType.LISTEN);
+        PubSubRequest b = second.next(PubSubType.LISTEN);
+        assertNotNull(a);
+        assertNotNull(b);
+
+        // the old connection remains active until the swap
+        pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.3");
+        assertTrue(pubSub.unsubscribeFromTopic(removed));
+        assertEquals(Arrays.asList("following.3"), topicsOf(first.next(PubSubType.LISTEN)));
+        assertEquals(Arrays.asList("following.2"), topicsOf(first.next(PubSubType.UNLISTEN)));
+
+        second.respond(a);
+        second.respond(b);
+        assertTrue(first.awaitClosed());
+        assertEquals(Arrays.asList("following.3"), topicsOf(second.next(PubSubType.LISTEN)));
+        assertEquals(Arrays.asList("following.2"), topicsOf(second.next(PubSubType.UNLISTEN)));
+        assertNull(second.next(PubSubType.LISTEN, 200L));
+    }
+
+    @Test
+    @DisplayName("Publishes messages that arrive on both connections only once")
+    public void dedupe() throws InterruptedException {
+        List<FollowingEvent> events = new CopyOnWriteArrayList<>();
+        pubSub.getEventManager().onEvent(FollowingEvent.class, events::add);
+
+        StubSocket first = transport.socket(0);
+        pubSub.listenOnTopic(PubSubType.LISTEN, CREDENTIAL, "following.1");
+        assertNotNull(first.next(PubSubType.LISTEN));
+
+        first.deliver(RECONNECT);
+        StubSocket second = transport.await(1);
+        PubSubRequest listen = second.next(PubSubType.LISTEN);
+        assertNotNull(listen);
+
+        first.deliver(follow("2"));
+        second.deliver(follow("2"));
+        second.deliver(follow("3"));
+        first.deliver(follow("3"));
+
+        second.respond(listen);
+        assertTrue(first.awaitClosed());
+        second.deliver(follow("2")); // still within the overlap after the swap
+        second.deliver(follow("4"));
+
+        TimeUnit.MILLISECONDS.sleep(200L);
+        assertEquals(3, events.size());
+        Set<String> followers = new HashSet<>();
+        events.forEach(e -> followers.add(e.getData().getUserId()));
+        assertEquals(new HashSet<>(Arrays.asList("2", "3", "4")), followers);
+    }
+
+    private static String follow(String userId) {
+        String message = "{\\\"display_name\\\":\\\"user" + userId + "\\\",\\\"username\\\":\\\"user" + userId + "\\\",\\\"user_id\\\":\\\"" + userId + "\\\"}";
+        return "{\"type\":\"MESSAGE\",\"data\":{\"topic\":\"following.1\",\"message\":\"" + message + "\"}}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> topicsOf(PubSubRequest request) {
+        assertNotNull(request);
+        return (List<String>) request.getData().get("topics");
+    }
+
+    /**
+     * In-memory transport that records the connections it creates, in the order of their creation.
+     */
+    private static final class StubTransport implements WebSocketTransport {
+        private final List<StubSocket> sockets = new CopyOnWriteArrayList<>();
+        private final Collection<Integer> silenced = new CopyOnWriteArrayList<>();
+
+        @Override
+        public WebSocketConnection create(String url, ProxyConfig proxyConfig, WebSocketListener listener) {
+            StubSocket socket = new StubSocket(listener, !silenced.contains(sockets.size()));
+            sockets.add(socket);
+            return socket;
+        }
+
+        /**
+         * Makes the connection with the given index never complete its connect.
+         */
+        private void silence(int index) {
+            silenced.add(index);
+        }
+
+        private StubSocket socket(int index) {
+            return sockets.get(index);
+        }
+
+        private StubSocket await(int index) throws InterruptedException {
+            for (int i = 0; i < 100 && sockets.size() <= index; i++)
+                TimeUnit.MILLISECONDS.sleep(50L);
+            assertTrue(sockets.size() > index, "connection " + index + " was never created");
+            return sockets.get(index);
+        }
+    }
+
+    private static final class StubSocket implements WebSocketConnection {
+        private final WebSocketListener listener;
+        private final boolean answering;
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private volatile boolean open;
+
+        private StubSocket(WebSocketListener listener, boolean answering) {
+            this.listener = listener;
+            this.answering = answering;
+        }
+
+        @Override
+        public void connect() {
+            if (answering) {
+                open = true;
+                listener.onConnected();
+            }
+        }
+
+        @Override
+        public boolean sendText(String text) {
+            return open && sent.add(text);
+        }
+
+        @Override
+        public void disconnect() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        private void deliver(String text) {
+            listener.onTextMessage(text);
+        }
+
+        private void respond(PubSubRequest request) {
+            deliver("{\"type\":\"RESPONSE\",\"nonce\":\"" + request.getNonce() + "\",\"error\":\"\"}");
+        }
+
+        private PubSubRequest next(PubSubType type) throws InterruptedException {
+            return next(type, 5000L);
+        }
+
+        /**
+         * @return the next request of the given type that was sent, skipping others such as PINGs, or null
+         */
+        private PubSubRequest next(PubSubType type, long timeoutMillis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            String text;
+            while ((text = sent.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) != null) {
+                PubSubRequest request = TypeConvert.jsonToObject(text, PubSubRequest.class);
+                if (request.getType() == type) return request;
+            }
+            return null;
+        }
+
+        private boolean awaitClosed() throws InterruptedException {
+            for (int i = 0; i < 100 && open; i++)
+                TimeUnit.MILLISECONDS.sleep(50L);
+            return !open;
+        }
+    }
+
+}
@@ -11,5 +11,6 @@ include(
 	"rest-tmi",
 	"pubsub",
 	"graphql",
-	"twitch4j"
+	"twitch4j",
+	"benchmarks"
 )
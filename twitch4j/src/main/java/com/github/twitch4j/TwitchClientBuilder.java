@@ -11,6 +11,7 @@ import com.github.twitch4j.chat.TwitchChat;
 import com.github.twitch4j.chat.TwitchChatBuilder;
 import com.github.twitch4j.common.config.ProxyConfig;
 import com.github.twitch4j.common.config.Twitch4JGlobal;
+import com.github.twitch4j.common.socket.WebSocketTransport;
 import com.github.twitch4j.common.util.EventManagerUtils;
 import com.github.twitch4j.common.util.ThreadUtils;
 import com.github.twitch4j.extensions.TwitchExtensions;
@@ -211,6 +212,12 @@ public class TwitchClientBuilder {
     @With
     private ProxyConfig proxyConfig = null;
 
+    /**
+     * WebSocket Transport for chat and pubsub connections
+     */
+    @With
+    private WebSocketTransport webSocketTransport = null;
+
     /**
      * you can overwrite the feign loglevel to print the full requests + responses if needed
      */
@@ -364,6 +371,7 @@ public class TwitchClientBuilder {
                 .withChatQueueTimeout(chatQueueTimeout)
                 .withCommandTriggers(commandPrefixes)
                 .withProxyConfig(proxyConfig)
+                .withWebSocketTransport(webSocketTransport)
                 .setBotOwnerIds(botOwnerIds)
                 .build();
         }
@@ -375,6 +383,7 @@ public class TwitchClientBuilder {
                 .withEventManager(eventManager)
                 .withScheduledThreadPoolExecutor(scheduledThreadPoolExecutor)
                 .withProxyConfig(proxyConfig)
+                .withWebSocketTransport(webSocketTransport)
                 .setBotOwnerIds(botOwnerIds)
                 .build();
         }
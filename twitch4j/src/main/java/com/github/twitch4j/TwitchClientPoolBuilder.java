@@ -13,6 +13,7 @@ import com.github.twitch4j.chat.TwitchChatBuilder;
 import com.github.twitch4j.chat.TwitchChatConnectionPool;
 import com.github.twitch4j.common.config.ProxyConfig;
 import com.github.twitch4j.common.config.Twitch4JGlobal;
+import com.github.twitch4j.common.socket.WebSocketTransport;
 import com.github.twitch4j.common.util.EventManagerUtils;
 import com.github.twitch4j.common.util.ThreadUtils;
 import com.github.twitch4j.extensions.TwitchExtensions;
@@ -232,6 +233,12 @@ public class TwitchClientPoolBuilder {
     @With
     private ProxyConfig proxyConfig = null;
 
+    /**
+     * WebSocket Transport for chat and pubsub connections
+     */
+    @With
+    private WebSocketTransport webSocketTransport = null;
+
     /**
      * you can overwrite the feign loglevel to print the full requests + responses if needed
      */
@@ -380,6 +387,7 @@ public class TwitchClientPoolBuilder {
                 .chatAccount(() -> chatAccount)
                 .executor(() -> scheduledThreadPoolExecutor)
                 .proxyConfig(() -> proxyConfig)
+                .webSocketTransport(webSocketTransport)
                 .maxSubscriptionsPerConnection(maxChannelsPerChatInstance)
                 .advancedConfiguration(builder ->
                     builder.withCredentialManager(credentialManager)
@@ -403,6 +411,7 @@ public class TwitchClientPoolBuilder {
                 .withChatQueueTimeout(chatQueueTimeout)
                 .withCommandTriggers(commandPrefixes)
                 .withProxyConfig(proxyConfig)
+                .withWebSocketTransport(webSocketTransport)
                 .setBotOwnerIds(botOwnerIds)
                 .build();
         }
@@ -414,6 +423,7 @@ public class TwitchClientPoolBuilder {
                 .eventManager(eventManager)
                 .executor(() -> scheduledThreadPoolExecutor)
                 .proxyConfig(() -> proxyConfig)
+                .webSocketTransport(webSocketTransport)
                 .advancedConfiguration(builder -> builder.setBotOwnerIds(botOwnerIds))
                 .build();
         } else if (this.enablePubSub) {
@@ -421,6 +431,7 @@ public class TwitchClientPoolBuilder {
                 .withEventManager(eventManager)
                 .withScheduledThreadPoolExecutor(scheduledThreadPoolExecutor)
                 .withProxyConfig(proxyConfig)
+                .withWebSocketTransport(webSocketTransport)
                 .setBotOwnerIds(botOwnerIds)
                 .build();
         }